@@ -37,6 +37,7 @@ import java.util.*;
 
 import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
 import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.ItemVisitor;
 import com.vividsolutions.jts.index.chain.*;
 import com.vividsolutions.jts.index.bintree.*;
 
@@ -44,6 +45,7 @@ import com.vividsolutions.jts.index.bintree.*;
  * Implements {@link PointInRing}
  * using {@link MonotoneChain}s and a {@link Bintree} index to
  * increase performance.
+ * The chains are stored in a {@link PackedMonotoneChains}.
  *
  * @version 1.7
  * 
@@ -51,22 +53,31 @@ import com.vividsolutions.jts.index.bintree.*;
  */
 public class MCPointInRing   implements PointInRing {
 
-  class MCSelecter extends MonotoneChainSelectAction
+  class MCSelecter implements ItemVisitor, PackedChainSelectAction
   {
     Coordinate p;
+    Envelope rayEnv;
 
     public MCSelecter(Coordinate p)
     {
       this.p = p;
+      // test all segments intersected by ray from pt in positive x direction
+      rayEnv = new Envelope(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, p.y, p.y);
     }
 
-    public void select(LineSegment ls)
+    public void visitItem(Object item)
     {
-      testLineSegment(p, ls);
+      chains.select(((Integer) item).intValue(), rayEnv, this);
+    }
+
+    public void select(Object context, Coordinate[] pts, int segIndex)
+    {
+      testLineSegment(p, pts[segIndex], pts[segIndex + 1]);
     }
   }
 
   private LinearRing ring;
+  private PackedMonotoneChains chains;
   private Bintree tree;
   private int crossings = 0;  // number of segment/ray crossings
 
@@ -82,14 +93,15 @@ public class MCPointInRing   implements PointInRing {
     tree = new Bintree();
 
     Coordinate[] pts = CoordinateArrays.removeRepeatedPoints(ring.getCoordinates());
-    List mcList = MonotoneChainBuilder.getChains(pts);
+    chains = new PackedMonotoneChains();
+    chains.add(pts, null);
 
-    for (int i = 0; i < mcList.size(); i++) {
-      MonotoneChain mc = (MonotoneChain) mcList.get(i);
-      Envelope mcEnv = mc.getEnvelope();
+    Envelope mcEnv = new Envelope();
+    for (int i = 0; i < chains.size(); i++) {
+      chains.getEnvelope(i, mcEnv);
       interval.min = mcEnv.getMinY();
       interval.max = mcEnv.getMaxY();
-      tree.insert(interval, mc);
+      tree.insert(interval, new Integer(i));
     }
   }
 
@@ -99,19 +111,9 @@ public class MCPointInRing   implements PointInRing {
   {
     crossings = 0;
 
-    // test all segments intersected by ray from pt in positive x direction
-    Envelope rayEnv = new Envelope(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, pt.y, pt.y);
-
     interval.min = pt.y;
     interval.max = pt.y;
-    List segs = tree.query(interval);
-//System.out.println("query size = " + segs.size());
-
-    MCSelecter mcSelecter = new MCSelecter(pt);
-    for (Iterator i = segs.iterator(); i.hasNext(); ) {
-      MonotoneChain mc = (MonotoneChain) i.next();
-      testMonotoneChain(rayEnv, mcSelecter, mc);
-    }
+    tree.query(interval, new MCSelecter(pt));
 
     /*
      *  p is inside if number of crossings is odd.
@@ -122,13 +124,7 @@ public class MCPointInRing   implements PointInRing {
     return false;
   }
 
-
-  private void testMonotoneChain(Envelope rayEnv, MCSelecter mcSelecter, MonotoneChain mc)
-  {
-    mc.select(rayEnv, mcSelecter);
-  }
-
-  private void testLineSegment(Coordinate p, LineSegment seg) {
+  private void testLineSegment(Coordinate p, Coordinate p1, Coordinate p2) {
     double xInt;  // x intersection of segment with ray
     double x1;    // translated coordinates
     double y1;
@@ -138,8 +134,6 @@ public class MCPointInRing   implements PointInRing {
     /*
      *  Test if segment crosses ray from test point in positive x direction.
      */
-    Coordinate p1 = seg.p0;
-    Coordinate p2 = seg.p1;
     x1 = p1.x - p.x;
     y1 = p1.y - p.y;
     x2 = p2.x - p.x;
@@ -82,6 +82,17 @@ public class EdgeNodingValidator
     nv = new FastNodingValidator(toSegmentStrings(edges));
   }
 
+  /**
+   * Checks whether the supplied edges
+   * are correctly noded.
+   * 
+   * @return true if the edges are correctly noded
+   */
+  public boolean isValid()
+  {
+    return nv.isValid();
+  }
+
   /**
    * Checks whether the supplied edges
    * are correctly noded.  Throws an exception if they are not.
@@ -0,0 +1,23 @@
+package com.vividsolutions.jts.index;
+
+/**
+ * An {@link ItemVisitor} which can signal that it does not need
+ * to visit any more items.
+ * All the indexes in this package and its subpackages check {@link #isDone()}
+ * after each item is visited by a visitor query,
+ * and stop the query traversal as soon as it returns <code>true</code>.
+ * This allows queries such as "does any item intersect?" to terminate
+ * on the first item found.
+ *
+ * @version 1.7
+ */
+public interface ShortCircuitedItemVisitor
+  extends ItemVisitor
+{
+  /**
+   * Reports whether the visitor has finished visiting items.
+   *
+   * @return true if no further items need to be visited
+   */
+  boolean isDone();
+}
@@ -69,6 +69,8 @@ public interface SpatialIndex
    * and applies an {@link ItemVisitor} to them.
    * Note that some kinds of indexes may also return objects which do not in fact
    * intersect the query envelope.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the query stops as soon as the visitor reports that it is done.
    *
    * @param searchEnv the envelope to query for
    * @param visitor a visitor object to apply to the items found
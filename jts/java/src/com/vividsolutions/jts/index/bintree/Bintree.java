@@ -39,6 +39,8 @@ import java.util.Iterator;
 import java.util.List;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
 
 /**
  * An <code>BinTree</code> (or "Binary Interval Tree")
@@ -202,6 +204,21 @@ if (newSize <= oldSize) {
     root.addAllItemsFromOverlapping(interval, foundItems);
   }
 
+  /**
+   * Queries the tree and visits items which potentially overlap the query interval,
+   * without creating a result list.
+   * If the query interval is <tt>null</tt>, all items in the tree are visited.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the query stops as soon as the visitor reports that it is done.
+   * 
+   * @param interval a query interval, or null
+   * @param visitor a visitor to apply to the candidate items found
+   */
+  public void query(Interval interval, ItemVisitor visitor)
+  {
+    root.visit(interval, visitor);
+  }
+
   private void collectStats(Interval interval)
   {
     double del = interval.getWidth();
@@ -38,6 +38,8 @@ import java.util.Collection;
 import java.util.List;
 
 import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
 
 
 /**
@@ -109,6 +111,47 @@ public abstract class NodeBase {
     if (subnode[1] != null) subnode[1].addAllItemsFromOverlapping(interval, resultItems);
   }
 
+  /**
+   * Visits items in the tree which potentially overlap the query interval.
+   * If the query interval is <tt>null</tt>, visits all items in the tree.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the traversal stops as soon as the visitor is done.
+   * 
+   * @param interval a query interval, or null
+   * @param visitor the visitor to apply to the items
+   */
+  public void visit(Interval interval, ItemVisitor visitor)
+  {
+    visitUntilDone(interval, visitor, 
+        (visitor instanceof ShortCircuitedItemVisitor) 
+          ? (ShortCircuitedItemVisitor) visitor : null);
+  }
+
+  /**
+   * @return false if the short-circuit visitor is done
+   */
+  boolean visitUntilDone(Interval interval, ItemVisitor visitor, 
+      ShortCircuitedItemVisitor scVisitor)
+  {
+    if (interval != null && ! isSearchMatch(interval))
+      return true;
+
+    // some of these may not actually overlap - this is allowed by the bintree contract
+    for (int i = 0; i < items.size(); i++) {
+      visitor.visitItem(items.get(i));
+      if (scVisitor != null && scVisitor.isDone())
+        return false;
+    }
+
+    for (int i = 0; i < 2; i++) {
+      if (subnode[i] != null) {
+        if (! subnode[i].visitUntilDone(interval, visitor, scVisitor))
+          return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Removes a single item from this subtree.
    *
@@ -85,16 +85,17 @@ public class MonotoneChainBuilder {
   {
     // find the startpoint (and endpoints) of all monotone chains in this edge
     int start = 0;
-    List startIndexList = new ArrayList();
-    startIndexList.add(new Integer(start));
+    int[] startIndex = new int[8];
+    int count = 0;
+    startIndex[count++] = start;
     do {
       int last = findChainEnd(pts, start);
-      startIndexList.add(new Integer(last));
+      if (count == startIndex.length)
+        startIndex = Arrays.copyOf(startIndex, 2 * count);
+      startIndex[count++] = last;
       start = last;
     } while (start < pts.length - 1);
-    // copy list to an array of ints, for efficiency
-    int[] startIndex = toIntArray(startIndexList);
-    return startIndex;
+    return Arrays.copyOf(startIndex, count);
   }
 
   /**
@@ -106,7 +107,7 @@ public class MonotoneChainBuilder {
    * @return the index of the last point in the monotone chain 
    * starting at <code>start</code>.
    */
-  private static int findChainEnd(Coordinate[] pts, int start)
+  static int findChainEnd(Coordinate[] pts, int start)
   {
   	int safeStart = start;
   	// skip any zero-length segments at the start of the sequence
@@ -0,0 +1,20 @@
+package com.vividsolutions.jts.index.chain;
+
+/**
+ * The action for the internal iterator for performing
+ * overlap queries on the chains of a {@link PackedMonotoneChains}.
+ *
+ * @version 1.7
+ */
+public interface PackedChainOverlapAction
+{
+  /**
+   * Processes a pair of segments whose envelopes may overlap.
+   *
+   * @param context1 the context of the line containing the first segment
+   * @param segIndex1 the index of the start of the first segment in its line
+   * @param context2 the context of the line containing the second segment
+   * @param segIndex2 the index of the start of the second segment in its line
+   */
+  void overlap(Object context1, int segIndex1, Object context2, int segIndex2);
+}
@@ -0,0 +1,21 @@
+package com.vividsolutions.jts.index.chain;
+
+import com.vividsolutions.jts.geom.Coordinate;
+
+/**
+ * The action for the internal iterator for performing
+ * envelope select queries on the chains of a {@link PackedMonotoneChains}.
+ *
+ * @version 1.7
+ */
+public interface PackedChainSelectAction
+{
+  /**
+   * Processes a segment whose envelope may intersect the search envelope.
+   *
+   * @param context the context of the line containing the segment
+   * @param pts the points of the line containing the segment
+   * @param segIndex the index of the start of the segment in <code>pts</code>
+   */
+  void select(Object context, Coordinate[] pts, int segIndex);
+}
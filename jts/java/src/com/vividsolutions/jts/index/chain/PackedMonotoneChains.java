@@ -0,0 +1,252 @@
+package com.vividsolutions.jts.index.chain;
+
+import java.util.Arrays;
+
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * A set of {@link MonotoneChain}s for a collection of lines,
+ * stored in packed arrays rather than as individual objects.
+ * Each chain is identified by its index in the set.
+ * The line and the start and end point indices of each chain
+ * are held in <tt>int</tt> arrays, and the chain envelopes
+ * in a single <tt>double</tt> array.
+ * So adding a line allocates no objects
+ * (apart from occasionally growing the arrays).
+ * <p>
+ * The chains support the same queries as {@link MonotoneChain}:
+ * <ul>
+ * <li>Envelope select: determine all the segments in a chain which
+ * may intersect a given envelope
+ * <li>Overlap: determine all the pairs of segments in two chains whose
+ * envelopes may overlap
+ * </ul>
+ * The queries test the envelopes of subchains using the chain points directly,
+ * so they do not allocate any objects either.
+ * Unlike {@link MonotoneChain}, the queries are thread-safe
+ * (provided the actions are).
+ * <p>
+ * The chain indices can be used as the items of a spatial index
+ * built using the chain envelopes.
+ *
+ * @version 1.7
+ */
+public class PackedMonotoneChains
+{
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int lineCount = 0;
+  private Coordinate[][] linePts = new Coordinate[INITIAL_CAPACITY][];
+  private Object[] lineContext = new Object[INITIAL_CAPACITY];
+
+  private int chainCount = 0;
+  private int[] chainLine = new int[INITIAL_CAPACITY];
+  private int[] chainStart = new int[INITIAL_CAPACITY];
+  private int[] chainEnd = new int[INITIAL_CAPACITY];
+  /**
+   * The chain envelopes, stored as (minx, miny, maxx, maxy) quadruples.
+   */
+  private double[] chainBounds = new double[4 * INITIAL_CAPACITY];
+
+  public PackedMonotoneChains()
+  {
+  }
+
+  /**
+   * Adds the monotone chains for a line.
+   * The chains are given the next available indices.
+   *
+   * @param pts the points of the line
+   * @param context user-defined information for the line
+   */
+  public void add(Coordinate[] pts, Object context)
+  {
+    if (lineCount == linePts.length) {
+      linePts = (Coordinate[][]) Arrays.copyOf(linePts, 2 * lineCount);
+      lineContext = Arrays.copyOf(lineContext, 2 * lineCount);
+    }
+    int line = lineCount++;
+    linePts[line] = pts;
+    lineContext[line] = context;
+
+    // find the startpoint (and endpoints) of all monotone chains in this line
+    int start = 0;
+    do {
+      int last = MonotoneChainBuilder.findChainEnd(pts, start);
+      addChain(line, start, last);
+      start = last;
+    } while (start < pts.length - 1);
+  }
+
+  private void addChain(int line, int start, int end)
+  {
+    if (chainCount == chainLine.length) {
+      chainLine = Arrays.copyOf(chainLine, 2 * chainCount);
+      chainStart = Arrays.copyOf(chainStart, 2 * chainCount);
+      chainEnd = Arrays.copyOf(chainEnd, 2 * chainCount);
+      chainBounds = Arrays.copyOf(chainBounds, 8 * chainCount);
+    }
+    int chain = chainCount++;
+    chainLine[chain] = line;
+    chainStart[chain] = start;
+    chainEnd[chain] = end;
+
+    // the envelope of a monotone chain is the envelope of its endpoints
+    Coordinate p0 = linePts[line][start];
+    Coordinate p1 = linePts[line][end];
+    int i = 4 * chain;
+    chainBounds[i] = Math.min(p0.x, p1.x);
+    chainBounds[i + 1] = Math.min(p0.y, p1.y);
+    chainBounds[i + 2] = Math.max(p0.x, p1.x);
+    chainBounds[i + 3] = Math.max(p0.y, p1.y);
+  }
+
+  /**
+   * Gets the number of chains in the set.
+   *
+   * @return the number of chains
+   */
+  public int size() { return chainCount; }
+
+  /**
+   * Gets the context of the line containing a chain.
+   */
+  public Object getContext(int chain) { return lineContext[chainLine[chain]]; }
+
+  /**
+   * Gets the points of the line containing a chain.
+   */
+  public Coordinate[] getLineCoordinates(int chain) { return linePts[chainLine[chain]]; }
+
+  public int getStartIndex(int chain) { return chainStart[chain]; }
+  public int getEndIndex(int chain) { return chainEnd[chain]; }
+
+  /**
+   * Sets an envelope to the envelope of a chain.
+   *
+   * @param chain the index of the chain
+   * @param env the envelope to set
+   * @return the envelope
+   */
+  public Envelope getEnvelope(int chain, Envelope env)
+  {
+    int i = 4 * chain;
+    env.init(chainBounds[i], chainBounds[i + 2], chainBounds[i + 1], chainBounds[i + 3]);
+    return env;
+  }
+
+  /**
+   * Determine all the line segments in a chain whose envelopes may overlap
+   * the searchEnvelope, and process them.
+   * As with {@link MonotoneChain#select(Envelope, MonotoneChainSelectAction)},
+   * the select action may be called on segments which do not
+   * intersect the search envelope.
+   *
+   * @param chain the index of the chain
+   * @param searchEnv the search envelope
+   * @param action the select action to execute on selected segments
+   */
+  public void select(int chain, Envelope searchEnv, PackedChainSelectAction action)
+  {
+    int line = chainLine[chain];
+    computeSelect(searchEnv, linePts[line], chainStart[chain], chainEnd[chain],
+        lineContext[line], action);
+  }
+
+  private static void computeSelect(
+    Envelope searchEnv,
+    Coordinate[] pts, int start0, int end0,
+    Object context,
+    PackedChainSelectAction action)
+  {
+    // terminating condition for the recursion
+    if (end0 - start0 == 1) {
+      action.select(context, pts, start0);
+      return;
+    }
+    // nothing to do if the envelopes don't overlap
+    Coordinate p0 = pts[start0];
+    Coordinate p1 = pts[end0];
+    if (searchEnv.getMinX() > Math.max(p0.x, p1.x)
+        || searchEnv.getMaxX() < Math.min(p0.x, p1.x)
+        || searchEnv.getMinY() > Math.max(p0.y, p1.y)
+        || searchEnv.getMaxY() < Math.min(p0.y, p1.y))
+      return;
+
+    // the chains overlap, so split each in half and iterate  (binary search)
+    int mid = (start0 + end0) / 2;
+
+    // Assert: mid != start or end (since we checked above for end - start <= 1)
+    // check terminating conditions before recursing
+    if (start0 < mid) {
+      computeSelect(searchEnv, pts, start0, mid, context, action);
+    }
+    if (mid < end0) {
+      computeSelect(searchEnv, pts, mid, end0, context, action);
+    }
+  }
+
+  /**
+   * Determine all the line segments in two chains which may overlap, and process them.
+   * As with {@link MonotoneChain#computeOverlaps(MonotoneChain, MonotoneChainOverlapAction)},
+   * the overlap action may be called on segments which do not actually interact.
+   *
+   * @param chain the index of a chain in this set
+   * @param other the set containing the other chain (which may be this set)
+   * @param otherChain the index of the other chain
+   * @param action the overlap action to execute on overlapping segments
+   */
+  public void computeOverlaps(int chain, PackedMonotoneChains other, int otherChain,
+      PackedChainOverlapAction action)
+  {
+    int line0 = chainLine[chain];
+    int line1 = other.chainLine[otherChain];
+    computeOverlaps(
+        linePts[line0], chainStart[chain], chainEnd[chain],
+        other.linePts[line1], other.chainStart[otherChain], other.chainEnd[otherChain],
+        lineContext[line0], other.lineContext[line1], action);
+  }
+
+  private static void computeOverlaps(
+    Coordinate[] pts0, int start0, int end0,
+    Coordinate[] pts1, int start1, int end1,
+    Object context0, Object context1,
+    PackedChainOverlapAction action)
+  {
+    // terminating condition for the recursion
+    if (end0 - start0 == 1 && end1 - start1 == 1) {
+      action.overlap(context0, start0, context1, start1);
+      return;
+    }
+    // nothing to do if the envelopes of these chains don't overlap
+    if (! envelopesIntersect(pts0[start0], pts0[end0], pts1[start1], pts1[end1]))
+      return;
+
+    // the chains overlap, so split each in half and iterate  (binary search)
+    int mid0 = (start0 + end0) / 2;
+    int mid1 = (start1 + end1) / 2;
+
+    // Assert: mid != start or end (since we checked above for end - start <= 1)
+    // check terminating conditions before recursing
+    if (start0 < mid0) {
+      if (start1 < mid1) computeOverlaps(pts0, start0, mid0, pts1, start1,  mid1, context0, context1, action);
+      if (mid1 < end1)   computeOverlaps(pts0, start0, mid0, pts1, mid1,    end1, context0, context1, action);
+    }
+    if (mid0 < end0) {
+      if (start1 < mid1) computeOverlaps(pts0, mid0,   end0, pts1, start1,  mid1, context0, context1, action);
+      if (mid1 < end1)   computeOverlaps(pts0, mid0,   end0, pts1, mid1,    end1, context0, context1, action);
+    }
+  }
+
+  /**
+   * Tests whether the envelopes defined by two pairs of points intersect.
+   */
+  private static boolean envelopesIntersect(Coordinate p00, Coordinate p01,
+      Coordinate p10, Coordinate p11)
+  {
+    return ! (Math.min(p10.x, p11.x) > Math.max(p00.x, p01.x)
+        || Math.max(p10.x, p11.x) < Math.min(p00.x, p01.x)
+        || Math.min(p10.y, p11.y) > Math.max(p00.y, p01.y)
+        || Math.max(p10.y, p11.y) < Math.min(p00.y, p01.y));
+  }
+}
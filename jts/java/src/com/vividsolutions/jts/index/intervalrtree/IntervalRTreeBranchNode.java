@@ -53,15 +53,19 @@ extends IntervalRTreeNode
 		max = Math.max(n1.max, n2.max);
 	}
 	
-	public void query(double queryMin, double queryMax, ItemVisitor visitor)
+	boolean query(double queryMin, double queryMax, ItemVisitor visitor,
+			ShortCircuitedItemVisitor scVisitor)
 	{
 		if (! intersects(queryMin, queryMax)) {
 //			System.out.println("Does NOT Overlap branch: " + this);
-			return;
+			return true;
 		}
 //		System.out.println("Overlaps branch: " + this);
-		if (node1 != null) node1.query(queryMin, queryMax, visitor);
-		if (node2 != null) node2.query(queryMin, queryMax, visitor);
+		if (node1 != null && ! node1.query(queryMin, queryMax, visitor, scVisitor)) 
+			return false;
+		if (node2 != null && ! node2.query(queryMin, queryMax, visitor, scVisitor)) 
+			return false;
+		return true;
 	}
 	
 }
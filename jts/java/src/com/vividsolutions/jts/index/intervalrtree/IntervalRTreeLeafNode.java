@@ -46,12 +46,14 @@ extends IntervalRTreeNode
 		this.item = item;
 	}
 	
-	public void query(double queryMin, double queryMax, ItemVisitor visitor)
+	boolean query(double queryMin, double queryMax, ItemVisitor visitor,
+			ShortCircuitedItemVisitor scVisitor)
 	{
 		if (! intersects(queryMin, queryMax)) 
-      return;
+      return true;
 		
 		visitor.visitItem(item);
+		return scVisitor == null || ! scVisitor.isDone();
 	}
 
 	
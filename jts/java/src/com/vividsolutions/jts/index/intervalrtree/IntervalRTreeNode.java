@@ -46,7 +46,21 @@ public abstract class IntervalRTreeNode
 	public double getMin() { return min; }
 	public double getMax() { return max; }
 	
-	public abstract void query(double queryMin, double queryMax, ItemVisitor visitor);
+	public void query(double queryMin, double queryMax, ItemVisitor visitor)
+	{
+		query(queryMin, queryMax, visitor,
+				(visitor instanceof ShortCircuitedItemVisitor) 
+					? (ShortCircuitedItemVisitor) visitor : null);
+	}
+	
+	/**
+	 * Visits the items in this subtree which intersect the query interval,
+	 * stopping if the short-circuit visitor (if any) is done.
+	 * 
+	 * @return false if the short-circuit visitor is done
+	 */
+	abstract boolean query(double queryMin, double queryMax, ItemVisitor visitor,
+			ShortCircuitedItemVisitor scVisitor);
 	
 	protected boolean intersects(double queryMin, double queryMax)
 	{
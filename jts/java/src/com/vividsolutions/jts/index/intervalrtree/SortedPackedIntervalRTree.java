@@ -137,6 +137,8 @@ public class SortedPackedIntervalRTree
   /**
    * Search for intervals in the index which intersect the given closed interval
    * and apply the visitor to them.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the query stops as soon as the visitor reports that it is done.
    * 
    * @param min the lower bound of the query interval
    * @param max the upper bound of the query interval
@@ -0,0 +1,570 @@
+package com.vividsolutions.jts.index.kdtree;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * A balanced 2-D KD-Tree over point coordinates,
+ * built in bulk and stored in primitive arrays.
+ * <p>
+ * The tree is built from an array of packed (x, y) ordinates
+ * by recursively splitting the points at the median of alternating axes.
+ * This produces a balanced tree regardless of the input order
+ * (in contrast to {@link KdTree}, which degenerates for sorted input).
+ * No node or coordinate objects are created; the tree is implicit in the
+ * order of the point arrays, and points are referred to by their node index
+ * (in the range [0, {@link #size()})).
+ * <p>
+ * As with {@link KdTree}, points which lie within a given tolerance
+ * of a point already loaded are snapped to it:
+ * only the first of the points is stored,
+ * and its count is incremented instead.
+ * Points are processed in input order.
+ * With a tolerance of 0.0, only exactly coincident points are merged.
+ * <p>
+ * The tree supports range, radius and k-nearest-neighbour queries.
+ * Points may be removed; removed points are marked as deleted
+ * and are no longer returned by queries, but the tree structure
+ * is not changed.
+ *
+ * @see KdTree
+ */
+public class PackedKdTree
+{
+	private static final int[] EMPTY = new int[0];
+
+	private double tolerance;
+	private int size;
+	private double[] x;
+	private double[] y;
+	private int[] count;
+	private Object[] data;
+	private boolean[] isDeleted;
+	private int deletedCount = 0;
+
+	/**
+	 * Creates a new tree containing the given points,
+	 * with a snapping tolerance of 0.0.
+	 *
+	 * @param coords
+	 *          the points, as packed (x, y) ordinates
+	 */
+	public PackedKdTree(double[] coords) {
+		this(coords, null, 0.0);
+	}
+
+	/**
+	 * Creates a new tree containing the given points.
+	 * Points which lie closer than the tolerance to a point already
+	 * in the tree will be treated as identical to the existing point.
+	 *
+	 * @param coords
+	 *          the points, as packed (x, y) ordinates
+	 * @param data
+	 *          the data items for the points, or null
+	 * @param tolerance
+	 *          the tolerance distance for considering two points equal
+	 */
+	public PackedKdTree(double[] coords, Object[] data, double tolerance) {
+		this.tolerance = tolerance;
+		load(coords, data);
+		build(0, size, 0);
+	}
+
+	/**
+	 * Gets the number of distinct points in the tree
+	 * (including deleted ones).
+	 * Points have node indices in the range [0, size()).
+	 *
+	 * @return the number of nodes in the tree
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of points in the tree which have not been deleted.
+	 *
+	 * @return the number of undeleted nodes
+	 */
+	public int getLiveCount() {
+		return size - deletedCount;
+	}
+
+	public double getX(int node) {
+		return x[node];
+	}
+
+	public double getY(int node) {
+		return y[node];
+	}
+
+	/**
+	 * Gets the number of input points which were snapped to a node.
+	 *
+	 * @param node the node index
+	 * @return the count of points for the node
+	 */
+	public int getCount(int node) {
+		return count[node];
+	}
+
+	/**
+	 * Gets the data item of the first point snapped to a node.
+	 *
+	 * @param node the node index
+	 * @return the data item for the node, or null
+	 */
+	public Object getData(int node) {
+		if (data == null)
+			return null;
+		return data[node];
+	}
+
+	public boolean isDeleted(int node) {
+		return isDeleted[node];
+	}
+
+	/**
+	 * Removes the point nearest to the given location,
+	 * if it lies within the tolerance distance.
+	 *
+	 * @return the index of the removed node, or -1 if no point was found
+	 */
+	public int remove(double px, double py) {
+		int[] nearest = nearestNeighbours(px, py, 1, tolerance);
+		if (nearest.length == 0)
+			return -1;
+		isDeleted[nearest[0]] = true;
+		deletedCount++;
+		return nearest[0];
+	}
+
+	/**
+	 * Performs a range search of the points in the index.
+	 *
+	 * @param queryEnv
+	 *          the range rectangle to query
+	 * @return the indices of the nodes found
+	 */
+	public int[] query(Envelope queryEnv) {
+		IntList result = new IntList();
+		queryNode(0, size, 0, queryEnv, result);
+		return result.toArray();
+	}
+
+	private void queryNode(int lo, int hi, int axis, Envelope queryEnv, IntList result) {
+		while (lo < hi) {
+			int m = (lo + hi) >>> 1;
+			double discriminant;
+			double min;
+			double max;
+			if (axis == 0) {
+				discriminant = x[m];
+				min = queryEnv.getMinX();
+				max = queryEnv.getMaxX();
+			} else {
+				discriminant = y[m];
+				min = queryEnv.getMinY();
+				max = queryEnv.getMaxY();
+			}
+			if (min <= discriminant) {
+				queryNode(lo, m, 1 - axis, queryEnv, result);
+			}
+			if (!isDeleted[m] && queryEnv.contains(x[m], y[m])) {
+				result.add(m);
+			}
+			if (max < discriminant)
+				return;
+			// search right side iteratively
+			lo = m + 1;
+			axis = 1 - axis;
+		}
+	}
+
+	/**
+	 * Finds the points which lie within a given distance of a location.
+	 *
+	 * @return the indices of the nodes found
+	 */
+	public int[] queryRadius(double px, double py, double radius) {
+		IntList result = new IntList();
+		queryRadius(0, size, 0, px, py, radius, radius * radius, result);
+		return result.toArray();
+	}
+
+	private void queryRadius(int lo, int hi, int axis, double px, double py,
+			double radius, double radiusSq, IntList result) {
+		while (lo < hi) {
+			int m = (lo + hi) >>> 1;
+			double delta = axis == 0 ? px - x[m] : py - y[m];
+			if (delta <= radius) {
+				queryRadius(lo, m, 1 - axis, px, py, radius, radiusSq, result);
+			}
+			if (!isDeleted[m] && isWithinDistance(distanceSq(m, px, py), radius, radiusSq)) {
+				result.add(m);
+			}
+			if (delta < -radius)
+				return;
+			lo = m + 1;
+			axis = 1 - axis;
+		}
+	}
+
+	/**
+	 * Finds the k points nearest to a location.
+	 *
+	 * @return the indices of the nodes found, in order of increasing distance
+	 */
+	public int[] nearestNeighbours(double px, double py, int k) {
+		return nearestNeighbours(px, py, k, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Finds the k points nearest to a location
+	 * which lie within a maximum distance of it.
+	 *
+	 * @return the indices of the nodes found, in order of increasing distance
+	 */
+	public int[] nearestNeighbours(double px, double py, int k, double maxDistance) {
+		if (k <= 0)
+			return EMPTY;
+		NearestHeap heap = new NearestHeap(k, maxDistance);
+		nearest(0, size, 0, px, py, heap);
+		return heap.toSortedArray();
+	}
+
+	private void nearest(int lo, int hi, int axis, double px, double py,
+			NearestHeap heap) {
+		if (lo >= hi)
+			return;
+		int m = (lo + hi) >>> 1;
+		if (!isDeleted[m]) {
+			heap.add(m, distanceSq(m, px, py));
+		}
+		double delta = axis == 0 ? px - x[m] : py - y[m];
+		// search the side containing the point first
+		if (delta < 0) {
+			nearest(lo, m, 1 - axis, px, py, heap);
+			if (delta * delta <= heap.bound())
+				nearest(m + 1, hi, 1 - axis, px, py, heap);
+		} else {
+			nearest(m + 1, hi, 1 - axis, px, py, heap);
+			if (delta * delta <= heap.bound())
+				nearest(lo, m, 1 - axis, px, py, heap);
+		}
+	}
+
+	/**
+	 * Tests whether a squared distance is within a distance.
+	 * The square root is only computed if the squared values are 
+	 * too close to compare reliably.
+	 */
+	private static boolean isWithinDistance(double distSq, double dist, double maxDistSq) {
+		if (distSq <= maxDistSq)
+			return true;
+		if (distSq > maxDistSq * (1 + 1e-12))
+			return false;
+		return Math.sqrt(distSq) <= dist;
+	}
+
+	private double distanceSq(int node, double px, double py) {
+		double dx = x[node] - px;
+		double dy = y[node] - py;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Loads the input points into the point arrays,
+	 * merging points which lie within the tolerance of an earlier point.
+	 */
+	private void load(double[] coords, Object[] inputData) {
+		int n = coords.length / 2;
+		x = new double[n];
+		y = new double[n];
+		count = new int[n];
+		if (inputData != null)
+			data = new Object[n];
+
+		SnapGrid grid = new SnapGrid(n);
+		size = 0;
+		for (int i = 0; i < n; i++) {
+			double px = coords[2 * i];
+			double py = coords[2 * i + 1];
+			int existing = grid.find(px, py);
+			if (existing >= 0) {
+				count[existing]++;
+				continue;
+			}
+			x[size] = px;
+			y[size] = py;
+			count[size] = 1;
+			if (inputData != null)
+				data[size] = inputData[i];
+			grid.add(size);
+			size++;
+		}
+		if (size < n) {
+			x = trim(x, size);
+			y = trim(y, size);
+			int[] newCount = new int[size];
+			System.arraycopy(count, 0, newCount, 0, size);
+			count = newCount;
+			if (data != null) {
+				Object[] newData = new Object[size];
+				System.arraycopy(data, 0, newData, 0, size);
+				data = newData;
+			}
+		}
+		isDeleted = new boolean[size];
+	}
+
+	private static double[] trim(double[] values, int size) {
+		double[] trimmed = new double[size];
+		System.arraycopy(values, 0, trimmed, 0, size);
+		return trimmed;
+	}
+
+	/**
+	 * Builds the subtree for a range of points,
+	 * by placing the median point (on the given axis) in the middle of the range
+	 * and building the subtrees for the two halves.
+	 */
+	private void build(int lo, int hi, int axis) {
+		while (hi - lo > 1) {
+			int m = (lo + hi) >>> 1;
+			select(lo, hi - 1, m, axis == 0 ? x : y);
+			build(lo, m, 1 - axis);
+			lo = m + 1;
+			axis = 1 - axis;
+		}
+	}
+
+	/**
+	 * Partially sorts a range of the points so that the point at index k
+	 * has the k'th smallest key, all points before it have smaller or equal keys
+	 * and all points after it have greater or equal keys.
+	 * (Wirth's selection algorithm)
+	 */
+	private void select(int l, int r, int k, double[] key) {
+		while (l < r) {
+			double pivot = key[k];
+			int i = l;
+			int j = r;
+			do {
+				while (key[i] < pivot) i++;
+				while (pivot < key[j]) j--;
+				if (i <= j) {
+					swap(i, j);
+					i++;
+					j--;
+				}
+			} while (i <= j);
+			if (j < k) l = i;
+			if (k < i) r = j;
+		}
+	}
+
+	private void swap(int i, int j) {
+		double tx = x[i];
+		x[i] = x[j];
+		x[j] = tx;
+		double ty = y[i];
+		y[i] = y[j];
+		y[j] = ty;
+		int tc = count[i];
+		count[i] = count[j];
+		count[j] = tc;
+		if (data != null) {
+			Object td = data[i];
+			data[i] = data[j];
+			data[j] = td;
+		}
+	}
+
+	/**
+	 * A hash grid over the points loaded so far,
+	 * used to find points within the snapping tolerance.
+	 * The grid cell size is the tolerance, so a snapping point
+	 * must lie in one of the 9 cells around the point.
+	 * If the tolerance is 0, each distinct coordinate is a cell.
+	 */
+	private class SnapGrid {
+		private long[] cellKey;
+		private int[] cellHead;
+		private int[] next;
+		private int mask;
+
+		SnapGrid(int n) {
+			int capacity = 16;
+			while (capacity < 2 * n) capacity <<= 1;
+			cellKey = new long[capacity];
+			cellHead = new int[capacity];
+			java.util.Arrays.fill(cellHead, -1);
+			next = new int[n];
+			mask = capacity - 1;
+		}
+
+		private long key(double px, double py) {
+			if (tolerance > 0.0) {
+				long cx = (long) Math.floor(px / tolerance);
+				long cy = (long) Math.floor(py / tolerance);
+				return cellKey(cx, cy);
+			}
+			return cellKey(Double.doubleToLongBits(px), Double.doubleToLongBits(py));
+		}
+
+		private long cellKey(long cx, long cy) {
+			return cx * 0x9E3779B97F4A7C15L + cy;
+		}
+
+		private int slot(long key) {
+			long h = key * 0xC2B2AE3D27D4EB4FL;
+			int slot = (int) (h ^ (h >>> 32)) & mask;
+			while (cellHead[slot] >= 0 && cellKey[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+
+		void add(int node) {
+			int slot = slot(key(x[node], y[node]));
+			cellKey[slot] = key(x[node], y[node]);
+			next[node] = cellHead[slot];
+			cellHead[slot] = node;
+		}
+
+		/**
+		 * Finds the nearest point within the tolerance.
+		 *
+		 * @return the point index, or -1 if there is none
+		 */
+		int find(double px, double py) {
+			if (tolerance <= 0.0)
+				return findInCell(key(px, py), px, py, -1, 0.0);
+			long cx = (long) Math.floor(px / tolerance);
+			long cy = (long) Math.floor(py / tolerance);
+			int best = -1;
+			double bestDistSq = tolerance * tolerance;
+			for (long i = cx - 1; i <= cx + 1; i++) {
+				for (long j = cy - 1; j <= cy + 1; j++) {
+					int found = findInCell(cellKey(i, j), px, py, best, bestDistSq);
+					if (found != best) {
+						best = found;
+						bestDistSq = distanceSq(found, px, py);
+					}
+				}
+			}
+			return best;
+		}
+
+		private int findInCell(long key, double px, double py, int best, double bestDistSq) {
+			int slot = slot(key);
+			for (int node = cellHead[slot]; node >= 0; node = next[node]) {
+				double distSq = distanceSq(node, px, py);
+				if (distSq < bestDistSq || (best < 0 && distSq <= bestDistSq)) {
+					best = node;
+					bestDistSq = distSq;
+				}
+			}
+			return best;
+		}
+	}
+
+	/**
+	 * A bounded max-heap of the nearest nodes found so far.
+	 */
+	private static class NearestHeap {
+		private int[] nodes;
+		private double[] distSq;
+		private int size = 0;
+		private double maxDist;
+		private double maxDistSq;
+
+		NearestHeap(int k, double maxDist) {
+			nodes = new int[k];
+			distSq = new double[k];
+			this.maxDist = maxDist;
+			maxDistSq = maxDist * maxDist;
+		}
+
+		/**
+		 * Gets the squared distance a node must be within
+		 * to be added to the heap.
+		 */
+		double bound() {
+			if (size < nodes.length)
+				return maxDistSq;
+			return distSq[0];
+		}
+
+		void add(int node, double d) {
+			if (size < nodes.length) {
+				if (!isWithinDistance(d, maxDist, maxDistSq))
+					return;
+				int hole = size++;
+				while (hole > 0) {
+					int parent = (hole - 1) / 2;
+					if (distSq[parent] >= d) break;
+					nodes[hole] = nodes[parent];
+					distSq[hole] = distSq[parent];
+					hole = parent;
+				}
+				nodes[hole] = node;
+				distSq[hole] = d;
+				return;
+			}
+			if (d >= distSq[0])
+				return;
+			siftDown(node, d, size);
+		}
+
+		private void siftDown(int node, double d, int n) {
+			int hole = 0;
+			while (true) {
+				int child = 2 * hole + 1;
+				if (child >= n) break;
+				if (child + 1 < n && distSq[child + 1] > distSq[child])
+					child++;
+				if (distSq[child] <= d) break;
+				nodes[hole] = nodes[child];
+				distSq[hole] = distSq[child];
+				hole = child;
+			}
+			nodes[hole] = node;
+			distSq[hole] = d;
+		}
+
+		int[] toSortedArray() {
+			int[] result = new int[size];
+			for (int n = size; n > 0; n--) {
+				result[n - 1] = nodes[0];
+				if (n > 1)
+					siftDown(nodes[n - 1], distSq[n - 1], n - 1);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * A growable list of int values.
+	 */
+	private static class IntList {
+		private int[] values = new int[16];
+		private int size = 0;
+
+		void add(int value) {
+			if (size == values.length) {
+				int[] newValues = new int[2 * size];
+				System.arraycopy(values, 0, newValues, 0, size);
+				values = newValues;
+			}
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			int[] result = new int[size];
+			System.arraycopy(values, 0, result, 0, size);
+			return result;
+		}
+	}
+}
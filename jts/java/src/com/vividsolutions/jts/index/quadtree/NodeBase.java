@@ -187,7 +187,10 @@ public abstract class NodeBase {
 
     // this node may have items as well as subnodes (since items may not
     // be wholely contained in any single subnode
-    resultItems.addAll(items);
+    // (items are added individually to avoid copying the item list)
+    for (int i = 0; i < items.size(); i++) {
+      resultItems.add(items.get(i));
+    }
 
     for (int i = 0; i < 4; i++) {
       if (subnode[i] != null) {
@@ -196,28 +199,55 @@ public abstract class NodeBase {
     }
   }
 
+  /**
+   * Visits the items in this subtree which may intersect the search envelope.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the traversal stops as soon as the visitor is done.
+   *
+   * @param searchEnv the search envelope
+   * @param visitor the visitor to apply to the items
+   */
   public void visit(Envelope searchEnv, ItemVisitor visitor)
+  {
+    visitUntilDone(searchEnv, visitor, 
+        (visitor instanceof ShortCircuitedItemVisitor) 
+          ? (ShortCircuitedItemVisitor) visitor : null);
+  }
+
+  /**
+   * @return false if the short-circuit visitor is done
+   */
+  boolean visitUntilDone(Envelope searchEnv, ItemVisitor visitor, 
+      ShortCircuitedItemVisitor scVisitor)
   {
     if (! isSearchMatch(searchEnv))
-      return;
+      return true;
 
     // this node may have items as well as subnodes (since items may not
     // be wholely contained in any single subnode
-    visitItems(searchEnv, visitor);
+    if (! visitItems(searchEnv, visitor, scVisitor))
+      return false;
 
     for (int i = 0; i < 4; i++) {
       if (subnode[i] != null) {
-        subnode[i].visit(searchEnv, visitor);
+        if (! subnode[i].visitUntilDone(searchEnv, visitor, scVisitor))
+          return false;
       }
     }
+    return true;
   }
 
-  private void visitItems(Envelope searchEnv, ItemVisitor visitor)
+  private boolean visitItems(Envelope searchEnv, ItemVisitor visitor, 
+      ShortCircuitedItemVisitor scVisitor)
   {
     // would be nice to filter items based on search envelope, but can't until they contain an envelope
-    for (Iterator i = items.iterator(); i.hasNext(); ) {
-      visitor.visitItem(i.next());
+    // (items are accessed by index to avoid allocating an iterator)
+    for (int i = 0; i < items.size(); i++) {
+      visitor.visitItem(items.get(i));
+      if (scVisitor != null && scVisitor.isDone())
+        return false;
     }
+    return true;
   }
 
 //<<TODO:RENAME?>> In Samet's terminology, I think what we're returning here is
@@ -251,10 +281,23 @@ public abstract class NodeBase {
     int subSize = 0;
     for (int i = 0; i < 4; i++) {
       if (subnode[i] != null) {
-        subSize += subnode[i].size();
+        subSize += subnode[i].getNodeCount();
       }
     }
     return subSize + 1;
   }
 
+  int getMaxNodeItemCount()
+  {
+    int maxCount = items.size();
+    for (int i = 0; i < 4; i++) {
+      if (subnode[i] != null) {
+        int subMax = subnode[i].getMaxNodeItemCount();
+        if (subMax > maxCount)
+          maxCount = subMax;
+      }
+    }
+    return maxCount;
+  }
+
 }
@@ -69,6 +69,21 @@ public class Quadtree
    * Use the current minExtent to pad the envelope, if necessary
    */
   public static Envelope ensureExtent(Envelope itemEnv, double minExtent)
+  {
+    return ensureExtent(itemEnv, minExtent, null);
+  }
+
+  /**
+   * Ensure that the envelope for the inserted item has non-zero extents,
+   * using the given envelope to hold the padded extent (if required).
+   * This avoids allocating a new Envelope.
+   *
+   * @param itemEnv the item envelope
+   * @param minExtent the extent to pad with
+   * @param paddedEnv an envelope to use for the result, or null to create a new one
+   * @return the item envelope, or the padded envelope
+   */
+  private static Envelope ensureExtent(Envelope itemEnv, double minExtent, Envelope paddedEnv)
   {
     //The names "ensureExtent" and "minExtent" are misleading -- sounds like
     //this method ensures that the extents are greater than minExtent.
@@ -90,7 +105,10 @@ public class Quadtree
       miny = miny - minExtent / 2.0;
       maxy = miny + minExtent / 2.0;
     }
-    return new Envelope(minx, maxx, miny, maxy);
+    if (paddedEnv == null)
+      return new Envelope(minx, maxx, miny, maxy);
+    paddedEnv.init(minx, maxx, miny, maxy);
+    return paddedEnv;
   }
 
   private Root root;
@@ -105,6 +123,12 @@ public class Quadtree
   **/
   private double minExtent = 1.0;
 
+  /**
+   * Holds the padded envelope of zero-extent items during insert and remove.
+   * The tree does not retain the envelopes it is given, so this can be reused.
+   */
+  private Envelope paddedEnv = new Envelope();
+
   /**
    * Constructs a Quadtree with zero items.
    */
@@ -136,10 +160,45 @@ public class Quadtree
     return 0;
   }
 
+  /**
+   * Returns the number of nodes in the tree (including the root).
+   *
+   * @return the number of nodes in the tree
+   */
+  public int getNodeCount()
+  {
+    return root.getNodeCount();
+  }
+
+  /**
+   * Returns the largest number of items held in a single node.
+   * A large value relative to {@link #size()} indicates that 
+   * the data is not being distributed well by the tree,
+   * and that queries will visit many non-matching items.
+   *
+   * @return the maximum number of items in any node
+   */
+  public int getMaxNodeItemCount()
+  {
+    return root.getMaxNodeItemCount();
+  }
+
+  /**
+   * Returns the number of items held in the root of the tree.
+   * These are items which cross the X or Y axis,
+   * and are visited by every query.
+   *
+   * @return the number of items in the root node
+   */
+  public int getRootItemCount()
+  {
+    return root.getItems().size();
+  }
+
   public void insert(Envelope itemEnv, Object item)
   {
     collectStats(itemEnv);
-    Envelope insertEnv = ensureExtent(itemEnv, minExtent);
+    Envelope insertEnv = ensureExtent(itemEnv, minExtent, paddedEnv);
     root.insert(insertEnv, item);
   }
 
@@ -152,7 +211,7 @@ public class Quadtree
    */
   public boolean remove(Envelope itemEnv, Object item)
   {
-    Envelope posEnv = ensureExtent(itemEnv, minExtent);
+    Envelope posEnv = ensureExtent(itemEnv, minExtent, paddedEnv);
     return root.remove(posEnv, item);
   }
 
@@ -196,6 +255,9 @@ public class Quadtree
 
   /**
    * Queries the tree and visits items which may lie in the given search envelope.
+   * No intermediate lists are created.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the query stops as soon as the visitor reports that it is done.
    * Precisely, the items that are visited are all items in the tree 
    * whose envelope <b>may</b> intersect the search Envelope.
    * Note that some items with non-intersecting envelopes may be visited as well;
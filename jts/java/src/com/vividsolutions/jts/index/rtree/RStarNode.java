@@ -0,0 +1,122 @@
+package com.vividsolutions.jts.index.rtree;
+
+/**
+ * A node of an {@link RStarTree}.
+ * The entries of a leaf node (at level 0) are items;
+ * the entries of other nodes are child {@link RStarNode}s.
+ * The bounds of the entries are stored in a single array
+ * as (minx, miny, maxx, maxy) quadruples.
+ * A node has space for one more entry than the node capacity,
+ * to allow it to overflow before being split.
+ *
+ * @version 1.7
+ */
+class RStarNode
+{
+  int level;
+  int count = 0;
+  double[] entryBounds;
+  Object[] entries;
+  RStarNode parent = null;
+
+  double minx;
+  double miny;
+  double maxx;
+  double maxy;
+
+  RStarNode(int level, int nodeCapacity)
+  {
+    this.level = level;
+    entryBounds = new double[4 * (nodeCapacity + 1)];
+    entries = new Object[nodeCapacity + 1];
+    setNull();
+  }
+
+  boolean isLeaf() { return level == 0; }
+
+  /**
+   * Adds an entry, and expands the bounds of this node to include it.
+   */
+  void add(double eminx, double eminy, double emaxx, double emaxy, Object entry)
+  {
+    int i = 4 * count;
+    entryBounds[i] = eminx;
+    entryBounds[i + 1] = eminy;
+    entryBounds[i + 2] = emaxx;
+    entryBounds[i + 3] = emaxy;
+    entries[count] = entry;
+    count++;
+    if (entry instanceof RStarNode)
+      ((RStarNode) entry).parent = this;
+    expandToInclude(eminx, eminy, emaxx, emaxy);
+  }
+
+  /**
+   * Removes an entry by moving the last entry into its place.
+   * The bounds of the node are not updated.
+   */
+  void remove(int index)
+  {
+    count--;
+    System.arraycopy(entryBounds, 4 * count, entryBounds, 4 * index, 4);
+    entries[index] = entries[count];
+    entries[count] = null;
+  }
+
+  /**
+   * Removes all entries from this node.
+   */
+  void clear()
+  {
+    for (int i = 0; i < count; i++) {
+      entries[i] = null;
+    }
+    count = 0;
+    setNull();
+  }
+
+  int indexOf(Object entry)
+  {
+    for (int i = 0; i < count; i++) {
+      if (entries[i] == entry) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Sets the bounds of the entry at the given index
+   * to the bounds of the given child node.
+   */
+  void setEntryBounds(int index, RStarNode child)
+  {
+    int i = 4 * index;
+    entryBounds[i] = child.minx;
+    entryBounds[i + 1] = child.miny;
+    entryBounds[i + 2] = child.maxx;
+    entryBounds[i + 3] = child.maxy;
+  }
+
+  void computeBounds()
+  {
+    setNull();
+    for (int i = 0; i < 4 * count; i += 4) {
+      expandToInclude(entryBounds[i], entryBounds[i + 1], entryBounds[i + 2], entryBounds[i + 3]);
+    }
+  }
+
+  private void setNull()
+  {
+    minx = Double.POSITIVE_INFINITY;
+    miny = Double.POSITIVE_INFINITY;
+    maxx = Double.NEGATIVE_INFINITY;
+    maxy = Double.NEGATIVE_INFINITY;
+  }
+
+  private void expandToInclude(double eminx, double eminy, double emaxx, double emaxy)
+  {
+    if (eminx < minx) minx = eminx;
+    if (eminy < miny) miny = eminy;
+    if (emaxx > maxx) maxx = emaxx;
+    if (emaxy > maxy) maxy = emaxy;
+  }
+}
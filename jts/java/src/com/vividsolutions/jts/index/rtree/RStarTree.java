@@ -0,0 +1,626 @@
+package com.vividsolutions.jts.index.rtree;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.*;
+import com.vividsolutions.jts.util.Assert;
+
+/**
+ * A dynamic R-tree using the R*-tree insertion and split algorithms.
+ * For two-dimensional spatial data.
+ * <p>
+ * Unlike {@link com.vividsolutions.jts.index.strtree.STRtree},
+ * items may be inserted and removed at any time.
+ * Insertion chooses the subtree which minimizes the overlap enlargement
+ * (at the level above the leaves) or the area enlargement (at higher levels).
+ * When a node overflows, a proportion of its entries are first
+ * reinserted (once per level per operation);
+ * otherwise the node is split along the axis with the smallest total margin,
+ * using the distribution with the least overlap.
+ * Removal condenses the tree by eliminating underfull nodes
+ * and reinserting their entries.
+ * <p>
+ * Described in: N. Beckmann, H.-P. Kriegel, R. Schneider and B. Seeger.
+ * <i>The R*-tree: an efficient and robust access method for points and rectangles</i>.
+ * Proceedings of ACM SIGMOD, 1990.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @version 1.7
+ */
+public class RStarTree
+  implements SpatialIndex
+{
+  private static final int DEFAULT_NODE_CAPACITY = 10;
+  /**
+   * The minimum fill of a node, as a fraction of the node capacity
+   */
+  private static final double MIN_FILL_RATIO = 0.4;
+  /**
+   * The number of entries reinserted on overflow, as a fraction of the node capacity
+   */
+  private static final double REINSERT_RATIO = 0.3;
+
+  private int maxEntries;
+  private int minEntries;
+  private int reinsertCount;
+
+  private RStarNode root;
+  private int size = 0;
+  /**
+   * The levels at which overflow entries have been reinserted
+   * during the current operation, as a bit mask
+   */
+  private long reinsertedLevels = 0;
+
+  /**
+   * Constructs an RStarTree with the default node capacity.
+   */
+  public RStarTree()
+  {
+    this(DEFAULT_NODE_CAPACITY);
+  }
+
+  /**
+   * Constructs an RStarTree with the given maximum number of entries
+   * that a node may have.
+   *
+   * @param nodeCapacity the maximum number of entries in a node (at least 4)
+   */
+  public RStarTree(int nodeCapacity)
+  {
+    Assert.isTrue(nodeCapacity >= 4, "Node capacity must be at least 4");
+    maxEntries = nodeCapacity;
+    minEntries = Math.max(2, (int) (nodeCapacity * MIN_FILL_RATIO));
+    reinsertCount = Math.max(1, (int) Math.round(nodeCapacity * REINSERT_RATIO));
+    root = new RStarNode(0, maxEntries);
+  }
+
+  /**
+   * Returns the maximum number of entries that a node may have
+   */
+  public int getNodeCapacity() { return maxEntries; }
+
+  /**
+   * Returns the number of items in the tree.
+   *
+   * @return the number of items in the tree
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the number of levels in the tree.
+   *
+   * @return the number of levels in the tree
+   */
+  public int depth()
+  {
+    if (size == 0) return 0;
+    return root.level + 1;
+  }
+
+  /**
+   * Inserts an item having the given bounds into the tree.
+   */
+  public void insert(Envelope itemEnv, Object item)
+  {
+    if (itemEnv.isNull()) { return; }
+    reinsertedLevels = 0;
+    insert(itemEnv.getMinX(), itemEnv.getMinY(), itemEnv.getMaxX(), itemEnv.getMaxY(),
+        item, 0);
+    size++;
+  }
+
+  /**
+   * Removes a single item from the tree.
+   *
+   * @param itemEnv the Envelope of the item to remove
+   * @param item the item to remove
+   * @return <code>true</code> if the item was found
+   */
+  public boolean remove(Envelope itemEnv, Object item)
+  {
+    if (size == 0) return false;
+    RStarNode leaf = findLeaf(root, itemEnv, item);
+    if (leaf == null) return false;
+    reinsertedLevels = 0;
+    leaf.remove(leaf.indexOf(item));
+    condenseTree(leaf);
+    size--;
+    return true;
+  }
+
+  /**
+   * Returns items whose bounds intersect the given envelope.
+   */
+  public List query(Envelope searchEnv)
+  {
+    ArrayListVisitor visitor = new ArrayListVisitor();
+    query(searchEnv, visitor);
+    return visitor.getItems();
+  }
+
+  /**
+   * Returns items whose bounds intersect the given envelope.
+   */
+  public void query(Envelope searchEnv, ItemVisitor visitor)
+  {
+    if (size == 0 || searchEnv.isNull()) return;
+    if (! intersects(root.minx, root.miny, root.maxx, root.maxy, searchEnv)) return;
+    query(root, searchEnv, visitor,
+        (visitor instanceof ShortCircuitedItemVisitor)
+          ? (ShortCircuitedItemVisitor) visitor : null);
+  }
+
+  /**
+   * @return false if the short-circuit visitor is done
+   */
+  private boolean query(RStarNode node, Envelope searchEnv, ItemVisitor visitor,
+      ShortCircuitedItemVisitor scVisitor)
+  {
+    double[] bounds = node.entryBounds;
+    for (int i = 0; i < node.count; i++) {
+      int j = 4 * i;
+      if (! intersects(bounds[j], bounds[j + 1], bounds[j + 2], bounds[j + 3], searchEnv))
+        continue;
+      if (node.isLeaf()) {
+        visitor.visitItem(node.entries[i]);
+        if (scVisitor != null && scVisitor.isDone())
+          return false;
+      }
+      else {
+        if (! query((RStarNode) node.entries[i], searchEnv, visitor, scVisitor))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean intersects(double minx, double miny, double maxx, double maxy,
+      Envelope env)
+  {
+    return ! (env.getMinX() > maxx
+        || env.getMaxX() < minx
+        || env.getMinY() > maxy
+        || env.getMaxY() < miny);
+  }
+
+  /**
+   * Inserts an entry into a node at the given level.
+   *
+   * @param entry an item (if the level is 0) or a node one level below
+   * @param level the level of the node to insert into
+   */
+  private void insert(double eminx, double eminy, double emaxx, double emaxy,
+      Object entry, int level)
+  {
+    RStarNode node = chooseSubtree(eminx, eminy, emaxx, emaxy, level);
+    node.add(eminx, eminy, emaxx, emaxy, entry);
+    adjustBounds(node);
+    if (node.count > maxEntries)
+      overflowTreatment(node);
+  }
+
+  /**
+   * Updates the bounds of the ancestors of a node whose bounds have changed.
+   */
+  private void adjustBounds(RStarNode node)
+  {
+    while (node.parent != null) {
+      RStarNode parent = node.parent;
+      parent.setEntryBounds(parent.indexOf(node), node);
+      parent.computeBounds();
+      node = parent;
+    }
+  }
+
+  private RStarNode chooseSubtree(double eminx, double eminy, double emaxx, double emaxy,
+      int level)
+  {
+    RStarNode node = root;
+    while (node.level > level) {
+      int best;
+      if (node.level == 1) {
+        best = chooseLeastOverlapEnlargement(node, eminx, eminy, emaxx, emaxy);
+      }
+      else {
+        best = chooseLeastAreaEnlargement(node, eminx, eminy, emaxx, emaxy);
+      }
+      node = (RStarNode) node.entries[best];
+    }
+    return node;
+  }
+
+  private int chooseLeastAreaEnlargement(RStarNode node,
+      double eminx, double eminy, double emaxx, double emaxy)
+  {
+    double[] b = node.entryBounds;
+    int best = 0;
+    double bestEnlargement = Double.POSITIVE_INFINITY;
+    double bestArea = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < node.count; i++) {
+      int j = 4 * i;
+      double area = area(b[j], b[j + 1], b[j + 2], b[j + 3]);
+      double enlargement = area(Math.min(b[j], eminx), Math.min(b[j + 1], eminy),
+          Math.max(b[j + 2], emaxx), Math.max(b[j + 3], emaxy)) - area;
+      if (enlargement < bestEnlargement
+          || (enlargement == bestEnlargement && area < bestArea)) {
+        best = i;
+        bestEnlargement = enlargement;
+        bestArea = area;
+      }
+    }
+    return best;
+  }
+
+  private int chooseLeastOverlapEnlargement(RStarNode node,
+      double eminx, double eminy, double emaxx, double emaxy)
+  {
+    double[] b = node.entryBounds;
+    int best = 0;
+    double bestOverlapEnlargement = Double.POSITIVE_INFINITY;
+    double bestEnlargement = Double.POSITIVE_INFINITY;
+    double bestArea = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < node.count; i++) {
+      int j = 4 * i;
+      double nminx = Math.min(b[j], eminx);
+      double nminy = Math.min(b[j + 1], eminy);
+      double nmaxx = Math.max(b[j + 2], emaxx);
+      double nmaxy = Math.max(b[j + 3], emaxy);
+      double overlapEnlargement = 0.0;
+      for (int k = 0; k < node.count; k++) {
+        if (k == i) continue;
+        int m = 4 * k;
+        overlapEnlargement += overlap(nminx, nminy, nmaxx, nmaxy, b[m], b[m + 1], b[m + 2], b[m + 3])
+            - overlap(b[j], b[j + 1], b[j + 2], b[j + 3], b[m], b[m + 1], b[m + 2], b[m + 3]);
+      }
+      double area = area(b[j], b[j + 1], b[j + 2], b[j + 3]);
+      double enlargement = area(nminx, nminy, nmaxx, nmaxy) - area;
+      if (overlapEnlargement < bestOverlapEnlargement
+          || (overlapEnlargement == bestOverlapEnlargement
+              && (enlargement < bestEnlargement
+                  || (enlargement == bestEnlargement && area < bestArea)))) {
+        best = i;
+        bestOverlapEnlargement = overlapEnlargement;
+        bestEnlargement = enlargement;
+        bestArea = area;
+      }
+    }
+    return best;
+  }
+
+  private void overflowTreatment(RStarNode node)
+  {
+    long levelBit = 1L << node.level;
+    if (node != root && (reinsertedLevels & levelBit) == 0) {
+      reinsertedLevels |= levelBit;
+      reinsert(node);
+    }
+    else {
+      split(node);
+    }
+  }
+
+  /**
+   * Removes the entries furthest from the centre of an overflowing node
+   * and reinserts them, starting with the closest ("close reinsert").
+   */
+  private void reinsert(RStarNode node)
+  {
+    int n = node.count;
+    double cx = (node.minx + node.maxx) / 2;
+    double cy = (node.miny + node.maxy) / 2;
+    double[] b = node.entryBounds;
+    double[] dist = new double[n];
+    int[] order = new int[n];
+    for (int i = 0; i < n; i++) {
+      int j = 4 * i;
+      double dx = (b[j] + b[j + 2]) / 2 - cx;
+      double dy = (b[j + 1] + b[j + 3]) / 2 - cy;
+      dist[i] = dx * dx + dy * dy;
+      order[i] = i;
+    }
+    sort(order, dist);
+
+    double[] oldBounds = (double[]) b.clone();
+    Object[] oldEntries = (Object[]) node.entries.clone();
+    int keepCount = n - reinsertCount;
+    node.clear();
+    for (int i = 0; i < keepCount; i++) {
+      addEntry(node, oldBounds, oldEntries, order[i]);
+    }
+    adjustBounds(node);
+    for (int i = keepCount; i < n; i++) {
+      int j = 4 * order[i];
+      insert(oldBounds[j], oldBounds[j + 1], oldBounds[j + 2], oldBounds[j + 3],
+          oldEntries[order[i]], node.level);
+    }
+  }
+
+  private void split(RStarNode node)
+  {
+    RStarNode sibling = splitNode(node);
+    if (node == root) {
+      RStarNode newRoot = new RStarNode(node.level + 1, maxEntries);
+      newRoot.add(node.minx, node.miny, node.maxx, node.maxy, node);
+      newRoot.add(sibling.minx, sibling.miny, sibling.maxx, sibling.maxy, sibling);
+      root = newRoot;
+      return;
+    }
+    RStarNode parent = node.parent;
+    parent.setEntryBounds(parent.indexOf(node), node);
+    parent.add(sibling.minx, sibling.miny, sibling.maxx, sibling.maxy, sibling);
+    parent.computeBounds();
+    adjustBounds(parent);
+    if (parent.count > maxEntries)
+      overflowTreatment(parent);
+  }
+
+  /**
+   * Splits an overflowing node using the R* split algorithm.
+   * The node retains the first group of entries,
+   * and a new sibling node is created for the second group.
+   *
+   * @return the new sibling node
+   */
+  private RStarNode splitNode(RStarNode node)
+  {
+    int n = node.count;
+    double[] b = node.entryBounds;
+
+    // choose the split axis with the smallest sum of distribution margins
+    int bestAxis = 0;
+    double bestMarginSum = Double.POSITIVE_INFINITY;
+    for (int axis = 0; axis < 2; axis++) {
+      double marginSum = 0.0;
+      for (int upper = 0; upper < 2; upper++) {
+        int[] order = sortedOrder(b, n, axis + 2 * upper);
+        marginSum += new Distributions(b, order).marginSum();
+      }
+      if (marginSum < bestMarginSum) {
+        bestMarginSum = marginSum;
+        bestAxis = axis;
+      }
+    }
+
+    // choose the distribution with the least overlap, then the least area
+    int[] bestOrder = null;
+    int bestSplit = -1;
+    double bestOverlap = Double.POSITIVE_INFINITY;
+    double bestArea = Double.POSITIVE_INFINITY;
+    for (int upper = 0; upper < 2; upper++) {
+      int[] order = sortedOrder(b, n, bestAxis + 2 * upper);
+      Distributions dist = new Distributions(b, order);
+      for (int split = minEntries; split <= n - minEntries; split++) {
+        double overlap = dist.overlap(split);
+        double area = dist.area(split);
+        if (overlap < bestOverlap || (overlap == bestOverlap && area < bestArea)) {
+          bestOverlap = overlap;
+          bestArea = area;
+          bestOrder = order;
+          bestSplit = split;
+        }
+      }
+    }
+
+    double[] oldBounds = (double[]) b.clone();
+    Object[] oldEntries = (Object[]) node.entries.clone();
+    RStarNode sibling = new RStarNode(node.level, maxEntries);
+    node.clear();
+    for (int i = 0; i < n; i++) {
+      addEntry(i < bestSplit ? node : sibling, oldBounds, oldEntries, bestOrder[i]);
+    }
+    return sibling;
+  }
+
+  private static void addEntry(RStarNode node, double[] bounds, Object[] entries, int index)
+  {
+    int j = 4 * index;
+    node.add(bounds[j], bounds[j + 1], bounds[j + 2], bounds[j + 3], entries[index]);
+  }
+
+  /**
+   * Computes the order of entries sorted by one of their bounds ordinates.
+   *
+   * @param ordinate the bounds ordinate (0 = minx, 1 = miny, 2 = maxx, 3 = maxy)
+   */
+  private static int[] sortedOrder(double[] bounds, int n, int ordinate)
+  {
+    int[] order = new int[n];
+    double[] key = new double[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+      key[i] = bounds[4 * i + ordinate];
+    }
+    sort(order, key);
+    return order;
+  }
+
+  /**
+   * Sorts an (short) index array by the given key values,
+   * using an insertion sort.
+   */
+  private static void sort(int[] order, double[] key)
+  {
+    for (int i = 1; i < order.length; i++) {
+      int index = order[i];
+      int j = i - 1;
+      while (j >= 0 && key[order[j]] > key[index]) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = index;
+    }
+  }
+
+  /**
+   * The bounds of the two groups of entries
+   * for each possible split point of an ordered set of entries.
+   */
+  private class Distributions
+  {
+    // prefix[i] is the bounds of entries [0, i]; suffix[i] is the bounds of entries [i, n)
+    private double[] prefix;
+    private double[] suffix;
+    private int n;
+
+    Distributions(double[] bounds, int[] order)
+    {
+      n = order.length;
+      prefix = new double[4 * n];
+      suffix = new double[4 * n];
+      for (int i = 0; i < n; i++) {
+        System.arraycopy(bounds, 4 * order[i], prefix, 4 * i, 4);
+        if (i > 0) union(prefix, i, prefix, i - 1);
+      }
+      for (int i = n - 1; i >= 0; i--) {
+        System.arraycopy(bounds, 4 * order[i], suffix, 4 * i, 4);
+        if (i < n - 1) union(suffix, i, suffix, i + 1);
+      }
+    }
+
+    private void union(double[] b, int i, double[] other, int k)
+    {
+      int j = 4 * i;
+      int m = 4 * k;
+      b[j] = Math.min(b[j], other[m]);
+      b[j + 1] = Math.min(b[j + 1], other[m + 1]);
+      b[j + 2] = Math.max(b[j + 2], other[m + 2]);
+      b[j + 3] = Math.max(b[j + 3], other[m + 3]);
+    }
+
+    double marginSum()
+    {
+      double sum = 0.0;
+      for (int split = minEntries; split <= n - minEntries; split++) {
+        sum += margin(prefix, split - 1) + margin(suffix, split);
+      }
+      return sum;
+    }
+
+    double overlap(int split)
+    {
+      int j = 4 * (split - 1);
+      int m = 4 * split;
+      return RStarTree.overlap(prefix[j], prefix[j + 1], prefix[j + 2], prefix[j + 3],
+          suffix[m], suffix[m + 1], suffix[m + 2], suffix[m + 3]);
+    }
+
+    double area(int split)
+    {
+      int j = 4 * (split - 1);
+      int m = 4 * split;
+      return RStarTree.area(prefix[j], prefix[j + 1], prefix[j + 2], prefix[j + 3])
+          + RStarTree.area(suffix[m], suffix[m + 1], suffix[m + 2], suffix[m + 3]);
+    }
+
+    private double margin(double[] b, int i)
+    {
+      int j = 4 * i;
+      return (b[j + 2] - b[j]) + (b[j + 3] - b[j + 1]);
+    }
+  }
+
+  private RStarNode findLeaf(RStarNode node, Envelope itemEnv, Object item)
+  {
+    if (node.isLeaf()) {
+      if (node.indexOf(item) >= 0)
+        return node;
+      return null;
+    }
+    double[] bounds = node.entryBounds;
+    for (int i = 0; i < node.count; i++) {
+      int j = 4 * i;
+      if (! intersects(bounds[j], bounds[j + 1], bounds[j + 2], bounds[j + 3], itemEnv))
+        continue;
+      RStarNode leaf = findLeaf((RStarNode) node.entries[i], itemEnv, item);
+      if (leaf != null)
+        return leaf;
+    }
+    return null;
+  }
+
+  /**
+   * Condenses the tree after an entry has been removed from a leaf.
+   * Underfull nodes on the path to the root are removed,
+   * and their entries are reinserted at the same level.
+   */
+  private void condenseTree(RStarNode leaf)
+  {
+    List eliminated = new ArrayList();
+    RStarNode node = leaf;
+    while (node != root) {
+      RStarNode parent = node.parent;
+      int index = parent.indexOf(node);
+      if (node.count < minEntries) {
+        parent.remove(index);
+        node.parent = null;
+        eliminated.add(node);
+      }
+      else {
+        node.computeBounds();
+        parent.setEntryBounds(index, node);
+      }
+      node = parent;
+    }
+    root.computeBounds();
+
+    if (root.count == 0 && root.level > 0) {
+      // every subtree was eliminated, so rebuild from the items
+      root = new RStarNode(0, maxEntries);
+      for (Iterator i = eliminated.iterator(); i.hasNext(); ) {
+        reinsertItems((RStarNode) i.next());
+      }
+    }
+    else {
+      // reinsert the highest levels first
+      for (int i = eliminated.size() - 1; i >= 0; i--) {
+        RStarNode elim = (RStarNode) eliminated.get(i);
+        for (int j = 0; j < elim.count; j++) {
+          double[] b = elim.entryBounds;
+          int k = 4 * j;
+          insert(b[k], b[k + 1], b[k + 2], b[k + 3], elim.entries[j], elim.level);
+        }
+      }
+    }
+
+    // shorten the tree
+    while (root.level > 0 && root.count == 1) {
+      root = (RStarNode) root.entries[0];
+      root.parent = null;
+    }
+  }
+
+  private void reinsertItems(RStarNode node)
+  {
+    for (int i = 0; i < node.count; i++) {
+      if (node.isLeaf()) {
+        double[] b = node.entryBounds;
+        int j = 4 * i;
+        insert(b[j], b[j + 1], b[j + 2], b[j + 3], node.entries[i], 0);
+      }
+      else {
+        reinsertItems((RStarNode) node.entries[i]);
+      }
+    }
+  }
+
+  private static double area(double minx, double miny, double maxx, double maxy)
+  {
+    return (maxx - minx) * (maxy - miny);
+  }
+
+  private static double overlap(double minx1, double miny1, double maxx1, double maxy1,
+      double minx2, double miny2, double maxx2, double maxy2)
+  {
+    double dx = Math.min(maxx1, maxx2) - Math.max(minx1, minx2);
+    if (dx <= 0) return 0.0;
+    double dy = Math.min(maxy1, maxy2) - Math.max(miny1, miny2);
+    if (dy <= 0) return 0.0;
+    return dx * dy;
+  }
+}
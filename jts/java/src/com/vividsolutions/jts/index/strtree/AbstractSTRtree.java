@@ -34,6 +34,7 @@
 package com.vividsolutions.jts.index.strtree;
 
 import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
 import com.vividsolutions.jts.util.*;
 import java.util.*;
 import java.util.List;
@@ -46,6 +47,13 @@ import java.util.List;
  * This implementation is based on Boundables rather than just AbstractNodes,
  * because the STR algorithm operates on both nodes and
  * data, both of which are treated here as Boundables.
+ * <p>
+ * Once built, the tree may be queried safely by multiple threads concurrently,
+ * without any locking on the query path.
+ * If the tree is built lazily by a query, the build is performed 
+ * exactly once, even if several threads query the tree at the same time.
+ * The tree must not be modified (by inserting or removing items)
+ * while it is being queried by other threads.
  *
  * @see STRtree
  * @see SIRtree
@@ -71,7 +79,12 @@ public abstract class AbstractSTRtree {
 
   protected AbstractNode root;
 
-  private boolean built = false;
+  /**
+   * Set (last) when the tree is built.  Since this is volatile,
+   * a thread which sees the tree as built also sees the completed 
+   * root and nodes.
+   */
+  private volatile boolean built = false;
   private ArrayList itemBoundables = new ArrayList();
   private int nodeCapacity;
 
@@ -91,11 +104,37 @@ public abstract class AbstractSTRtree {
    * inserted into the tree.
    */
   public void build() {
-    Assert.isTrue(!built);
-    root = itemBoundables.isEmpty()
-           ?createNode(0)
-           :createHigherLevels(itemBoundables, -1);
-    built = true;
+    synchronized (this) {
+      Assert.isTrue(!built);
+      AbstractNode newRoot = itemBoundables.isEmpty()
+             ?createNode(0)
+             :createHigherLevels(itemBoundables, -1);
+      // compute node bounds now, so queries do not compute them concurrently
+      computeBounds(newRoot);
+      root = newRoot;
+      built = true;
+    }
+  }
+
+  /**
+   * Builds the tree if it has not already been built.
+   * This is safe to call from multiple threads.
+   */
+  private void ensureBuilt() {
+    if (built) return;
+    synchronized (this) {
+      if (!built) build();
+    }
+  }
+
+  private void computeBounds(AbstractNode node) {
+    for (Iterator i = node.getChildBoundables().iterator(); i.hasNext(); ) {
+      Boundable childBoundable = (Boundable) i.next();
+      if (childBoundable instanceof AbstractNode) {
+        computeBounds((AbstractNode) childBoundable);
+      }
+    }
+    node.getBounds();
   }
 
   protected abstract AbstractNode createNode(int level);
@@ -140,7 +179,7 @@ public abstract class AbstractSTRtree {
    *            boundables (that is, below level 0)
    * @return the root, which may be a ParentNode or a LeafNode
    */
-  private AbstractNode createHigherLevels(List boundablesOfALevel, int level) {
+  protected AbstractNode createHigherLevels(List boundablesOfALevel, int level) {
     Assert.isTrue(!boundablesOfALevel.isEmpty());
     List parentBoundables = createParentBoundables(boundablesOfALevel, level + 1);
     if (parentBoundables.size() == 1) {
@@ -151,7 +190,7 @@ public abstract class AbstractSTRtree {
 
   public AbstractNode getRoot() 
   {
-    if (! built) build();
+    ensureBuilt();
     return root; 
   }
 
@@ -161,7 +200,7 @@ public abstract class AbstractSTRtree {
   public int getNodeCapacity() { return nodeCapacity; }
 
   protected int size() {
-    if (!built) { build(); }
+    ensureBuilt();
     if (itemBoundables.isEmpty()) {
       return 0;
     }
@@ -184,7 +223,7 @@ public abstract class AbstractSTRtree {
   }
 
   protected int depth() {
-    if (!built) { build(); }
+    ensureBuilt();
     if (itemBoundables.isEmpty()) {
       return 0;
     }
@@ -215,7 +254,7 @@ public abstract class AbstractSTRtree {
    *  Also builds the tree, if necessary.
    */
   protected List query(Object searchBounds) {
-    if (!built) { build(); }
+    ensureBuilt();
     ArrayList matches = new ArrayList();
     if (itemBoundables.isEmpty()) {
       Assert.isTrue(root.getBounds() == null);
@@ -231,12 +270,14 @@ public abstract class AbstractSTRtree {
    *  Also builds the tree, if necessary.
    */
   protected void query(Object searchBounds, ItemVisitor visitor) {
-    if (!built) { build(); }
+    ensureBuilt();
     if (itemBoundables.isEmpty()) {
       Assert.isTrue(root.getBounds() == null);
     }
     if (getIntersectsOp().intersects(root.getBounds(), searchBounds)) {
-      query(searchBounds, root, visitor);
+      query(searchBounds, root, visitor,
+          (visitor instanceof ShortCircuitedItemVisitor)
+            ? (ShortCircuitedItemVisitor) visitor : null);
     }
   }
 
@@ -265,22 +306,30 @@ public abstract class AbstractSTRtree {
     }
   }
 
-  private void query(Object searchBounds, AbstractNode node, ItemVisitor visitor) {
+  /**
+   * @return false if the short-circuit visitor is done
+   */
+  private boolean query(Object searchBounds, AbstractNode node, ItemVisitor visitor,
+      ShortCircuitedItemVisitor scVisitor) {
     for (Iterator i = node.getChildBoundables().iterator(); i.hasNext(); ) {
       Boundable childBoundable = (Boundable) i.next();
       if (!getIntersectsOp().intersects(childBoundable.getBounds(), searchBounds)) {
         continue;
       }
       if (childBoundable instanceof AbstractNode) {
-        query(searchBounds, (AbstractNode) childBoundable, visitor);
+        if (! query(searchBounds, (AbstractNode) childBoundable, visitor, scVisitor))
+          return false;
       }
       else if (childBoundable instanceof ItemBoundable) {
         visitor.visitItem(((ItemBoundable)childBoundable).getItem());
+        if (scVisitor != null && scVisitor.isDone())
+          return false;
       }
       else {
         Assert.shouldNeverReachHere();
       }
     }
+    return true;
   }
 
   /**
@@ -297,7 +346,7 @@ public abstract class AbstractSTRtree {
    */
   public List itemsTree()
   {
-    if (!built) { build(); }
+    ensureBuilt();
 
     List valuesTree = itemsTree(root);
     if (valuesTree == null)
@@ -333,7 +382,7 @@ public abstract class AbstractSTRtree {
    * (Builds the tree, if necessary.)
    */
   protected boolean remove(Object searchBounds, Object item) {
-    if (!built) { build(); }
+    ensureBuilt();
     if (itemBoundables.isEmpty()) {
       Assert.isTrue(root.getBounds() == null);
     }
@@ -0,0 +1,32 @@
+package com.vividsolutions.jts.index.strtree;
+
+/**
+ * Maps between the items in an STR tree and
+ * the <tt>long</tt> identifiers which represent them in a tree file.
+ * The identifiers are chosen by the caller
+ * (for instance, the record numbers or primary keys of features).
+ *
+ * @version 1.7
+ * @see STRtreeFileWriter
+ * @see MappedSTRtree
+ */
+public interface ItemIdMapper
+{
+  /**
+   * Gets the identifier for an item.
+   * Used when a tree is written.
+   *
+   * @param item an item in the tree
+   * @return the identifier of the item
+   */
+  long getId(Object item);
+
+  /**
+   * Gets the item for an identifier.
+   * Used when querying a loaded tree for items.
+   *
+   * @param id an item identifier
+   * @return the item with the identifier
+   */
+  Object getItem(long id);
+}
@@ -0,0 +1,19 @@
+package com.vividsolutions.jts.index.strtree;
+
+/**
+ * A visitor for pairs of items found by a join
+ * between two {@link STRtree}s.
+ *
+ * @version 1.7
+ * @see STRtree#join(STRtree, ItemPairVisitor)
+ */
+public interface ItemPairVisitor
+{
+  /**
+   * Visits a pair of items.
+   *
+   * @param item1 an item from the first tree
+   * @param item2 an item from the second tree
+   */
+  void visitPair(Object item1, Object item2);
+}
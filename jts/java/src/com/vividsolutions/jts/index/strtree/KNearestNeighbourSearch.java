@@ -0,0 +1,219 @@
+package com.vividsolutions.jts.index.strtree;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Finds the k items in an {@link STRtree} which are nearest to a query item,
+ * using a best-first Branch-and-Bound traversal.
+ * <p>
+ * Tree nodes are held in a priority queue ordered by the distance
+ * between their bounds and the query envelope.
+ * The k best items found so far are held in a bounded max-heap,
+ * whose largest distance (or the maximum distance, if smaller)
+ * provides the bound used to prune the search.
+ * The exact {@link ItemDistance} is only computed for items
+ * whose envelope distance is within the current bound.
+ * <p>
+ * Both heaps are stored in parallel arrays,
+ * so no pair objects are allocated during the search.
+ *
+ * @see STRtree#kNearestNeighbours(Envelope, Object, ItemDistance, int, double)
+ */
+class KNearestNeighbourSearch
+{
+  private ItemBoundable queryItem;
+  private Envelope queryEnv;
+  private ItemDistance itemDist;
+  private int k;
+  private double maxDistance;
+
+  // min-heap of nodes to be searched
+  private AbstractNode[] nodeQueue = new AbstractNode[16];
+  private double[] nodeQueueDist = new double[16];
+  private int nodeQueueSize = 0;
+
+  // max-heap of best items found
+  private Object[] result;
+  private double[] resultDist;
+  private int resultSize = 0;
+
+  public KNearestNeighbourSearch(Envelope queryEnv, Object item, ItemDistance itemDist,
+      int k, double maxDistance)
+  {
+    this.queryEnv = queryEnv;
+    this.queryItem = new ItemBoundable(queryEnv, item);
+    this.itemDist = itemDist;
+    this.k = k;
+    this.maxDistance = maxDistance;
+    result = new Object[k];
+    resultDist = new double[k];
+  }
+
+  /**
+   * Searches the tree with the given root.
+   *
+   * @param root the root of the tree
+   * @return the nearest items, ordered by increasing distance
+   */
+  public Object[] search(AbstractNode root)
+  {
+    if (k <= 0 || root.getBounds() == null)
+      return new Object[0];
+
+    addNode(root, queryEnv.distance((Envelope) root.getBounds()));
+    while (nodeQueueSize > 0) {
+      double dist = nodeQueueDist[0];
+      AbstractNode node = pollNode();
+      /**
+       * If the closest node is further than the bound,
+       * all other nodes are too, so the search is done.
+       */
+      if (! isWithinBound(dist))
+        break;
+      expand(node);
+    }
+    return extractResult();
+  }
+
+  private double bound()
+  {
+    if (resultSize < k)
+      return maxDistance;
+    return Math.min(maxDistance, resultDist[0]);
+  }
+
+  private boolean isWithinBound(double dist)
+  {
+    if (resultSize < k)
+      return dist <= maxDistance;
+    return dist < bound();
+  }
+
+  private void expand(AbstractNode node)
+  {
+    List children = node.getChildBoundables();
+    for (Iterator i = children.iterator(); i.hasNext(); ) {
+      Boundable child = (Boundable) i.next();
+      double envDist = queryEnv.distance((Envelope) child.getBounds());
+      if (! isWithinBound(envDist))
+        continue;
+      if (child instanceof AbstractNode) {
+        addNode((AbstractNode) child, envDist);
+      }
+      else {
+        double dist = itemDist.distance((ItemBoundable) child, queryItem);
+        if (isWithinBound(dist))
+          addResult(((ItemBoundable) child).getItem(), dist);
+      }
+    }
+  }
+
+  private void addNode(AbstractNode node, double dist)
+  {
+    if (nodeQueueSize == nodeQueue.length) {
+      AbstractNode[] newQueue = new AbstractNode[2 * nodeQueueSize];
+      double[] newQueueDist = new double[2 * nodeQueueSize];
+      System.arraycopy(nodeQueue, 0, newQueue, 0, nodeQueueSize);
+      System.arraycopy(nodeQueueDist, 0, newQueueDist, 0, nodeQueueSize);
+      nodeQueue = newQueue;
+      nodeQueueDist = newQueueDist;
+    }
+    // sift up
+    int hole = nodeQueueSize++;
+    while (hole > 0) {
+      int parent = (hole - 1) / 2;
+      if (nodeQueueDist[parent] <= dist) break;
+      nodeQueue[hole] = nodeQueue[parent];
+      nodeQueueDist[hole] = nodeQueueDist[parent];
+      hole = parent;
+    }
+    nodeQueue[hole] = node;
+    nodeQueueDist[hole] = dist;
+  }
+
+  private AbstractNode pollNode()
+  {
+    AbstractNode min = nodeQueue[0];
+    nodeQueueSize--;
+    AbstractNode last = nodeQueue[nodeQueueSize];
+    double lastDist = nodeQueueDist[nodeQueueSize];
+    nodeQueue[nodeQueueSize] = null;
+
+    // sift down
+    int hole = 0;
+    while (true) {
+      int child = 2 * hole + 1;
+      if (child >= nodeQueueSize) break;
+      if (child + 1 < nodeQueueSize && nodeQueueDist[child + 1] < nodeQueueDist[child])
+        child++;
+      if (nodeQueueDist[child] >= lastDist) break;
+      nodeQueue[hole] = nodeQueue[child];
+      nodeQueueDist[hole] = nodeQueueDist[child];
+      hole = child;
+    }
+    if (nodeQueueSize > 0) {
+      nodeQueue[hole] = last;
+      nodeQueueDist[hole] = lastDist;
+    }
+    return min;
+  }
+
+  /**
+   * Adds an item to the result max-heap,
+   * replacing the furthest item if the heap is full.
+   */
+  private void addResult(Object item, double dist)
+  {
+    if (resultSize < k) {
+      // sift up
+      int hole = resultSize++;
+      while (hole > 0) {
+        int parent = (hole - 1) / 2;
+        if (resultDist[parent] >= dist) break;
+        result[hole] = result[parent];
+        resultDist[hole] = resultDist[parent];
+        hole = parent;
+      }
+      result[hole] = item;
+      resultDist[hole] = dist;
+      return;
+    }
+    // replace the furthest item, and sift down
+    siftDownResult(item, dist, resultSize);
+  }
+
+  private void siftDownResult(Object item, double dist, int size)
+  {
+    int hole = 0;
+    while (true) {
+      int child = 2 * hole + 1;
+      if (child >= size) break;
+      if (child + 1 < size && resultDist[child + 1] > resultDist[child])
+        child++;
+      if (resultDist[child] <= dist) break;
+      result[hole] = result[child];
+      resultDist[hole] = resultDist[child];
+      hole = child;
+    }
+    result[hole] = item;
+    resultDist[hole] = dist;
+  }
+
+  /**
+   * Extracts the result items in order of increasing distance,
+   * by repeatedly removing the furthest item from the max-heap.
+   */
+  private Object[] extractResult()
+  {
+    Object[] items = new Object[resultSize];
+    for (int size = resultSize; size > 0; size--) {
+      items[size - 1] = result[0];
+      if (size > 1)
+        siftDownResult(result[size - 1], resultDist[size - 1], size - 1);
+    }
+    return items;
+  }
+}
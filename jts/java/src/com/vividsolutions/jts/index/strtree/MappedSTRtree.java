@@ -0,0 +1,298 @@
+package com.vividsolutions.jts.index.strtree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
+import com.vividsolutions.jts.io.ByteOrderValues;
+
+/**
+ * A query-only STR tree which is loaded from a file
+ * written by {@link STRtreeFileWriter}.
+ * <p>
+ * The file is memory-mapped, and queries read the node and item arrays
+ * directly from the mapped buffers.
+ * No nodes are deserialized when the tree is loaded,
+ * so it can answer queries immediately,
+ * and the pages of the file are shared between processes
+ * which load the same file.
+ * <p>
+ * The items of the tree are represented by the <tt>long</tt> identifiers
+ * which were written to the file.
+ * The identifiers can be queried directly,
+ * or converted back to items by an {@link ItemIdMapper}.
+ * <p>
+ * Each section of the file is mapped separately,
+ * so the tree can contain up to about 67 million items
+ * (the limit imposed by the maximum size of a mapped buffer).
+ * A loaded tree is safe to query from multiple threads.
+ *
+ * @version 1.7
+ * @see STRtreeFileWriter
+ */
+public class MappedSTRtree
+{
+  static final int MAGIC = 0x4A535452;  // "JSTR"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 32;
+
+  private ItemIdMapper idMapper;
+
+  private int nodeCapacity;
+  private int itemCount;
+  private int[] levelStart;
+  private IntBuffer nodeChildStart;
+  private IntBuffer nodeChildEnd;
+  private DoubleBuffer nodeBounds;
+  private DoubleBuffer itemBounds;
+  private LongBuffer itemIds;
+
+  /**
+   * Loads a tree from a file.
+   * Queries for items return their identifiers as {@link Long}s.
+   *
+   * @param file the tree file
+   * @throws IOException if the file cannot be read or is not a tree file
+   */
+  public MappedSTRtree(File file)
+    throws IOException
+  {
+    this(file, null);
+  }
+
+  /**
+   * Loads a tree from a file,
+   * using the given mapper to convert the item identifiers to items.
+   *
+   * @param file the tree file
+   * @param idMapper the item identifier mapper, or null
+   * @throws IOException if the file cannot be read or is not a tree file
+   */
+  public MappedSTRtree(File file, ItemIdMapper idMapper)
+    throws IOException
+  {
+    this.idMapper = idMapper;
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      load(raf.getChannel());
+    }
+    finally {
+      // the mapped buffers remain valid after the file is closed
+      raf.close();
+    }
+  }
+
+  private void load(FileChannel channel)
+    throws IOException
+  {
+    if (channel.size() < HEADER_SIZE)
+      throw new IOException("File is too short to be an STR tree file");
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    while (header.hasRemaining()) {
+      if (channel.read(header, header.position()) < 0)
+        throw new IOException("Unexpected end of file");
+    }
+    header.flip();
+    ByteOrder order = header.get(0) == ByteOrderValues.BIG_ENDIAN
+        ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    header.order(order);
+    if (header.getInt(4) != MAGIC)
+      throw new IOException("Not an STR tree file");
+    if (header.getInt(8) != VERSION)
+      throw new IOException("Unsupported STR tree file version: " + header.getInt(8));
+    nodeCapacity = header.getInt(12);
+    itemCount = header.getInt(16);
+    int levelCount = header.getInt(20);
+    int nodeCount = header.getInt(24);
+
+    long pos = HEADER_SIZE;
+    // the level starts are small and used by every query, so they are copied
+    levelStart = new int[levelCount];
+    map(channel, pos, 4L * levelCount, order).asIntBuffer().get(levelStart);
+    pos += intSectionSize(levelCount);
+    nodeChildStart = map(channel, pos, 4L * nodeCount, order).asIntBuffer();
+    pos += intSectionSize(nodeCount);
+    nodeChildEnd = map(channel, pos, 4L * nodeCount, order).asIntBuffer();
+    pos += intSectionSize(nodeCount);
+    nodeBounds = map(channel, pos, 32L * nodeCount, order).asDoubleBuffer();
+    pos += 32L * nodeCount;
+    itemBounds = map(channel, pos, 32L * itemCount, order).asDoubleBuffer();
+    pos += 32L * itemCount;
+    itemIds = map(channel, pos, 8L * itemCount, order).asLongBuffer();
+  }
+
+  private static ByteBuffer map(FileChannel channel, long pos, long size, ByteOrder order)
+    throws IOException
+  {
+    if (pos + size > channel.size())
+      throw new IOException("Unexpected end of file");
+    return channel.map(FileChannel.MapMode.READ_ONLY, pos, size).order(order);
+  }
+
+  /**
+   * Computes the size of a section of ints, which is padded to a multiple of 8 bytes.
+   */
+  private static long intSectionSize(int count)
+  {
+    return 4L * (count + (count % 2));
+  }
+
+  /**
+   * Returns the maximum number of child nodes that a node may have
+   */
+  public int getNodeCapacity() { return nodeCapacity; }
+
+  /**
+   * Returns the number of items in the tree.
+   *
+   * @return the number of items in the tree
+   */
+  public int size()
+  {
+    return itemCount;
+  }
+
+  /**
+   * Returns the number of levels in the tree.
+   *
+   * @return the number of levels in the tree
+   */
+  public int depth()
+  {
+    return levelStart.length - 1;
+  }
+
+  /**
+   * Returns the identifiers of the items whose bounds intersect the given envelope.
+   *
+   * @param searchEnv the envelope to query for
+   * @return the identifiers of the items found
+   */
+  public long[] queryIds(Envelope searchEnv)
+  {
+    final long[][] ids = new long[][] { new long[16] };
+    final int[] count = new int[1];
+    query(searchEnv, new IdVisitor() {
+      public boolean visit(int itemIndex) {
+        if (count[0] == ids[0].length) {
+          long[] newIds = new long[2 * count[0]];
+          System.arraycopy(ids[0], 0, newIds, 0, count[0]);
+          ids[0] = newIds;
+        }
+        ids[0][count[0]++] = itemIds.get(itemIndex);
+        return true;
+      }
+    });
+    long[] result = new long[count[0]];
+    System.arraycopy(ids[0], 0, result, 0, count[0]);
+    return result;
+  }
+
+  /**
+   * Returns items whose bounds intersect the given envelope.
+   * If no {@link ItemIdMapper} was provided, the items are the
+   * item identifiers, as {@link Long}s.
+   *
+   * @param searchEnv the envelope to query for
+   * @return a list of the items found
+   */
+  public List query(Envelope searchEnv)
+  {
+    final List items = new ArrayList();
+    query(searchEnv, new ItemVisitor() {
+      public void visitItem(Object item) {
+        items.add(item);
+      }
+    });
+    return items;
+  }
+
+  /**
+   * Visits items whose bounds intersect the given envelope.
+   * If no {@link ItemIdMapper} was provided, the items are the
+   * item identifiers, as {@link Long}s.
+   * If the visitor is a {@link ShortCircuitedItemVisitor},
+   * the query stops as soon as the visitor reports that it is done.
+   *
+   * @param searchEnv the envelope to query for
+   * @param visitor a visitor object to apply to the items found
+   */
+  public void query(Envelope searchEnv, final ItemVisitor visitor)
+  {
+    final ShortCircuitedItemVisitor scVisitor =
+      (visitor instanceof ShortCircuitedItemVisitor)
+        ? (ShortCircuitedItemVisitor) visitor : null;
+    query(searchEnv, new IdVisitor() {
+      public boolean visit(int itemIndex) {
+        long id = itemIds.get(itemIndex);
+        visitor.visitItem(idMapper == null ? (Object) new Long(id) : idMapper.getItem(id));
+        return scVisitor == null || ! scVisitor.isDone();
+      }
+    });
+  }
+
+  /**
+   * Visits the indexes of the items found by a query.
+   */
+  private interface IdVisitor
+  {
+    /**
+     * @return false if the query should stop
+     */
+    boolean visit(int itemIndex);
+  }
+
+  private void query(Envelope searchEnv, IdVisitor visitor)
+  {
+    if (itemCount == 0 || searchEnv.isNull()) return;
+
+    int rootLevel = levelStart.length - 2;
+    int root = levelStart[rootLevel];
+    if (! intersects(nodeBounds, root, searchEnv)) return;
+    query(root, rootLevel, searchEnv, visitor);
+  }
+
+  /**
+   * @return false if the visitor has stopped the query
+   */
+  private boolean query(int node, int level, Envelope searchEnv, IdVisitor visitor)
+  {
+    int end = nodeChildEnd.get(node);
+    if (level == 0) {
+      for (int i = nodeChildStart.get(node); i < end; i++) {
+        if (intersects(itemBounds, i, searchEnv)) {
+          if (! visitor.visit(i))
+            return false;
+        }
+      }
+      return true;
+    }
+    for (int i = nodeChildStart.get(node); i < end; i++) {
+      if (intersects(nodeBounds, i, searchEnv)) {
+        if (! query(i, level - 1, searchEnv, visitor))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean intersects(DoubleBuffer bounds, int i, Envelope env)
+  {
+    int j = 4 * i;
+    return ! (env.getMinX() > bounds.get(j + 2)
+        || env.getMaxX() < bounds.get(j)
+        || env.getMinY() > bounds.get(j + 3)
+        || env.getMaxY() < bounds.get(j + 1));
+  }
+}
@@ -0,0 +1,451 @@
+package com.vividsolutions.jts.index.strtree;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.*;
+import com.vividsolutions.jts.util.Assert;
+
+/**
+ * A query-only R-tree created using the Sort-Tile-Recursive (STR) algorithm,
+ * stored in packed arrays rather than as a graph of node objects.
+ * For two-dimensional spatial data.
+ * <p>
+ * The tree is built using the same packing algorithm as {@link STRtree},
+ * but once built the node and item bounds are held in flat <tt>double</tt> arrays,
+ * the child layout of the nodes in <tt>int</tt> arrays
+ * and the items in an <tt>Object</tt> array.
+ * No {@link Envelope}s, {@link ItemBoundable}s or {@link AbstractNode}s
+ * are retained.
+ * This substantially reduces the memory footprint of the index,
+ * and improves the locality of reference of queries.
+ * This makes it suitable for large read-only datasets.
+ * <p>
+ * As with {@link STRtree}, once the tree has been built
+ * (explicitly or on the first call to #query), items may
+ * not be added.  Items may not be removed.
+ * <p>
+ * Once built, the tree may be queried safely by multiple threads concurrently.
+ * If the tree is built lazily by a query, the build is performed exactly once,
+ * even if several threads query the tree at the same time.
+ *
+ * @see STRtree
+ * @version 1.7
+ */
+public class PackedSTRtree
+  implements SpatialIndex
+{
+  private static final int DEFAULT_NODE_CAPACITY = 10;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int nodeCapacity;
+  private volatile boolean built = false;
+
+  private int itemCount = 0;
+  /**
+   * The item bounds, stored as (minx, miny, maxx, maxy) quadruples.
+   * After the tree is built they are in the order of the leaf nodes.
+   */
+  private double[] itemBounds = new double[4 * INITIAL_CAPACITY];
+  private Object[] items = new Object[INITIAL_CAPACITY];
+
+  /**
+   * The node bounds, stored as (minx, miny, maxx, maxy) quadruples,
+   * for all levels of the tree, from the leaf level up to the root.
+   */
+  private double[] nodeBounds;
+  /**
+   * The index of the first child of each node.
+   * For a leaf node the children are items,
+   * otherwise they are nodes in the level below.
+   */
+  private int[] nodeChildStart;
+  /**
+   * The index one past the last child of each node.
+   */
+  private int[] nodeChildEnd;
+  /**
+   * The index of the first node in each level,
+   * followed by the total number of nodes.
+   */
+  private int[] levelStart;
+
+  /**
+   * Constructs a PackedSTRtree with the default node capacity.
+   */
+  public PackedSTRtree()
+  {
+    this(DEFAULT_NODE_CAPACITY);
+  }
+
+  /**
+   * Constructs a PackedSTRtree with the given maximum number of child nodes that
+   * a node may have.
+   *
+   * @param nodeCapacity the maximum number of child nodes of a node
+   */
+  public PackedSTRtree(int nodeCapacity)
+  {
+    Assert.isTrue(nodeCapacity > 1, "Node capacity must be greater than 1");
+    this.nodeCapacity = nodeCapacity;
+  }
+
+  /**
+   * Returns the maximum number of child nodes that a node may have
+   */
+  public int getNodeCapacity() { return nodeCapacity; }
+
+  /**
+   * Inserts an item having the given bounds into the tree.
+   */
+  public void insert(Envelope itemEnv, Object item)
+  {
+    Assert.isTrue(!built, "Cannot insert items into an STR packed R-tree after it has been built.");
+    if (itemEnv.isNull()) { return; }
+    if (itemCount == items.length) {
+      items = Arrays.copyOf(items, 2 * itemCount);
+      itemBounds = Arrays.copyOf(itemBounds, 8 * itemCount);
+    }
+    int i = 4 * itemCount;
+    itemBounds[i] = itemEnv.getMinX();
+    itemBounds[i + 1] = itemEnv.getMinY();
+    itemBounds[i + 2] = itemEnv.getMaxX();
+    itemBounds[i + 3] = itemEnv.getMaxY();
+    items[itemCount] = item;
+    itemCount++;
+  }
+
+  /**
+   * Items cannot be removed from a PackedSTRtree.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public boolean remove(Envelope itemEnv, Object item)
+  {
+    throw new UnsupportedOperationException("Cannot remove items from a PackedSTRtree");
+  }
+
+  /**
+   * Returns the number of items in the tree.
+   *
+   * @return the number of items in the tree
+   */
+  public int size()
+  {
+    return itemCount;
+  }
+
+  /**
+   * Returns the number of levels in the tree.
+   *
+   * @return the number of levels in the tree
+   */
+  public int depth()
+  {
+    ensureBuilt();
+    return levelStart.length - 1;
+  }
+
+  /*
+   * Accessors for the packed arrays, used by STRtreeFileWriter.
+   * They build the tree if necessary.
+   */
+  double[] getItemBounds() { ensureBuilt(); return itemBounds; }
+  Object[] getItems() { ensureBuilt(); return items; }
+  double[] getNodeBounds() { ensureBuilt(); return nodeBounds; }
+  int[] getNodeChildStart() { ensureBuilt(); return nodeChildStart; }
+  int[] getNodeChildEnd() { ensureBuilt(); return nodeChildEnd; }
+  int[] getLevelStart() { ensureBuilt(); return levelStart; }
+
+  private void ensureBuilt()
+  {
+    if (built) return;
+    synchronized (this) {
+      if (!built) { build(); }
+    }
+  }
+
+  /**
+   * Returns items whose bounds intersect the given envelope.
+   */
+  public List query(Envelope searchEnv)
+  {
+    ArrayListVisitor visitor = new ArrayListVisitor();
+    query(searchEnv, visitor);
+    return visitor.getItems();
+  }
+
+  /**
+   * Returns items whose bounds intersect the given envelope.
+   */
+  public void query(Envelope searchEnv, ItemVisitor visitor)
+  {
+    ensureBuilt();
+    if (itemCount == 0 || searchEnv.isNull()) return;
+
+    int rootLevel = levelStart.length - 2;
+    int root = levelStart[rootLevel];
+    if (! intersects(nodeBounds, root, searchEnv)) return;
+    query(root, rootLevel, searchEnv, visitor,
+        (visitor instanceof ShortCircuitedItemVisitor)
+          ? (ShortCircuitedItemVisitor) visitor : null);
+  }
+
+  /**
+   * @return false if the short-circuit visitor is done
+   */
+  private boolean query(int node, int level, Envelope searchEnv, ItemVisitor visitor,
+      ShortCircuitedItemVisitor scVisitor)
+  {
+    int end = nodeChildEnd[node];
+    if (level == 0) {
+      for (int i = nodeChildStart[node]; i < end; i++) {
+        if (intersects(itemBounds, i, searchEnv)) {
+          visitor.visitItem(items[i]);
+          if (scVisitor != null && scVisitor.isDone())
+            return false;
+        }
+      }
+      return true;
+    }
+    for (int i = nodeChildStart[node]; i < end; i++) {
+      if (intersects(nodeBounds, i, searchEnv)) {
+        if (! query(i, level - 1, searchEnv, visitor, scVisitor))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean intersects(double[] bounds, int i, Envelope env)
+  {
+    int j = 4 * i;
+    return ! (env.getMinX() > bounds[j + 2]
+        || env.getMaxX() < bounds[j]
+        || env.getMinY() > bounds[j + 3]
+        || env.getMaxY() < bounds[j + 1]);
+  }
+
+  /**
+   * Builds the packed tree from the items inserted so far.
+   * Can only be called once, and thus can be called only after all of the data
+   * has been inserted into the tree.
+   */
+  public void build()
+  {
+    synchronized (this) {
+      Assert.isTrue(!built);
+      buildArrays();
+      // publish the tree only once the arrays are complete
+      built = true;
+    }
+  }
+
+  private void buildArrays()
+  {
+    // trim item arrays
+    items = Arrays.copyOf(items, itemCount);
+    itemBounds = Arrays.copyOf(itemBounds, 4 * itemCount);
+    if (itemCount == 0) {
+      nodeBounds = new double[0];
+      nodeChildStart = new int[0];
+      nodeChildEnd = new int[0];
+      levelStart = new int[] { 0 };
+      return;
+    }
+
+    List levelBoundsList = new ArrayList();
+    List levelChildStartList = new ArrayList();
+    List levelChildEndList = new ArrayList();
+
+    // the items form the lowest (child) level
+    double[] childBounds = itemBounds;
+    int[] childStart = null;
+    int[] childEnd = null;
+    int childCount = itemCount;
+    do {
+      int[] order = new int[childCount];
+      int[] groupStart = packOrder(childBounds, childCount, order);
+
+      // reorder the child level to match the packing
+      childBounds = reorderBounds(childBounds, order);
+      if (childStart == null) {
+        items = reorder(items, order);
+        itemBounds = childBounds;
+      }
+      else {
+        childStart = reorder(childStart, order);
+        childEnd = reorder(childEnd, order);
+        levelBoundsList.set(levelBoundsList.size() - 1, childBounds);
+        levelChildStartList.set(levelChildStartList.size() - 1, childStart);
+        levelChildEndList.set(levelChildEndList.size() - 1, childEnd);
+      }
+
+      // create the parent level
+      int parentCount = groupStart.length - 1;
+      double[] parentBounds = new double[4 * parentCount];
+      int[] parentChildStart = new int[parentCount];
+      int[] parentChildEnd = new int[parentCount];
+      for (int i = 0; i < parentCount; i++) {
+        parentChildStart[i] = groupStart[i];
+        parentChildEnd[i] = groupStart[i + 1];
+        computeBounds(childBounds, groupStart[i], groupStart[i + 1], parentBounds, i);
+      }
+      levelBoundsList.add(parentBounds);
+      levelChildStartList.add(parentChildStart);
+      levelChildEndList.add(parentChildEnd);
+
+      childBounds = parentBounds;
+      childStart = parentChildStart;
+      childEnd = parentChildEnd;
+      childCount = parentCount;
+    } while (childCount > 1);
+
+    concatenateLevels(levelBoundsList, levelChildStartList, levelChildEndList);
+  }
+
+  /**
+   * Copies the levels into the node arrays,
+   * converting the child indices of the non-leaf levels
+   * to node array indices.
+   */
+  private void concatenateLevels(List levelBoundsList, List levelChildStartList, List levelChildEndList)
+  {
+    int numLevels = levelBoundsList.size();
+    levelStart = new int[numLevels + 1];
+    for (int level = 0; level < numLevels; level++) {
+      int levelSize = ((int[]) levelChildStartList.get(level)).length;
+      levelStart[level + 1] = levelStart[level] + levelSize;
+    }
+    int numNodes = levelStart[numLevels];
+    nodeBounds = new double[4 * numNodes];
+    nodeChildStart = new int[numNodes];
+    nodeChildEnd = new int[numNodes];
+    for (int level = 0; level < numLevels; level++) {
+      double[] bounds = (double[]) levelBoundsList.get(level);
+      int[] start = (int[]) levelChildStartList.get(level);
+      int[] end = (int[]) levelChildEndList.get(level);
+      int offset = level == 0 ? 0 : levelStart[level - 1];
+      int base = levelStart[level];
+      System.arraycopy(bounds, 0, nodeBounds, 4 * base, bounds.length);
+      for (int i = 0; i < start.length; i++) {
+        nodeChildStart[base + i] = start[i] + offset;
+        nodeChildEnd[base + i] = end[i] + offset;
+      }
+    }
+  }
+
+  /**
+   * Computes the STR packing order for a level.
+   * The boundables are ordered by the x-values of their midpoints,
+   * and grouped into vertical slices.
+   * Each slice is ordered by the y-values of the midpoints,
+   * and divided into runs of size M (the node capacity),
+   * each of which forms a parent node.
+   *
+   * @param bounds the bounds of the level
+   * @param count the number of boundables in the level
+   * @param order receives the packing order of the boundables
+   * @return the start indices of the parent groups, followed by the count
+   */
+  private int[] packOrder(double[] bounds, int count, int[] order)
+  {
+    double[] centreX = new double[count];
+    double[] centreY = new double[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+      centreX[i] = (bounds[4 * i] + bounds[4 * i + 2]) / 2d;
+      centreY[i] = (bounds[4 * i + 1] + bounds[4 * i + 3]) / 2d;
+    }
+    int[] tmp = new int[count];
+    sort(order, 0, count, centreX, tmp);
+
+    int minLeafCount = (int) Math.ceil(count / (double) nodeCapacity);
+    int sliceCount = (int) Math.ceil(Math.sqrt(minLeafCount));
+    int sliceCapacity = (int) Math.ceil(count / (double) sliceCount);
+
+    int[] groupStart = new int[count + 1];
+    int groupCount = 0;
+    for (int sliceStart = 0; sliceStart < count; sliceStart += sliceCapacity) {
+      int sliceEnd = Math.min(sliceStart + sliceCapacity, count);
+      sort(order, sliceStart, sliceEnd, centreY, tmp);
+      for (int i = sliceStart; i < sliceEnd; i += nodeCapacity) {
+        groupStart[groupCount++] = i;
+      }
+    }
+    groupStart[groupCount] = count;
+    return Arrays.copyOf(groupStart, groupCount + 1);
+  }
+
+  /**
+   * Sorts a range of an index array by the given key values.
+   * The sort is a stable merge sort,
+   * so that the ordering is the same as that used by {@link STRtree}.
+   */
+  private static void sort(int[] index, int start, int end, double[] key, int[] tmp)
+  {
+    if (end - start < 2) return;
+    int mid = (start + end) >>> 1;
+    sort(index, start, mid, key, tmp);
+    sort(index, mid, end, key, tmp);
+    if (key[index[mid - 1]] <= key[index[mid]]) return;
+
+    System.arraycopy(index, start, tmp, start, end - start);
+    int i = start;
+    int j = mid;
+    for (int k = start; k < end; k++) {
+      if (j >= end || (i < mid && key[tmp[i]] <= key[tmp[j]])) {
+        index[k] = tmp[i++];
+      }
+      else {
+        index[k] = tmp[j++];
+      }
+    }
+  }
+
+  private static void computeBounds(double[] childBounds, int start, int end,
+      double[] bounds, int i)
+  {
+    double minx = Double.POSITIVE_INFINITY;
+    double miny = Double.POSITIVE_INFINITY;
+    double maxx = Double.NEGATIVE_INFINITY;
+    double maxy = Double.NEGATIVE_INFINITY;
+    for (int j = 4 * start; j < 4 * end; j += 4) {
+      if (childBounds[j] < minx) minx = childBounds[j];
+      if (childBounds[j + 1] < miny) miny = childBounds[j + 1];
+      if (childBounds[j + 2] > maxx) maxx = childBounds[j + 2];
+      if (childBounds[j + 3] > maxy) maxy = childBounds[j + 3];
+    }
+    bounds[4 * i] = minx;
+    bounds[4 * i + 1] = miny;
+    bounds[4 * i + 2] = maxx;
+    bounds[4 * i + 3] = maxy;
+  }
+
+  private static double[] reorderBounds(double[] bounds, int[] order)
+  {
+    double[] result = new double[4 * order.length];
+    for (int i = 0; i < order.length; i++) {
+      System.arraycopy(bounds, 4 * order[i], result, 4 * i, 4);
+    }
+    return result;
+  }
+
+  private static int[] reorder(int[] values, int[] order)
+  {
+    int[] result = new int[order.length];
+    for (int i = 0; i < order.length; i++) {
+      result[i] = values[order[i]];
+    }
+    return result;
+  }
+
+  private static Object[] reorder(Object[] values, int[] order)
+  {
+    Object[] result = new Object[order.length];
+    for (int i = 0; i < order.length; i++) {
+      result[i] = values[order[i]];
+    }
+    return result;
+  }
+}
@@ -35,6 +35,9 @@ package com.vividsolutions.jts.index.strtree;
 
 import com.vividsolutions.jts.index.strtree.AbstractSTRtree;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.util.*;
 import com.vividsolutions.jts.util.PriorityQueue;
@@ -53,6 +56,11 @@ import com.vividsolutions.jts.index.*;
  * Described in: P. Rigaux, Michel Scholl and Agnes Voisard.
  * <i>Spatial Databases With Application To GIS</i>.
  * Morgan Kaufmann, San Francisco, 2002.
+ * <P>
+ * The tree can optionally be built in parallel 
+ * (see {@link #setBuildParallelism(int)}).
+ * The parallel build produces exactly the same tree structure
+ * as the serial build.
  *
  * @version 1.7
  */
@@ -101,13 +109,87 @@ public class STRtree extends AbstractSTRtree implements SpatialIndex {
   protected List createParentBoundables(List childBoundables, int newLevel) {
     Assert.isTrue(!childBoundables.isEmpty());
     int minLeafCount = (int) Math.ceil((childBoundables.size() / (double) getNodeCapacity()));
+    int sliceCount = (int) Math.ceil(Math.sqrt(minLeafCount));
+    if (isParallelBuild(childBoundables.size())) {
+      return createParentBoundablesParallel(childBoundables, sliceCount, newLevel);
+    }
     ArrayList sortedChildBoundables = new ArrayList(childBoundables);
     Collections.sort(sortedChildBoundables, xComparator);
-    List[] verticalSlices = verticalSlices(sortedChildBoundables,
-        (int) Math.ceil(Math.sqrt(minLeafCount)));
+    List[] verticalSlices = verticalSlices(sortedChildBoundables, sliceCount);
     return createParentBoundablesFromVerticalSlices(verticalSlices, newLevel);
   }
 
+  private boolean isParallelBuild(int boundableCount)
+  {
+    return buildParallelism > 1
+        && boundableCount >= PARALLEL_BUILD_THRESHOLD
+        && ForkJoinTask.inForkJoinPool();
+  }
+
+  /**
+   * Creates the parent level using fork/join tasks.
+   * The x-sort is a (stable) parallel sort,
+   * and each vertical slice is sorted and packed by a separate task.
+   * Since the sorts are stable and the slices are computed 
+   * in the same way as for the serial build, 
+   * the resulting nodes are identical to those of the serial build.
+   * <p>
+   * Must be called from within a {@link ForkJoinPool}.
+   */
+  private List createParentBoundablesParallel(List childBoundables, int sliceCount, int newLevel) 
+  {
+    Object[] sortedChildBoundables = childBoundables.toArray();
+    Arrays.parallelSort(sortedChildBoundables, xComparator);
+    
+    int sliceCapacity = (int) Math.ceil(sortedChildBoundables.length / (double) sliceCount);
+    VerticalSliceTask[] sliceTasks = new VerticalSliceTask[sliceCount];
+    for (int j = 0; j < sliceCount; j++) {
+      int start = Math.min(j * sliceCapacity, sortedChildBoundables.length);
+      int end = Math.min(start + sliceCapacity, sortedChildBoundables.length);
+      sliceTasks[j] = new VerticalSliceTask(sortedChildBoundables, start, end, newLevel);
+    }
+    ForkJoinTask.invokeAll(sliceTasks);
+    
+    List parentBoundables = new ArrayList();
+    for (int j = 0; j < sliceCount; j++) {
+      parentBoundables.addAll(sliceTasks[j].parentBoundables);
+    }
+    return parentBoundables;
+  }
+
+  /**
+   * Packs a single vertical slice into parent nodes.
+   */
+  private class VerticalSliceTask extends RecursiveAction
+  {
+    private Object[] sortedChildBoundables;
+    private int start;
+    private int end;
+    private int newLevel;
+    List parentBoundables;
+    
+    VerticalSliceTask(Object[] sortedChildBoundables, int start, int end, int newLevel)
+    {
+      this.sortedChildBoundables = sortedChildBoundables;
+      this.start = start;
+      this.end = end;
+      this.newLevel = newLevel;
+    }
+    
+    protected void compute()
+    {
+      List slice = Arrays.asList(sortedChildBoundables).subList(start, end);
+      parentBoundables = createParentBoundablesFromVerticalSlice(slice, newLevel);
+      /**
+       * Compute the node bounds here, so that the 
+       * next level sort does not compute them concurrently
+       */
+      for (Iterator i = parentBoundables.iterator(); i.hasNext(); ) {
+        ((Boundable) i.next()).getBounds();
+      }
+    }
+  }
+
   private List createParentBoundablesFromVerticalSlices(List[] verticalSlices, int newLevel) {
     Assert.isTrue(verticalSlices.length > 0);
     List parentBoundables = new ArrayList();
@@ -142,6 +224,15 @@ public class STRtree extends AbstractSTRtree implements SpatialIndex {
   }
 
   private static final int DEFAULT_NODE_CAPACITY = 10;
+  
+  /**
+   * Levels with fewer boundables than this are always built serially,
+   * since the task overhead outweighs the gain.
+   */
+  private static final int PARALLEL_BUILD_THRESHOLD = 10000;
+  
+  private int buildParallelism = 1;
+  
   /**
    * Constructs an STRtree with the default node capacity.
    */
@@ -161,6 +252,46 @@ public class STRtree extends AbstractSTRtree implements SpatialIndex {
     super(nodeCapacity);
   }
 
+  /**
+   * Sets the number of threads used to build the tree.
+   * A value greater than 1 causes the tree to be built
+   * using a {@link ForkJoinPool} with the given parallelism.
+   * The default is 1 (i.e. the tree is built serially).
+   * <p>
+   * The structure of the built tree does not depend on this setting.
+   * 
+   * @param buildParallelism the number of threads to use to build the tree
+   */
+  public void setBuildParallelism(int buildParallelism)
+  {
+    this.buildParallelism = buildParallelism;
+  }
+  
+  /**
+   * Creates the higher levels of the tree,
+   * using a {@link ForkJoinPool} if the build parallelism is greater than 1.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   */
+  protected AbstractNode createHigherLevels(final List boundablesOfALevel, final int level) 
+  {
+    if (buildParallelism <= 1 || ForkJoinTask.inForkJoinPool()) {
+      return super.createHigherLevels(boundablesOfALevel, level);
+    }
+    final AbstractNode[] root = new AbstractNode[1];
+    ForkJoinPool pool = new ForkJoinPool(buildParallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        protected void compute() {
+          root[0] = STRtree.super.createHigherLevels(boundablesOfALevel, level);
+        }
+      });
+    }
+    finally {
+      pool.shutdown();
+    }
+    return root[0];
+  }
+
   protected AbstractNode createNode(int level) {
     return new AbstractNode(level) {
       protected Object computeBounds() {
@@ -282,6 +413,52 @@ public class STRtree extends AbstractSTRtree implements SpatialIndex {
     return nearestNeighbour(bp)[0];
   }
   
+  /**
+   * Finds the k items in this tree which are nearest to the given {@link Object}, 
+   * using {@link ItemDistance} as the distance metric.
+   * A best-first Branch-and-Bound tree traversal algorithm is used
+   * to provide an efficient search.
+   * <p>
+   * The query <tt>object</tt> does <b>not</b> have to be 
+   * contained in the tree, but it does 
+   * have to be compatible with the <tt>itemDist</tt> 
+   * distance metric. 
+   * 
+   * @param env the envelope of the query item
+   * @param item the item to find the nearest neighbours of
+   * @param itemDist a distance metric applicable to the items in this tree and the query item
+   * @param k the maximum number of items to find
+   * @return the k nearest items in this tree, in order of increasing distance
+   */
+  public Object[] kNearestNeighbours(Envelope env, Object item, ItemDistance itemDist, int k)
+  {
+    return kNearestNeighbours(env, item, itemDist, k, Double.POSITIVE_INFINITY);
+  }
+  
+  /**
+   * Finds the k items in this tree which are nearest to the given {@link Object}
+   * and no further from it than a given distance, 
+   * using {@link ItemDistance} as the distance metric.
+   * A best-first Branch-and-Bound tree traversal algorithm is used
+   * to provide an efficient search.
+   * The result may contain fewer than k items
+   * if there are not enough items in the tree within the maximum distance.
+   * 
+   * @param env the envelope of the query item
+   * @param item the item to find the nearest neighbours of
+   * @param itemDist a distance metric applicable to the items in this tree and the query item
+   * @param k the maximum number of items to find
+   * @param maxDistance the maximum distance of the items to find
+   * @return the k nearest items in this tree, in order of increasing distance
+   */
+  public Object[] kNearestNeighbours(Envelope env, Object item, ItemDistance itemDist, 
+      int k, double maxDistance)
+  {
+    KNearestNeighbourSearch search = new KNearestNeighbourSearch(env, item, itemDist, 
+        k, maxDistance);
+    return search.search(getRoot());
+  }
+  
   /**
    * Finds the two nearest items from this tree 
    * and another tree,
@@ -302,6 +479,83 @@ public class STRtree extends AbstractSTRtree implements SpatialIndex {
     return nearestNeighbour(bp);
   }
   
+  /**
+   * Finds all pairs of items from this tree and another tree
+   * whose envelopes intersect,
+   * and passes them to an {@link ItemPairVisitor}.
+   * The trees are traversed together, so only pairs of subtrees
+   * whose bounds intersect are visited.
+   * The first item of each pair is from this tree
+   * and the second from the argument tree.
+   * 
+   * @param tree another tree
+   * @param visitor the visitor to pass the item pairs to
+   */
+  public void join(STRtree tree, ItemPairVisitor visitor)
+  {
+    join(tree, visitor, 1);
+  }
+  
+  /**
+   * Finds all pairs of items from this tree and another tree
+   * whose envelopes intersect,
+   * using the given number of threads.
+   * If the parallelism is greater than 1 the pairs are visited 
+   * in no particular order, from multiple threads,
+   * so the visitor must be thread-safe.
+   * 
+   * @param tree another tree
+   * @param visitor the visitor to pass the item pairs to
+   * @param parallelism the number of threads to use
+   */
+  public void join(STRtree tree, ItemPairVisitor visitor, int parallelism)
+  {
+    STRtreeJoin join = new STRtreeJoin(0.0, null, visitor, parallelism);
+    join.join(this.getRoot(), tree.getRoot());
+  }
+  
+  /**
+   * Finds all pairs of items from this tree and another tree
+   * which are within a given distance of each other,
+   * using {@link ItemDistance} as the distance metric,
+   * and passes them to an {@link ItemPairVisitor}.
+   * The distance between the item envelopes is used to prune the search,
+   * so the metric must never be less than the envelope distance.
+   * If <tt>itemDist</tt> is null, all pairs whose envelopes 
+   * are within the distance are visited.
+   * 
+   * @param tree another tree
+   * @param maxDistance the maximum distance between items in a pair
+   * @param itemDist a distance metric applicable to the items in the trees, or null
+   * @param visitor the visitor to pass the item pairs to
+   */
+  public void joinWithinDistance(STRtree tree, double maxDistance, ItemDistance itemDist, 
+      ItemPairVisitor visitor)
+  {
+    joinWithinDistance(tree, maxDistance, itemDist, visitor, 1);
+  }
+  
+  /**
+   * Finds all pairs of items from this tree and another tree
+   * which are within a given distance of each other,
+   * using the given number of threads.
+   * If the parallelism is greater than 1 the pairs are visited 
+   * in no particular order, from multiple threads,
+   * so the visitor must be thread-safe.
+   * 
+   * @param tree another tree
+   * @param maxDistance the maximum distance between items in a pair
+   * @param itemDist a distance metric applicable to the items in the trees, or null
+   * @param visitor the visitor to pass the item pairs to
+   * @param parallelism the number of threads to use
+   */
+  public void joinWithinDistance(STRtree tree, double maxDistance, ItemDistance itemDist, 
+      ItemPairVisitor visitor, int parallelism)
+  {
+    STRtreeJoin join = new STRtreeJoin(maxDistance, itemDist, visitor, parallelism);
+    join.join(this.getRoot(), tree.getRoot());
+  }
+  
   private Object[] nearestNeighbour(BoundablePair initBndPair) 
   {
     return nearestNeighbour(initBndPair, Double.POSITIVE_INFINITY);
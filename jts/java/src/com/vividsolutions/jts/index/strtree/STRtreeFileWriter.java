@@ -0,0 +1,247 @@
+package com.vividsolutions.jts.index.strtree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.io.ByteOrderValues;
+
+/**
+ * Writes a built {@link STRtree} or {@link PackedSTRtree} to a file
+ * in a compact binary format which can be loaded by {@link MappedSTRtree}.
+ * <p>
+ * The file contains the node bounds and child layout of the tree
+ * in flat arrays, followed by the item bounds and item identifiers.
+ * Items are not serialized; instead each is represented by a <tt>long</tt>
+ * identifier supplied by an {@link ItemIdMapper}.
+ * <p>
+ * The file is written in the native byte order of the platform,
+ * which is recorded in the file header.
+ *
+ * @version 1.7
+ * @see MappedSTRtree
+ */
+public class STRtreeFileWriter
+{
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private ItemIdMapper idMapper;
+  private FileChannel channel;
+  private ByteBuffer buf;
+
+  /**
+   * Creates a writer which uses the given mapper
+   * to obtain the identifiers of the tree items.
+   *
+   * @param idMapper the item identifier mapper
+   */
+  public STRtreeFileWriter(ItemIdMapper idMapper)
+  {
+    this.idMapper = idMapper;
+  }
+
+  /**
+   * Writes an {@link STRtree} to a file.
+   * The tree is built if necessary.
+   *
+   * @param tree the tree to write
+   * @param file the file to write to
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the tree has too many items to be loaded
+   */
+  public void write(STRtree tree, File file)
+    throws IOException
+  {
+    int itemCount = tree.size();
+    checkItemCount(itemCount);
+    AbstractNode root = tree.getRoot();
+    if (itemCount == 0) {
+      write(file, tree.getNodeCapacity(), new int[] { 0 }, new int[0], new int[0],
+          new double[0], new double[0], new long[0]);
+      return;
+    }
+
+    /**
+     * Collect the nodes of each level, from the root down.
+     * The children of each node are consecutive in the level below.
+     */
+    List levels = new ArrayList();
+    List nodes = new ArrayList();
+    nodes.add(root);
+    while (true) {
+      levels.add(0, nodes);
+      if (((AbstractNode) nodes.get(0)).getLevel() == 0) break;
+      List children = new ArrayList();
+      for (int i = 0; i < nodes.size(); i++) {
+        children.addAll(((AbstractNode) nodes.get(i)).getChildBoundables());
+      }
+      nodes = children;
+    }
+
+    int numLevels = levels.size();
+    int[] levelStart = new int[numLevels + 1];
+    for (int level = 0; level < numLevels; level++) {
+      levelStart[level + 1] = levelStart[level] + ((List) levels.get(level)).size();
+    }
+    int nodeCount = levelStart[numLevels];
+    double[] nodeBounds = new double[4 * nodeCount];
+    int[] nodeChildStart = new int[nodeCount];
+    int[] nodeChildEnd = new int[nodeCount];
+    double[] itemBounds = new double[4 * itemCount];
+    long[] itemIds = new long[itemCount];
+
+    int node = 0;
+    for (int level = 0; level < numLevels; level++) {
+      List levelNodes = (List) levels.get(level);
+      // the leaf children are items, otherwise they are nodes in the level below
+      int child = level == 0 ? 0 : levelStart[level - 1];
+      for (int i = 0; i < levelNodes.size(); i++) {
+        AbstractNode n = (AbstractNode) levelNodes.get(i);
+        setBounds(nodeBounds, node, (Envelope) n.getBounds());
+        List children = n.getChildBoundables();
+        nodeChildStart[node] = child;
+        if (level == 0) {
+          for (int j = 0; j < children.size(); j++) {
+            ItemBoundable item = (ItemBoundable) children.get(j);
+            setBounds(itemBounds, child + j, (Envelope) item.getBounds());
+            itemIds[child + j] = idMapper.getId(item.getItem());
+          }
+        }
+        child += children.size();
+        nodeChildEnd[node] = child;
+        node++;
+      }
+    }
+    write(file, tree.getNodeCapacity(), levelStart, nodeChildStart, nodeChildEnd,
+        nodeBounds, itemBounds, itemIds);
+  }
+
+  /**
+   * Writes a {@link PackedSTRtree} to a file.
+   * The tree is built if necessary.
+   *
+   * @param tree the tree to write
+   * @param file the file to write to
+   * @throws IOException if an I/O error occurs
+   * @throws IllegalArgumentException if the tree has too many items to be loaded
+   */
+  public void write(PackedSTRtree tree, File file)
+    throws IOException
+  {
+    checkItemCount(tree.size());
+    Object[] items = tree.getItems();
+    long[] itemIds = new long[items.length];
+    for (int i = 0; i < items.length; i++) {
+      itemIds[i] = idMapper.getId(items[i]);
+    }
+    write(file, tree.getNodeCapacity(), tree.getLevelStart(),
+        tree.getNodeChildStart(), tree.getNodeChildEnd(),
+        tree.getNodeBounds(), tree.getItemBounds(), itemIds);
+  }
+
+  /**
+   * Checks that the item bounds section can be mapped by {@link MappedSTRtree},
+   * which requires it to fit in a single buffer.
+   */
+  private static void checkItemCount(int itemCount)
+  {
+    if (32L * itemCount > Integer.MAX_VALUE)
+      throw new IllegalArgumentException("Tree has " + itemCount
+          + " items, but at most " + (Integer.MAX_VALUE / 32)
+          + " can be written to an STR tree file");
+  }
+
+  private static void setBounds(double[] bounds, int i, Envelope env)
+  {
+    bounds[4 * i] = env.getMinX();
+    bounds[4 * i + 1] = env.getMinY();
+    bounds[4 * i + 2] = env.getMaxX();
+    bounds[4 * i + 3] = env.getMaxY();
+  }
+
+  private void write(File file, int nodeCapacity, int[] levelStart,
+      int[] nodeChildStart, int[] nodeChildEnd,
+      double[] nodeBounds, double[] itemBounds, long[] itemIds)
+    throws IOException
+  {
+    FileOutputStream os = new FileOutputStream(file);
+    try {
+      channel = os.getChannel();
+      buf = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.nativeOrder());
+
+      // header (the byte order flag is a single byte, padded to 4 bytes)
+      buf.put((byte) (buf.order() == ByteOrder.BIG_ENDIAN
+          ? ByteOrderValues.BIG_ENDIAN : ByteOrderValues.LITTLE_ENDIAN));
+      buf.put((byte) 0);
+      buf.putShort((short) 0);
+      buf.putInt(MappedSTRtree.MAGIC);
+      buf.putInt(MappedSTRtree.VERSION);
+      buf.putInt(nodeCapacity);
+      buf.putInt(itemIds.length);
+      buf.putInt(levelStart.length);
+      buf.putInt(nodeChildStart.length);
+      buf.putInt(0);
+
+      writeInts(levelStart);
+      writeInts(nodeChildStart);
+      writeInts(nodeChildEnd);
+      writeDoubles(nodeBounds);
+      writeDoubles(itemBounds);
+      writeLongs(itemIds);
+      flush();
+    }
+    finally {
+      os.close();
+      channel = null;
+      buf = null;
+    }
+  }
+
+  private void writeInts(int[] values)
+    throws IOException
+  {
+    for (int i = 0; i < values.length; i++) {
+      if (buf.remaining() < 4) flush();
+      buf.putInt(values[i]);
+    }
+    // pad sections to a multiple of 8 bytes
+    if (values.length % 2 != 0) {
+      if (buf.remaining() < 4) flush();
+      buf.putInt(0);
+    }
+  }
+
+  private void writeDoubles(double[] values)
+    throws IOException
+  {
+    for (int i = 0; i < values.length; i++) {
+      if (buf.remaining() < 8) flush();
+      buf.putDouble(values[i]);
+    }
+  }
+
+  private void writeLongs(long[] values)
+    throws IOException
+  {
+    for (int i = 0; i < values.length; i++) {
+      if (buf.remaining() < 8) flush();
+      buf.putLong(values[i]);
+    }
+  }
+
+  private void flush()
+    throws IOException
+  {
+    buf.flip();
+    while (buf.hasRemaining()) {
+      channel.write(buf);
+    }
+    buf.clear();
+  }
+}
@@ -0,0 +1,262 @@
+package com.vividsolutions.jts.index.strtree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+/**
+ * Joins two {@link STRtree}s by descending both trees together,
+ * reporting all pairs of items whose envelopes intersect
+ * (or are within a given distance).
+ * <p>
+ * At each step a pair of nodes whose bounds are within the join distance
+ * is expanded into the pairs of their children which are within the distance.
+ * If the nodes are at different levels (because the trees
+ * have different heights) only the higher node is expanded.
+ * Subtrees whose bounds are further apart than the join distance
+ * are never visited.
+ * <p>
+ * The join can be run in parallel.  In this case the root pair is expanded
+ * breadth-first into enough node pairs to keep the threads busy,
+ * and the subtree pairs are joined by a {@link ForkJoinPool}.
+ *
+ * @see STRtree#join(STRtree, ItemPairVisitor, int)
+ * @see STRtree#joinWithinDistance(STRtree, double, ItemDistance, ItemPairVisitor, int)
+ */
+class STRtreeJoin
+{
+  /**
+   * The number of node pairs to create for each thread,
+   * to allow balancing work between subtrees of different densities.
+   */
+  private static final int PAIRS_PER_THREAD = 8;
+
+  private double maxDistance;
+  private ItemDistance itemDist;
+  private ItemPairVisitor visitor;
+  private int parallelism;
+
+  /**
+   * Creates a join.
+   *
+   * @param maxDistance the maximum distance between joined items (0 for an intersection join)
+   * @param itemDist the distance metric for items, or null to report all items whose envelopes are within the distance
+   * @param visitor the visitor to report item pairs to
+   * @param parallelism the number of threads to use
+   */
+  public STRtreeJoin(double maxDistance, ItemDistance itemDist, ItemPairVisitor visitor,
+      int parallelism)
+  {
+    this.maxDistance = maxDistance;
+    this.itemDist = itemDist;
+    this.visitor = visitor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Joins the trees with the given roots.
+   *
+   * @param root1 the root of the first tree
+   * @param root2 the root of the second tree
+   */
+  public void join(AbstractNode root1, AbstractNode root2)
+  {
+    if (root1.getBounds() == null || root2.getBounds() == null)
+      return;
+    if (! isWithinDistance((Envelope) root1.getBounds(), (Envelope) root2.getBounds()))
+      return;
+    if (parallelism <= 1) {
+      joinNodes(root1, root2);
+      return;
+    }
+
+    List pairs = new ArrayList();
+    pairs.add(root1);
+    pairs.add(root2);
+    pairs = expandPairs(pairs, parallelism * PAIRS_PER_THREAD);
+    int nPairs = pairs.size() / 2;
+    if (nPairs == 0)
+      return;
+    AbstractNode[] nodes1 = new AbstractNode[nPairs];
+    AbstractNode[] nodes2 = new AbstractNode[nPairs];
+    for (int i = 0; i < nPairs; i++) {
+      nodes1[i] = (AbstractNode) pairs.get(2 * i);
+      nodes2[i] = (AbstractNode) pairs.get(2 * i + 1);
+    }
+    JoinTask task = new JoinTask(nodes1, nodes2, 0, nPairs);
+    if (ForkJoinTask.inForkJoinPool()) {
+      task.invoke();
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(task);
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Expands a list of node pairs level by level
+   * until it contains at least the target number of pairs,
+   * or only pairs of leaf nodes remain.
+   *
+   * @param pairs a list of node pairs, stored as consecutive elements
+   * @param targetCount the number of pairs to create
+   * @return the expanded list of pairs
+   */
+  private List expandPairs(List pairs, int targetCount)
+  {
+    while (pairs.size() / 2 < targetCount) {
+      List expanded = new ArrayList();
+      boolean isExpanded = false;
+      for (int i = 0; i < pairs.size(); i += 2) {
+        AbstractNode node1 = (AbstractNode) pairs.get(i);
+        AbstractNode node2 = (AbstractNode) pairs.get(i + 1);
+        if (isLeaves(node1, node2)) {
+          expanded.add(node1);
+          expanded.add(node2);
+        }
+        else {
+          expand(node1, node2, expanded);
+          isExpanded = true;
+        }
+      }
+      pairs = expanded;
+      if (! isExpanded) break;
+    }
+    return pairs;
+  }
+
+  private static boolean isLeaves(AbstractNode node1, AbstractNode node2)
+  {
+    return node1.getLevel() == 0 && node2.getLevel() == 0;
+  }
+
+  private void joinNodes(AbstractNode node1, AbstractNode node2)
+  {
+    if (isLeaves(node1, node2)) {
+      joinLeaves(node1, node2);
+    }
+    else {
+      expand(node1, node2, null);
+    }
+  }
+
+  /**
+   * Expands a pair of nodes into the pairs of children within the join distance.
+   * If a list is provided the child pairs are added to it,
+   * otherwise they are joined immediately.
+   */
+  private void expand(AbstractNode node1, AbstractNode node2, List pairs)
+  {
+    Envelope env1 = (Envelope) node1.getBounds();
+    Envelope env2 = (Envelope) node2.getBounds();
+    int level1 = node1.getLevel();
+    int level2 = node2.getLevel();
+    if (level1 == level2) {
+      List children1 = node1.getChildBoundables();
+      List children2 = node2.getChildBoundables();
+      for (int i = 0; i < children1.size(); i++) {
+        AbstractNode child1 = (AbstractNode) children1.get(i);
+        Envelope childEnv1 = (Envelope) child1.getBounds();
+        if (! isWithinDistance(childEnv1, env2)) continue;
+        for (int j = 0; j < children2.size(); j++) {
+          AbstractNode child2 = (AbstractNode) children2.get(j);
+          if (isWithinDistance(childEnv1, (Envelope) child2.getBounds()))
+            addPair(child1, child2, pairs);
+        }
+      }
+    }
+    else if (level1 > level2) {
+      List children1 = node1.getChildBoundables();
+      for (int i = 0; i < children1.size(); i++) {
+        AbstractNode child1 = (AbstractNode) children1.get(i);
+        if (isWithinDistance((Envelope) child1.getBounds(), env2))
+          addPair(child1, node2, pairs);
+      }
+    }
+    else {
+      List children2 = node2.getChildBoundables();
+      for (int j = 0; j < children2.size(); j++) {
+        AbstractNode child2 = (AbstractNode) children2.get(j);
+        if (isWithinDistance(env1, (Envelope) child2.getBounds()))
+          addPair(node1, child2, pairs);
+      }
+    }
+  }
+
+  private void addPair(AbstractNode node1, AbstractNode node2, List pairs)
+  {
+    if (pairs == null) {
+      joinNodes(node1, node2);
+    }
+    else {
+      pairs.add(node1);
+      pairs.add(node2);
+    }
+  }
+
+  private void joinLeaves(AbstractNode leaf1, AbstractNode leaf2)
+  {
+    Envelope env2 = (Envelope) leaf2.getBounds();
+    List items1 = leaf1.getChildBoundables();
+    List items2 = leaf2.getChildBoundables();
+    for (int i = 0; i < items1.size(); i++) {
+      ItemBoundable item1 = (ItemBoundable) items1.get(i);
+      Envelope itemEnv1 = (Envelope) item1.getBounds();
+      if (! isWithinDistance(itemEnv1, env2)) continue;
+      for (int j = 0; j < items2.size(); j++) {
+        ItemBoundable item2 = (ItemBoundable) items2.get(j);
+        if (! isWithinDistance(itemEnv1, (Envelope) item2.getBounds()))
+          continue;
+        if (itemDist != null && itemDist.distance(item1, item2) > maxDistance)
+          continue;
+        visitor.visitPair(item1.getItem(), item2.getItem());
+      }
+    }
+  }
+
+  private boolean isWithinDistance(Envelope env1, Envelope env2)
+  {
+    if (maxDistance == 0.0)
+      return env1.intersects(env2);
+    return env1.distance(env2) <= maxDistance;
+  }
+
+  /**
+   * Joins a range of node pairs,
+   * splitting the range in half until a single pair remains.
+   */
+  private class JoinTask extends RecursiveAction
+  {
+    private AbstractNode[] nodes1;
+    private AbstractNode[] nodes2;
+    private int start;
+    private int end;
+
+    JoinTask(AbstractNode[] nodes1, AbstractNode[] nodes2, int start, int end)
+    {
+      this.nodes1 = nodes1;
+      this.nodes2 = nodes2;
+      this.start = start;
+      this.end = end;
+    }
+
+    protected void compute()
+    {
+      if (end - start == 1) {
+        joinNodes(nodes1[start], nodes2[start]);
+        return;
+      }
+      int mid = (start + end) / 2;
+      invokeAll(new JoinTask(nodes1, nodes2, start, mid),
+          new JoinTask(nodes1, nodes2, mid, end));
+    }
+  }
+}
@@ -24,7 +24,7 @@ public class FastSegmentSetIntersectionFinder
 	
 	private void init(Collection baseSegStrings)
 	{
-    segSetMutInt = new MCIndexSegmentSetMutualIntersector();
+    segSetMutInt = new PackedMCIndexSegmentSetMutualIntersector();
 //    segSetMutInt = new MCIndexIntersectionSegmentSetMutualIntersector();
     
 //		mci = new SimpleSegmentSetMutualIntersector();
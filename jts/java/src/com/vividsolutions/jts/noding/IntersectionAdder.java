@@ -168,8 +168,7 @@ numTests++;
       // only intersection.
       if (! isTrivialIntersection(e0, segIndex0, e1, segIndex1)) {
         hasIntersection = true;
-        ((NodedSegmentString) e0).addIntersections(li, segIndex0, 0);
-        ((NodedSegmentString) e1).addIntersections(li, segIndex1, 1);
+        addIntersections(e0, segIndex0, e1, segIndex1);
         if (li.isProper()) {
           numProperIntersections++;
 //Debug.println(li.toString());  Debug.println(li.getIntersection(0));
@@ -181,6 +180,20 @@ numTests++;
     }
   }
   
+  /**
+   * Adds the intersections currently computed by the {@link LineIntersector}
+   * to the segments of the two {@link SegmentString}s.
+   * Subclasses may override this to record the intersections instead.
+   */
+  protected void addIntersections(
+    SegmentString e0,  int segIndex0,
+    SegmentString e1,  int segIndex1
+     )
+  {
+    ((NodedSegmentString) e0).addIntersections(li, segIndex0, 0);
+    ((NodedSegmentString) e1).addIntersections(li, segIndex1, 1);
+  }
+
   /**
    * Always process all intersections
    * 
@@ -0,0 +1,128 @@
+package com.vividsolutions.jts.noding;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.chain.*;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+
+/**
+ * Intersects two sets of {@link SegmentString}s using a index based
+ * on monotone chains and a {@link PackedSTRtree}.
+ * This computes the same intersections as {@link MCIndexSegmentSetMutualIntersector},
+ * but the chains are stored in {@link PackedMonotoneChains},
+ * so that few objects are allocated per chain.
+ *
+ * @version 1.7
+ */
+public class PackedMCIndexSegmentSetMutualIntersector
+    extends SegmentSetMutualIntersector
+{
+  private PackedMonotoneChains baseChains = new PackedMonotoneChains();
+  private PackedMonotoneChains monoChains;
+  /*
+  * The index of the base chains.
+  * The items are the indices of the chains in baseChains.
+  */
+  private PackedSTRtree index = new PackedSTRtree();
+  // statistics
+  private int nOverlaps = 0;
+
+  public PackedMCIndexSegmentSetMutualIntersector()
+  {
+  }
+
+  /**
+   * Gets the monotone chains of the base segment strings.
+   */
+  public PackedMonotoneChains getBaseChains() { return baseChains; }
+
+  /**
+   * Gets the index of the base chains.
+   * The items are the <tt>Integer</tt> indices of the chains in {@link #getBaseChains()}.
+   */
+  public SpatialIndex getIndex() { return index; }
+
+  public void setBaseSegments(Collection segStrings)
+  {
+    for (Iterator i = segStrings.iterator(); i.hasNext(); ) {
+      addToIndex((SegmentString) i.next());
+    }
+  }
+
+  private void addToIndex(SegmentString segStr)
+  {
+    int firstChain = baseChains.size();
+    baseChains.add(segStr.getCoordinates(), segStr);
+    Envelope chainEnv = new Envelope();
+    for (int i = firstChain; i < baseChains.size(); i++) {
+      index.insert(baseChains.getEnvelope(i, chainEnv), new Integer(i));
+    }
+  }
+
+  public void process(Collection segStrings)
+  {
+    nOverlaps = 0;
+    monoChains = new PackedMonotoneChains();
+    for (Iterator i = segStrings.iterator(); i.hasNext(); ) {
+      SegmentString segStr = (SegmentString) i.next();
+      monoChains.add(segStr.getCoordinates(), segStr);
+    }
+    intersectChains();
+  }
+
+  private void intersectChains()
+  {
+    ChainOverlapVisitor visitor = new ChainOverlapVisitor(new SegmentOverlapAction(segInt));
+    Envelope queryEnv = new Envelope();
+    for (int i = 0; i < monoChains.size(); i++) {
+      visitor.queryChain = i;
+      index.query(monoChains.getEnvelope(i, queryEnv), visitor);
+      if (segInt.isDone()) return;
+    }
+  }
+
+  /**
+   * Computes the overlaps of the query chain
+   * with the base chains found by the index query.
+   */
+  private class ChainOverlapVisitor
+      implements ShortCircuitedItemVisitor
+  {
+    private PackedChainOverlapAction overlapAction;
+    int queryChain;
+
+    ChainOverlapVisitor(PackedChainOverlapAction overlapAction)
+    {
+      this.overlapAction = overlapAction;
+    }
+
+    public void visitItem(Object item)
+    {
+      int testChain = ((Integer) item).intValue();
+      monoChains.computeOverlaps(queryChain, baseChains, testChain, overlapAction);
+      nOverlaps++;
+    }
+
+    public boolean isDone() { return segInt.isDone(); }
+  }
+
+  private static class SegmentOverlapAction
+      implements PackedChainOverlapAction
+  {
+    private SegmentIntersector si;
+
+    SegmentOverlapAction(SegmentIntersector si)
+    {
+      this.si = si;
+    }
+
+    public void overlap(Object context1, int segIndex1, Object context2, int segIndex2)
+    {
+      si.processIntersections((SegmentString) context1, segIndex1,
+          (SegmentString) context2, segIndex2);
+    }
+  }
+}
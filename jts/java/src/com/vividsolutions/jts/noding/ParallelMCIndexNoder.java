@@ -0,0 +1,270 @@
+package com.vividsolutions.jts.noding;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.vividsolutions.jts.algorithm.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.*;
+import com.vividsolutions.jts.index.chain.*;
+import com.vividsolutions.jts.index.strtree.*;
+
+/**
+ * Nodes a set of {@link NodedSegmentString}s using an index based
+ * on monotone chains and a {@link PackedSTRtree},
+ * finding the overlaps between chains in parallel.
+ * <p>
+ * The monotone chains are stored in a {@link PackedMonotoneChains},
+ * and are indexed by their envelopes.
+ * The chains are split into contiguous ranges of query chains,
+ * which are processed by tasks running in a {@link ForkJoinPool}.
+ * Each task has its own {@link LineIntersector} and {@link IntersectionAdder},
+ * which record the intersection nodes found rather than
+ * adding them to the segment strings (which are not thread-safe).
+ * When all tasks have completed the recorded nodes are added
+ * to the {@link NodedSegmentString}s in the order of the query chains,
+ * So the result is deterministic, and is the same as the result of
+ * an {@link MCIndexNoder} using an {@link IntersectionAdder}
+ * with a {@link RobustLineIntersector} with the same precision model.
+ *
+ * @version 1.7
+ */
+public class ParallelMCIndexNoder
+    implements Noder
+{
+  /**
+   * The number of ranges of query chains created for each thread.
+   * Using several ranges per thread balances the load,
+   * since the chains vary widely in the number of overlaps they have.
+   */
+  private static final int RANGES_PER_THREAD = 8;
+
+  private PrecisionModel precisionModel;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private PackedMonotoneChains monoChains = new PackedMonotoneChains();
+  private PackedSTRtree index = new PackedSTRtree();
+  private Collection nodedSegStrings;
+  // statistics
+  private int numInteriorIntersections = 0;
+
+  /**
+   * Creates a noder which computes intersections
+   * using the given precision model.
+   *
+   * @param precisionModel the precision model to use for intersection points
+   */
+  public ParallelMCIndexNoder(PrecisionModel precisionModel)
+  {
+    this.precisionModel = precisionModel;
+  }
+
+  /**
+   * Sets the number of threads used to find the chain overlaps.
+   * The default is the number of available processors.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   * <p>
+   * The computed noding does not depend on this setting.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Gets the number of intersections found which are interior
+   * to at least one of the intersecting segments.
+   *
+   * @return the number of interior intersections
+   */
+  public int getNumInteriorIntersections() { return numInteriorIntersections; }
+
+  public Collection getNodedSubstrings()
+  {
+    return  NodedSegmentString.getNodedSubstrings(nodedSegStrings);
+  }
+
+  public void computeNodes(Collection inputSegStrings)
+  {
+    this.nodedSegStrings = inputSegStrings;
+    for (Iterator i = inputSegStrings.iterator(); i.hasNext(); ) {
+      SegmentString segStr = (SegmentString) i.next();
+      monoChains.add(segStr.getCoordinates(), segStr);
+    }
+    Envelope chainEnv = new Envelope();
+    for (int i = 0; i < monoChains.size(); i++) {
+      index.insert(monoChains.getEnvelope(i, chainEnv), new Integer(i));
+    }
+    // build the index before it is queried concurrently
+    index.build();
+    intersectChains();
+  }
+
+  private void intersectChains()
+  {
+    int nChains = monoChains.size();
+    int nRanges = parallelism <= 1 ? 1 : parallelism * RANGES_PER_THREAD;
+    int rangeSize = Math.max(1, (nChains + nRanges - 1) / nRanges);
+
+    List tasks = new ArrayList();
+    for (int start = 0; start < nChains; start += rangeSize) {
+      tasks.add(new ChainRangeTask(start, Math.min(start + rangeSize, nChains)));
+    }
+    invokeAll(tasks);
+
+    // add the recorded nodes in the order of the query chains
+    for (Iterator i = tasks.iterator(); i.hasNext(); ) {
+      ChainRangeTask task = (ChainRangeTask) i.next();
+      task.nodeRecorder.addNodes();
+      numInteriorIntersections += task.nodeRecorder.numInteriorIntersections;
+    }
+  }
+
+  private void invokeAll(final List tasks)
+  {
+    if (parallelism <= 1 || tasks.size() <= 1) {
+      for (Iterator i = tasks.iterator(); i.hasNext(); ) {
+        ((ChainRangeTask) i.next()).compute();
+      }
+      return;
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(tasks);
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        protected void compute() {
+          ForkJoinTask.invokeAll(tasks);
+        }
+      });
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Finds the overlaps of a range of query chains
+   * with the chains which follow them,
+   * recording the intersection nodes found.
+   */
+  private class ChainRangeTask
+      extends RecursiveAction
+      implements ItemVisitor
+  {
+    private int start;
+    private int end;
+    private NodeRecorder nodeRecorder;
+    private PackedChainOverlapAction overlapAction;
+    private int queryChain;
+
+    ChainRangeTask(int start, int end)
+    {
+      this.start = start;
+      this.end = end;
+      LineIntersector li = new RobustLineIntersector();
+      li.setPrecisionModel(precisionModel);
+      nodeRecorder = new NodeRecorder(li);
+      overlapAction = new SegmentOverlapAction(nodeRecorder);
+    }
+
+    protected void compute()
+    {
+      Envelope queryEnv = new Envelope();
+      for (queryChain = start; queryChain < end; queryChain++) {
+        index.query(monoChains.getEnvelope(queryChain, queryEnv), this);
+      }
+    }
+
+    public void visitItem(Object item)
+    {
+      int testChain = ((Integer) item).intValue();
+      /**
+       * following test makes sure we only compare each pair of chains once
+       * and that we don't compare a chain to itself
+       */
+      if (testChain > queryChain) {
+        monoChains.computeOverlaps(queryChain, monoChains, testChain, overlapAction);
+      }
+    }
+  }
+
+  /**
+   * An {@link IntersectionAdder} which records the intersection nodes it finds,
+   * so that they can be added to the segment strings later.
+   */
+  private static class NodeRecorder
+      extends IntersectionAdder
+  {
+    private List segStrings = new ArrayList();
+    private List nodePts = new ArrayList();
+    private int[] segIndex = new int[16];
+
+    NodeRecorder(LineIntersector li)
+    {
+      super(li);
+    }
+
+    protected void addIntersections(
+      SegmentString e0,  int segIndex0,
+      SegmentString e1,  int segIndex1
+       )
+    {
+      LineIntersector li = getLineIntersector();
+      for (int i = 0; i < li.getIntersectionNum(); i++) {
+        record(e0, li.getIntersection(i), segIndex0);
+      }
+      for (int i = 0; i < li.getIntersectionNum(); i++) {
+        record(e1, li.getIntersection(i), segIndex1);
+      }
+    }
+
+    private void record(SegmentString ss, Coordinate intPt, int index)
+    {
+      int n = segStrings.size();
+      if (n == segIndex.length) {
+        int[] newSegIndex = new int[2 * n];
+        System.arraycopy(segIndex, 0, newSegIndex, 0, n);
+        segIndex = newSegIndex;
+      }
+      segStrings.add(ss);
+      // the line intersector reuses its intersection points
+      nodePts.add(new Coordinate(intPt));
+      segIndex[n] = index;
+    }
+
+    /**
+     * Adds the recorded nodes to their segment strings,
+     * in the order they were found.
+     */
+    void addNodes()
+    {
+      for (int i = 0; i < segStrings.size(); i++) {
+        ((NodedSegmentString) segStrings.get(i))
+            .addIntersection((Coordinate) nodePts.get(i), segIndex[i]);
+      }
+    }
+  }
+
+  private static class SegmentOverlapAction
+      implements PackedChainOverlapAction
+  {
+    private SegmentIntersector si;
+
+    SegmentOverlapAction(SegmentIntersector si)
+    {
+      this.si = si;
+    }
+
+    public void overlap(Object context1, int segIndex1, Object context2, int segIndex2)
+    {
+      si.processIntersections((SegmentString) context1, segIndex1,
+          (SegmentString) context2, segIndex2);
+    }
+  }
+}
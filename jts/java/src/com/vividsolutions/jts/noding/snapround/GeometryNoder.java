@@ -28,6 +28,7 @@ public class GeometryNoder
   private GeometryFactory geomFact;
   private PrecisionModel pm;
   private boolean isValidityChecked = false;
+  private int parallelism = 1;
 
   /**
    * Creates a new noder which snap-rounds to a grid specified
@@ -50,6 +51,19 @@ public class GeometryNoder
   	this.isValidityChecked = isValidityChecked;
   }
   
+  /**
+   * Sets the number of threads used to snap-round the linework.
+   * The default is 1, which snap-rounds in the calling thread.
+   * The linework is snap-rounded by {@link ParallelSnapRounder}
+   * for any number of threads, so the noding does not depend on it.
+   * 
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+  
   /**
    * Nodes the linework of a set of Geometrys using SnapRounding. 
    * 
@@ -64,7 +78,8 @@ public class GeometryNoder
 
     List segStrings = toSegmentStrings(extractLines(geoms));
     //Noder sr = new SimpleSnapRounder(pm);
-    Noder sr = new MCIndexSnapRounder(pm);
+    ParallelSnapRounder sr = new ParallelSnapRounder(pm);
+    sr.setParallelism(parallelism);
     sr.computeNodes(segStrings);
     Collection nodedLines = sr.getNodedSubstrings();
 
@@ -109,4 +124,4 @@ public class GeometryNoder
     }
     return segStrings;
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,612 @@
+package com.vividsolutions.jts.noding.snapround;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.vividsolutions.jts.algorithm.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.chain.*;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.noding.*;
+
+/**
+ * Uses Snap Rounding to compute a rounded,
+ * fully noded arrangement from a set of {@link NodedSegmentString}s,
+ * processing the hot pixels in parallel.
+ * This is intended for large inputs.
+ * As with {@link MCIndexSnapRounder}, the precision model must be fixed precision,
+ * and all the input vertices must be rounded to that precision.
+ * <p>
+ * The segment strings are indexed once, using a {@link PackedMonotoneChains}
+ * indexed by a {@link PackedSTRtree}.
+ * The snap rounding is computed in two phases,
+ * each of which is split into ranges processed by tasks in a {@link ForkJoinPool}:
+ * <ol>
+ * <li>The interior intersections of the segments are found
+ * by comparing the overlapping chains, as in {@link MCIndexSnapRounder}.
+ * <li>The hot pixels (the pixels containing an intersection or a vertex)
+ * are snapped, by finding the segments which pass through each pixel
+ * and adding a node at the pixel to them.
+ * </ol>
+ * Each task records the nodes it finds rather than adding them to the
+ * segment strings (which are not thread-safe).
+ * The recorded nodes are added in the order of the tasks after each phase,
+ * so the result does not depend on the number of threads.
+ * <p>
+ * The hot pixels are indexed by a hash on their integer grid coordinates,
+ * which stores them in primitive arrays.
+ * Each distinct pixel is snapped once
+ * (however many vertices and intersections it contains),
+ * and the pixels are tested without creating a {@link HotPixel}
+ * and an {@link Envelope} for each one.
+ * A pixel containing only a vertex is snapped only if
+ * a segment other than the ones at that vertex passes through it,
+ * since otherwise the vertex does not need to be a node.
+ * Unlike {@link MCIndexSnapRounder}, the final vertex of each segment string
+ * is a hot pixel as well, so segments passing near the end of a line
+ * are snapped to it.
+ *
+ * @version 1.7
+ */
+public class ParallelSnapRounder
+    implements Noder
+{
+  /**
+   * The number of ranges of work created for each thread.
+   */
+  private static final int RANGES_PER_THREAD = 8;
+
+  /**
+   * The expansion of the pixel used to query the segment index
+   * (the same as used by {@link HotPixel#getSafeEnvelope()}).
+   */
+  private static final double SAFE_ENV_EXPANSION_FACTOR = 0.75;
+
+  private final PrecisionModel pm;
+  private final double scaleFactor;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private PackedMonotoneChains monoChains;
+  private PackedSTRtree index;
+  private HotPixelGrid hotPixels;
+  private Collection nodedSegStrings;
+
+  public ParallelSnapRounder(PrecisionModel pm)
+  {
+    this.pm = pm;
+    scaleFactor = pm.getScale();
+  }
+
+  /**
+   * Sets the number of threads used to snap round.
+   * The default is the number of available processors.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   * <p>
+   * The computed noding does not depend on this setting.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  public Collection getNodedSubstrings()
+  {
+    return  NodedSegmentString.getNodedSubstrings(nodedSegStrings);
+  }
+
+  public void computeNodes(Collection inputSegStrings)
+  {
+    this.nodedSegStrings = inputSegStrings;
+    buildIndex(inputSegStrings);
+    hotPixels = new HotPixelGrid(scaleFactor);
+
+    // find the intersections, and add them as nodes and hot pixels
+    List intersectionTasks = new ArrayList();
+    int[] ranges = ranges(monoChains.size());
+    for (int i = 0; i < ranges.length - 1; i++) {
+      intersectionTasks.add(new IntersectionTask(ranges[i], ranges[i + 1]));
+    }
+    invokeAll(intersectionTasks);
+    for (Iterator i = intersectionTasks.iterator(); i.hasNext(); ) {
+      IntersectionTask task = (IntersectionTask) i.next();
+      task.nodes.addNodes();
+      for (Iterator j = task.intersections.iterator(); j.hasNext(); ) {
+        Coordinate intPt = (Coordinate) j.next();
+        hotPixels.add(intPt.x, intPt.y, true);
+      }
+    }
+
+    // add the vertices as hot pixels
+    for (Iterator i = inputSegStrings.iterator(); i.hasNext(); ) {
+      Coordinate[] pts = ((SegmentString) i.next()).getCoordinates();
+      for (int j = 0; j < pts.length; j++) {
+        hotPixels.add(pts[j].x, pts[j].y, false);
+      }
+    }
+
+    // snap the segments to the hot pixels
+    List snapTasks = new ArrayList();
+    ranges = ranges(hotPixels.size());
+    for (int i = 0; i < ranges.length - 1; i++) {
+      snapTasks.add(new SnapTask(ranges[i], ranges[i + 1]));
+    }
+    invokeAll(snapTasks);
+    for (Iterator i = snapTasks.iterator(); i.hasNext(); ) {
+      ((SnapTask) i.next()).nodes.addNodes();
+    }
+  }
+
+  private void buildIndex(Collection segStrings)
+  {
+    monoChains = new PackedMonotoneChains();
+    index = new PackedSTRtree();
+    for (Iterator i = segStrings.iterator(); i.hasNext(); ) {
+      SegmentString segStr = (SegmentString) i.next();
+      monoChains.add(segStr.getCoordinates(), segStr);
+    }
+    Envelope chainEnv = new Envelope();
+    for (int i = 0; i < monoChains.size(); i++) {
+      index.insert(monoChains.getEnvelope(i, chainEnv), new Integer(i));
+    }
+    // build the index before it is queried concurrently
+    index.build();
+  }
+
+  /**
+   * Splits the items [0, n) into contiguous ranges.
+   *
+   * @return the start of each range, followed by n
+   */
+  private int[] ranges(int n)
+  {
+    int nRanges = parallelism <= 1 ? 1 : parallelism * RANGES_PER_THREAD;
+    int rangeSize = Math.max(1, (n + nRanges - 1) / nRanges);
+    int count = (n + rangeSize - 1) / rangeSize;
+    int[] ranges = new int[count + 1];
+    for (int i = 0; i < count; i++) {
+      ranges[i] = i * rangeSize;
+    }
+    ranges[count] = n;
+    return ranges;
+  }
+
+  private void invokeAll(final List tasks)
+  {
+    if (parallelism <= 1 || tasks.size() <= 1) {
+      for (Iterator i = tasks.iterator(); i.hasNext(); ) {
+        ((RangeTask) i.next()).compute();
+      }
+      return;
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(tasks);
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        protected void compute() {
+          ForkJoinTask.invokeAll(tasks);
+        }
+      });
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  private abstract static class RangeTask
+      extends RecursiveAction
+  {
+    protected int start;
+    protected int end;
+    protected NodeBuffer nodes = new NodeBuffer();
+
+    RangeTask(int start, int end)
+    {
+      this.start = start;
+      this.end = end;
+    }
+
+    protected abstract void compute();
+  }
+
+  /**
+   * Finds the interior intersections of a range of query chains
+   * with the chains which follow them,
+   * recording the intersection points and the nodes for them.
+   */
+  private class IntersectionTask
+      extends RangeTask
+      implements ItemVisitor, PackedChainOverlapAction
+  {
+    private LineIntersector li = new RobustLineIntersector();
+    private List intersections = new ArrayList();
+    private int queryChain;
+
+    IntersectionTask(int start, int end)
+    {
+      super(start, end);
+      li.setPrecisionModel(pm);
+    }
+
+    protected void compute()
+    {
+      Envelope queryEnv = new Envelope();
+      for (queryChain = start; queryChain < end; queryChain++) {
+        index.query(monoChains.getEnvelope(queryChain, queryEnv), this);
+      }
+    }
+
+    public void visitItem(Object item)
+    {
+      int testChain = ((Integer) item).intValue();
+      // compare each pair of chains once, and don't compare a chain to itself
+      if (testChain > queryChain) {
+        monoChains.computeOverlaps(queryChain, monoChains, testChain, this);
+      }
+    }
+
+    public void overlap(Object context0, int segIndex0, Object context1, int segIndex1)
+    {
+      SegmentString e0 = (SegmentString) context0;
+      SegmentString e1 = (SegmentString) context1;
+      // don't bother intersecting a segment with itself
+      if (e0 == e1 && segIndex0 == segIndex1) return;
+
+      Coordinate[] pts0 = e0.getCoordinates();
+      Coordinate[] pts1 = e1.getCoordinates();
+      li.computeIntersection(pts0[segIndex0], pts0[segIndex0 + 1],
+          pts1[segIndex1], pts1[segIndex1 + 1]);
+      if (li.hasIntersection() && li.isInteriorIntersection()) {
+        for (int i = 0; i < li.getIntersectionNum(); i++) {
+          // the line intersector reuses its intersection points
+          Coordinate intPt = new Coordinate(li.getIntersection(i));
+          intersections.add(intPt);
+          nodes.add(e0, intPt, segIndex0);
+          nodes.add(e1, intPt, segIndex1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Snaps the segments passing through a range of hot pixels,
+   * recording the nodes for them.
+   * The segment intersection test is the same as {@link HotPixel#intersects},
+   * reusing the pixel corners for each pixel tested.
+   */
+  private class SnapTask
+      extends RangeTask
+      implements ItemVisitor, PackedChainSelectAction
+  {
+    private LineIntersector li = new RobustLineIntersector();
+    private Envelope safeEnv = new Envelope();
+
+    // the pixel being snapped, in original and scaled coordinates
+    private double x;
+    private double y;
+    private Coordinate pt = new Coordinate();
+    private double minx, maxx, miny, maxy;
+    /**
+     * The corners of the pixel, in the order:
+     *  10
+     *  23
+     */
+    private Coordinate[] corner = new Coordinate[] {
+        new Coordinate(), new Coordinate(), new Coordinate(), new Coordinate() };
+    private Coordinate p0Scaled = new Coordinate();
+    private Coordinate p1Scaled = new Coordinate();
+
+    // the segments passing through the pixel
+    private List candidateSegStrings = new ArrayList();
+    private int[] candidateSegIndex = new int[16];
+
+    SnapTask(int start, int end)
+    {
+      super(start, end);
+    }
+
+    protected void compute()
+    {
+      double tolerance = SAFE_ENV_EXPANSION_FACTOR / scaleFactor;
+      for (int i = start; i < end; i++) {
+        initPixel(hotPixels.getX(i), hotPixels.getY(i));
+        safeEnv.init(x - tolerance, x + tolerance, y - tolerance, y + tolerance);
+        candidateSegStrings.clear();
+        index.query(safeEnv, this);
+        if (candidateSegStrings.isEmpty())
+          continue;
+        if (hotPixels.isIntersection(i) || ! isSingleVertex())
+          addNodes();
+      }
+    }
+
+    private void initPixel(double x, double y)
+    {
+      this.x = x;
+      this.y = y;
+      if (scaleFactor == 1.0) {
+        pt.x = x;
+        pt.y = y;
+      }
+      else {
+        pt.x = scale(x);
+        pt.y = scale(y);
+      }
+      double tolerance = 0.5;
+      minx = pt.x - tolerance;
+      maxx = pt.x + tolerance;
+      miny = pt.y - tolerance;
+      maxy = pt.y + tolerance;
+      setCoordinate(corner[0], maxx, maxy);
+      setCoordinate(corner[1], minx, maxy);
+      setCoordinate(corner[2], minx, miny);
+      setCoordinate(corner[3], maxx, miny);
+    }
+
+    private void setCoordinate(Coordinate p, double x, double y)
+    {
+      p.x = x;
+      p.y = y;
+    }
+
+    private double scale(double val)
+    {
+      return (double) Math.round(val * scaleFactor);
+    }
+
+    public void visitItem(Object item)
+    {
+      monoChains.select(((Integer) item).intValue(), safeEnv, this);
+    }
+
+    public void select(Object context, Coordinate[] pts, int segIndex)
+    {
+      if (! intersects(pts[segIndex], pts[segIndex + 1]))
+        return;
+      int n = candidateSegStrings.size();
+      if (n == candidateSegIndex.length) {
+        int[] newSegIndex = new int[2 * n];
+        System.arraycopy(candidateSegIndex, 0, newSegIndex, 0, n);
+        candidateSegIndex = newSegIndex;
+      }
+      candidateSegStrings.add(context);
+      candidateSegIndex[n] = segIndex;
+    }
+
+    /**
+     * Tests whether the segments through the pixel
+     * are just the segments at a single vertex lying in it.
+     */
+    private boolean isSingleVertex()
+    {
+      SegmentString vertexSegStr = null;
+      int vertexIndex = -1;
+      for (int i = 0; i < candidateSegStrings.size(); i++) {
+        SegmentString segStr = (SegmentString) candidateSegStrings.get(i);
+        Coordinate[] pts = segStr.getCoordinates();
+        int segIndex = candidateSegIndex[i];
+        int v;
+        if (isPixelVertex(pts[segIndex]))
+          v = segIndex;
+        else if (isPixelVertex(pts[segIndex + 1]))
+          v = segIndex + 1;
+        else
+          return false;
+        // the end vertex of a closed segment string is the start vertex
+        if (v == pts.length - 1 && segStr.isClosed())
+          v = 0;
+        if (vertexSegStr == null) {
+          vertexSegStr = segStr;
+          vertexIndex = v;
+        }
+        else if (segStr != vertexSegStr || v != vertexIndex)
+          return false;
+      }
+      return true;
+    }
+
+    private boolean isPixelVertex(Coordinate p)
+    {
+      return p.x == x && p.y == y;
+    }
+
+    private void addNodes()
+    {
+      Coordinate nodePt = new Coordinate(x, y);
+      for (int i = 0; i < candidateSegStrings.size(); i++) {
+        nodes.add((SegmentString) candidateSegStrings.get(i), nodePt, candidateSegIndex[i]);
+      }
+    }
+
+    /**
+     * Tests whether the line segment (p0-p1) intersects the pixel.
+     */
+    private boolean intersects(Coordinate p0, Coordinate p1)
+    {
+      if (scaleFactor == 1.0)
+        return intersectsScaled(p0, p1);
+      setCoordinate(p0Scaled, scale(p0.x), scale(p0.y));
+      setCoordinate(p1Scaled, scale(p1.x), scale(p1.y));
+      return intersectsScaled(p0Scaled, p1Scaled);
+    }
+
+    private boolean intersectsScaled(Coordinate p0, Coordinate p1)
+    {
+      if (maxx < Math.min(p0.x, p1.x)
+          || minx > Math.max(p0.x, p1.x)
+          || maxy < Math.min(p0.y, p1.y)
+          || miny > Math.max(p0.y, p1.y))
+        return false;
+
+      // the pixel is partially open, as in HotPixel
+      boolean intersectsLeft = false;
+      boolean intersectsBottom = false;
+
+      li.computeIntersection(p0, p1, corner[0], corner[1]);
+      if (li.isProper()) return true;
+
+      li.computeIntersection(p0, p1, corner[1], corner[2]);
+      if (li.isProper()) return true;
+      if (li.hasIntersection()) intersectsLeft = true;
+
+      li.computeIntersection(p0, p1, corner[2], corner[3]);
+      if (li.isProper()) return true;
+      if (li.hasIntersection()) intersectsBottom = true;
+
+      li.computeIntersection(p0, p1, corner[3], corner[0]);
+      if (li.isProper()) return true;
+
+      if (intersectsLeft && intersectsBottom) return true;
+
+      if (p0.equals(pt)) return true;
+      if (p1.equals(pt)) return true;
+
+      return false;
+    }
+  }
+
+  /**
+   * Records nodes to be added to segment strings.
+   */
+  private static class NodeBuffer
+  {
+    private List segStrings = new ArrayList();
+    private List nodePts = new ArrayList();
+    private int[] segIndex = new int[16];
+
+    void add(SegmentString segStr, Coordinate nodePt, int index)
+    {
+      int n = segStrings.size();
+      if (n == segIndex.length) {
+        int[] newSegIndex = new int[2 * n];
+        System.arraycopy(segIndex, 0, newSegIndex, 0, n);
+        segIndex = newSegIndex;
+      }
+      segStrings.add(segStr);
+      nodePts.add(nodePt);
+      segIndex[n] = index;
+    }
+
+    /**
+     * Adds the recorded nodes to their segment strings,
+     * in the order they were recorded.
+     */
+    void addNodes()
+    {
+      for (int i = 0; i < segStrings.size(); i++) {
+        ((NodedSegmentString) segStrings.get(i))
+            .addIntersection((Coordinate) nodePts.get(i), segIndex[i]);
+      }
+    }
+  }
+
+  /**
+   * A set of distinct hot pixels, stored in primitive arrays
+   * and indexed by an open-addressing hash table
+   * keyed on their integer grid coordinates.
+   */
+  private static class HotPixelGrid
+  {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double scaleFactor;
+    private int size = 0;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private long[] keyX = new long[INITIAL_CAPACITY];
+    private long[] keyY = new long[INITIAL_CAPACITY];
+    private boolean[] isIntersection = new boolean[INITIAL_CAPACITY];
+    // the index of the pixel in each slot, or -1 if the slot is empty
+    private int[] table;
+
+    HotPixelGrid(double scaleFactor)
+    {
+      this.scaleFactor = scaleFactor;
+      table = new int[2 * INITIAL_CAPACITY];
+      Arrays.fill(table, -1);
+    }
+
+    int size() { return size; }
+    double getX(int i) { return x[i]; }
+    double getY(int i) { return y[i]; }
+    boolean isIntersection(int i) { return isIntersection[i]; }
+
+    /**
+     * Adds a hot pixel at a point, if there is not already one there.
+     */
+    void add(double px, double py, boolean isIntersectionPt)
+    {
+      long kx = Math.round(px * scaleFactor);
+      long ky = Math.round(py * scaleFactor);
+      int mask = table.length - 1;
+      int slot = hash(kx, ky) & mask;
+      while (table[slot] >= 0) {
+        int i = table[slot];
+        if (keyX[i] == kx && keyY[i] == ky) {
+          if (isIntersectionPt)
+            isIntersection[i] = true;
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (size == x.length)
+        growArrays();
+      x[size] = px;
+      y[size] = py;
+      keyX[size] = kx;
+      keyY[size] = ky;
+      isIntersection[size] = isIntersectionPt;
+      table[slot] = size;
+      size++;
+      // keep the table at most half full
+      if (2 * size > table.length)
+        rehash();
+    }
+
+    private static int hash(long kx, long ky)
+    {
+      long h = kx * 0x9E3779B97F4A7C15L + ky * 0xC2B2AE3D27D4EB4FL;
+      return (int) (h ^ (h >>> 32));
+    }
+
+    private void growArrays()
+    {
+      int capacity = 2 * x.length;
+      double[] newX = new double[capacity];
+      double[] newY = new double[capacity];
+      long[] newKeyX = new long[capacity];
+      long[] newKeyY = new long[capacity];
+      boolean[] newIsIntersection = new boolean[capacity];
+      System.arraycopy(x, 0, newX, 0, size);
+      System.arraycopy(y, 0, newY, 0, size);
+      System.arraycopy(keyX, 0, newKeyX, 0, size);
+      System.arraycopy(keyY, 0, newKeyY, 0, size);
+      System.arraycopy(isIntersection, 0, newIsIntersection, 0, size);
+      x = newX;
+      y = newY;
+      keyX = newKeyX;
+      keyY = newKeyY;
+      isIntersection = newIsIntersection;
+    }
+
+    private void rehash()
+    {
+      table = new int[2 * table.length];
+      Arrays.fill(table, -1);
+      int mask = table.length - 1;
+      for (int i = 0; i < size; i++) {
+        int slot = hash(keyX[i], keyY[i]) & mask;
+        while (table[slot] >= 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = i;
+      }
+    }
+  }
+}
@@ -82,6 +82,7 @@ public class BufferBuilder
 
   private PrecisionModel workingPrecisionModel;
   private Noder workingNoder;
+  private Geometry unionGeom = null;
   private GeometryFactory geomFact;
   private PlanarGraph graph;
   private EdgeList edgeList     = new EdgeList();
@@ -116,6 +117,15 @@ public class BufferBuilder
    */
   public void setNoder(Noder noder) { workingNoder = noder; }
 
+  /**
+   * Sets a polygonal geometry to be unioned with the buffer.
+   * Its rings are noded and labelled together with the buffer curves,
+   * so the union is computed in the same pass as the buffer.
+   *
+   * @param unionGeom the polygonal geometry to union with the buffer
+   */
+  void setUnionGeometry(Geometry unionGeom) { this.unionGeom = unionGeom; }
+
 
   public Geometry buffer(Geometry g, double distance)
   {
@@ -128,12 +138,31 @@ public class BufferBuilder
 
     OffsetCurveBuilder curveBuilder = new OffsetCurveBuilder(precisionModel, bufParams);
     
+    /**
+     * The buffers of points which are disjoint from all others
+     * are created directly, without noding.
+     * This is not done for fixed precision, since rounding may collapse the curves.
+     */
+    List pointBufferPolys = new ArrayList();
+    if (g instanceof Puntal && distance > 0.0 && precisionModel.isFloating()
+        && unionGeom == null) {
+      g = bufferDisjointPoints(g, distance, curveBuilder, pointBufferPolys);
+    }
+
     OffsetCurveSetBuilder curveSetBuilder = new OffsetCurveSetBuilder(g, distance, curveBuilder);
 
     List bufferSegStrList = curveSetBuilder.getCurves();
+    if (unionGeom != null) {
+      // the rings of the union geometry are its zero-distance curves
+      OffsetCurveSetBuilder unionCurveSetBuilder
+        = new OffsetCurveSetBuilder(unionGeom, 0.0, curveBuilder);
+      bufferSegStrList.addAll(unionCurveSetBuilder.getCurves());
+    }
 
     // short-circuit test
     if (bufferSegStrList.size() <= 0) {
+      if (pointBufferPolys.size() > 0)
+        return geomFact.buildGeometry(pointBufferPolys);
       return createEmptyResultGeometry();
     }
 
@@ -155,6 +184,7 @@ public class BufferBuilder
     PolygonBuilder polyBuilder = new PolygonBuilder(geomFact);
     buildSubgraphs(subgraphList, polyBuilder);
     List resultPolyList = polyBuilder.getPolygons();
+    resultPolyList.addAll(pointBufferPolys);
 
     // just in case...
     if (resultPolyList.size() <= 0) {
@@ -165,6 +195,108 @@ public class BufferBuilder
     return resultGeom;
   }
 
+  /**
+   * Creates the buffers of the points whose buffers are disjoint from
+   * the buffers of all the other points directly from their curves.
+   * The buffers of two points are disjoint if the points are
+   * more than twice the buffer distance apart
+   * (for square end caps, in either ordinate).
+   * Duplicate points are ignored.
+   *
+   * @param g a puntal geometry
+   * @param distance the buffer distance (which must be positive)
+   * @param curveBuilder the builder for the point curves
+   * @param bufferPolys the list to add the buffer polygons to
+   * @return the points whose buffers must be computed by noding
+   */
+  private Geometry bufferDisjointPoints(Geometry g, double distance,
+      OffsetCurveBuilder curveBuilder, List bufferPolys)
+  {
+    if (bufParams.getEndCapStyle() == BufferParameters.CAP_FLAT)
+      return geomFact.createMultiPoint(new Coordinate[0]);
+    boolean isSquare = bufParams.getEndCapStyle() == BufferParameters.CAP_SQUARE;
+
+    Coordinate[] allPts = g.getCoordinates();
+    Set distinctPts = new HashSet();
+    List ptList = new ArrayList();
+    for (int i = 0; i < allPts.length; i++) {
+      if (distinctPts.add(allPts[i]))
+        ptList.add(allPts[i]);
+    }
+    Coordinate[] pts = CoordinateArrays.toCoordinateArray(ptList);
+
+    /**
+     * Bin the points in a grid with cells of size 2 * distance,
+     * so that the points near a point lie in its cell or the adjacent cells.
+     * The grid cells are keyed by Coordinates holding their indices.
+     */
+    double cellSize = 2 * distance;
+    Map grid = new HashMap();
+    for (int i = 0; i < pts.length; i++) {
+      Coordinate cellKey = new Coordinate(Math.floor(pts[i].x / cellSize),
+          Math.floor(pts[i].y / cellSize));
+      List cell = (List) grid.get(cellKey);
+      if (cell == null) {
+        cell = new ArrayList();
+        grid.put(cellKey, cell);
+      }
+      cell.add(pts[i]);
+    }
+
+    List remainingPts = new ArrayList();
+    for (int i = 0; i < pts.length; i++) {
+      Coordinate[] curve = null;
+      if (! hasNearPoint(pts[i], grid, cellSize, isSquare))
+        curve = curveBuilder.getLineCurve(new Coordinate[] { pts[i] }, distance);
+      // a curve which has collapsed (for a very small distance) is left for noding
+      if (curve == null || curve.length < 4) {
+        remainingPts.add(pts[i]);
+        continue;
+      }
+      bufferPolys.add(geomFact.createPolygon(geomFact.createLinearRing(curve), null));
+    }
+    return geomFact.createMultiPoint(CoordinateArrays.toCoordinateArray(remainingPts));
+  }
+
+  /**
+   * Tests whether a point is within the given separation of another point
+   * in the grid.
+   * The point's own cell is checked first, since in a dense cell
+   * a near point is usually found there.
+   */
+  private static boolean hasNearPoint(Coordinate p, Map grid, double minSeparation,
+      boolean isSquare)
+  {
+    double cellX = Math.floor(p.x / minSeparation);
+    double cellY = Math.floor(p.y / minSeparation);
+    if (hasNearPoint(p, (List) grid.get(new Coordinate(cellX, cellY)), minSeparation, isSquare))
+      return true;
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        if (dx == 0 && dy == 0) continue;
+        List cell = (List) grid.get(new Coordinate(cellX + dx, cellY + dy));
+        if (hasNearPoint(p, cell, minSeparation, isSquare))
+          return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean hasNearPoint(Coordinate p, List cell, double minSeparation,
+      boolean isSquare)
+  {
+    if (cell == null) return false;
+    for (Iterator i = cell.iterator(); i.hasNext(); ) {
+      Coordinate q = (Coordinate) i.next();
+      if (q == p) continue;
+      boolean isNear = isSquare
+          ? Math.abs(q.x - p.x) <= minSeparation && Math.abs(q.y - p.y) <= minSeparation
+          : p.distance(q) <= minSeparation;
+      if (isNear) return true;
+    }
+    return false;
+  }
+
   private Noder getNoder(PrecisionModel precisionModel)
   {
     if (workingNoder != null) return workingNoder;
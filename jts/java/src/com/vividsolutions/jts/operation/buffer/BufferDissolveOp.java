@@ -0,0 +1,170 @@
+package com.vividsolutions.jts.operation.buffer;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * Computes the union of the buffers of a collection of geometries
+ * (a "buffer and dissolve").
+ * <p>
+ * Rather than buffering each geometry and unioning the buffers,
+ * the geometries are grouped into small spatial clusters
+ * by {@link ParallelBufferOp}.
+ * The offset curves of all the geometries in a cluster are
+ * noded in a single pass and built into a single buffer graph,
+ * so no buffer polygon is created for an individual geometry.
+ * Since the buffer graph is labelled by depth,
+ * the region covered by the offset curves of a cluster
+ * is exactly the union of the buffers of its geometries.
+ * Only the cluster buffers which overlap are unioned.
+ * <p>
+ * Clusters are used rather than a single graph for all the geometries,
+ * since when the buffers overlap heavily
+ * most of the offset curves lie in the interior of the result,
+ * and noding them all together creates very many intersections.
+ * Unioning the buffers of small clusters eliminates
+ * the interior curves early, in the same way as
+ * {@link com.vividsolutions.jts.operation.union.CascadedPolygonUnion}.
+ * <p>
+ * The input geometries are flattened into their atomic components,
+ * and duplicate points are removed (since they have identical buffers).
+ * The clusters can be buffered in parallel (see {@link #setParallelism(int)}).
+ *
+ * @version 1.7
+ */
+public class BufferDissolveOp
+{
+  /**
+   * Computes the union of the buffers of a collection of geometries.
+   *
+   * @param geoms a collection of {@link Geometry}s
+   * @param distance the buffer distance
+   * @return the union of the buffers of the geometries
+   * @return null if no input geometries were provided
+   */
+  public static Geometry bufferDissolve(Collection geoms, double distance)
+  {
+    BufferDissolveOp op = new BufferDissolveOp(geoms);
+    return op.getResultGeometry(distance);
+  }
+
+  /**
+   * Computes the union of the buffers of a collection of geometries,
+   * using the given buffer parameters.
+   *
+   * @param geoms a collection of {@link Geometry}s
+   * @param distance the buffer distance
+   * @param params the buffer parameters to use
+   * @return the union of the buffers of the geometries
+   * @return null if no input geometries were provided
+   */
+  public static Geometry bufferDissolve(Collection geoms, double distance,
+      BufferParameters params)
+  {
+    BufferDissolveOp op = new BufferDissolveOp(geoms, params);
+    return op.getResultGeometry(distance);
+  }
+
+  /**
+   * The default maximum number of input vertices in a cluster.
+   */
+  private static final int DEFAULT_MAX_CLUSTER_VERTICES = 200;
+
+  private Collection inputGeoms;
+  private BufferParameters bufParams;
+  private int parallelism = 1;
+  private int maxClusterVertices = DEFAULT_MAX_CLUSTER_VERTICES;
+
+  /**
+   * Creates a new instance to buffer and dissolve
+   * the given collection of {@link Geometry}s.
+   *
+   * @param geoms a collection of {@link Geometry}s
+   */
+  public BufferDissolveOp(Collection geoms)
+  {
+    this(geoms, new BufferParameters());
+  }
+
+  /**
+   * Creates a new instance to buffer and dissolve
+   * the given collection of {@link Geometry}s
+   * with the given set of parameters.
+   *
+   * @param geoms a collection of {@link Geometry}s
+   * @param bufParams the buffer parameters to use
+   */
+  public BufferDissolveOp(Collection geoms, BufferParameters bufParams)
+  {
+    this.inputGeoms = geoms;
+    this.bufParams = bufParams;
+  }
+
+  /**
+   * Sets the number of threads used to compute the buffer.
+   * The default is 1, which computes the buffer in the calling thread.
+   * If called from within a {@link java.util.concurrent.ForkJoinPool}, that pool is used.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sets the maximum number of input vertices in a cluster.
+   * The default is 200.
+   *
+   * @param maxClusterVertices the maximum number of vertices in a cluster
+   * @see ParallelBufferOp#setMaxClusterVertices(int)
+   */
+  public void setMaxClusterVertices(int maxClusterVertices)
+  {
+    this.maxClusterVertices = maxClusterVertices;
+  }
+
+  /**
+   * Computes the union of the buffers of the input geometries.
+   *
+   * @param distance the buffer distance
+   * @return the union of the buffers of the geometries
+   * @return null if no input geometries were provided
+   */
+  public Geometry getResultGeometry(double distance)
+  {
+    if (inputGeoms.isEmpty())
+      return null;
+    GeometryFactory geomFact = ((Geometry) inputGeoms.iterator().next()).getFactory();
+
+    List comps = new ArrayList();
+    Set pts = new HashSet();
+    for (Iterator i = inputGeoms.iterator(); i.hasNext(); ) {
+      addComponents((Geometry) i.next(), comps, pts);
+    }
+    ParallelBufferOp op = new ParallelBufferOp(geomFact.buildGeometry(comps), bufParams);
+    op.setParallelism(parallelism);
+    op.setMaxClusterVertices(maxClusterVertices);
+    return op.getResultGeometry(distance);
+  }
+
+  /**
+   * Adds the non-empty atomic components of a geometry to a list,
+   * skipping points which have already been added.
+   */
+  private static void addComponents(Geometry geom, List comps, Set pts)
+  {
+    if (geom instanceof GeometryCollection) {
+      for (int i = 0; i < geom.getNumGeometries(); i++) {
+        addComponents(geom.getGeometryN(i), comps, pts);
+      }
+      return;
+    }
+    if (geom.isEmpty())
+      return;
+    if (geom instanceof Point && ! pts.add(geom.getCoordinate()))
+      return;
+    comps.add(geom);
+  }
+}
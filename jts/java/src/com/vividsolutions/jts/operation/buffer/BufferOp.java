@@ -213,6 +213,8 @@ public class BufferOp
   private double distance;
   
   private BufferParameters bufParams = new BufferParameters();
+  private int parallelism = 1;
+  private Geometry unionGeom = null;
 
   private Geometry resultGeometry = null;
   private RuntimeException saveException;   // debugging only
@@ -260,6 +262,30 @@ public class BufferOp
     bufParams.setQuadrantSegments(quadrantSegments);
   }
 
+  /**
+   * Sets the number of threads used to compute the buffer.
+   * The default is 1, which computes the buffer in the calling thread.
+   * If greater than 1, the components of the geometry are buffered
+   * in clusters in parallel, using {@link ParallelBufferOp}.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sets a polygonal geometry to be unioned with the buffer.
+   * The union is computed in the same noding pass as the buffer.
+   *
+   * @param unionGeom the polygonal geometry to union with the buffer
+   */
+  void setUnionGeometry(Geometry unionGeom)
+  {
+    this.unionGeom = unionGeom;
+  }
+
   /**
    * Returns the buffer computed for a geometry for a given buffer distance.
    *
@@ -269,6 +295,9 @@ public class BufferOp
   public Geometry getResultGeometry(double distance)
   {
     this.distance = distance;
+    if (parallelism > 1 && unionGeom == null) {
+      return ParallelBufferOp.bufferOp(argGeom, distance, bufParams, parallelism);
+    }
     computeGeometry();
     return resultGeometry;
   }
@@ -309,6 +338,7 @@ public class BufferOp
     try {
       // use fast noding by default
       BufferBuilder bufBuilder = new BufferBuilder(bufParams);
+      bufBuilder.setUnionGeometry(unionGeom);
       resultGeometry = bufBuilder.buffer(argGeom, distance);
     }
     catch (RuntimeException ex) {
@@ -337,6 +367,7 @@ public class BufferOp
     BufferBuilder bufBuilder = new BufferBuilder(bufParams);
     bufBuilder.setWorkingPrecisionModel(fixedPM);
     bufBuilder.setNoder(noder);
+    bufBuilder.setUnionGeometry(unionGeom);
     // this may throw an exception, if robustness errors are encountered
     resultGeometry = bufBuilder.buffer(argGeom, distance);
   }
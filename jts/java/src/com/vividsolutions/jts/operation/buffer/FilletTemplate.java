@@ -0,0 +1,94 @@
+package com.vividsolutions.jts.operation.buffer;
+
+/**
+ * The unit vectors of the vertices of the circular arcs
+ * used in buffer curves with a given number of quadrant segments.
+ * A full circle (for point buffers) and a half circle (for round end caps)
+ * are provided, both starting at angle 0 and running clockwise.
+ * They are translated, rotated and scaled to create the curves,
+ * which avoids evaluating trigonometric functions for every vertex.
+ * <p>
+ * The vertices are computed in exactly the same way
+ * as the fillets of {@link OffsetSegmentGenerator},
+ * so an unrotated template produces identical coordinates.
+ * Templates are immutable, and are cached for small numbers of quadrant segments.
+ *
+ * @version 1.7
+ */
+final class FilletTemplate
+{
+  private static final int MAX_CACHED_QUADRANT_SEGMENTS = 64;
+
+  private static final FilletTemplate[] cache
+    = new FilletTemplate[MAX_CACHED_QUADRANT_SEGMENTS + 1];
+
+  /**
+   * Gets the template for a number of quadrant segments.
+   *
+   * @param quadSegs the number of segments used to approximate a quarter-circle
+   * @return the template for the number of segments
+   */
+  static FilletTemplate getInstance(int quadSegs)
+  {
+    if (quadSegs > MAX_CACHED_QUADRANT_SEGMENTS)
+      return new FilletTemplate(quadSegs);
+    // the template is immutable, so a race to create it is harmless
+    FilletTemplate template = cache[quadSegs];
+    if (template == null) {
+      template = new FilletTemplate(quadSegs);
+      cache[quadSegs] = template;
+    }
+    return template;
+  }
+
+  private final double[] circleX;
+  private final double[] circleY;
+  private final double[] halfCircleX;
+  private final double[] halfCircleY;
+
+  private FilletTemplate(int quadSegs)
+  {
+    double angleQuantum = Math.PI / 2.0 / quadSegs;
+    int nCircle = countArcPoints(2.0 * Math.PI, angleQuantum);
+    circleX = new double[nCircle];
+    circleY = new double[nCircle];
+    computeArc(2.0 * Math.PI, angleQuantum, circleX, circleY);
+    int nHalfCircle = countArcPoints(Math.PI, angleQuantum);
+    halfCircleX = new double[nHalfCircle];
+    halfCircleY = new double[nHalfCircle];
+    computeArc(Math.PI, angleQuantum, halfCircleX, halfCircleY);
+  }
+
+  double[] getCircleX() { return circleX; }
+  double[] getCircleY() { return circleY; }
+  double[] getHalfCircleX() { return halfCircleX; }
+  double[] getHalfCircleY() { return halfCircleY; }
+
+  private static int countArcPoints(double totalAngle, double angleQuantum)
+  {
+    int nSegs = (int) (totalAngle / angleQuantum + 0.5);
+    double currAngleInc = totalAngle / nSegs;
+    int count = 0;
+    for (double currAngle = 0.0; currAngle < totalAngle; currAngle += currAngleInc) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Computes the unit vectors of a clockwise arc starting at angle 0,
+   * excluding the end point.
+   */
+  private static void computeArc(double totalAngle, double angleQuantum,
+      double[] x, double[] y)
+  {
+    int nSegs = (int) (totalAngle / angleQuantum + 0.5);
+    double currAngleInc = totalAngle / nSegs;
+    double currAngle = 0.0;
+    for (int i = 0; i < x.length; i++) {
+      x[i] = Math.cos(-currAngle);
+      y[i] = Math.sin(-currAngle);
+      currAngle += currAngleInc;
+    }
+  }
+}
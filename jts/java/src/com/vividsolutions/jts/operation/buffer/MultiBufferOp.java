@@ -0,0 +1,225 @@
+package com.vividsolutions.jts.operation.buffer;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.distance.IndexedFacetDistance;
+
+/**
+ * Computes the buffers of a geometry for a list of increasing distances,
+ * and the rings between them
+ * (e.g. for the zones at successive distances around a feature).
+ * <p>
+ * The buffer at each distance is computed from the buffer at the previous distance,
+ * using the fact that every point of the larger buffer which is not
+ * in the smaller buffer is closest to an input point which is
+ * within the smaller distance of the boundary of the smaller buffer.
+ * So the larger buffer is the union of the smaller buffer
+ * with the buffer of the input components near its boundary.
+ * The components which lie deeper in the interior of the smaller buffer
+ * are not buffered again, and the union is computed in the same
+ * noding pass as the buffer of the remaining components.
+ * This is faster than computing each buffer from scratch
+ * for inputs with many components, such as networks of lines.
+ * The result differs from the buffer computed directly by {@link BufferOp}
+ * only in the approximation of the circular arcs.
+ * <p>
+ * This applies only to positive distances with round end caps and joins,
+ * since other styles of buffer are not unions of circles.
+ * Otherwise, each buffer is computed directly by {@link BufferOp}.
+ *
+ * @version 1.7
+ */
+public class MultiBufferOp
+{
+  /**
+   * Computes the buffers of a geometry for a list of distances.
+   *
+   * @param g the geometry to buffer
+   * @param distances the buffer distances, in increasing order
+   * @return the buffers at the distances
+   */
+  public static Geometry[] buffers(Geometry g, double[] distances)
+  {
+    MultiBufferOp op = new MultiBufferOp(g);
+    return op.getBuffers(distances);
+  }
+
+  /**
+   * Computes the buffers of a geometry for a list of distances,
+   * using the given buffer parameters.
+   *
+   * @param g the geometry to buffer
+   * @param distances the buffer distances, in increasing order
+   * @param params the buffer parameters to use
+   * @return the buffers at the distances
+   */
+  public static Geometry[] buffers(Geometry g, double[] distances, BufferParameters params)
+  {
+    MultiBufferOp op = new MultiBufferOp(g, params);
+    return op.getBuffers(distances);
+  }
+
+  /**
+   * Computes the rings between the buffers of a geometry for a list of distances.
+   *
+   * @param g the geometry to buffer
+   * @param distances the buffer distances, in increasing order
+   * @return the rings between the buffers at the distances
+   * @see #getRings(double[])
+   */
+  public static Geometry[] rings(Geometry g, double[] distances)
+  {
+    MultiBufferOp op = new MultiBufferOp(g);
+    return op.getRings(distances);
+  }
+
+  /**
+   * Computes the rings between the buffers of a geometry for a list of distances,
+   * using the given buffer parameters.
+   *
+   * @param g the geometry to buffer
+   * @param distances the buffer distances, in increasing order
+   * @param params the buffer parameters to use
+   * @return the rings between the buffers at the distances
+   * @see #getRings(double[])
+   */
+  public static Geometry[] rings(Geometry g, double[] distances, BufferParameters params)
+  {
+    MultiBufferOp op = new MultiBufferOp(g, params);
+    return op.getRings(distances);
+  }
+
+  private Geometry argGeom;
+  private BufferParameters bufParams;
+  private GeometryFactory geomFact;
+  private List comps = null;
+
+  /**
+   * Creates a new instance to buffer a geometry.
+   *
+   * @param g the geometry to buffer
+   */
+  public MultiBufferOp(Geometry g)
+  {
+    this(g, new BufferParameters());
+  }
+
+  /**
+   * Creates a new instance to buffer a geometry
+   * with the given set of parameters.
+   *
+   * @param g the geometry to buffer
+   * @param bufParams the buffer parameters to use
+   */
+  public MultiBufferOp(Geometry g, BufferParameters bufParams)
+  {
+    argGeom = g;
+    this.bufParams = bufParams;
+    geomFact = g.getFactory();
+  }
+
+  /**
+   * Computes the buffers of the geometry for a list of distances.
+   *
+   * @param distances the buffer distances, in increasing order
+   * @return the buffers at the distances
+   * @throws IllegalArgumentException if the distances are not increasing
+   */
+  public Geometry[] getBuffers(double[] distances)
+  {
+    for (int i = 1; i < distances.length; i++) {
+      if (distances[i] <= distances[i - 1])
+        throw new IllegalArgumentException("Buffer distances must be increasing");
+    }
+    Geometry[] buffers = new Geometry[distances.length];
+    for (int i = 0; i < distances.length; i++) {
+      if (i > 0 && isIncremental(distances[i - 1]))
+        buffers[i] = bufferIncremental(buffers[i - 1], distances[i - 1], distances[i]);
+      else
+        buffers[i] = BufferOp.bufferOp(argGeom, distances[i], bufParams);
+    }
+    return buffers;
+  }
+
+  /**
+   * Computes the rings between the buffers of the geometry for a list of distances.
+   * The first ring is the buffer at the first distance,
+   * and each subsequent ring is the difference between the buffer
+   * at its distance and the buffer at the previous distance.
+   *
+   * @param distances the buffer distances, in increasing order
+   * @return the rings between the buffers at the distances
+   * @throws IllegalArgumentException if the distances are not increasing
+   */
+  public Geometry[] getRings(double[] distances)
+  {
+    Geometry[] buffers = getBuffers(distances);
+    Geometry[] rings = new Geometry[buffers.length];
+    for (int i = 0; i < buffers.length; i++) {
+      if (i == 0)
+        rings[i] = buffers[i];
+      else
+        rings[i] = buffers[i].difference(buffers[i - 1]);
+    }
+    return rings;
+  }
+
+  /**
+   * Tests whether a buffer can be computed from the buffer
+   * at a smaller distance.
+   */
+  private boolean isIncremental(double prevDistance)
+  {
+    return prevDistance > 0.0
+        && ! bufParams.isSingleSided()
+        && bufParams.getEndCapStyle() == BufferParameters.CAP_ROUND
+        && bufParams.getJoinStyle() == BufferParameters.JOIN_ROUND;
+  }
+
+  /**
+   * Computes a buffer as the union of the buffer at a smaller distance
+   * with the buffer of the components which are within
+   * the smaller distance of its boundary.
+   */
+  private Geometry bufferIncremental(Geometry prevBuffer, double prevDistance, double distance)
+  {
+    if (prevBuffer.isEmpty())
+      return BufferOp.bufferOp(argGeom, distance, bufParams);
+
+    IndexedFacetDistance bdyDistance = new IndexedFacetDistance(prevBuffer.getBoundary());
+    List nearComps = new ArrayList();
+    for (Iterator i = getComponents().iterator(); i.hasNext(); ) {
+      Geometry comp = (Geometry) i.next();
+      if (bdyDistance.getDistance(comp) <= prevDistance)
+        nearComps.add(comp);
+    }
+    if (nearComps.size() == getComponents().size())
+      return BufferOp.bufferOp(argGeom, distance, bufParams);
+
+    BufferOp op = new BufferOp(geomFact.buildGeometry(nearComps), bufParams);
+    op.setUnionGeometry(prevBuffer);
+    return op.getResultGeometry(distance);
+  }
+
+  private List getComponents()
+  {
+    if (comps == null) {
+      comps = new ArrayList();
+      addComponents(argGeom, comps);
+    }
+    return comps;
+  }
+
+  private static void addComponents(Geometry geom, List comps)
+  {
+    if (geom instanceof GeometryCollection) {
+      for (int i = 0; i < geom.getNumGeometries(); i++) {
+        addComponents(geom.getGeometryN(i), comps);
+      }
+      return;
+    }
+    if (! geom.isEmpty())
+      comps.add(geom);
+  }
+}
@@ -90,6 +90,11 @@ class OffsetSegmentGenerator
    */
   private double filletAngleQuantum;
 
+  /**
+   * The arc vertices for point buffers and round end caps
+   */
+  private FilletTemplate filletTemplate;
+
   /**
    * The Closing Segment Length Factor controls how long
    * "closing segments" are.  Closing segments are added
@@ -130,6 +135,7 @@ class OffsetSegmentGenerator
     // the points are rounded as they are inserted into the curve line
     li = new RobustLineIntersector();
     filletAngleQuantum = Math.PI / 2.0 / bufParams.getQuadrantSegments();
+    filletTemplate = FilletTemplate.getInstance(bufParams.getQuadrantSegments());
 
     /**
      * Non-round joins cause issues with short closing segments, so don't use
@@ -429,13 +435,15 @@ class OffsetSegmentGenerator
 
     double dx = p1.x - p0.x;
     double dy = p1.y - p0.y;
-    double angle = Math.atan2(dy, dx);
 
     switch (bufParams.getEndCapStyle()) {
       case BufferParameters.CAP_ROUND:
-        // add offset seg points with a fillet between them
+        // add offset seg points with a half circle between them,
+        // starting perpendicular to the left of the segment
+        double len = Math.sqrt(dx * dx + dy * dy);
         segList.addPt(offsetL.p1);
-        addFillet(p1, angle + Math.PI / 2, angle - Math.PI / 2, CGAlgorithms.CLOCKWISE, distance);
+        addTemplateArc(p1, filletTemplate.getHalfCircleX(), filletTemplate.getHalfCircleY(),
+            -dy / len, dx / len, distance);
         segList.addPt(offsetR.p1);
         break;
       case BufferParameters.CAP_FLAT:
@@ -445,6 +453,7 @@ class OffsetSegmentGenerator
         break;
       case BufferParameters.CAP_SQUARE:
         // add a square defined by extensions of the offset segment endpoints
+        double angle = Math.atan2(dy, dx);
         Coordinate squareCapSideOffset = new Coordinate();
         squareCapSideOffset.x = Math.abs(distance) * Math.cos(angle);
         squareCapSideOffset.y = Math.abs(distance) * Math.sin(angle);
@@ -638,17 +647,48 @@ class OffsetSegmentGenerator
     initAngle = 0.0;
     currAngleInc = totalAngle / nSegs;
 
+    // rotate the direction to each vertex by the increment,
+    // rather than computing it from the angle
+    double cosInc = Math.cos(currAngleInc);
+    double sinInc = directionFactor * Math.sin(currAngleInc);
+    double dirX = Math.cos(startAngle);
+    double dirY = Math.sin(startAngle);
+
     double currAngle = initAngle;
     Coordinate pt = new Coordinate();
     while (currAngle < totalAngle) {
-      double angle = startAngle + directionFactor * currAngle;
-      pt.x = p.x + radius * Math.cos(angle);
-      pt.y = p.y + radius * Math.sin(angle);
+      pt.x = p.x + radius * dirX;
+      pt.y = p.y + radius * dirY;
       segList.addPt(pt);
+      double nextDirX = dirX * cosInc - dirY * sinInc;
+      dirY = dirX * sinInc + dirY * cosInc;
+      dirX = nextDirX;
       currAngle += currAngleInc;
     }
   }
 
+  /**
+   * Adds the points of a template arc around a point,
+   * rotated to start in a given direction and scaled by the radius.
+   *
+   * @param p the centre of the arc
+   * @param unitX the X ordinates of the template vertices
+   * @param unitY the Y ordinates of the template vertices
+   * @param dirX the X ordinate of the unit vector to the start of the arc
+   * @param dirY the Y ordinate of the unit vector to the start of the arc
+   * @param radius the radius of the arc
+   */
+  private void addTemplateArc(Coordinate p, double[] unitX, double[] unitY,
+      double dirX, double dirY, double radius)
+  {
+    Coordinate pt = new Coordinate();
+    for (int i = 0; i < unitX.length; i++) {
+      pt.x = p.x + radius * (dirX * unitX[i] - dirY * unitY[i]);
+      pt.y = p.y + radius * (dirY * unitX[i] + dirX * unitY[i]);
+      segList.addPt(pt);
+    }
+  }
+
 
   /**
    * Creates a CW circle around a point
@@ -658,7 +698,7 @@ class OffsetSegmentGenerator
     // add start point
     Coordinate pt = new Coordinate(p.x + distance, p.y);
     segList.addPt(pt);
-    addFillet(p, 0.0, 2.0 * Math.PI, -1, distance);
+    addTemplateArc(p, filletTemplate.getCircleX(), filletTemplate.getCircleY(), 1.0, 0.0, distance);
     segList.closeRing();
   }
 
@@ -0,0 +1,406 @@
+package com.vividsolutions.jts.operation.buffer;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
+
+/**
+ * Computes the buffer of a geometry with many components
+ * by buffering clusters of components in parallel.
+ * This is much faster than {@link BufferOp} for inputs such as
+ * archipelagos or road networks, since the cost of noding
+ * and graph building depends only on the components which can interact.
+ * <p>
+ * The components are grouped by finding the connected sets
+ * of components whose envelopes, expanded by the buffer distance,
+ * intersect.
+ * A group containing more than the maximum cluster size
+ * (in vertices) is split into clusters by recursively bisecting it
+ * at the median of the component centres.
+ * The clusters are buffered by {@link BufferOp} as tasks in a {@link ForkJoinPool}.
+ * Only the cluster buffers whose envelopes intersect are unioned,
+ * using {@link CascadedPolygonUnion};
+ * the others are added to the result directly.
+ * <p>
+ * The buffer of a union is the union of the buffers only for
+ * positive distances and two-sided buffers.
+ * For other distances groups are not split
+ * (so overlapping polygons are always buffered together),
+ * and non-polygonal inputs and single-sided buffers
+ * are buffered by {@link BufferOp} directly.
+ * The result is topologically equivalent to the result of {@link BufferOp},
+ * but may differ slightly in the vertices where the cluster buffers were unioned.
+ *
+ * @version 1.7
+ */
+public class ParallelBufferOp
+{
+  /**
+   * Computes the buffer of a geometry using the given number of threads.
+   *
+   * @param g the geometry to buffer
+   * @param distance the buffer distance
+   * @param params the buffer parameters to use
+   * @param parallelism the number of threads to use
+   * @return the buffer of the input geometry
+   */
+  public static Geometry bufferOp(Geometry g, double distance,
+      BufferParameters params, int parallelism)
+  {
+    ParallelBufferOp op = new ParallelBufferOp(g, params);
+    op.setParallelism(parallelism);
+    return op.getResultGeometry(distance);
+  }
+
+  /**
+   * The default maximum number of input vertices in a cluster.
+   */
+  private static final int DEFAULT_MAX_CLUSTER_VERTICES = 10000;
+
+  private Geometry argGeom;
+  private BufferParameters bufParams;
+  private GeometryFactory geomFact;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private int maxClusterVertices = DEFAULT_MAX_CLUSTER_VERTICES;
+
+  private double distance;
+
+  /**
+   * Creates a buffer computation for the given geometry
+   * with the default buffer parameters.
+   *
+   * @param g the geometry to buffer
+   */
+  public ParallelBufferOp(Geometry g)
+  {
+    this(g, new BufferParameters());
+  }
+
+  /**
+   * Creates a buffer computation for the given geometry
+   * with the given set of parameters.
+   *
+   * @param g the geometry to buffer
+   * @param bufParams the buffer parameters to use
+   */
+  public ParallelBufferOp(Geometry g, BufferParameters bufParams)
+  {
+    argGeom = g;
+    this.bufParams = bufParams;
+    geomFact = g.getFactory();
+  }
+
+  /**
+   * Sets the number of threads used to compute the buffer.
+   * The default is the number of available processors.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Sets the maximum number of input vertices in a cluster.
+   * Groups of interacting components larger than this are split
+   * into several clusters.
+   * Smaller clusters are buffered faster and in less memory,
+   * but the buffers of the clusters of a group then have to be unioned,
+   * which for a large group whose buffer is a single polygon
+   * can cost more than buffering it in one piece.
+   * The default is 10,000.
+   *
+   * @param maxClusterVertices the maximum number of vertices in a cluster
+   */
+  public void setMaxClusterVertices(int maxClusterVertices)
+  {
+    this.maxClusterVertices = maxClusterVertices;
+  }
+
+  /**
+   * Computes the buffer of the geometry for a given buffer distance.
+   *
+   * @param distance the buffer distance
+   * @return the buffer of the input geometry
+   */
+  public Geometry getResultGeometry(double distance)
+  {
+    this.distance = distance;
+    boolean isSplittable = distance > 0.0 && ! bufParams.isSingleSided();
+    if (argGeom.getNumGeometries() <= 1
+        || ! (isSplittable || argGeom instanceof Polygonal))
+      return BufferOp.bufferOp(argGeom, distance, bufParams);
+
+    List clusters = createClusters(isSplittable);
+    List bufferTasks = new ArrayList();
+    for (Iterator i = clusters.iterator(); i.hasNext(); ) {
+      bufferTasks.add(new BufferTask((List) i.next()));
+    }
+    invokeAll(bufferTasks);
+
+    // union the cluster buffers which may overlap
+    List buffers = new ArrayList();
+    Envelope[] bufferEnvs = new Envelope[bufferTasks.size()];
+    for (int i = 0; i < bufferEnvs.length; i++) {
+      Geometry buffer = ((BufferTask) bufferTasks.get(i)).result;
+      buffers.add(buffer);
+      bufferEnvs[i] = buffer.getEnvelopeInternal();
+    }
+    List unionTasks = new ArrayList();
+    for (Iterator i = group(buffers, bufferEnvs).iterator(); i.hasNext(); ) {
+      unionTasks.add(new UnionTask((List) i.next()));
+    }
+    invokeAll(unionTasks);
+
+    List resultPolys = new ArrayList();
+    for (Iterator i = unionTasks.iterator(); i.hasNext(); ) {
+      Geometry buffer = ((UnionTask) i.next()).result;
+      for (int j = 0; j < buffer.getNumGeometries(); j++) {
+        Geometry poly = buffer.getGeometryN(j);
+        if (! poly.isEmpty())
+          resultPolys.add(poly);
+      }
+    }
+    if (resultPolys.isEmpty())
+      return geomFact.createPolygon(null, null);
+    return geomFact.buildGeometry(resultPolys);
+  }
+
+  /**
+   * Groups the components into clusters.
+   *
+   * @return a list of clusters, each a list of components
+   */
+  private List createClusters(boolean isSplittable)
+  {
+    List comps = new ArrayList();
+    for (int i = 0; i < argGeom.getNumGeometries(); i++) {
+      Geometry comp = argGeom.getGeometryN(i);
+      if (! comp.isEmpty())
+        comps.add(comp);
+    }
+    Envelope[] bufferEnvs = new Envelope[comps.size()];
+    double expandBy = Math.max(distance, 0.0);
+    for (int i = 0; i < bufferEnvs.length; i++) {
+      bufferEnvs[i] = new Envelope(((Geometry) comps.get(i)).getEnvelopeInternal());
+      bufferEnvs[i].expandBy(expandBy);
+    }
+
+    List clusters = new ArrayList();
+    for (Iterator i = group(comps, bufferEnvs).iterator(); i.hasNext(); ) {
+      List group = (List) i.next();
+      if (isSplittable)
+        split(group, numPoints(group), clusters);
+      else
+        clusters.add(group);
+    }
+    return clusters;
+  }
+
+  /**
+   * Splits a list of components into clusters of at most the
+   * maximum number of vertices (unless a single component is larger),
+   * by bisecting it at the median of the component centres
+   * along the longer axis of its envelope.
+   */
+  private void split(List comps, int nPts, List clusters)
+  {
+    if (nPts <= maxClusterVertices || comps.size() <= 1) {
+      clusters.add(comps);
+      return;
+    }
+    Envelope env = new Envelope();
+    for (Iterator i = comps.iterator(); i.hasNext(); ) {
+      env.expandToInclude(((Geometry) i.next()).getEnvelopeInternal());
+    }
+    Collections.sort(comps, new CentreComparator(env.getWidth() >= env.getHeight()));
+
+    // split at the median vertex
+    int half = 0;
+    int mid = 0;
+    while (mid < comps.size() - 1 && half < nPts / 2) {
+      half += ((Geometry) comps.get(mid++)).getNumPoints();
+    }
+    if (mid == 0) mid = 1;
+    List comps0 = new ArrayList(comps.subList(0, mid));
+    List comps1 = new ArrayList(comps.subList(mid, comps.size()));
+    int nPts0 = numPoints(comps0);
+    split(comps0, nPts0, clusters);
+    split(comps1, nPts - nPts0, clusters);
+  }
+
+  private static int numPoints(List geoms)
+  {
+    int nPts = 0;
+    for (Iterator i = geoms.iterator(); i.hasNext(); ) {
+      nPts += ((Geometry) i.next()).getNumPoints();
+    }
+    return nPts;
+  }
+
+  /**
+   * Groups items into the connected sets of items with intersecting envelopes.
+   * The groups are in the order of their first item,
+   * and the items of each group are in their input order.
+   *
+   * @param items the items to group
+   * @param envs the envelope of each item
+   * @return a list of groups, each a list of items
+   */
+  private static List group(List items, Envelope[] envs)
+  {
+    final int[] parent = new int[envs.length];
+    PackedSTRtree index = new PackedSTRtree();
+    for (int i = 0; i < envs.length; i++) {
+      parent[i] = i;
+      if (! envs[i].isNull())
+        index.insert(envs[i], new Integer(i));
+    }
+    for (int i = 0; i < envs.length; i++) {
+      if (envs[i].isNull()) continue;
+      final int item = i;
+      index.query(envs[i], new ItemVisitor() {
+        public void visitItem(Object other)
+        {
+          int root0 = findRoot(parent, item);
+          int root1 = findRoot(parent, ((Integer) other).intValue());
+          // the group root is the lowest index, to keep the input order
+          if (root0 < root1)
+            parent[root1] = root0;
+          else
+            parent[root0] = root1;
+        }
+      });
+    }
+
+    List groups = new ArrayList();
+    List[] groupForRoot = new List[envs.length];
+    for (int i = 0; i < envs.length; i++) {
+      int root = findRoot(parent, i);
+      if (groupForRoot[root] == null) {
+        groupForRoot[root] = new ArrayList();
+        groups.add(groupForRoot[root]);
+      }
+      groupForRoot[root].add(items.get(i));
+    }
+    return groups;
+  }
+
+  private static int findRoot(int[] parent, int i)
+  {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  private void invokeAll(final List tasks)
+  {
+    if (parallelism <= 1 || tasks.size() <= 1) {
+      for (Iterator i = tasks.iterator(); i.hasNext(); ) {
+        ((ClusterTask) i.next()).compute();
+      }
+      return;
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      ForkJoinTask.invokeAll(tasks);
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        protected void compute() {
+          ForkJoinTask.invokeAll(tasks);
+        }
+      });
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+  private abstract static class ClusterTask
+      extends RecursiveAction
+  {
+    protected List geoms;
+    protected Geometry result;
+
+    ClusterTask(List geoms)
+    {
+      this.geoms = geoms;
+    }
+
+    protected abstract void compute();
+  }
+
+  /**
+   * Buffers a cluster of components.
+   */
+  private class BufferTask
+      extends ClusterTask
+  {
+    BufferTask(List comps)
+    {
+      super(comps);
+    }
+
+    protected void compute()
+    {
+      Geometry cluster = geoms.size() == 1
+          ? (Geometry) geoms.get(0) : geomFact.buildGeometry(geoms);
+      result = BufferOp.bufferOp(cluster, distance, bufParams);
+    }
+  }
+
+  /**
+   * Unions a group of cluster buffers whose envelopes intersect.
+   */
+  private class UnionTask
+      extends ClusterTask
+  {
+    UnionTask(List buffers)
+    {
+      super(buffers);
+    }
+
+    protected void compute()
+    {
+      if (geoms.size() == 1)
+        result = (Geometry) geoms.get(0);
+      else
+        result = CascadedPolygonUnion.union(geoms, parallelism);
+    }
+  }
+
+  /**
+   * Compares geometries by the X or Y ordinate of their envelope centres.
+   */
+  private static class CentreComparator
+      implements Comparator
+  {
+    private boolean isX;
+
+    CentreComparator(boolean isX)
+    {
+      this.isX = isX;
+    }
+
+    public int compare(Object o1, Object o2)
+    {
+      Envelope env1 = ((Geometry) o1).getEnvelopeInternal();
+      Envelope env2 = ((Geometry) o2).getEnvelopeInternal();
+      double c1 = isX ? env1.getMinX() + env1.getMaxX() : env1.getMinY() + env1.getMaxY();
+      double c2 = isX ? env2.getMinX() + env2.getMaxX() : env2.getMinY() + env2.getMaxY();
+      return Double.compare(c1, c2);
+    }
+  }
+}
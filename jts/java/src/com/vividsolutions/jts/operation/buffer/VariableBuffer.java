@@ -0,0 +1,206 @@
+package com.vividsolutions.jts.operation.buffer;
+
+import java.util.*;
+
+import com.vividsolutions.jts.algorithm.ConvexHull;
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * Computes a buffer of a line whose width varies along the line.
+ * The buffer distance is given at each vertex,
+ * or as distances at the start and end of the line
+ * which are interpolated linearly by length along the line.
+ * This can be used to create tapered or variable-width corridors.
+ * <p>
+ * The buffer is the union of the buffers of the segments of the line.
+ * The buffer of a segment is the convex hull of the circles
+ * around its endpoints with the radii given by the distances,
+ * which are created by {@link OffsetCurveBuilder}
+ * with the given number of quadrant segments.
+ * The segment buffers are unioned by computing their zero-distance buffer
+ * with {@link BufferOp}, which builds a single buffer graph
+ * with a single noding pass for all of them
+ * (and reduces precision if a robustness problem is encountered).
+ * <p>
+ * The end caps of the buffer are always round.
+ * A zero distance gives a pointed end or a pinch in the buffer,
+ * and parts of the line with zero distance at both ends
+ * are not included.
+ *
+ * @version 1.7
+ */
+public class VariableBuffer
+{
+  /**
+   * Computes a buffer of a line with a distance which varies linearly
+   * from the start to the end of the line.
+   *
+   * @param line the line to buffer
+   * @param startDistance the buffer distance at the start of the line
+   * @param endDistance the buffer distance at the end of the line
+   * @return the variable-distance buffer of the line
+   */
+  public static Geometry buffer(LineString line, double startDistance, double endDistance)
+  {
+    double[] distance = interpolate(line, startDistance, endDistance);
+    VariableBuffer vb = new VariableBuffer(line, distance);
+    return vb.getResult();
+  }
+
+  /**
+   * Computes a buffer of a line with a given distance at each vertex.
+   *
+   * @param line the line to buffer
+   * @param distance the buffer distance at each vertex of the line
+   * @return the variable-distance buffer of the line
+   */
+  public static Geometry buffer(LineString line, double[] distance)
+  {
+    VariableBuffer vb = new VariableBuffer(line, distance);
+    return vb.getResult();
+  }
+
+  /**
+   * Computes distances for the vertices of a line
+   * which vary linearly with length along the line.
+   *
+   * @param line the line
+   * @param startDistance the distance at the start of the line
+   * @param endDistance the distance at the end of the line
+   * @return the distance at each vertex of the line
+   */
+  public static double[] interpolate(LineString line, double startDistance, double endDistance)
+  {
+    Coordinate[] pts = line.getCoordinates();
+    double[] distance = new double[pts.length];
+    double totalLength = line.getLength();
+    double length = 0.0;
+    for (int i = 0; i < pts.length; i++) {
+      if (i > 0)
+        length += pts[i].distance(pts[i - 1]);
+      double frac = totalLength > 0.0 ? length / totalLength : 0.0;
+      distance[i] = startDistance + frac * (endDistance - startDistance);
+    }
+    return distance;
+  }
+
+  private LineString line;
+  private double[] distance;
+  private BufferParameters bufParams;
+  private GeometryFactory geomFact;
+
+  /**
+   * Creates a computation of the buffer of a line
+   * with a given distance at each vertex.
+   *
+   * @param line the line to buffer
+   * @param distance the buffer distance at each vertex of the line
+   */
+  public VariableBuffer(LineString line, double[] distance)
+  {
+    this(line, distance, new BufferParameters());
+  }
+
+  /**
+   * Creates a computation of the buffer of a line
+   * with a given distance at each vertex,
+   * using the number of quadrant segments of the given buffer parameters.
+   *
+   * @param line the line to buffer
+   * @param distance the buffer distance at each vertex of the line
+   * @param bufParams the buffer parameters to use
+   * @throws IllegalArgumentException if the number of distances
+   *   is not the number of vertices, or a distance is negative
+   */
+  public VariableBuffer(LineString line, double[] distance, BufferParameters bufParams)
+  {
+    if (distance.length != line.getNumPoints())
+      throw new IllegalArgumentException("Number of distances does not match number of vertices");
+    for (int i = 0; i < distance.length; i++) {
+      if (distance[i] < 0.0)
+        throw new IllegalArgumentException("Buffer distances must be non-negative");
+    }
+    this.line = line;
+    this.distance = distance;
+    // the vertex circles are always round
+    this.bufParams = new BufferParameters(bufParams.getQuadrantSegments());
+    geomFact = line.getFactory();
+  }
+
+  /**
+   * Computes the variable-distance buffer of the line.
+   *
+   * @return the buffer polygon(s)
+   */
+  public Geometry getResult()
+  {
+    Coordinate[] pts = line.getCoordinates();
+    if (pts.length == 0)
+      return geomFact.createPolygon(null, null);
+    OffsetCurveBuilder curveBuilder = new OffsetCurveBuilder(
+        geomFact.getPrecisionModel(), bufParams);
+
+    List segBuffers = new ArrayList();
+    Coordinate[] prevCircle = circle(curveBuilder, pts, 0);
+    for (int i = 1; i < pts.length; i++) {
+      Coordinate[] circle = circle(curveBuilder, pts, i);
+      Geometry segBuffer = segmentBuffer(pts[i - 1], prevCircle, pts[i], circle);
+      if (segBuffer instanceof Polygon)
+        segBuffers.add(segBuffer);
+      prevCircle = circle;
+    }
+
+    if (segBuffers.isEmpty())
+      return geomFact.createPolygon(null, null);
+    if (segBuffers.size() == 1)
+      return (Geometry) segBuffers.get(0);
+    Geometry segBufferColl = geomFact.createGeometryCollection(
+        GeometryFactory.toGeometryArray(segBuffers));
+    return BufferOp.bufferOp(segBufferColl, 0.0, bufParams);
+  }
+
+  /**
+   * Computes the buffer of a segment as the convex hull
+   * of the circles around its endpoints.
+   *
+   * @return the segment buffer (which is not a polygon if the distances are 0)
+   */
+  private Geometry segmentBuffer(Coordinate p0, Coordinate[] circle0,
+      Coordinate p1, Coordinate[] circle1)
+  {
+    Coordinate[] hullPts = new Coordinate[
+        Math.max(circle0.length, 1) + Math.max(circle1.length, 1)];
+    int n = addPoints(p0, circle0, hullPts, 0);
+    addPoints(p1, circle1, hullPts, n);
+    return new ConvexHull(hullPts, geomFact).getConvexHull();
+  }
+
+  private static int addPoints(Coordinate p, Coordinate[] circle, Coordinate[] pts, int start)
+  {
+    if (circle.length == 0) {
+      pts[start] = p;
+      return start + 1;
+    }
+    System.arraycopy(circle, 0, pts, start, circle.length);
+    return start + circle.length;
+  }
+
+  /**
+   * Computes the circle around a vertex of the line.
+   * The closing vertex is omitted,
+   * since the convex hull algorithm requires distinct points.
+   *
+   * @return the vertices of the circle (empty if the distance is 0)
+   */
+  private Coordinate[] circle(OffsetCurveBuilder curveBuilder, Coordinate[] pts, int i)
+  {
+    Coordinate[] circle = null;
+    if (distance[i] > 0.0)
+      circle = curveBuilder.getLineCurve(new Coordinate[] { pts[i] }, distance[i]);
+    if (circle == null)
+      return new Coordinate[0];
+    Coordinate[] circlePts = new Coordinate[circle.length - 1];
+    System.arraycopy(circle, 0, circlePts, 0, circlePts.length);
+    return circlePts;
+  }
+}
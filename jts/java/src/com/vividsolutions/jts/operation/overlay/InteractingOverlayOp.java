@@ -0,0 +1,258 @@
+package com.vividsolutions.jts.operation.overlay;
+
+import java.util.*;
+
+import com.vividsolutions.jts.algorithm.locate.IndexedPointInAreaLocator;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.util.LinearComponentExtracter;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
+import com.vividsolutions.jts.index.chain.*;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.operation.overlay.snap.SnapIfNeededOverlayOp;
+
+/**
+ * Computes an overlay of two polygonal geometries
+ * with processing limited to the polygons which actually interact.
+ * This generalizes the approach of
+ * {@link com.vividsolutions.jts.operation.union.UnionInteracting}
+ * to all the overlay operations.
+ * <p>
+ * Each polygon of each input is classified with respect to the other input
+ * as being
+ * <ul>
+ * <li><b>outside</b>: no point of the polygon lies in the other geometry
+ * <li><b>inside</b>: the polygon lies in the interior of the other geometry
+ * <li><b>interacting</b>: neither of the above is known to hold
+ * </ul>
+ * A polygon is outside if its envelope is disjoint from the other geometry.
+ * Otherwise, if no boundary segment of the other geometry
+ * has an envelope intersecting the envelope of the polygon,
+ * the polygon lies either entirely inside or entirely outside the other geometry,
+ * which is determined by locating one of its vertices using an
+ * {@link IndexedPointInAreaLocator}.
+ * The boundary segments are found using a {@link PackedMonotoneChains}
+ * indexed by a {@link PackedSTRtree}.
+ * <p>
+ * Polygons which are outside or inside are passed directly to the result
+ * (or dropped) as the operation requires,
+ * and only the remaining polygons are overlaid using {@link SnapIfNeededOverlayOp}:
+ * <ul>
+ * <li>intersection: the inside polygons are kept,
+ * and the interacting polygons are overlaid
+ * <li>union: the outside polygons are kept,
+ * and the interacting polygons are overlaid
+ * <li>difference: the outside polygons of the first geometry are kept,
+ * and its interacting polygons are overlaid with the inside and interacting
+ * polygons of the second geometry
+ * <li>symmetric difference: the outside polygons are kept,
+ * and the inside and interacting polygons are overlaid
+ * </ul>
+ * <p>
+ * If either input is not polygonal, or both consist of a single polygon,
+ * the overlay is computed by {@link SnapIfNeededOverlayOp} directly.
+ *
+ * @version 1.7
+ */
+public class InteractingOverlayOp
+{
+  /**
+   * Computes an overlay operation,
+   * overlaying only the interacting polygons.
+   *
+   * @param g0 the first geometry
+   * @param g1 the second geometry
+   * @param opCode the code for the overlay operation to perform
+   * @return the result of the overlay
+   */
+  public static Geometry overlayOp(Geometry g0, Geometry g1, int opCode)
+  {
+    InteractingOverlayOp op = new InteractingOverlayOp(g0, g1);
+    return op.getResultGeometry(opCode);
+  }
+
+  private static final int OUTSIDE = 0;
+  private static final int INSIDE = 1;
+  private static final int INTERACTING = 2;
+
+  private Geometry g0;
+  private Geometry g1;
+  private GeometryFactory geomFact;
+
+  public InteractingOverlayOp(Geometry g0, Geometry g1)
+  {
+    this.g0 = g0;
+    this.g1 = g1;
+    geomFact = g0.getFactory();
+  }
+
+  /**
+   * Gets the result of an overlay operation.
+   *
+   * @param opCode the code for the overlay operation to perform
+   * @return the result of the overlay
+   */
+  public Geometry getResultGeometry(int opCode)
+  {
+    if (! (g0 instanceof Polygonal) || ! (g1 instanceof Polygonal)
+        || g0.isEmpty() || g1.isEmpty()
+        || (g0.getNumGeometries() == 1 && g1.getNumGeometries() == 1))
+      return SnapIfNeededOverlayOp.overlayOp(g0, g1, opCode);
+
+    int[] location0 = classify(g0, g1);
+    int[] location1 = classify(g1, g0);
+
+    List result = new ArrayList();
+    List overlay0 = new ArrayList();
+    List overlay1 = new ArrayList();
+    switch (opCode) {
+    case OverlayOp.INTERSECTION:
+      extract(g0, location0, INSIDE, result);
+      extract(g1, location1, INSIDE, result);
+      extract(g0, location0, INTERACTING, overlay0);
+      extract(g1, location1, INTERACTING, overlay1);
+      break;
+    case OverlayOp.UNION:
+      extract(g0, location0, OUTSIDE, result);
+      extract(g1, location1, OUTSIDE, result);
+      extract(g0, location0, INTERACTING, overlay0);
+      extract(g1, location1, INTERACTING, overlay1);
+      break;
+    case OverlayOp.DIFFERENCE:
+      extract(g0, location0, OUTSIDE, result);
+      extract(g0, location0, INTERACTING, overlay0);
+      extract(g1, location1, INSIDE, overlay1);
+      extract(g1, location1, INTERACTING, overlay1);
+      break;
+    case OverlayOp.SYMDIFFERENCE:
+      extract(g0, location0, OUTSIDE, result);
+      extract(g1, location1, OUTSIDE, result);
+      extract(g0, location0, INSIDE, overlay0);
+      extract(g0, location0, INTERACTING, overlay0);
+      extract(g1, location1, INSIDE, overlay1);
+      extract(g1, location1, INTERACTING, overlay1);
+      break;
+    }
+    addOverlay(overlay0, overlay1, opCode, result);
+    return geomFact.buildGeometry(result);
+  }
+
+  /**
+   * Overlays the polygons which require it, and adds the components of
+   * the overlay to the result.
+   * If one of the lists is empty, the overlay is just the other list
+   * (for the operations for which it is non-empty).
+   */
+  private void addOverlay(List polys0, List polys1, int opCode, List result)
+  {
+    if (polys0.isEmpty() || polys1.isEmpty()) {
+      if (opCode == OverlayOp.INTERSECTION)
+        return;
+      result.addAll(polys0);
+      if (opCode != OverlayOp.DIFFERENCE)
+        result.addAll(polys1);
+      return;
+    }
+    Geometry overlay = SnapIfNeededOverlayOp.overlayOp(
+        geomFact.buildGeometry(polys0), geomFact.buildGeometry(polys1), opCode);
+    for (int i = 0; i < overlay.getNumGeometries(); i++) {
+      Geometry elem = overlay.getGeometryN(i);
+      if (! elem.isEmpty())
+        result.add(elem);
+    }
+  }
+
+  private static void extract(Geometry geom, int[] location, int loc, List polys)
+  {
+    for (int i = 0; i < geom.getNumGeometries(); i++) {
+      if (location[i] == loc)
+        polys.add(geom.getGeometryN(i));
+    }
+  }
+
+  /**
+   * Classifies the polygons of a geometry with respect to another geometry.
+   *
+   * @return the location of each polygon
+   */
+  private static int[] classify(Geometry geom, Geometry other)
+  {
+    int[] location = new int[geom.getNumGeometries()];
+    Envelope otherEnv = other.getEnvelopeInternal();
+    BoundarySegmentIndex boundaryIndex = null;
+    IndexedPointInAreaLocator locator = null;
+    for (int i = 0; i < location.length; i++) {
+      Geometry poly = geom.getGeometryN(i);
+      Envelope polyEnv = poly.getEnvelopeInternal();
+      if (poly.isEmpty() || ! otherEnv.intersects(polyEnv)) {
+        location[i] = OUTSIDE;
+        continue;
+      }
+      if (boundaryIndex == null)
+        boundaryIndex = new BoundarySegmentIndex(other);
+      if (boundaryIndex.hasSegmentIntersecting(polyEnv)) {
+        location[i] = INTERACTING;
+        continue;
+      }
+      // the polygon lies entirely inside or entirely outside the other geometry
+      if (locator == null)
+        locator = new IndexedPointInAreaLocator(other);
+      location[i] = locator.locate(poly.getCoordinate()) == Location.INTERIOR
+          ? INSIDE : OUTSIDE;
+    }
+    return location;
+  }
+
+  /**
+   * An index of the boundary segments of a geometry,
+   * which tests whether any segment has an envelope intersecting
+   * a query envelope.
+   */
+  private static class BoundarySegmentIndex
+    implements ShortCircuitedItemVisitor, PackedChainSelectAction
+  {
+    private PackedMonotoneChains chains = new PackedMonotoneChains();
+    private PackedSTRtree index = new PackedSTRtree();
+    private Envelope queryEnv;
+    private boolean isFound;
+
+    BoundarySegmentIndex(Geometry geom)
+    {
+      List lines = LinearComponentExtracter.getLines(geom);
+      for (Iterator i = lines.iterator(); i.hasNext(); ) {
+        LineString line = (LineString) i.next();
+        chains.add(line.getCoordinates(), null);
+      }
+      Envelope chainEnv = new Envelope();
+      for (int i = 0; i < chains.size(); i++) {
+        index.insert(chains.getEnvelope(i, chainEnv), new Integer(i));
+      }
+    }
+
+    boolean hasSegmentIntersecting(Envelope env)
+    {
+      queryEnv = env;
+      isFound = false;
+      index.query(env, this);
+      return isFound;
+    }
+
+    public void visitItem(Object item)
+    {
+      chains.select(((Integer) item).intValue(), queryEnv, this);
+    }
+
+    public boolean isDone() { return isFound; }
+
+    public void select(Object context, Coordinate[] pts, int segIndex)
+    {
+      // the select action may be called for segments not intersecting the envelope
+      Coordinate p0 = pts[segIndex];
+      Coordinate p1 = pts[segIndex + 1];
+      if (queryEnv.getMinX() <= Math.max(p0.x, p1.x)
+          && queryEnv.getMaxX() >= Math.min(p0.x, p1.x)
+          && queryEnv.getMinY() <= Math.max(p0.y, p1.y)
+          && queryEnv.getMaxY() >= Math.min(p0.y, p1.y))
+        isFound = true;
+    }
+  }
+}
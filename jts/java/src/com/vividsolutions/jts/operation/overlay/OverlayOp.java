@@ -106,6 +106,7 @@ public class OverlayOp
 
   private PlanarGraph graph;
   private EdgeList edgeList     = new EdgeList();
+  private EdgeNodingValidator nodingValidator = null;
 
   private List resultPolyList   = new ArrayList();
   private List resultLineList   = new ArrayList();
@@ -130,44 +131,51 @@ public class OverlayOp
 
   public PlanarGraph getGraph() { return graph; }
 
-  private void computeOverlay(int opCode)
+  /**
+   * Nodes the input geometries and checks whether the noding is valid,
+   * before the topology graph is built.
+   * If the noding is invalid (due to a robustness failure)
+   * the overlay cannot be computed, so this allows a caller to choose
+   * a more robust overlay strategy without the cost of
+   * computing the overlay until a {@link TopologyException} is thrown.
+   * If the noding is valid, {@link #getResultGeometry(int)}
+   * uses it without noding the inputs again.
+   *
+   * @return true if the noded edges are valid
+   */
+  public boolean isNodingValid()
   {
-    // copy points from input Geometries.
-    // This ensures that any Point geometries
-    // in the input are considered for inclusion in the result set
-    copyPoints(0);
-    copyPoints(1);
-
-    // node the input Geometries
-    arg[0].computeSelfNodes(li, false);
-    arg[1].computeSelfNodes(li, false);
-
-    // compute intersections between edges of the two input geometries
-    arg[0].computeEdgeIntersections(arg[1], li, true);
-
-    List baseSplitEdges = new ArrayList();
-    arg[0].computeSplitEdges(baseSplitEdges);
-    arg[1].computeSplitEdges(baseSplitEdges);
-    List splitEdges = baseSplitEdges;
-    // add the noded edges to this result graph
-    insertUniqueEdges(baseSplitEdges);
+    computeNoding();
+    return nodingValidator.isValid();
+  }
 
-    computeLabelsFromDepths();
-    replaceCollapsedEdges();
+  /**
+   * Nodes the input geometries and checks that the noding is valid.
+   *
+   * @throws TopologyException if the noded edges are not valid
+   * @see #isNodingValid()
+   */
+  public void checkNodingValid()
+  {
+    computeNoding();
+    nodingValidator.checkValid();
+  }
 
-//Debug.println(edgeList);
+  private void computeOverlay(int opCode)
+  {
+    computeNoding();
 
     /**
      * Check that the noding completed correctly.
-     * 
-     * This test is slow, but necessary in order to catch robustness failure 
+     *
+     * This test is slow, but necessary in order to catch robustness failure
      * situations.
-     * If an exception is thrown because of a noding failure, 
+     * If an exception is thrown because of a noding failure,
      * then snapping will be performed, which will hopefully avoid the problem.
-     * In the future hopefully a faster check can be developed.  
-     * 
+     * In the future hopefully a faster check can be developed.
+     *
      */
-    EdgeNodingValidator.checkValid(edgeList.getEdges());
+    nodingValidator.checkValid();
 
     graph.addEdges(edgeList.getEdges());
     computeLabelling();
@@ -199,6 +207,43 @@ public class OverlayOp
     resultGeom = computeGeometry(resultPointList, resultLineList, resultPolyList, opCode);
   }
 
+  /**
+   * Nodes the input geometries and merges the noded edges,
+   * if this has not already been done.
+   */
+  private void computeNoding()
+  {
+    if (nodingValidator != null)
+      return;
+
+    // copy points from input Geometries.
+    // This ensures that any Point geometries
+    // in the input are considered for inclusion in the result set
+    copyPoints(0);
+    copyPoints(1);
+
+    // node the input Geometries
+    arg[0].computeSelfNodes(li, false);
+    arg[1].computeSelfNodes(li, false);
+
+    // compute intersections between edges of the two input geometries
+    arg[0].computeEdgeIntersections(arg[1], li, true);
+
+    List baseSplitEdges = new ArrayList();
+    arg[0].computeSplitEdges(baseSplitEdges);
+    arg[1].computeSplitEdges(baseSplitEdges);
+    List splitEdges = baseSplitEdges;
+    // add the noded edges to this result graph
+    insertUniqueEdges(baseSplitEdges);
+
+    computeLabelsFromDepths();
+    replaceCollapsedEdges();
+
+//Debug.println(edgeList);
+
+    nodingValidator = new EdgeNodingValidator(edgeList.getEdges());
+  }
+
   private void insertUniqueEdges(List edges)
   {
     for (Iterator i = edges.iterator(); i.hasNext(); ) {
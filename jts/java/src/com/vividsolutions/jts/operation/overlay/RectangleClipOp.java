@@ -0,0 +1,649 @@
+package com.vividsolutions.jts.operation.overlay;
+
+import java.util.*;
+
+import com.vividsolutions.jts.algorithm.CGAlgorithms;
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * Clips geometries to an axis-aligned rectangle.
+ * This computes the intersection of a geometry with a rectangle
+ * much faster than {@link OverlayOp}, since no noding or graph
+ * building is required:
+ * <ul>
+ * <li>Points are kept if they lie in the rectangle
+ * <li>Line segments are clipped using the Liang-Barsky algorithm,
+ * and the clipped segments are joined into lines
+ * <li>Polygon rings are clipped in the same way,
+ * and the clipped rings are joined into polygons
+ * by walking around the boundary of the rectangle
+ * between the points where the rings leave and re-enter it.
+ * Rings lying entirely inside the rectangle are kept as they are,
+ * and the holes among them are assigned to the clipped shells containing them.
+ * </ul>
+ * The rectangle is closed, so linework on its boundary is kept.
+ * Polygons are clipped to their areal part,
+ * and lines to their linear part.
+ * Lower-dimensional intersections (for instance a line touching the
+ * rectangle at a single point, or a polygon touching it along an edge)
+ * are not included in the result.
+ * Components whose envelopes lie inside the rectangle are not copied.
+ * <p>
+ * A geometry can be clipped to each tile of a grid using
+ * {@link #clip(Geometry, Envelope, int, int)}.
+ * This splits the grid in half recursively, clipping the geometry to each half,
+ * so that each vertex is clipped once per level of splitting
+ * rather than once for every tile.
+ *
+ * @version 1.7
+ */
+public class RectangleClipOp
+{
+  /**
+   * Clips a geometry to a rectangle.
+   *
+   * @param geom the geometry to clip
+   * @param rect the rectangle to clip to
+   * @return the parts of the geometry lying in the rectangle
+   */
+  public static Geometry clip(Geometry geom, Envelope rect)
+  {
+    RectangleClipOp op = new RectangleClipOp(rect);
+    return op.clip(geom);
+  }
+
+  /**
+   * Clips a geometry to each of the tiles of a regular grid.
+   * The result array is indexed by row (in the Y direction)
+   * and then by column (in the X direction).
+   * Empty tiles contain an empty geometry.
+   *
+   * @param geom the geometry to clip
+   * @param extent the extent of the grid
+   * @param nTilesX the number of columns of tiles
+   * @param nTilesY the number of rows of tiles
+   * @return the parts of the geometry lying in each tile
+   */
+  public static Geometry[][] clip(Geometry geom, Envelope extent, int nTilesX, int nTilesY)
+  {
+    Geometry[][] tiles = new Geometry[nTilesY][nTilesX];
+    double[] gridX = createGridLines(extent.getMinX(), extent.getMaxX(), nTilesX);
+    double[] gridY = createGridLines(extent.getMinY(), extent.getMaxY(), nTilesY);
+    clipRegion(geom, gridX, gridY, 0, nTilesX, 0, nTilesY, tiles);
+    return tiles;
+  }
+
+  /**
+   * Computes the coordinates of the lines dividing a range into
+   * a number of equal intervals.
+   */
+  static double[] createGridLines(double min, double max, int n)
+  {
+    double[] lines = new double[n + 1];
+    for (int i = 0; i < n; i++) {
+      lines[i] = min + (max - min) * i / n;
+    }
+    // ensure the grid covers the range exactly
+    lines[n] = max;
+    return lines;
+  }
+
+  /**
+   * Clips a geometry to the tiles in columns [ix0, ix1) and rows [iy0, iy1),
+   * by splitting the region in half along the middle of its longer side.
+   */
+  private static void clipRegion(Geometry geom, double[] gridX, double[] gridY,
+      int ix0, int ix1, int iy0, int iy1, Geometry[][] tiles)
+  {
+    Envelope regionEnv = new Envelope(gridX[ix0], gridX[ix1], gridY[iy0], gridY[iy1]);
+    Geometry clipped = clip(geom, regionEnv);
+    if (clipped.isEmpty() || (ix1 - ix0 == 1 && iy1 - iy0 == 1)) {
+      for (int iy = iy0; iy < iy1; iy++) {
+        for (int ix = ix0; ix < ix1; ix++) {
+          tiles[iy][ix] = clipped;
+        }
+      }
+      return;
+    }
+    if (ix1 - ix0 >= iy1 - iy0) {
+      int mid = (ix0 + ix1) / 2;
+      clipRegion(clipped, gridX, gridY, ix0, mid, iy0, iy1, tiles);
+      clipRegion(clipped, gridX, gridY, mid, ix1, iy0, iy1, tiles);
+    }
+    else {
+      int mid = (iy0 + iy1) / 2;
+      clipRegion(clipped, gridX, gridY, ix0, ix1, iy0, mid, tiles);
+      clipRegion(clipped, gridX, gridY, ix0, ix1, mid, iy1, tiles);
+    }
+  }
+
+  private static final int LEFT = 0;
+  private static final int RIGHT = 1;
+  private static final int BOTTOM = 2;
+  private static final int TOP = 3;
+
+  private Envelope rect;
+  private double xMin, yMin, xMax, yMax;
+  private double width, height, perimeter;
+  private GeometryFactory geomFact;
+
+  // the result of clipping a segment
+  private double t0, t1;
+  private Coordinate clipPt0;
+  private Coordinate clipPt1;
+
+  /**
+   * Creates an operation to clip geometries to a rectangle.
+   *
+   * @param rect the rectangle to clip to
+   */
+  public RectangleClipOp(Envelope rect)
+  {
+    this.rect = rect;
+    xMin = rect.getMinX();
+    yMin = rect.getMinY();
+    xMax = rect.getMaxX();
+    yMax = rect.getMaxY();
+    width = rect.getWidth();
+    height = rect.getHeight();
+    perimeter = 2 * (width + height);
+  }
+
+  /**
+   * Clips a geometry to the rectangle.
+   *
+   * @param geom the geometry to clip
+   * @return the parts of the geometry lying in the rectangle
+   */
+  public Geometry clip(Geometry geom)
+  {
+    geomFact = geom.getFactory();
+    List result = new ArrayList();
+    clip(geom, result);
+    return geomFact.buildGeometry(result);
+  }
+
+  private void clip(Geometry geom, List result)
+  {
+    if (geom.isEmpty() || rect.isNull())
+      return;
+    Envelope env = geom.getEnvelopeInternal();
+    if (! rect.intersects(env))
+      return;
+    if (geom instanceof GeometryCollection) {
+      for (int i = 0; i < geom.getNumGeometries(); i++) {
+        clip(geom.getGeometryN(i), result);
+      }
+      return;
+    }
+    if (rect.covers(env)) {
+      // keep clipped linework homogeneous
+      if (geom instanceof LinearRing)
+        geom = geomFact.createLineString(((LinearRing) geom).getCoordinateSequence());
+      result.add(geom);
+      return;
+    }
+    if (geom instanceof LineString)
+      clipLineString((LineString) geom, result);
+    else if (geom instanceof Polygon)
+      clipPolygon((Polygon) geom, result);
+    // points not covered by the rectangle are outside it
+  }
+
+  private void clipLineString(LineString line, List result)
+  {
+    List pieces = new ArrayList();
+    if (clipLine(line.getCoordinates(), false, pieces)) {
+      result.add(geomFact.createLineString(line.getCoordinateSequence()));
+      return;
+    }
+    for (Iterator i = pieces.iterator(); i.hasNext(); ) {
+      result.add(geomFact.createLineString((Coordinate[]) i.next()));
+    }
+  }
+
+  private void clipPolygon(Polygon poly, List result)
+  {
+    // a polygon has no area in a degenerate rectangle
+    if (width == 0.0 || height == 0.0)
+      return;
+
+    List pieces = new ArrayList();
+    List shells = new ArrayList();
+    List holes = new ArrayList();
+    List outsideHoles = new ArrayList();
+
+    Coordinate[] shellPts = orient(poly.getExteriorRing().getCoordinates(), false);
+    int nPieces = pieces.size();
+    boolean isShellInside = clipLine(shellPts, true, pieces);
+    if (isShellInside)
+      shells.add(shellPts);
+    boolean isShellOutside = ! isShellInside && pieces.size() == nPieces;
+
+    for (int i = 0; i < poly.getNumInteriorRing(); i++) {
+      LineString hole = poly.getInteriorRingN(i);
+      if (! rect.intersects(hole.getEnvelopeInternal()))
+        continue;
+      Coordinate[] holePts = orient(hole.getCoordinates(), true);
+      nPieces = pieces.size();
+      if (clipLine(holePts, true, pieces))
+        holes.add(holePts);
+      else if (pieces.size() == nPieces)
+        outsideHoles.add(holePts);
+    }
+
+    buildRings(pieces, shells, holes);
+    if (shells.isEmpty()) {
+      // the boundary of the polygon does not cross the rectangle interior
+      if (! isShellOutside || ! isRectangleInside(shellPts, outsideHoles))
+        return;
+      shells.add(rectangleRing());
+    }
+    buildPolygons(shells, holes, result);
+  }
+
+  /**
+   * Tests whether the rectangle lies inside a polygon
+   * whose rings do not cross the rectangle interior,
+   * by locating the centre of the rectangle.
+   */
+  private boolean isRectangleInside(Coordinate[] shellPts, List holes)
+  {
+    Coordinate centre = rect.centre();
+    if (! CGAlgorithms.isPointInRing(centre, shellPts))
+      return false;
+    for (Iterator i = holes.iterator(); i.hasNext(); ) {
+      if (CGAlgorithms.isPointInRing(centre, (Coordinate[]) i.next()))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Creates polygons from shells, and the holes which lie inside them.
+   */
+  private void buildPolygons(List shells, List holes, List result)
+  {
+    List[] shellHoles = new List[shells.size()];
+    for (Iterator i = holes.iterator(); i.hasNext(); ) {
+      Coordinate[] holePts = (Coordinate[]) i.next();
+      int shellIndex = 0;
+      if (shells.size() > 1) {
+        // the midpoint of a segment of a hole cannot lie on the shell boundary
+        Coordinate testPt = new Coordinate(
+            (holePts[0].x + holePts[1].x) / 2, (holePts[0].y + holePts[1].y) / 2);
+        shellIndex = -1;
+        for (int j = 0; j < shells.size(); j++) {
+          if (CGAlgorithms.isPointInRing(testPt, (Coordinate[]) shells.get(j))) {
+            shellIndex = j;
+            break;
+          }
+        }
+        if (shellIndex < 0)
+          continue;
+      }
+      if (shellHoles[shellIndex] == null)
+        shellHoles[shellIndex] = new ArrayList();
+      shellHoles[shellIndex].add(geomFact.createLinearRing(holePts));
+    }
+
+    for (int i = 0; i < shells.size(); i++) {
+      LinearRing[] holeRings = shellHoles[i] == null
+          ? null : GeometryFactory.toLinearRingArray(shellHoles[i]);
+      LinearRing shell = geomFact.createLinearRing((Coordinate[]) shells.get(i));
+      result.add(geomFact.createPolygon(shell, holeRings));
+    }
+  }
+
+  /**
+   * Joins clipped ring pieces into rings,
+   * by following the boundary of the rectangle clockwise
+   * from the end of each piece to the start of the next piece.
+   * The pieces are oriented with the interior of the polygon on their right,
+   * so the rings formed are the clockwise shells of the clipped polygon.
+   * Where the input rings touch at a point, a ring formed may touch itself;
+   * these rings are split into a shell and holes (or several shells).
+   */
+  private void buildRings(List pieces, List shells, List holes)
+  {
+    int n = pieces.size();
+    if (n == 0)
+      return;
+
+    final double[] startDist = new double[n];
+    double[] endDist = new double[n];
+    Integer[] sorted = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      Coordinate[] piece = (Coordinate[]) pieces.get(i);
+      startDist[i] = boundaryDistance(piece[0]);
+      endDist[i] = boundaryDistance(piece[piece.length - 1]);
+      sorted[i] = new Integer(i);
+    }
+    Arrays.sort(sorted, new Comparator() {
+      public int compare(Object o1, Object o2) {
+        double d1 = startDist[((Integer) o1).intValue()];
+        double d2 = startDist[((Integer) o2).intValue()];
+        return d1 < d2 ? -1 : d1 > d2 ? 1 : 0;
+      }
+    });
+    int[] order = new int[n];
+    double[] sortedStartDist = new double[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = sorted[i].intValue();
+      sortedStartDist[i] = startDist[order[i]];
+    }
+
+    boolean[] isUsed = new boolean[n];
+    for (int k = 0; k < n; k++) {
+      int first = order[k];
+      if (isUsed[first]) continue;
+      isUsed[first] = true;
+      CoordinateList ring = new CoordinateList();
+      int current = first;
+      while (true) {
+        ring.add((Coordinate[]) pieces.get(current), false);
+        int next = findNextPiece(endDist[current], first, order, sortedStartDist, isUsed);
+        addCorners(endDist[current], startDist[next], ring);
+        if (next == first)
+          break;
+        isUsed[next] = true;
+        current = next;
+      }
+      addRings(ring.toCoordinateArray(), shells, holes);
+    }
+  }
+
+  /**
+   * Splits a ring into simple rings at the points where it touches itself,
+   * and adds them to the shells or holes according to their orientation.
+   */
+  private static void addRings(Coordinate[] ringPts, List shells, List holes)
+  {
+    List current = new ArrayList();
+    Map index = new HashMap();
+    int n = ringPts.length;
+    if (ringPts[0].equals2D(ringPts[n - 1]))
+      n--;
+    for (int i = 0; i < n; i++) {
+      Coordinate p = ringPts[i];
+      Integer prevIndex = (Integer) index.get(p);
+      if (prevIndex == null) {
+        index.put(p, new Integer(current.size()));
+        current.add(p);
+        continue;
+      }
+      // extract the loop from the previous occurrence of the point
+      List loopPts = current.subList(prevIndex.intValue(), current.size());
+      List loop = new ArrayList(loopPts);
+      for (int j = prevIndex.intValue() + 1; j < current.size(); j++) {
+        index.remove(current.get(j));
+      }
+      loopPts.subList(1, loopPts.size()).clear();
+      addRing(loop, shells, holes);
+    }
+    addRing(current, shells, holes);
+  }
+
+  private static void addRing(List pts, List shells, List holes)
+  {
+    if (pts.size() < 3)
+      return;
+    pts.add(new Coordinate((Coordinate) pts.get(0)));
+    Coordinate[] ringPts = CoordinateArrays.toCoordinateArray(pts);
+    // the signed area is positive for clockwise rings, and zero for collapsed ones
+    double area = CGAlgorithms.signedArea(ringPts);
+    if (area > 0.0)
+      shells.add(ringPts);
+    else if (area < 0.0)
+      holes.add(ringPts);
+  }
+
+  /**
+   * Finds the first unused piece (or the first piece of the current ring)
+   * which starts at or after a given distance around the boundary.
+   */
+  private static int findNextPiece(double dist, int first, int[] order,
+      double[] sortedStartDist, boolean[] isUsed)
+  {
+    int n = order.length;
+    int pos = Arrays.binarySearch(sortedStartDist, dist);
+    if (pos < 0)
+      pos = -pos - 1;
+    else {
+      // find the first of any equal distances
+      while (pos > 0 && sortedStartDist[pos - 1] == dist) pos--;
+    }
+    for (int k = 0; k < n; k++) {
+      int piece = order[(pos + k) % n];
+      if (! isUsed[piece] || piece == first)
+        return piece;
+    }
+    // not reached, since the first piece is always a candidate
+    return first;
+  }
+
+  /**
+   * Adds the corners of the rectangle passed when moving clockwise
+   * along its boundary between two distances.
+   */
+  private void addCorners(double fromDist, double toDist, CoordinateList ring)
+  {
+    double length = toDist - fromDist;
+    if (length < 0)
+      length += perimeter;
+    // the corners in clockwise order from the lower left
+    double[] cornerDist = new double[] { 0.0, height, height + width, 2 * height + width };
+    // find the first corner after the start distance
+    int first = 0;
+    double firstDelta = Double.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      double delta = cornerOffset(cornerDist[i], fromDist);
+      if (delta < firstDelta) {
+        firstDelta = delta;
+        first = i;
+      }
+    }
+    for (int k = 0; k < 4; k++) {
+      int corner = (first + k) % 4;
+      double delta = cornerOffset(cornerDist[corner], fromDist);
+      if (delta >= length)
+        break;
+      ring.add(corner(corner), false);
+    }
+  }
+
+  /**
+   * Computes the distance from a point on the boundary clockwise
+   * to a corner, which is positive if the point is at the corner.
+   */
+  private double cornerOffset(double cornerDist, double fromDist)
+  {
+    double delta = cornerDist - fromDist;
+    if (delta <= 0)
+      delta += perimeter;
+    return delta;
+  }
+
+  private Coordinate corner(int index)
+  {
+    switch (index) {
+    case 0: return new Coordinate(xMin, yMin);
+    case 1: return new Coordinate(xMin, yMax);
+    case 2: return new Coordinate(xMax, yMax);
+    }
+    return new Coordinate(xMax, yMin);
+  }
+
+  private Coordinate[] rectangleRing()
+  {
+    return new Coordinate[] {
+        corner(0), corner(1), corner(2), corner(3), corner(0) };
+  }
+
+  /**
+   * Computes the distance clockwise along the boundary of the rectangle
+   * from the lower left corner to a point on the boundary.
+   */
+  private double boundaryDistance(Coordinate p)
+  {
+    if (p.x == xMin) return p.y - yMin;
+    if (p.y == yMax) return height + p.x - xMin;
+    if (p.x == xMax) return height + width + yMax - p.y;
+    return 2 * height + width + xMax - p.x;
+  }
+
+  /**
+   * Orients a ring so that it is clockwise (for a shell)
+   * or counter-clockwise (for a hole),
+   * which leaves the interior of the polygon on its right.
+   */
+  private static Coordinate[] orient(Coordinate[] ringPts, boolean isHole)
+  {
+    if (CGAlgorithms.isCCW(ringPts) == isHole)
+      return ringPts;
+    Coordinate[] reversed = (Coordinate[]) ringPts.clone();
+    CoordinateArrays.reverse(reversed);
+    return reversed;
+  }
+
+  /**
+   * Clips a line to the rectangle,
+   * adding the coordinates of the clipped pieces to a list.
+   * For polygon rings, segments lying on the boundary of the rectangle
+   * and segments touching it at a point are treated as outside it,
+   * so that each piece enters and leaves the rectangle interior,
+   * and the ends of the ring are joined if it starts and ends inside.
+   *
+   * @param pts the points of the line
+   * @param isRing whether the line is a polygon ring
+   * @param pieces the list to add the pieces to
+   * @return true if the line lies entirely in the rectangle
+   * (in which case no pieces are added)
+   */
+  private boolean clipLine(Coordinate[] pts, boolean isRing, List pieces)
+  {
+    int firstPiece = pieces.size();
+    boolean isFirstAtStart = false;
+    boolean isAllInside = true;
+    CoordinateList piece = null;
+    for (int i = 0; i < pts.length - 1; i++) {
+      boolean isInside = clipSegment(pts[i], pts[i + 1])
+          && ! (clipPt0.equals2D(clipPt1) && ! pts[i].equals2D(pts[i + 1]))
+          && ! (isRing && isOnBoundary(clipPt0, clipPt1));
+      if (! isInside) {
+        isAllInside = false;
+        addPiece(piece, pieces);
+        piece = null;
+        continue;
+      }
+      if (t0 > 0.0) {
+        isAllInside = false;
+        addPiece(piece, pieces);
+        piece = null;
+      }
+      if (piece == null) {
+        if (i == 0) isFirstAtStart = true;
+        piece = new CoordinateList();
+        piece.add(clipPt0, false);
+      }
+      piece.add(clipPt1, false);
+      if (t1 < 1.0) {
+        isAllInside = false;
+        addPiece(piece, pieces);
+        piece = null;
+      }
+    }
+    if (isAllInside) {
+      pieces.subList(firstPiece, pieces.size()).clear();
+      return true;
+    }
+    // join the last and first pieces of a ring which starts inside the rectangle
+    if (isRing && piece != null && isFirstAtStart && pieces.size() > firstPiece) {
+      Coordinate[] first = (Coordinate[]) pieces.get(firstPiece);
+      piece.add(first, false);
+      pieces.set(firstPiece, piece.toCoordinateArray());
+      return false;
+    }
+    addPiece(piece, pieces);
+    return false;
+  }
+
+  private static void addPiece(CoordinateList piece, List pieces)
+  {
+    if (piece != null && piece.size() >= 2)
+      pieces.add(piece.toCoordinateArray());
+  }
+
+  private boolean isOnBoundary(Coordinate p0, Coordinate p1)
+  {
+    return (p0.x == xMin && p1.x == xMin)
+        || (p0.x == xMax && p1.x == xMax)
+        || (p0.y == yMin && p1.y == yMin)
+        || (p0.y == yMax && p1.y == yMax);
+  }
+
+  /**
+   * Clips a segment to the rectangle using the Liang-Barsky algorithm.
+   * If the segment intersects the rectangle, the parameters and
+   * the points of the clipped segment are saved.
+   * Points computed on the boundary of the rectangle
+   * have the boundary coordinate exactly.
+   *
+   * @return true if the segment intersects the rectangle
+   */
+  private boolean clipSegment(Coordinate p0, Coordinate p1)
+  {
+    double dx = p1.x - p0.x;
+    double dy = p1.y - p0.y;
+    t0 = 0.0;
+    t1 = 1.0;
+    int side0 = -1;
+    int side1 = -1;
+    double[] p = new double[] { -dx, dx, -dy, dy };
+    double[] q = new double[] { p0.x - xMin, xMax - p0.x, p0.y - yMin, yMax - p0.y };
+    for (int side = 0; side < 4; side++) {
+      if (p[side] == 0.0) {
+        if (q[side] < 0.0) return false;
+        continue;
+      }
+      double r = q[side] / p[side];
+      if (p[side] < 0.0) {
+        if (r > t1) return false;
+        if (r > t0) {
+          t0 = r;
+          side0 = side;
+        }
+      }
+      else {
+        if (r < t0) return false;
+        if (r < t1) {
+          t1 = r;
+          side1 = side;
+        }
+      }
+    }
+    clipPt0 = clipPoint(p0, p1, t0, side0);
+    clipPt1 = clipPoint(p0, p1, t1, side1);
+    return true;
+  }
+
+  private Coordinate clipPoint(Coordinate p0, Coordinate p1, double t, int side)
+  {
+    if (side < 0) {
+      // an endpoint of the segment, which is kept exactly
+      return new Coordinate(t == 0.0 ? p0 : p1);
+    }
+    double x = p0.x + t * (p1.x - p0.x);
+    double y = p0.y + t * (p1.y - p0.y);
+    switch (side) {
+    case LEFT:   x = xMin; break;
+    case RIGHT:  x = xMax; break;
+    case BOTTOM: y = yMin; break;
+    case TOP:    y = yMax; break;
+    }
+    // ensure round-off does not place the point outside the rectangle
+    x = Math.max(xMin, Math.min(xMax, x));
+    y = Math.max(yMin, Math.min(yMax, y));
+    return new Coordinate(x, y);
+  }
+}
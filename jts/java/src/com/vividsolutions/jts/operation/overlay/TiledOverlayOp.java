@@ -0,0 +1,322 @@
+package com.vividsolutions.jts.operation.overlay;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.util.PolygonExtracter;
+import com.vividsolutions.jts.operation.overlay.snap.SnapIfNeededOverlayOp;
+import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
+
+/**
+ * Computes an overlay of two polygonal geometries
+ * by partitioning the plane into a grid of rectangular tiles,
+ * computing the overlay of the parts of the inputs in each tile,
+ * and stitching the tile results together.
+ * This bounds the size of the graphs built by {@link OverlayOp},
+ * and allows the tiles to be processed in parallel
+ * (see {@link #setParallelism(int)}).
+ * <p>
+ * The tile grid covers the region in which the result can lie.
+ * It is processed by recursively splitting it in half along a grid line,
+ * and clipping the polygons of the inputs to each half
+ * using {@link RectangleClipOp}.
+ * Polygons which lie in one half only are not clipped.
+ * This means each input vertex is clipped once per level of splitting,
+ * rather than once per tile.
+ * When one of the inputs has no polygons in a region, the result for that
+ * region is computed directly, without an overlay.
+ * The tile results are computed using {@link SnapIfNeededOverlayOp}.
+ * <p>
+ * The results for the halves of a region are stitched together
+ * using {@link CascadedPolygonUnion},
+ * which only overlays the polygons which touch the grid line between the halves.
+ * <p>
+ * The result is the areal part of the overlay.
+ * For union, difference and symmetric difference of polygonal inputs
+ * this is the entire overlay.
+ * For intersection, lower-dimensional components
+ * (where the inputs touch but do not overlap) are not included.
+ * The result is topologically equivalent to the result of {@link OverlayOp},
+ * but the vertices may differ slightly, since the tile clipping
+ * introduces vertices on the grid lines.
+ * If either input is not polygonal the overlay is computed
+ * by {@link SnapIfNeededOverlayOp} without tiling.
+ *
+ * @version 1.7
+ */
+public class TiledOverlayOp
+{
+  /**
+   * Computes an overlay operation using tiles.
+   *
+   * @param g0 the first polygonal geometry
+   * @param g1 the second polygonal geometry
+   * @param opCode the code for the overlay operation to perform
+   * @param parallelism the number of threads to use
+   * @return the areal result of the overlay
+   */
+  public static Geometry overlayOp(Geometry g0, Geometry g1, int opCode, int parallelism)
+  {
+    TiledOverlayOp op = new TiledOverlayOp(g0, g1);
+    op.setParallelism(parallelism);
+    return op.getResultGeometry(opCode);
+  }
+
+  /**
+   * The default average number of input vertices in a tile,
+   * used to determine the size of the grid.
+   */
+  private static final int DEFAULT_TILE_VERTICES = 10000;
+
+  private Geometry g0;
+  private Geometry g1;
+  private GeometryFactory geomFact;
+  private int nTilesX = 0;
+  private int nTilesY = 0;
+  private int parallelism = 1;
+
+  private int opCode;
+  private double[] gridX;
+  private double[] gridY;
+
+  public TiledOverlayOp(Geometry g0, Geometry g1)
+  {
+    this.g0 = g0;
+    this.g1 = g1;
+    geomFact = g0.getFactory();
+  }
+
+  /**
+   * Sets the number of columns and rows of tiles.
+   * By default the grid is square, with a size which
+   * gives an average of 10,000 input vertices per tile.
+   *
+   * @param nTilesX the number of tile columns
+   * @param nTilesY the number of tile rows
+   */
+  public void setTileCount(int nTilesX, int nTilesY)
+  {
+    this.nTilesX = nTilesX;
+    this.nTilesY = nTilesY;
+  }
+
+  /**
+   * Sets the number of threads used to compute the tile overlays.
+   * The default is 1, which computes the overlay in the calling thread.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   *
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Gets the result of an overlay operation.
+   *
+   * @param opCode the code for the overlay operation to perform
+   * @return the areal result of the overlay
+   */
+  public Geometry getResultGeometry(int opCode)
+  {
+    this.opCode = opCode;
+    if (! (g0 instanceof Polygonal) || ! (g1 instanceof Polygonal)
+        || g0.isEmpty() || g1.isEmpty())
+      return SnapIfNeededOverlayOp.overlayOp(g0, g1, opCode);
+
+    Envelope env = resultEnvelope();
+    if (env.isNull())
+      return geomFact.createGeometryCollection(new Geometry[0]);
+    createGrid(env);
+
+    RegionTask task = new RegionTask(0, gridX.length - 1, 0, gridY.length - 1,
+        clip(PolygonExtracter.getPolygons(g0), env),
+        clip(PolygonExtracter.getPolygons(g1), env));
+    List result;
+    if (parallelism <= 1)
+      result = task.computeSerial();
+    else if (ForkJoinTask.inForkJoinPool())
+      result = (List) task.invoke();
+    else {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        result = (List) pool.invoke(task);
+      }
+      finally {
+        pool.shutdown();
+      }
+    }
+    return geomFact.buildGeometry(result);
+  }
+
+  /**
+   * Computes the envelope of the region in which the result can lie.
+   */
+  private Envelope resultEnvelope()
+  {
+    Envelope env0 = g0.getEnvelopeInternal();
+    Envelope env1 = g1.getEnvelopeInternal();
+    switch (opCode) {
+    case OverlayOp.INTERSECTION:
+      return env0.intersection(env1);
+    case OverlayOp.DIFFERENCE:
+      return new Envelope(env0);
+    }
+    Envelope env = new Envelope(env0);
+    env.expandToInclude(env1);
+    return env;
+  }
+
+  private void createGrid(Envelope env)
+  {
+    int nx = nTilesX;
+    int ny = nTilesY;
+    if (nx <= 0 || ny <= 0) {
+      int nTiles = (g0.getNumPoints() + g1.getNumPoints()) / DEFAULT_TILE_VERTICES;
+      nx = ny = Math.max(1, (int) Math.ceil(Math.sqrt(nTiles)));
+    }
+    gridX = RectangleClipOp.createGridLines(env.getMinX(), env.getMaxX(), nx);
+    gridY = RectangleClipOp.createGridLines(env.getMinY(), env.getMaxY(), ny);
+  }
+
+  /**
+   * Clips a list of polygons to a rectangle,
+   * keeping only the polygonal parts of the clipped polygons.
+   * Polygons lying within the rectangle are not clipped.
+   */
+  private List clip(List polys, Envelope env)
+  {
+    List clipped = new ArrayList();
+    RectangleClipOp clipOp = null;
+    for (Iterator i = polys.iterator(); i.hasNext(); ) {
+      Polygon poly = (Polygon) i.next();
+      Envelope polyEnv = poly.getEnvelopeInternal();
+      if (env.covers(polyEnv)) {
+        clipped.add(poly);
+        continue;
+      }
+      if (! env.intersects(polyEnv))
+        continue;
+      if (clipOp == null)
+        clipOp = new RectangleClipOp(env);
+      PolygonExtracter.getPolygons(clipOp.clip(poly), clipped);
+    }
+    return clipped;
+  }
+
+  /**
+   * Computes the result of the overlay in a region of the grid,
+   * as a list of polygons.
+   * The region is split in half until it contains a single tile,
+   * or one of the inputs has no polygons in it.
+   */
+  private class RegionTask extends RecursiveTask
+  {
+    private int ix0, ix1, iy0, iy1;
+    private List polys0;
+    private List polys1;
+
+    /**
+     * Creates a task for the tiles in columns [ix0, ix1) and rows [iy0, iy1).
+     */
+    RegionTask(int ix0, int ix1, int iy0, int iy1, List polys0, List polys1)
+    {
+      this.ix0 = ix0;
+      this.ix1 = ix1;
+      this.iy0 = iy0;
+      this.iy1 = iy1;
+      this.polys0 = polys0;
+      this.polys1 = polys1;
+    }
+
+    protected Object compute()
+    {
+      List direct = computeDirect();
+      if (direct != null)
+        return direct;
+      RegionTask[] halves = split();
+      halves[1].fork();
+      List result0 = (List) halves[0].compute();
+      List result1 = (List) halves[1].join();
+      return stitch(result0, result1);
+    }
+
+    List computeSerial()
+    {
+      List direct = computeDirect();
+      if (direct != null)
+        return direct;
+      RegionTask[] halves = split();
+      List result0 = halves[0].computeSerial();
+      List result1 = halves[1].computeSerial();
+      return stitch(result0, result1);
+    }
+
+    /**
+     * Computes the result if the region is a single tile
+     * or one of the inputs is empty in it.
+     *
+     * @return the result polygons, or null if the region must be split
+     */
+    private List computeDirect()
+    {
+      if (polys0.isEmpty() || polys1.isEmpty()) {
+        switch (opCode) {
+        case OverlayOp.INTERSECTION:
+          return new ArrayList();
+        case OverlayOp.DIFFERENCE:
+          return polys0;
+        }
+        // union and symmetric difference of disjoint polygons
+        List result = new ArrayList(polys0);
+        result.addAll(polys1);
+        return result;
+      }
+      if (ix1 - ix0 > 1 || iy1 - iy0 > 1)
+        return null;
+      Geometry result = SnapIfNeededOverlayOp.overlayOp(
+          geomFact.buildGeometry(polys0), geomFact.buildGeometry(polys1), opCode);
+      return PolygonExtracter.getPolygons(result);
+    }
+
+    /**
+     * Splits the region in half along the grid line
+     * in the middle of its longer side (in tiles),
+     * and clips the input polygons to each half.
+     */
+    private RegionTask[] split()
+    {
+      if (ix1 - ix0 >= iy1 - iy0) {
+        int mid = (ix0 + ix1) / 2;
+        Envelope env0 = new Envelope(gridX[ix0], gridX[mid], gridY[iy0], gridY[iy1]);
+        Envelope env1 = new Envelope(gridX[mid], gridX[ix1], gridY[iy0], gridY[iy1]);
+        return new RegionTask[] {
+            new RegionTask(ix0, mid, iy0, iy1, clip(polys0, env0), clip(polys1, env0)),
+            new RegionTask(mid, ix1, iy0, iy1, clip(polys0, env1), clip(polys1, env1)) };
+      }
+      int mid = (iy0 + iy1) / 2;
+      Envelope env0 = new Envelope(gridX[ix0], gridX[ix1], gridY[iy0], gridY[mid]);
+      Envelope env1 = new Envelope(gridX[ix0], gridX[ix1], gridY[mid], gridY[iy1]);
+      return new RegionTask[] {
+          new RegionTask(ix0, ix1, iy0, mid, clip(polys0, env0), clip(polys1, env0)),
+          new RegionTask(ix0, ix1, mid, iy1, clip(polys0, env1), clip(polys1, env1)) };
+    }
+
+    /**
+     * Stitches together the results for the halves of the region.
+     */
+    private List stitch(List result0, List result1)
+    {
+      if (result0.isEmpty()) return result1;
+      if (result1.isEmpty()) return result0;
+      List halves = new ArrayList();
+      halves.add(geomFact.buildGeometry(result0));
+      halves.add(geomFact.buildGeometry(result1));
+      return PolygonExtracter.getPolygons(CascadedPolygonUnion.union(halves));
+    }
+  }
+}
@@ -2,7 +2,6 @@ package com.vividsolutions.jts.operation.overlay.snap;
 
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.operation.overlay.OverlayOp;
-import com.vividsolutions.jts.operation.overlay.validate.OverlayResultValidator;
 
 
 /**
@@ -10,9 +9,12 @@ import com.vividsolutions.jts.operation.overlay.validate.OverlayResultValidator;
  * to improve the robustness of the result.
  * This class only uses snapping
  * if an error is detected when running the standard JTS overlay code.
- * Errors detected include thrown exceptions 
- * (in particular, {@link TopologyException})
- * and invalid overlay computations.
+ * The noding of the inputs is checked before the topology graph is built,
+ * so that the common case of a noding failure is detected
+ * without computing the overlay and catching a {@link TopologyException}.
+ * Other errors detected include thrown exceptions 
+ * (in particular, {@link TopologyException}).
+ * The strategy used to compute the result is reported by {@link #getStrategy()}.
  *     
  * @author Martin Davis
  * @version 1.7
@@ -45,7 +47,24 @@ public class SnapIfNeededOverlayOp
      return overlayOp(g0, g1, OverlayOp.SYMDIFFERENCE);
   }
   
+  /**
+   * The result was computed by {@link OverlayOp}.
+   */
+  public static final int OVERLAY = 1;
+  /**
+   * The noding of the inputs was found to be invalid
+   * before the topology graph was built,
+   * so the result was computed by {@link SnapOverlayOp}.
+   */
+  public static final int SNAP_INVALID_NODING = 2;
+  /**
+   * {@link OverlayOp} threw an exception after noding the inputs,
+   * so the result was computed by {@link SnapOverlayOp}.
+   */
+  public static final int SNAP_AFTER_FAILURE = 3;
+
   private Geometry[] geom = new Geometry[2];
+  private int strategy = 0;
 
   public SnapIfNeededOverlayOp(Geometry g1, Geometry g2)
   {
@@ -53,39 +72,52 @@ public class SnapIfNeededOverlayOp
     geom[1] = g2;
   }
 
+  /**
+   * Gets the strategy used to compute the last result.
+   *
+   * @return one of {@link #OVERLAY}, {@link #SNAP_INVALID_NODING}
+   * or {@link #SNAP_AFTER_FAILURE}
+   */
+  public int getStrategy() { return strategy; }
+
   public Geometry getResultGeometry(int opCode)
   {
-    Geometry result = null;
-    boolean isSuccess = false;
+    OverlayOp overlay = new OverlayOp(geom[0], geom[1]);
     RuntimeException savedException = null;
     try {
-      result = OverlayOp.overlayOp(geom[0], geom[1], opCode); 
-      boolean isValid = true;
-      // not needed if noding validation is used
-//      boolean isValid = OverlayResultValidator.isValid(geom[0], geom[1], OverlayOp.INTERSECTION, result);
-      if (isValid)
-      	isSuccess = true;
-    
+      /**
+       * Check the noding before building the graph,
+       * so that noding failures do not require an exception to be thrown
+       * and the overlay to be partially computed.
+       */
+      if (overlay.isNodingValid()) {
+        Geometry result = overlay.getResultGeometry(opCode);
+        strategy = OVERLAY;
+        return result;
+      }
+      strategy = SNAP_INVALID_NODING;
+      // save the noding failure, which has the location in the input coordinates
+      try {
+        overlay.checkNodingValid();
+      }
+      catch (TopologyException ex) {
+        savedException = ex;
+      }
     }
     catch (RuntimeException ex) {
-    	savedException = ex;
-    	// ignore this exception, since the operation will be rerun
-//    	System.out.println(ex.getMessage());
-//    	ex.printStackTrace();
-    	//System.out.println(ex.getMessage());
-    	//System.out.println("Geom 0: " + geom[0]);
-    	//System.out.println("Geom 1: " + geom[1]);
+      savedException = ex;
+      strategy = SNAP_AFTER_FAILURE;
+      // ignore this exception, since the operation will be rerun
     }
-    if (! isSuccess) {
-    	// this may still throw an exception
-    	// if so, throw the original exception since it has the input coordinates
-    	try {
-    		result = SnapOverlayOp.overlayOp(geom[0], geom[1], opCode);
-    	}
-    	catch (RuntimeException ex) {
-    		throw savedException;
-    	}
+    // this may still throw an exception
+    // if so, throw the original exception since it has the input coordinates
+    try {
+      return SnapOverlayOp.overlayOp(geom[0], geom[1], opCode);
+    }
+    catch (RuntimeException ex) {
+      if (savedException == null)
+        throw ex;
+      throw savedException;
     }
-    return result;
   }
-}
\ No newline at end of file
+}
@@ -33,6 +33,9 @@
 package com.vividsolutions.jts.operation.union;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import com.vividsolutions.jts.geom.*;
 import com.vividsolutions.jts.geom.util.*;
 import com.vividsolutions.jts.index.strtree.STRtree;
@@ -55,6 +58,13 @@ import com.vividsolutions.jts.index.strtree.STRtree;
  * The best case for buffer(0) is the trivial case
  * where there is <i>no</i> overlap between the input geometries. 
  * However, this case is likely rare in practice.
+ * <p>
+ * The union can be computed in parallel (see {@link #setParallelism(int)}).
+ * Independent subtrees of the spatial index are unioned as 
+ * fork/join tasks, until they contain fewer geometries 
+ * than the sequential cutoff.
+ * The same unions are performed in the same order as the serial algorithm,
+ * so the result is identical.
  * 
  * @author Martin Davis
  *
@@ -73,8 +83,25 @@ public class CascadedPolygonUnion
 		return op.union();
 	}
 	
+	/**
+	 * Computes the union of
+	 * a collection of {@link Polygonal} {@link Geometry}s,
+	 * using the given number of threads.
+	 * 
+	 * @param polys a collection of {@link Polygonal} {@link Geometry}s
+	 * @param parallelism the number of threads to use
+	 */
+	public static Geometry union(Collection polys, int parallelism)
+	{
+		CascadedPolygonUnion op = new CascadedPolygonUnion(polys);
+		op.setParallelism(parallelism);
+		return op.union();
+	}
+	
 	private Collection inputPolys;
 	private GeometryFactory geomFactory = null;
+	private int parallelism = 1;
+	private int sequentialCutoff = DEFAULT_SEQUENTIAL_CUTOFF;
 	
 	/**
 	 * Creates a new instance to union
@@ -96,6 +123,37 @@ public class CascadedPolygonUnion
    */
   private static final int STRTREE_NODE_CAPACITY = 4;
   
+  /**
+   * The default number of geometries below which
+   * a subtree is unioned sequentially.
+   */
+  private static final int DEFAULT_SEQUENTIAL_CUTOFF = 64;
+  
+  /**
+   * Sets the number of threads used to compute the union.
+   * The default is 1, which computes the union in the calling thread.
+   * If called from within a {@link ForkJoinPool}, that pool is used.
+   * 
+   * @param parallelism the number of threads to use
+   */
+  public void setParallelism(int parallelism)
+  {
+    this.parallelism = parallelism;
+  }
+  
+  /**
+   * Sets the number of geometries below which a subtree
+   * is unioned sequentially when the union is computed in parallel.
+   * Smaller values create more tasks, which balances the load better
+   * but adds more scheduling overhead.
+   * 
+   * @param sequentialCutoff the minimum number of geometries in a parallel task
+   */
+  public void setSequentialCutoff(int sequentialCutoff)
+  {
+    this.sequentialCutoff = sequentialCutoff;
+  }
+  
 	/**
 	 * Computes the union of the input geometries.
 	 * 
@@ -124,10 +182,121 @@ public class CascadedPolygonUnion
 
 //    printItemEnvelopes(itemTree);
     
+    if (parallelism > 1)
+      return unionTreeParallel(itemTree);
+    
     Geometry unionAll = unionTree(itemTree);
     return unionAll;
 	}
 	
+  private Geometry unionTreeParallel(List itemTree)
+  {
+    UnionTreeTask task = new UnionTreeTask(itemTree);
+    if (ForkJoinTask.inForkJoinPool())
+      return (Geometry) task.invoke();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return (Geometry) pool.invoke(task);
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Unions a subtree of the index, 
+   * forking tasks to union its subtrees and the halves of the list of geometries
+   * they reduce to,
+   * unless it contains fewer geometries than the sequential cutoff.
+   * The unions form the same tree as {@link #unionTree(List)}.
+   */
+  private class UnionTreeTask extends RecursiveTask
+  {
+    private List geomTree;
+    
+    UnionTreeTask(List geomTree)
+    {
+      this.geomTree = geomTree;
+    }
+    
+    protected Object compute()
+    {
+      if (countGeometries(geomTree) < sequentialCutoff)
+        return unionTree(geomTree);
+      
+      // reduce the subtrees to geometries in parallel
+      ForkJoinTask[] tasks = new ForkJoinTask[geomTree.size()];
+      for (int i = 0; i < geomTree.size(); i++) {
+        Object o = geomTree.get(i);
+        if (o instanceof List) {
+          tasks[i] = new UnionTreeTask((List) o).fork();
+        }
+      }
+      List geoms = new ArrayList();
+      for (int i = 0; i < geomTree.size(); i++) {
+        Object o = geomTree.get(i);
+        if (tasks[i] != null) {
+          geoms.add(tasks[i].join());
+        }
+        else if (o instanceof Geometry) {
+          geoms.add(o);
+        }
+        else {
+          geoms.add(null);
+        }
+      }
+      return new BinaryUnionTask(geoms, 0, geoms.size()).compute();
+    }
+  }
+  
+  /**
+   * Unions a section of a list,
+   * computing the unions of each half of the section in parallel.
+   * The unions form the same tree as {@link #binaryUnion(List, int, int)}.
+   */
+  private class BinaryUnionTask extends RecursiveTask
+  {
+    private List geoms;
+    private int start;
+    private int end;
+    
+    BinaryUnionTask(List geoms, int start, int end)
+    {
+      this.geoms = geoms;
+      this.start = start;
+      this.end = end;
+    }
+    
+    protected Object compute()
+    {
+      if (end - start <= 2)
+        return binaryUnion(geoms, start, end);
+      
+      int mid = (end + start) / 2;
+      BinaryUnionTask task0 = new BinaryUnionTask(geoms, start, mid);
+      task0.fork();
+      Geometry g1 = (Geometry) new BinaryUnionTask(geoms, mid, end).compute();
+      Geometry g0 = (Geometry) task0.join();
+      return unionSafe(g0, g1);
+    }
+  }
+  
+  /**
+   * Counts the geometries in a tree-structured list of geometries.
+   */
+  private static int countGeometries(List geomTree)
+  {
+    int count = 0;
+    for (Iterator i = geomTree.iterator(); i.hasNext(); ) {
+      Object o = i.next();
+      if (o instanceof List)
+        count += countGeometries((List) o);
+      else
+        count++;
+    }
+    return count;
+  }
+	
   private Geometry unionTree(List geomTree)
   {
     /**
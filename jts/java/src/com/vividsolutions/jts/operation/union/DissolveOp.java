@@ -0,0 +1,238 @@
+package com.vividsolutions.jts.operation.union;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * Dissolves geometries by a key:
+ * the geometries with the same key are unioned together,
+ * producing one geometry for each key.
+ * This is the common "dissolve by attribute" operation.
+ * Each group is unioned using {@link UnaryUnionOp},
+ * so groups may contain any kind of geometry.
+ * <p>
+ * The groups can be unioned in parallel (see {@link #setParallelism(int)}).
+ * In this case the groups are scheduled on a thread pool
+ * in order of decreasing size (number of vertices),
+ * so that the largest unions do not start last and delay the result.
+ * The sizes of the groups are computed in a first parallel pass.
+ * <p>
+ * Keys are compared using {@link Object#equals(Object)}
+ * and {@link Object#hashCode()}.
+ *
+ * @version 1.7
+ */
+public class DissolveOp
+{
+	/**
+	 * Dissolves a list of geometries by a parallel list of keys.
+	 *
+	 * @param keys the keys of the geometries
+	 * @param geoms the geometries to dissolve
+	 * @param parallelism the number of threads to use
+	 * @return a map from each key to the union of the geometries with that key
+	 * @throws IllegalArgumentException if the lists have different sizes
+	 */
+	public static Map dissolve(List keys, List geoms, int parallelism)
+	{
+		if (keys.size() != geoms.size())
+			throw new IllegalArgumentException("Keys and geometries must have the same size");
+		DissolveOp op = new DissolveOp();
+		op.setParallelism(parallelism);
+		for (int i = 0; i < geoms.size(); i++) {
+			op.add(keys.get(i), (Geometry) geoms.get(i));
+		}
+		return op.getResult();
+	}
+
+	/**
+	 * The groups of geometries for each key, in the order the keys were added.
+	 */
+	private Map groups = new LinkedHashMap();
+	private int parallelism = 1;
+	private Map result = null;
+
+	/**
+	 * Creates a new dissolve operation.
+	 */
+	public DissolveOp()
+	{
+	}
+
+	/**
+	 * Sets the number of threads used to union the groups.
+	 * The default is 1, which unions the groups in the calling thread.
+	 *
+	 * @param parallelism the number of threads to use
+	 */
+	public void setParallelism(int parallelism)
+	{
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Adds a geometry with a key.
+	 *
+	 * @param key the key of the geometry
+	 * @param geom the geometry to add
+	 */
+	public void add(Object key, Geometry geom)
+	{
+		List group = (List) groups.get(key);
+		if (group == null) {
+			group = new ArrayList();
+			groups.put(key, group);
+		}
+		group.add(geom);
+		result = null;
+	}
+
+	/**
+	 * Gets the dissolved geometries.
+	 * The result map iterates over the keys in the order they were first added.
+	 *
+	 * @return a map from each key to the union of the geometries with that key
+	 */
+	public Map getResult()
+	{
+		if (result == null)
+			result = compute();
+		return result;
+	}
+
+	private Map compute()
+	{
+		Group[] groupList = new Group[groups.size()];
+		int n = 0;
+		for (Iterator i = groups.entrySet().iterator(); i.hasNext(); ) {
+			Map.Entry entry = (Map.Entry) i.next();
+			groupList[n++] = new Group(entry.getKey(), (List) entry.getValue());
+		}
+
+		if (parallelism <= 1) {
+			for (int i = 0; i < groupList.length; i++) {
+				groupList[i].union();
+			}
+		}
+		else {
+			computeParallel(groupList);
+		}
+
+		Map unions = new LinkedHashMap();
+		for (int i = 0; i < groupList.length; i++) {
+			unions.put(groupList[i].key, groupList[i].union);
+		}
+		return unions;
+	}
+
+	private void computeParallel(Group[] groupList)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			// compute the sizes of the groups
+			List tasks = new ArrayList();
+			for (int i = 0; i < groupList.length; i++) {
+				final Group group = groupList[i];
+				tasks.add(new Callable() {
+					public Object call() {
+						group.computeSize();
+						return null;
+					}
+				});
+			}
+			waitFor(executor.invokeAll(tasks));
+
+			// union the groups, largest first
+			Group[] sorted = (Group[]) groupList.clone();
+			Arrays.sort(sorted, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					long size1 = ((Group) o1).size;
+					long size2 = ((Group) o2).size;
+					return size1 > size2 ? -1 : size1 < size2 ? 1 : 0;
+				}
+			});
+			List futures = new ArrayList();
+			for (int i = 0; i < sorted.length; i++) {
+				final Group group = sorted[i];
+				futures.add(executor.submit(new Callable() {
+					public Object call() {
+						group.union();
+						return null;
+					}
+				}));
+			}
+			waitFor(futures);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Dissolve was interrupted");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Waits for a list of futures to complete,
+	 * rethrowing any exception thrown by a task.
+	 */
+	private static void waitFor(List futures)
+		throws InterruptedException
+	{
+		for (Iterator i = futures.iterator(); i.hasNext(); ) {
+			Future future = (Future) i.next();
+			try {
+				future.get();
+			}
+			catch (ExecutionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				IllegalStateException ise = new IllegalStateException(cause.toString());
+				ise.initCause(cause);
+				throw ise;
+			}
+		}
+	}
+
+	/**
+	 * The geometries for a key, and their union.
+	 */
+	private static class Group
+	{
+		Object key;
+		List geoms;
+		long size = 0;
+		Geometry union = null;
+
+		Group(Object key, List geoms)
+		{
+			this.key = key;
+			this.geoms = geoms;
+		}
+
+		/**
+		 * Computes the total number of vertices of the geometries.
+		 */
+		void computeSize()
+		{
+			for (int i = 0; i < geoms.size(); i++) {
+				Geometry geom = (Geometry) geoms.get(i);
+				size += geom.getNumPoints();
+			}
+		}
+
+		void union()
+		{
+			union = UnaryUnionOp.union(geoms);
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.vividsolutions.jts.operation.union;
+
+import java.util.*;
+import com.vividsolutions.jts.geom.*;
+
+/**
+ * Computes the union of a stream of geometries,
+ * which are added one at a time.
+ * This allows unioning inputs which are too large to hold in memory
+ * (for instance, geometries read incrementally from a file).
+ * <p>
+ * The geometries are collected in batches of a bounded size.
+ * Each full batch is unioned using {@link UnaryUnionOp},
+ * and the partial union is merged into a log-structured cascade:
+ * level <i>k</i> holds at most one partial union
+ * of 2<sup><i>k</i></sup> batches.
+ * When a partial union is added to an occupied level
+ * the two are unioned and carried to the next level,
+ * as in a binary counter.
+ * This unions geometries of similar size together,
+ * as {@link CascadedPolygonUnion} does,
+ * so the number of times each vertex is processed is logarithmic
+ * in the number of batches.
+ * <p>
+ * At any time the accumulator holds one batch of input geometries
+ * and at most one partial union per level.
+ * Since a partial union is generally no larger than the union of all the input,
+ * the memory used is proportional to the size of the output
+ * (times the logarithm of the number of batches)
+ * rather than the size of the input.
+ * <p>
+ * Usage:
+ * <pre>
+ * StreamingUnion union = new StreamingUnion();
+ * while (reader.hasNext()) {
+ *   union.add(reader.next());
+ * }
+ * Geometry result = union.getResult();
+ * </pre>
+ *
+ * @version 1.7
+ */
+public class StreamingUnion
+{
+	/**
+	 * Computes the union of the geometries provided by an iterator.
+	 *
+	 * @param geoms an iterator over the geometries to union
+	 * @return the union of the geometries
+	 * @return null if no geometries were provided
+	 */
+	public static Geometry union(Iterator geoms)
+	{
+		StreamingUnion union = new StreamingUnion();
+		while (geoms.hasNext()) {
+			union.add((Geometry) geoms.next());
+		}
+		return union.getResult();
+	}
+
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private int batchSize;
+	private List batch = new ArrayList();
+	/**
+	 * The partial unions for each level of the cascade.
+	 * A null entry indicates an empty level.
+	 */
+	private List levels = new ArrayList();
+
+	/**
+	 * Creates an accumulator using the default batch size.
+	 */
+	public StreamingUnion()
+	{
+		this(DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Creates an accumulator which unions
+	 * batches of the given number of geometries.
+	 *
+	 * @param batchSize the number of input geometries in each batch
+	 */
+	public StreamingUnion(int batchSize)
+	{
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Adds a geometry to the union.
+	 *
+	 * @param geom the geometry to add
+	 */
+	public void add(Geometry geom)
+	{
+		batch.add(geom);
+		if (batch.size() >= batchSize)
+			flushBatch();
+	}
+
+	/**
+	 * Gets the union of the geometries added so far.
+	 * More geometries may be added after the result has been obtained.
+	 *
+	 * @return the union of the geometries added
+	 * @return null if no geometries were added
+	 */
+	public Geometry getResult()
+	{
+		flushBatch();
+		// union the partials from the smallest to the largest
+		Geometry result = null;
+		for (int i = 0; i < levels.size(); i++) {
+			Geometry partial = (Geometry) levels.get(i);
+			if (partial == null) continue;
+			result = result == null ? partial : union(result, partial);
+		}
+		/**
+		 * Keep the result, so that further geometries are unioned with it.
+		 * It is stored at the top level, so that it is only merged
+		 * when a carry reaches that level, as the largest partial would have been.
+		 */
+		int top = levels.size() - 1;
+		for (int i = 0; i < top; i++) {
+			levels.set(i, null);
+		}
+		if (top >= 0)
+			levels.set(top, result);
+		return result;
+	}
+
+	/**
+	 * Unions the current batch, and adds the result to the cascade.
+	 */
+	private void flushBatch()
+	{
+		if (batch.isEmpty())
+			return;
+		Geometry partial = UnaryUnionOp.union(batch);
+		batch = new ArrayList();
+
+		for (int level = 0; ; level++) {
+			if (level == levels.size()) {
+				levels.add(partial);
+				return;
+			}
+			Geometry existing = (Geometry) levels.get(level);
+			if (existing == null) {
+				levels.set(level, partial);
+				return;
+			}
+			// carry the union of the two partials to the next level
+			levels.set(level, null);
+			partial = union(existing, partial);
+		}
+	}
+
+	/**
+	 * Unions two partial unions.
+	 * Polygonal partials are unioned using {@link CascadedPolygonUnion},
+	 * which only overlays the polygons which lie in
+	 * the intersection of the envelopes of the partials.
+	 */
+	private static Geometry union(Geometry g0, Geometry g1)
+	{
+		List pair = new ArrayList();
+		pair.add(g0);
+		pair.add(g1);
+		if (g0 instanceof Polygonal && g1 instanceof Polygonal)
+			return CascadedPolygonUnion.union(pair);
+		return UnaryUnionOp.union(pair);
+	}
+}
@@ -44,6 +44,7 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.LineString;
 import com.vividsolutions.jts.geom.util.LinearComponentExtracter;
 import com.vividsolutions.jts.noding.SegmentString;
+import com.vividsolutions.jts.operation.buffer.BufferDissolveOp;
 import com.vividsolutions.jts.operation.buffer.BufferInputLineSimplifier;
 import com.vividsolutions.jts.operation.buffer.BufferOp;
 import com.vividsolutions.jts.operation.buffer.BufferParameters;
@@ -68,6 +69,15 @@ public class BufferByUnionFunctions {
 	{
 		return componentBuffers(g, distance).union();
 	}
+
+	public static Geometry bufferByDissolve(Geometry g, double distance)
+	{
+		List comps = new ArrayList();
+		for (int i = 0; i < g.getNumGeometries(); i++) {
+			comps.add(g.getGeometryN(i));
+		}
+		return BufferDissolveOp.bufferDissolve(comps, distance);
+	}
 	
 	/**
 	 * Buffer polygons by buffering the individual boundary segments and
@@ -46,6 +46,7 @@ import com.vividsolutions.jts.operation.buffer.BufferOp;
 import com.vividsolutions.jts.operation.buffer.BufferParameters;
 import com.vividsolutions.jts.operation.buffer.OffsetCurveBuilder;
 import com.vividsolutions.jts.operation.buffer.OffsetCurveSetBuilder;
+import com.vividsolutions.jts.operation.buffer.VariableBuffer;
 import com.vividsolutions.jts.operation.buffer.validate.BufferResultValidator;
 
 public class BufferFunctions {
@@ -162,4 +163,8 @@ public class BufferFunctions {
     return BufferOp.bufferOp(geom, distance, bufParams);
   }
 
+  public static Geometry variableBuffer(Geometry geom, double startDistance, double endDistance) {
+    return VariableBuffer.buffer((LineString) geom, startDistance, endDistance);
+  }
+
 }
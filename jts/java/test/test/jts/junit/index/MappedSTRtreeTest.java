@@ -0,0 +1,171 @@
+package test.jts.junit.index;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
+import com.vividsolutions.jts.index.strtree.ItemIdMapper;
+import com.vividsolutions.jts.index.strtree.MappedSTRtree;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.index.strtree.STRtreeFileWriter;
+
+/**
+ * @version 1.7
+ */
+public class MappedSTRtreeTest extends TestCase {
+
+  public MappedSTRtreeTest(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {MappedSTRtreeTest.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  private File file;
+  private List items;
+  private ItemIdMapper idMapper = new ItemIdMapper() {
+    public long getId(Object item) {
+      return ((Integer) item).intValue() * 10L;
+    }
+    public Object getItem(long id) {
+      return items.get((int) (id / 10));
+    }
+  };
+
+  protected void setUp() throws IOException {
+    file = File.createTempFile("strtree", ".bin");
+  }
+
+  protected void tearDown() {
+    file.delete();
+  }
+
+  public void testSTRtree() throws IOException {
+    List envs = createEnvelopes(5000);
+    STRtree tree = new STRtree(4);
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), items.get(i));
+    }
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    MappedSTRtree mapped = new MappedSTRtree(file, idMapper);
+    assertEquals(5000, mapped.size());
+    assertEquals(tree.depth(), mapped.depth());
+    assertEquals(4, mapped.getNodeCapacity());
+    checkQueries(envs, tree, mapped);
+  }
+
+  public void testPackedSTRtree() throws IOException {
+    List envs = createEnvelopes(5000);
+    PackedSTRtree tree = new PackedSTRtree(6);
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), items.get(i));
+    }
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    MappedSTRtree mapped = new MappedSTRtree(file, idMapper);
+    assertEquals(tree.depth(), mapped.depth());
+    checkQueries(envs, tree, mapped);
+  }
+
+  public void testSingleNode() throws IOException {
+    List envs = createEnvelopes(3);
+    STRtree tree = new STRtree();
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), items.get(i));
+    }
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    MappedSTRtree mapped = new MappedSTRtree(file, idMapper);
+    checkQueries(envs, tree, mapped);
+  }
+
+  public void testEmpty() throws IOException {
+    new STRtreeFileWriter(idMapper).write(new STRtree(), file);
+    MappedSTRtree mapped = new MappedSTRtree(file);
+    assertEquals(0, mapped.size());
+    assertEquals(0, mapped.query(new Envelope(0, 10, 0, 10)).size());
+    assertEquals(0, mapped.queryIds(new Envelope(0, 10, 0, 10)).length);
+  }
+
+  public void testIds() throws IOException {
+    List envs = createEnvelopes(1000);
+    STRtree tree = new STRtree();
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), items.get(i));
+    }
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    MappedSTRtree mapped = new MappedSTRtree(file);
+    Envelope queryEnv = new Envelope(200, 500, 200, 500);
+    List expected = tree.query(queryEnv);
+    long[] ids = mapped.queryIds(queryEnv);
+    List found = mapped.query(queryEnv);
+    assertEquals(expected.size(), ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      assertEquals(idMapper.getId(expected.get(i)), ids[i]);
+      assertEquals(new Long(ids[i]), found.get(i));
+    }
+  }
+
+  public void testShortCircuit() throws IOException {
+    List envs = createEnvelopes(1000);
+    STRtree tree = new STRtree();
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), items.get(i));
+    }
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    MappedSTRtree mapped = new MappedSTRtree(file, idMapper);
+    final int[] count = new int[1];
+    mapped.query(new Envelope(0, 1000, 0, 1000), new ShortCircuitedItemVisitor() {
+      public void visitItem(Object item) { count[0]++; }
+      public boolean isDone() { return count[0] >= 5; }
+    });
+    assertEquals(5, count[0]);
+  }
+
+  public void testInvalidFile() throws IOException {
+    FileOutputStream os = new FileOutputStream(file);
+    os.write(new byte[64]);
+    os.close();
+    try {
+      new MappedSTRtree(file);
+      fail();
+    }
+    catch (IOException e) {
+    }
+  }
+
+  private void checkQueries(List envs, Object tree, MappedSTRtree mapped) {
+    Random rnd = new Random(1);
+    for (int i = 0; i < 200; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      Envelope queryEnv = new Envelope(x, x + rnd.nextDouble() * 200, y, y + rnd.nextDouble() * 200);
+      List expected = tree instanceof STRtree
+          ? ((STRtree) tree).query(queryEnv)
+          : ((PackedSTRtree) tree).query(queryEnv);
+      // the item order is the same as the original tree
+      assertEquals(expected, mapped.query(queryEnv));
+    }
+  }
+
+  private List createEnvelopes(int size) {
+    Random rnd = new Random(1234);
+    List envs = new ArrayList();
+    items = new ArrayList();
+    for (int i = 0; i < size; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      envs.add(new Envelope(x, x + rnd.nextDouble() * 10, y, y + rnd.nextDouble() * 10));
+      items.add(new Integer(i));
+    }
+    return envs;
+  }
+}
@@ -0,0 +1,172 @@
+package test.jts.junit.index;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import junit.textui.TestRunner;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.kdtree.KdTree;
+import com.vividsolutions.jts.index.kdtree.PackedKdTree;
+
+/**
+ * Tests {@link PackedKdTree}.
+ * 
+ * @version 1.7
+ */
+public class PackedKdTreeTest extends TestCase {
+
+  public static void main(String args[]) {
+    TestRunner.run(PackedKdTreeTest.class);
+  }
+
+  public PackedKdTreeTest(String name) { super(name); }
+
+  public void testEmpty() {
+    PackedKdTree tree = new PackedKdTree(new double[0]);
+    assertEquals(0, tree.size());
+    assertEquals(0, tree.query(new Envelope(0, 10, 0, 10)).length);
+    assertEquals(0, tree.nearestNeighbours(5, 5, 3).length);
+    assertEquals(-1, tree.remove(5, 5));
+  }
+
+  public void testQuery() {
+    double[] coords = randomCoords(10000, 1);
+    PackedKdTree tree = new PackedKdTree(coords);
+    Random rnd = new Random(2);
+    for (int i = 0; i < 100; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      Envelope env = new Envelope(x, x + 50, y, y + 50);
+      int[] found = tree.query(env);
+      int expected = 0;
+      for (int j = 0; j < coords.length; j += 2) {
+        if (env.contains(coords[j], coords[j + 1])) expected++;
+      }
+      assertEquals(expected, found.length);
+      for (int j = 0; j < found.length; j++) {
+        assertTrue(env.contains(tree.getX(found[j]), tree.getY(found[j])));
+      }
+    }
+  }
+
+  public void testSortedInput() {
+    // sorted input would produce a degenerate KdTree
+    double[] coords = new double[2 * 100000];
+    for (int i = 0; i < 100000; i++) {
+      coords[2 * i] = i;
+      coords[2 * i + 1] = i;
+    }
+    PackedKdTree tree = new PackedKdTree(coords);
+    assertEquals(11, tree.query(new Envelope(500, 510, 500, 510)).length);
+    int[] nearest = tree.nearestNeighbours(50000.2, 50000.2, 3);
+    assertEquals(50000.0, tree.getX(nearest[0]), 0.0);
+    assertEquals(50001.0, tree.getX(nearest[1]), 0.0);
+    assertEquals(49999.0, tree.getX(nearest[2]), 0.0);
+  }
+
+  public void testNearestNeighbours() {
+    double[] coords = randomCoords(5000, 3);
+    PackedKdTree tree = new PackedKdTree(coords);
+    Random rnd = new Random(4);
+    for (int i = 0; i < 50; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      int[] nearest = tree.nearestNeighbours(x, y, 10);
+      double[] dist = new double[coords.length / 2];
+      for (int j = 0; j < dist.length; j++) {
+        dist[j] = distance(coords[2 * j], coords[2 * j + 1], x, y);
+      }
+      Arrays.sort(dist);
+      assertEquals(10, nearest.length);
+      for (int j = 0; j < nearest.length; j++) {
+        assertEquals(dist[j], distance(tree.getX(nearest[j]), tree.getY(nearest[j]), x, y), 0.0);
+      }
+      // maximum distance
+      assertEquals(4, tree.nearestNeighbours(x, y, 10, dist[3]).length);
+    }
+  }
+
+  public void testQueryRadius() {
+    double[] coords = randomCoords(5000, 5);
+    PackedKdTree tree = new PackedKdTree(coords);
+    int[] found = tree.queryRadius(500, 500, 40);
+    int expected = 0;
+    for (int j = 0; j < coords.length; j += 2) {
+      if (distance(coords[j], coords[j + 1], 500, 500) <= 40) expected++;
+    }
+    assertEquals(expected, found.length);
+  }
+
+  public void testSnapping() {
+    double[] coords = new double[] {
+        0, 0,
+        0.5, 0,
+        10, 10,
+        10, 10,
+        10.9, 10,
+        20, 20
+    };
+    PackedKdTree tree = new PackedKdTree(coords, null, 1.0);
+    assertEquals(3, tree.size());
+    int[] found = tree.query(new Envelope(-1, 1, -1, 1));
+    assertEquals(1, found.length);
+    assertEquals(2, tree.getCount(found[0]));
+    assertEquals(0.0, tree.getX(found[0]), 0.0);
+    found = tree.query(new Envelope(9, 11, 9, 11));
+    assertEquals(3, tree.getCount(found[0]));
+    
+    // exact duplicates only
+    tree = new PackedKdTree(coords);
+    assertEquals(5, tree.size());
+  }
+
+  public void testSnappingSameAsKdTree() {
+    double[] coords = randomCoords(2000, 6);
+    double tolerance = 5.0;
+    KdTree kdTree = new KdTree(tolerance);
+    for (int i = 0; i < coords.length; i += 2) {
+      kdTree.insert(new Coordinate(coords[i], coords[i + 1]));
+    }
+    PackedKdTree tree = new PackedKdTree(coords, null, tolerance);
+    // KdTree only checks the nodes on the search path, so may snap fewer points
+    int kdCount = kdTree.query(new Envelope(-10, 1010, -10, 1010)).size();
+    assertTrue(tree.size() <= kdCount);
+    // no two distinct points are within the tolerance
+    for (int i = 0; i < tree.size(); i++) {
+      assertEquals(1, tree.queryRadius(tree.getX(i), tree.getY(i), tolerance * 0.999).length);
+    }
+  }
+
+  public void testRemove() {
+    double[] coords = randomCoords(1000, 7);
+    Integer[] data = new Integer[1000];
+    for (int i = 0; i < data.length; i++) data[i] = new Integer(i);
+    PackedKdTree tree = new PackedKdTree(coords, data, 0.0);
+    int node = tree.remove(coords[10], coords[11]);
+    assertTrue(node >= 0);
+    assertEquals(new Integer(5), tree.getData(node));
+    assertEquals(-1, tree.remove(coords[10], coords[11]));
+    assertEquals(999, tree.getLiveCount());
+    assertEquals(0, tree.query(new Envelope(coords[10], coords[10], coords[11], coords[11])).length);
+    int[] nearest = tree.nearestNeighbours(coords[10], coords[11], 1);
+    assertTrue(nearest[0] != node);
+  }
+
+  private static double distance(double x1, double y1, double x2, double y2) {
+    double dx = x1 - x2;
+    double dy = y1 - y2;
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  private static double[] randomCoords(int n, long seed) {
+    Random rnd = new Random(seed);
+    double[] coords = new double[2 * n];
+    for (int i = 0; i < coords.length; i++) {
+      coords[i] = rnd.nextDouble() * 1000;
+    }
+    return coords;
+  }
+}
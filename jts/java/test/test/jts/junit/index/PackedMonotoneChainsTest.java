@@ -0,0 +1,148 @@
+package test.jts.junit.index;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.chain.*;
+
+/**
+ * Tests that {@link PackedMonotoneChains} produces the same chains
+ * and query results as {@link MonotoneChain}s.
+ *
+ * @version 1.7
+ */
+public class PackedMonotoneChainsTest extends TestCase
+{
+
+  public PackedMonotoneChainsTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(PackedMonotoneChainsTest.class);
+  }
+
+  public void testChains()
+  {
+    List lines = createLines(20, 50);
+    PackedMonotoneChains packed = createPacked(lines);
+    List chains = createChains(lines);
+
+    assertEquals(chains.size(), packed.size());
+    Envelope env = new Envelope();
+    for (int i = 0; i < chains.size(); i++) {
+      MonotoneChain mc = (MonotoneChain) chains.get(i);
+      assertEquals(mc.getStartIndex(), packed.getStartIndex(i));
+      assertEquals(mc.getEndIndex(), packed.getEndIndex(i));
+      assertEquals(mc.getContext(), packed.getContext(i));
+      assertEquals(mc.getEnvelope(), packed.getEnvelope(i, env));
+    }
+  }
+
+  public void testRepeatedPoints()
+  {
+    Coordinate[] pts = new Coordinate[] {
+        new Coordinate(0, 0), new Coordinate(0, 0), new Coordinate(1, 1),
+        new Coordinate(1, 1), new Coordinate(2, 0), new Coordinate(2, 0) };
+    PackedMonotoneChains packed = new PackedMonotoneChains();
+    packed.add(pts, null);
+    List chains = MonotoneChainBuilder.getChains(pts);
+    assertEquals(chains.size(), packed.size());
+    for (int i = 0; i < chains.size(); i++) {
+      assertEquals(((MonotoneChain) chains.get(i)).getEndIndex(), packed.getEndIndex(i));
+    }
+  }
+
+  public void testOverlaps()
+  {
+    List lines = createLines(20, 50);
+    PackedMonotoneChains packed = createPacked(lines);
+    List chains = createChains(lines);
+
+    final Set expected = new TreeSet();
+    final Set actual = new TreeSet();
+    MonotoneChainOverlapAction mcAction = new MonotoneChainOverlapAction() {
+      public void overlap(MonotoneChain mc1, int start1, MonotoneChain mc2, int start2) {
+        expected.add(key(mc1.getContext(), start1, mc2.getContext(), start2));
+      }
+    };
+    PackedChainOverlapAction packedAction = new PackedChainOverlapAction() {
+      public void overlap(Object context1, int segIndex1, Object context2, int segIndex2) {
+        actual.add(key(context1, segIndex1, context2, segIndex2));
+      }
+    };
+    for (int i = 0; i < chains.size(); i++) {
+      for (int j = 0; j < chains.size(); j++) {
+        ((MonotoneChain) chains.get(i)).computeOverlaps((MonotoneChain) chains.get(j), mcAction);
+        packed.computeOverlaps(i, packed, j, packedAction);
+      }
+    }
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, actual);
+  }
+
+  public void testSelect()
+  {
+    List lines = createLines(20, 50);
+    PackedMonotoneChains packed = createPacked(lines);
+    List chains = createChains(lines);
+
+    final Set expected = new TreeSet();
+    final Set actual = new TreeSet();
+    Envelope searchEnv = new Envelope(40, 60, 40, 60);
+    for (int i = 0; i < chains.size(); i++) {
+      final MonotoneChain mc = (MonotoneChain) chains.get(i);
+      mc.select(searchEnv, new MonotoneChainSelectAction() {
+        public void select(MonotoneChain chain, int start) {
+          expected.add(key(chain.getContext(), start, null, 0));
+        }
+      });
+      packed.select(i, searchEnv, new PackedChainSelectAction() {
+        public void select(Object context, Coordinate[] pts, int segIndex) {
+          actual.add(key(context, segIndex, null, 0));
+        }
+      });
+    }
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, actual);
+  }
+
+  private static String key(Object context1, int segIndex1, Object context2, int segIndex2)
+  {
+    return context1 + ":" + segIndex1 + "/" + context2 + ":" + segIndex2;
+  }
+
+  private static PackedMonotoneChains createPacked(List lines)
+  {
+    PackedMonotoneChains packed = new PackedMonotoneChains();
+    for (int i = 0; i < lines.size(); i++) {
+      packed.add((Coordinate[]) lines.get(i), new Integer(i));
+    }
+    return packed;
+  }
+
+  private static List createChains(List lines)
+  {
+    List chains = new ArrayList();
+    for (int i = 0; i < lines.size(); i++) {
+      chains.addAll(MonotoneChainBuilder.getChains((Coordinate[]) lines.get(i), new Integer(i)));
+    }
+    return chains;
+  }
+
+  private static List createLines(int nLines, int nPts)
+  {
+    Random rnd = new Random(1);
+    List lines = new ArrayList();
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[nPts];
+      for (int j = 0; j < nPts; j++) {
+        pts[j] = new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100);
+      }
+      lines.add(pts);
+    }
+    return lines;
+  }
+}
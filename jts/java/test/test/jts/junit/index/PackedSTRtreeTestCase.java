@@ -0,0 +1,113 @@
+package test.jts.junit.index;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.AssertionFailedException;
+
+
+/**
+ * @version 1.7
+ */
+public class PackedSTRtreeTestCase extends SpatialIndexTestCase {
+
+  public PackedSTRtreeTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {PackedSTRtreeTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  protected SpatialIndex createSpatialIndex() {
+    return new PackedSTRtree(4);
+  }
+
+  public void testEmpty() {
+    PackedSTRtree t = new PackedSTRtree();
+    assertEquals(0, t.query(new Envelope(0, 10, 0, 10)).size());
+    assertEquals(0, t.depth());
+  }
+
+  public void testDisallowedInserts() {
+    PackedSTRtree t = new PackedSTRtree(5);
+    t.insert(new Envelope(0, 0, 0, 0), new Object());
+    t.insert(new Envelope(0, 0, 0, 0), new Object());
+    t.query(new Envelope());
+    try {
+      t.insert(new Envelope(0, 0, 0, 0), new Object());
+      assertTrue(false);
+    }
+    catch (AssertionFailedException e) {
+      assertTrue(true);
+    }
+  }
+
+  public void testSameAsSTRtree() {
+    doTestSameAsSTRtree(1, 4);
+    doTestSameAsSTRtree(7, 4);
+    doTestSameAsSTRtree(1000, 4);
+    doTestSameAsSTRtree(10000, 10);
+  }
+
+  public void testConcurrentLazyBuild() throws Exception {
+    final PackedSTRtree t = new PackedSTRtree(4);
+    Random rnd = new Random(1234);
+    for (int i = 0; i < 20000; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      t.insert(new Envelope(x, x + 1, y, y + 1), new Integer(i));
+    }
+    final Envelope queryEnv = new Envelope(0, 1000, 0, 1000);
+    final int[] counts = new int[8];
+    final Throwable[] errors = new Throwable[counts.length];
+    Thread[] threads = new Thread[counts.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            // all threads trigger the lazy build
+            counts[index] = t.query(queryEnv).size();
+          }
+          catch (Throwable e) {
+            errors[index] = e;
+          }
+        }
+      };
+    }
+    for (int i = 0; i < threads.length; i++) threads[i].start();
+    for (int i = 0; i < threads.length; i++) threads[i].join();
+    for (int i = 0; i < threads.length; i++) {
+      assertNull(errors[i]);
+      assertEquals(20000, counts[i]);
+    }
+  }
+
+  private void doTestSameAsSTRtree(int itemCount, int nodeCapacity) {
+    STRtree strTree = new STRtree(nodeCapacity);
+    PackedSTRtree packedTree = new PackedSTRtree(nodeCapacity);
+    Random rnd = new Random(1234);
+    for (int i = 0; i < itemCount; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      Envelope env = new Envelope(x, x + rnd.nextDouble() * 10, y, y + rnd.nextDouble() * 10);
+      Integer item = new Integer(i);
+      strTree.insert(env, item);
+      packedTree.insert(env, item);
+    }
+    assertEquals(strTree.size(), packedTree.size());
+    assertEquals(strTree.depth(), packedTree.depth());
+    for (int i = 0; i < 100; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      Envelope queryEnv = new Envelope(x, x + 50, y, y + 50);
+      // the tree structures are identical, so the query results are in the same order
+      assertEquals(strTree.query(queryEnv), packedTree.query(queryEnv));
+    }
+  }
+}
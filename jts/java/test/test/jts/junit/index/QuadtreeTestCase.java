@@ -33,6 +33,8 @@
  */
 package test.jts.junit.index;
 
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
 import com.vividsolutions.jts.index.SpatialIndex;
 import com.vividsolutions.jts.index.quadtree.Quadtree;
 
@@ -54,4 +56,50 @@ public class QuadtreeTestCase extends SpatialIndexTestCase {
   protected SpatialIndex createSpatialIndex() {
     return new Quadtree();
   }
+
+  public void testShortCircuitedQuery() {
+    Quadtree t = new Quadtree();
+    for (int i = 0; i < 100; i++) {
+      t.insert(new Envelope(i, i + 1, i, i + 1), new Integer(i));
+    }
+    CountingVisitor visitor = new CountingVisitor(3);
+    t.query(new Envelope(0, 100, 0, 100), visitor);
+    assertEquals(3, visitor.count);
+    
+    visitor = new CountingVisitor(1000);
+    t.query(new Envelope(0, 100, 0, 100), visitor);
+    assertEquals(100, visitor.count);
+  }
+
+  public void testStatistics() {
+    Quadtree t = new Quadtree();
+    assertEquals(1, t.getNodeCount());
+    for (int i = 0; i < 100; i++) {
+      // point items
+      t.insert(new Envelope(i + 0.5, i + 0.5, i + 0.5, i + 0.5), new Integer(i));
+    }
+    // an item crossing the axes
+    t.insert(new Envelope(-1, 1, -1, 1), "root");
+    assertEquals(101, t.size());
+    assertEquals(1, t.getRootItemCount());
+    assertTrue(t.getNodeCount() > 1);
+    assertTrue(t.getMaxNodeItemCount() >= 1);
+    assertTrue(t.remove(new Envelope(50.5, 50.5, 50.5, 50.5), new Integer(50)));
+    assertEquals(100, t.size());
+  }
+
+  private static class CountingVisitor implements ShortCircuitedItemVisitor {
+    private int maxCount;
+    int count = 0;
+    
+    CountingVisitor(int maxCount) {
+      this.maxCount = maxCount;
+    }
+    public void visitItem(Object item) {
+      count++;
+    }
+    public boolean isDone() {
+      return count >= maxCount;
+    }
+  }
 }
@@ -0,0 +1,111 @@
+package test.jts.junit.index;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.rtree.RStarTree;
+
+
+/**
+ * @version 1.7
+ */
+public class RStarTreeTestCase extends SpatialIndexTestCase {
+
+  public RStarTreeTestCase(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {RStarTreeTestCase.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  protected SpatialIndex createSpatialIndex() {
+    return new RStarTree(4);
+  }
+
+  public void testEmpty() {
+    RStarTree t = new RStarTree();
+    assertEquals(0, t.query(new Envelope(0, 10, 0, 10)).size());
+    assertEquals(0, t.depth());
+    assertTrue(! t.remove(new Envelope(0, 10, 0, 10), new Object()));
+  }
+
+  public void testInsertAfterQuery() {
+    RStarTree t = new RStarTree(4);
+    t.insert(new Envelope(0, 1, 0, 1), "a");
+    assertEquals(1, t.query(new Envelope(0, 10, 0, 10)).size());
+    t.insert(new Envelope(2, 3, 2, 3), "b");
+    assertEquals(2, t.query(new Envelope(0, 10, 0, 10)).size());
+  }
+
+  public void testInsertRemove() {
+    doTestInsertRemove(4, 2000);
+    doTestInsertRemove(10, 5000);
+  }
+
+  public void testRemoveAll() {
+    RStarTree t = new RStarTree(4);
+    List envs = randomEnvelopes(new Random(1), 500);
+    for (Iterator i = envs.iterator(); i.hasNext(); ) {
+      Envelope env = (Envelope) i.next();
+      t.insert(env, env);
+    }
+    assertTrue(t.depth() > 2);
+    for (Iterator i = envs.iterator(); i.hasNext(); ) {
+      Envelope env = (Envelope) i.next();
+      assertTrue(t.remove(env, env));
+      assertTrue(! t.remove(env, env));
+    }
+    assertEquals(0, t.size());
+    assertEquals(0, t.query(new Envelope(-1000, 2000, -1000, 2000)).size());
+  }
+
+  private void doTestInsertRemove(int nodeCapacity, int itemCount) {
+    RStarTree t = new RStarTree(nodeCapacity);
+    Random rnd = new Random(1234);
+    List envs = randomEnvelopes(rnd, itemCount);
+    List present = new ArrayList();
+    for (int i = 0; i < envs.size(); i++) {
+      Envelope env = (Envelope) envs.get(i);
+      t.insert(env, env);
+      present.add(env);
+      // periodically remove a random item
+      if (i % 3 == 0) {
+        Envelope removed = (Envelope) present.remove(rnd.nextInt(present.size()));
+        assertTrue(t.remove(removed, removed));
+      }
+    }
+    assertEquals(present.size(), t.size());
+    for (int i = 0; i < 200; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      Envelope queryEnv = new Envelope(x, x + 50, y, y + 50);
+      assertEquals(intersecting(present, queryEnv), new HashSet(t.query(queryEnv)));
+    }
+  }
+
+  private List randomEnvelopes(Random rnd, int count) {
+    List envs = new ArrayList();
+    for (int i = 0; i < count; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      envs.add(new Envelope(x, x + rnd.nextDouble() * 10, y, y + rnd.nextDouble() * 10));
+    }
+    return envs;
+  }
+
+  private HashSet intersecting(List envs, Envelope queryEnv) {
+    HashSet result = new HashSet();
+    for (Iterator i = envs.iterator(); i.hasNext(); ) {
+      Envelope env = (Envelope) i.next();
+      if (env.intersects(queryEnv)) result.add(env);
+    }
+    return result;
+  }
+}
@@ -33,9 +33,11 @@
  */
 package test.jts.junit.index;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import test.jts.index.STRtreeDemo;
 
@@ -45,7 +47,9 @@ import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.index.SpatialIndex;
 import com.vividsolutions.jts.index.strtree.AbstractNode;
+import com.vividsolutions.jts.index.strtree.GeometryItemDistance;
 import com.vividsolutions.jts.index.strtree.ItemBoundable;
+import com.vividsolutions.jts.index.strtree.ItemPairVisitor;
 import com.vividsolutions.jts.index.strtree.STRtree;
 import com.vividsolutions.jts.util.AssertionFailedException;
 
@@ -122,6 +126,213 @@ public class STRtreeTestCase extends SpatialIndexTestCase {
     doTestVerticalSlices(5, 3, 2, 1);
   }
 
+  public void testParallelBuild() {
+    doTestParallelBuild(0);
+    doTestParallelBuild(5);
+    doTestParallelBuild(50000);
+  }
+
+  public void testKNearestNeighbours() {
+    STRtree t = new STRtree(4);
+    List points = new ArrayList();
+    Random rnd = new Random(1234);
+    for (int i = 0; i < 1000; i++) {
+      Geometry pt = factory.createPoint(new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100));
+      points.add(pt);
+      t.insert(pt.getEnvelopeInternal(), pt);
+    }
+    Geometry queryPt = factory.createPoint(new Coordinate(50, 50));
+    
+    Object[] knn = t.kNearestNeighbours(queryPt.getEnvelopeInternal(), queryPt, 
+        new GeometryItemDistance(), 10);
+    assertEquals(10, knn.length);
+    
+    // check against a brute-force computation
+    List sorted = sortByDistance(points, queryPt);
+    for (int i = 0; i < knn.length; i++) {
+      assertEquals(((Geometry) sorted.get(i)).distance(queryPt), 
+          ((Geometry) knn[i]).distance(queryPt), 0.0);
+    }
+    assertTrue(knn[0] == t.nearestNeighbour(queryPt.getEnvelopeInternal(), queryPt, 
+        new GeometryItemDistance()));
+    
+    // maximum distance
+    double maxDist = ((Geometry) sorted.get(4)).distance(queryPt);
+    knn = t.kNearestNeighbours(queryPt.getEnvelopeInternal(), queryPt, 
+        new GeometryItemDistance(), 10, maxDist);
+    assertEquals(5, knn.length);
+    
+    // more than the tree size
+    knn = t.kNearestNeighbours(queryPt.getEnvelopeInternal(), queryPt, 
+        new GeometryItemDistance(), 2000);
+    assertEquals(1000, knn.length);
+  }
+  
+  public void testKNearestNeighboursEmpty() {
+    STRtree t = new STRtree(4);
+    Geometry queryPt = factory.createPoint(new Coordinate(50, 50));
+    Object[] knn = t.kNearestNeighbours(queryPt.getEnvelopeInternal(), queryPt, 
+        new GeometryItemDistance(), 10);
+    assertEquals(0, knn.length);
+  }
+
+  public void testConcurrentLazyBuild() throws Exception {
+    final STRtree t = new STRtree(4);
+    Random rnd = new Random(1234);
+    for (int i = 0; i < 20000; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      t.insert(new Envelope(x, x + 1, y, y + 1), new Integer(i));
+    }
+    final Envelope queryEnv = new Envelope(0, 1000, 0, 1000);
+    final int[] counts = new int[8];
+    final Throwable[] errors = new Throwable[counts.length];
+    Thread[] threads = new Thread[counts.length];
+    for (int i = 0; i < threads.length; i++) {
+      final int index = i;
+      threads[i] = new Thread() {
+        public void run() {
+          try {
+            // all threads trigger the lazy build
+            counts[index] = t.query(queryEnv).size();
+          }
+          catch (Throwable e) {
+            errors[index] = e;
+          }
+        }
+      };
+    }
+    for (int i = 0; i < threads.length; i++) threads[i].start();
+    for (int i = 0; i < threads.length; i++) threads[i].join();
+    for (int i = 0; i < threads.length; i++) {
+      assertNull(errors[i]);
+      assertEquals(20000, counts[i]);
+    }
+  }
+
+  public void testJoin() {
+    // trees of different heights
+    STRtree t1 = createPointTree(3000, 1, 0.0);
+    STRtree t2 = createPointTree(200, 2, 5.0);
+    
+    List pairs = new ArrayList();
+    t1.join(t2, new PairCollector(pairs));
+    assertEquals(bruteForceJoin(t1, t2, 0.0), toStrings(pairs));
+    
+    // parallel join finds the same pairs
+    List parallelPairs = Collections.synchronizedList(new ArrayList());
+    t1.join(t2, new PairCollector(parallelPairs), 4);
+    assertEquals(bruteForceJoin(t1, t2, 0.0), toStrings(parallelPairs));
+  }
+
+  public void testJoinWithinDistance() {
+    STRtree t1 = createPointTree(2000, 3, 0.0);
+    STRtree t2 = createPointTree(2000, 4, 0.0);
+    GeometryItemDistance itemDist = new GeometryItemDistance();
+    
+    List pairs = new ArrayList();
+    t1.joinWithinDistance(t2, 2.0, itemDist, new PairCollector(pairs));
+    List expected = bruteForceJoin(t1, t2, 2.0);
+    assertTrue(expected.size() > 0);
+    assertEquals(expected, toStrings(pairs));
+    
+    List parallelPairs = Collections.synchronizedList(new ArrayList());
+    t1.joinWithinDistance(t2, 2.0, itemDist, new PairCollector(parallelPairs), 4);
+    assertEquals(expected, toStrings(parallelPairs));
+  }
+
+  public void testJoinEmpty() {
+    STRtree t1 = createPointTree(100, 5, 0.0);
+    List pairs = new ArrayList();
+    t1.join(new STRtree(), new PairCollector(pairs));
+    new STRtree().join(t1, new PairCollector(pairs), 4);
+    assertEquals(0, pairs.size());
+  }
+
+  private STRtree createPointTree(int size, int seed, double bufferDistance) {
+    STRtree t = new STRtree(4);
+    Random rnd = new Random(seed);
+    for (int i = 0; i < size; i++) {
+      Geometry g = factory.createPoint(new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100));
+      if (bufferDistance > 0.0)
+        g = g.getEnvelope().buffer(bufferDistance).getEnvelope();
+      t.insert(g.getEnvelopeInternal(), g);
+    }
+    return t;
+  }
+
+  private List bruteForceJoin(STRtree t1, STRtree t2, double distance) {
+    List items1 = t1.query(new Envelope(-100, 200, -100, 200));
+    List items2 = t2.query(new Envelope(-100, 200, -100, 200));
+    List pairs = new ArrayList();
+    for (Iterator i = items1.iterator(); i.hasNext(); ) {
+      Geometry g1 = (Geometry) i.next();
+      for (Iterator j = items2.iterator(); j.hasNext(); ) {
+        Geometry g2 = (Geometry) j.next();
+        boolean isMatch = distance == 0.0 
+            ? g1.getEnvelopeInternal().intersects(g2.getEnvelopeInternal())
+            : g1.distance(g2) <= distance;
+        if (isMatch) pairs.add(new Object[] { g1, g2 });
+      }
+    }
+    return toStrings(pairs);
+  }
+
+  private List toStrings(List pairs) {
+    List strings = new ArrayList();
+    for (Iterator i = pairs.iterator(); i.hasNext(); ) {
+      Object[] pair = (Object[]) i.next();
+      strings.add(pair[0] + " - " + pair[1]);
+    }
+    Collections.sort(strings);
+    return strings;
+  }
+
+  private static class PairCollector implements ItemPairVisitor {
+    private List pairs;
+    
+    PairCollector(List pairs) {
+      this.pairs = pairs;
+    }
+    public void visitPair(Object item1, Object item2) {
+      pairs.add(new Object[] { item1, item2 });
+    }
+  }
+
+  private List sortByDistance(List geoms, final Geometry queryGeom) {
+    List sorted = new ArrayList(geoms);
+    Collections.sort(sorted, new Comparator() {
+      public int compare(Object o1, Object o2) {
+        return Double.compare(((Geometry) o1).distance(queryGeom), 
+            ((Geometry) o2).distance(queryGeom));
+      }
+    });
+    return sorted;
+  }
+
+  private void doTestParallelBuild(int itemCount) {
+    STRtree serialTree = new STRtree(4);
+    STRtree parallelTree = new STRtree(4);
+    parallelTree.setBuildParallelism(4);
+    Random rnd = new Random(1234);
+    for (int i = 0; i < itemCount; i++) {
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      // add duplicates to check that the sort order is the same
+      if (i % 10 == 0) x = 500;
+      Envelope env = new Envelope(x, x + 1, y, y + 1);
+      Integer item = new Integer(i);
+      serialTree.insert(env, item);
+      parallelTree.insert(env, item);
+    }
+    serialTree.build();
+    parallelTree.build();
+    assertEquals(serialTree.itemsTree(), parallelTree.itemsTree());
+    assertEquals(serialTree.depth(), parallelTree.depth());
+    Envelope queryEnv = new Envelope(200, 300, 200, 300);
+    assertEquals(serialTree.query(queryEnv), parallelTree.query(queryEnv));
+  }
+
   private void doTestCreateParentsFromVerticalSlice(int childCount,
       int nodeCapacity, int expectedChildrenPerParentBoundable,
       int expectedChildrenOfLastParent) {
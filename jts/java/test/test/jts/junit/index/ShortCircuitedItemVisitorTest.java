@@ -0,0 +1,126 @@
+package test.jts.junit.index;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ShortCircuitedItemVisitor;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.bintree.Bintree;
+import com.vividsolutions.jts.index.bintree.Interval;
+import com.vividsolutions.jts.index.intervalrtree.SortedPackedIntervalRTree;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import com.vividsolutions.jts.index.rtree.RStarTree;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Tests that all indexes stop querying
+ * when a {@link ShortCircuitedItemVisitor} is done.
+ *
+ * @version 1.7
+ */
+public class ShortCircuitedItemVisitorTest extends TestCase {
+
+  private static final int ITEM_COUNT = 200;
+
+  public ShortCircuitedItemVisitorTest(String Name_) {
+    super(Name_);
+  }
+
+  public static void main(String[] args) {
+    String[] testCaseName = {ShortCircuitedItemVisitorTest.class.getName()};
+    junit.textui.TestRunner.main(testCaseName);
+  }
+
+  public void testSTRtree() {
+    checkSpatialIndex(new STRtree(4));
+  }
+
+  public void testPackedSTRtree() {
+    checkSpatialIndex(new PackedSTRtree(4));
+  }
+
+  public void testQuadtree() {
+    checkSpatialIndex(new Quadtree());
+  }
+
+  public void testRStarTree() {
+    checkSpatialIndex(new RStarTree(4));
+  }
+
+  public void testBintree() {
+    final Bintree t = new Bintree();
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      t.insert(new Interval(i, i + 1), new Integer(i));
+    }
+    final Interval queryInterval = new Interval(0, ITEM_COUNT);
+    checkVisitCounts(t.query(queryInterval).size(),
+        new IndexQuery() {
+          public void query(CountingVisitor visitor) {
+            t.query(queryInterval, visitor);
+          }
+        });
+  }
+
+  public void testSortedPackedIntervalRTree() {
+    final SortedPackedIntervalRTree t = new SortedPackedIntervalRTree();
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      t.insert(i, i + 1, new Integer(i));
+    }
+    checkVisitCounts(ITEM_COUNT,
+        new IndexQuery() {
+          public void query(CountingVisitor visitor) {
+            t.query(0, ITEM_COUNT, visitor);
+          }
+        });
+  }
+
+  private void checkSpatialIndex(final SpatialIndex index) {
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      index.insert(new Envelope(i, i + 1, i, i + 1), new Integer(i));
+    }
+    final Envelope queryEnv = new Envelope(0, ITEM_COUNT, 0, ITEM_COUNT);
+    checkVisitCounts(index.query(queryEnv).size(),
+        new IndexQuery() {
+          public void query(CountingVisitor visitor) {
+            index.query(queryEnv, visitor);
+          }
+        });
+  }
+
+  private void checkVisitCounts(int fullCount, IndexQuery query) {
+    assertEquals(ITEM_COUNT, fullCount);
+
+    CountingVisitor visitor = new CountingVisitor(1);
+    query.query(visitor);
+    assertEquals(1, visitor.count);
+
+    visitor = new CountingVisitor(17);
+    query.query(visitor);
+    assertEquals(17, visitor.count);
+
+    // a visitor which is never done sees every item
+    visitor = new CountingVisitor(Integer.MAX_VALUE);
+    query.query(visitor);
+    assertEquals(fullCount, visitor.count);
+  }
+
+  private interface IndexQuery {
+    void query(CountingVisitor visitor);
+  }
+
+  private static class CountingVisitor implements ShortCircuitedItemVisitor {
+    private int maxCount;
+    int count = 0;
+
+    CountingVisitor(int maxCount) {
+      this.maxCount = maxCount;
+    }
+    public void visitItem(Object item) {
+      count++;
+    }
+    public boolean isDone() {
+      return count >= maxCount;
+    }
+  }
+}
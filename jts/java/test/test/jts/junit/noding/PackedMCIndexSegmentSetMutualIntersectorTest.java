@@ -0,0 +1,92 @@
+package test.jts.junit.noding;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.index.chain.MonotoneChain;
+import com.vividsolutions.jts.noding.*;
+
+/**
+ * Tests that {@link PackedMCIndexSegmentSetMutualIntersector} finds
+ * the same segment pairs as {@link MCIndexSegmentSetMutualIntersector}.
+ *
+ * @version 1.7
+ */
+public class PackedMCIndexSegmentSetMutualIntersectorTest
+ extends TestCase
+{
+
+  public PackedMCIndexSegmentSetMutualIntersectorTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(PackedMCIndexSegmentSetMutualIntersectorTest.class);
+  }
+
+  public void testSameAsMCIndex()
+  {
+    MCIndexSegmentSetMutualIntersector mci = new MCIndexSegmentSetMutualIntersector();
+    Set expected = findPairs(mci);
+    assertTrue(expected.size() > 0);
+    assertTrue(mci.getMonotoneChains().get(0) instanceof MonotoneChain);
+
+    Set actual = findPairs(new PackedMCIndexSegmentSetMutualIntersector());
+    assertEquals(expected, actual);
+  }
+
+  public void testFastSegmentSetIntersectionFinder()
+  {
+    FastSegmentSetIntersectionFinder finder
+        = new FastSegmentSetIntersectionFinder(createSegStrings(50, 10, 1));
+    assertTrue(finder.intersects(createSegStrings(50, 10, 2)));
+    List far = new ArrayList();
+    far.add(new BasicSegmentString(new Coordinate[] {
+        new Coordinate(500, 500), new Coordinate(600, 600) }, null));
+    assertTrue(! finder.intersects(far));
+  }
+
+  private static Set findPairs(SegmentSetMutualIntersector intersector)
+  {
+    PairRecorder recorder = new PairRecorder();
+    intersector.setBaseSegments(createSegStrings(50, 10, 1));
+    intersector.setSegmentIntersector(recorder);
+    intersector.process(createSegStrings(50, 10, 2));
+    return recorder.pairs;
+  }
+
+  private static List createSegStrings(int nLines, int nPts, long seed)
+  {
+    Random rnd = new Random(seed);
+    List segStrings = new ArrayList();
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[nPts];
+      double x = rnd.nextDouble() * 100;
+      double y = rnd.nextDouble() * 100;
+      for (int j = 0; j < nPts; j++) {
+        pts[j] = new Coordinate(x + rnd.nextDouble() * 20, y + rnd.nextDouble() * 20);
+      }
+      segStrings.add(new BasicSegmentString(pts, seed + ":" + i));
+    }
+    return segStrings;
+  }
+
+  /**
+   * Records the pairs of segments which are tested for intersection.
+   */
+  private static class PairRecorder
+      implements SegmentIntersector
+  {
+    Set pairs = new HashSet();
+
+    public void processIntersections(SegmentString e0, int segIndex0,
+        SegmentString e1, int segIndex1)
+    {
+      pairs.add(e0.getData() + "/" + segIndex0 + "-" + e1.getData() + "/" + segIndex1);
+    }
+
+    public boolean isDone() { return false; }
+  }
+}
@@ -0,0 +1,101 @@
+package test.jts.junit.noding;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.algorithm.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.noding.*;
+
+/**
+ * Tests that {@link ParallelMCIndexNoder} computes
+ * the same noding as {@link MCIndexNoder}.
+ *
+ * @version 1.7
+ */
+public class ParallelMCIndexNoderTest
+ extends TestCase
+{
+
+  public ParallelMCIndexNoderTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(ParallelMCIndexNoderTest.class);
+  }
+
+  public void testEmpty()
+  {
+    ParallelMCIndexNoder noder = new ParallelMCIndexNoder(new PrecisionModel());
+    noder.computeNodes(new ArrayList());
+    assertEquals(0, noder.getNodedSubstrings().size());
+  }
+
+  public void testCrossingLines()
+  {
+    List segStrings = new ArrayList();
+    segStrings.add(new NodedSegmentString(new Coordinate[] {
+        new Coordinate(0, 0), new Coordinate(10, 10) }, null));
+    segStrings.add(new NodedSegmentString(new Coordinate[] {
+        new Coordinate(0, 10), new Coordinate(10, 0) }, null));
+    ParallelMCIndexNoder noder = new ParallelMCIndexNoder(new PrecisionModel());
+    noder.computeNodes(segStrings);
+    assertEquals(4, noder.getNodedSubstrings().size());
+    assertEquals(1, noder.getNumInteriorIntersections());
+  }
+
+  public void testRandomLines()
+  {
+    checkSameAsMCIndexNoder(new PrecisionModel(), 1);
+    checkSameAsMCIndexNoder(new PrecisionModel(), 4);
+    checkSameAsMCIndexNoder(new PrecisionModel(10.0), 4);
+  }
+
+  private void checkSameAsMCIndexNoder(PrecisionModel pm, int parallelism)
+  {
+    MCIndexNoder noder = new MCIndexNoder();
+    LineIntersector li = new RobustLineIntersector();
+    li.setPrecisionModel(pm);
+    noder.setSegmentIntersector(new IntersectionAdder(li));
+    noder.computeNodes(createSegStrings(100, 20));
+    List expected = new ArrayList(noder.getNodedSubstrings());
+
+    ParallelMCIndexNoder parallelNoder = new ParallelMCIndexNoder(pm);
+    parallelNoder.setParallelism(parallelism);
+    parallelNoder.computeNodes(createSegStrings(100, 20));
+    List actual = new ArrayList(parallelNoder.getNodedSubstrings());
+
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Coordinate[] expectedPts = ((SegmentString) expected.get(i)).getCoordinates();
+      Coordinate[] actualPts = ((SegmentString) actual.get(i)).getCoordinates();
+      assertTrue(Arrays.equals(expectedPts, actualPts));
+      assertEquals(((SegmentString) expected.get(i)).getData(),
+          ((SegmentString) actual.get(i)).getData());
+    }
+  }
+
+  /**
+   * Creates random lines, which include some closed rings
+   * (to exercise self-intersections).
+   */
+  private static List createSegStrings(int nLines, int nPts)
+  {
+    Random rnd = new Random(1);
+    List segStrings = new ArrayList();
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[nPts];
+      double x = rnd.nextDouble() * 100;
+      double y = rnd.nextDouble() * 100;
+      for (int j = 0; j < nPts; j++) {
+        pts[j] = new Coordinate(x + rnd.nextDouble() * 20, y + rnd.nextDouble() * 20);
+      }
+      if (i % 10 == 0)
+        pts[nPts - 1] = new Coordinate(pts[0]);
+      segStrings.add(new NodedSegmentString(pts, new Integer(i)));
+    }
+    return segStrings;
+  }
+}
@@ -0,0 +1,130 @@
+package test.jts.junit.noding.snapround;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+import junit.textui.TestRunner;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.WKTReader;
+import com.vividsolutions.jts.noding.*;
+import com.vividsolutions.jts.noding.snapround.*;
+
+/**
+ * Tests {@link ParallelSnapRounder}.
+ *
+ * @version 1.7
+ */
+public class ParallelSnapRounderTest extends TestCase {
+
+  WKTReader rdr = new WKTReader();
+
+  public static void main(String args[]) {
+    TestRunner.run(ParallelSnapRounderTest.class);
+  }
+
+  public ParallelSnapRounderTest(String name) { super(name); }
+
+  public void testBadLines() throws Exception {
+    String[] badLines = {
+      "LINESTRING ( 171 157, 175 154, 170 154, 170 155, 170 156, 170 157, 171 158, 171 159, 172 160, 176 156, 171 156, 171 159, 176 159, 172 155, 170 157, 174 161, 174 156, 173 156, 172 156 )",
+      "LINESTRING ( 175 222, 176 222, 176 219, 174 221, 175 222, 177 220, 174 220, 174 222, 177 222, 175 220, 174 221 )",
+      "LINESTRING ( 362 177, 375 164, 374 164, 372 161, 373 163, 372 165, 373 164, 442 58 )",
+      "LINESTRING ( 76 47, 81 52, 81 53, 85 57, 88 62, 89 64, 57 80, 82 55, 101 74, 76 99, 92 67, 94 68, 99 71, 103 75, 139 111 )"
+    };
+    for (int i = 0; i < badLines.length; i++) {
+      List geoms = new ArrayList();
+      geoms.add(rdr.read(badLines[i]));
+      GeometryNoder noder = new GeometryNoder(new PrecisionModel(1.0));
+      noder.setParallelism(2);
+      noder.setValidate(true);
+      List noded = noder.node(geoms);
+
+      // the noding does not depend on the number of threads
+      GeometryNoder serialNoder = new GeometryNoder(new PrecisionModel(1.0));
+      List serialNoded = serialNoder.node(geoms);
+      assertEquals(serialNoded.size(), noded.size());
+      for (int j = 0; j < noded.size(); j++) {
+        assertTrue(((Geometry) serialNoded.get(j)).equalsExact((Geometry) noded.get(j)));
+      }
+    }
+  }
+
+  public void testCloseNodes() throws Exception {
+    List segStrings = new ArrayList();
+    segStrings.add(new NodedSegmentString(
+        rdr.read("LINESTRING ( 0 0, 19 19 )").getCoordinates(), null));
+    segStrings.add(new NodedSegmentString(
+        rdr.read("LINESTRING ( 12 13, 17 16 )").getCoordinates(), null));
+    segStrings.add(new NodedSegmentString(
+        rdr.read("LINESTRING ( 3 2, 6 7 )").getCoordinates(), null));
+    Collection noded = snapRound(segStrings, 1.0, 2);
+    new FastNodingValidator(noded).checkValid();
+    // the first line is split at the pixels the other lines pass through
+    assertEquals(7, noded.size());
+  }
+
+  public void testRandomLines() {
+    checkRandomLines(1.0);
+    checkRandomLines(10.0);
+  }
+
+  private void checkRandomLines(double scale)
+  {
+    Collection noded = snapRound(createLines(100, 20, scale), scale, 1);
+    new FastNodingValidator(noded).checkValid();
+    assertTrue(isRounded(noded, new PrecisionModel(scale)));
+
+    // the result does not depend on the number of threads
+    Collection nodedParallel = snapRound(createLines(100, 20, scale), scale, 4);
+    assertEquals(toStrings(noded), toStrings(nodedParallel));
+  }
+
+  private Collection snapRound(List segStrings, double scale, int parallelism)
+  {
+    ParallelSnapRounder noder = new ParallelSnapRounder(new PrecisionModel(scale));
+    noder.setParallelism(parallelism);
+    noder.computeNodes(segStrings);
+    return noder.getNodedSubstrings();
+  }
+
+  private List createLines(int n, int nPts, double scale)
+  {
+    PrecisionModel pm = new PrecisionModel(scale);
+    Random rnd = new Random(5);
+    List lines = new ArrayList();
+    for (int i = 0; i < n; i++) {
+      Coordinate[] pts = new Coordinate[nPts];
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      for (int j = 0; j < nPts; j++) {
+        pts[j] = new Coordinate(pm.makePrecise(x), pm.makePrecise(y));
+        x += (rnd.nextDouble() - 0.5) * 100;
+        y += (rnd.nextDouble() - 0.5) * 100;
+      }
+      lines.add(new NodedSegmentString(pts, null));
+    }
+    return lines;
+  }
+
+  private boolean isRounded(Collection segStrings, PrecisionModel pm)
+  {
+    for (Iterator i = segStrings.iterator(); i.hasNext(); ) {
+      Coordinate[] pts = ((SegmentString) i.next()).getCoordinates();
+      for (int j = 0; j < pts.length; j++) {
+        if (pts[j].x != pm.makePrecise(pts[j].x) || pts[j].y != pm.makePrecise(pts[j].y))
+          return false;
+      }
+    }
+    return true;
+  }
+
+  private List toStrings(Collection segStrings)
+  {
+    List strings = new ArrayList();
+    for (Iterator i = segStrings.iterator(); i.hasNext(); ) {
+      strings.add(i.next().toString());
+    }
+    return strings;
+  }
+}
@@ -0,0 +1,96 @@
+package test.jts.junit.operation.buffer;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.buffer.*;
+import com.vividsolutions.jts.operation.union.*;
+
+/**
+ * Tests that {@link BufferDissolveOp} computes
+ * the union of the buffers of the input geometries.
+ *
+ * @version 1.7
+ */
+public class BufferDissolveOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public BufferDissolveOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(BufferDissolveOpTest.class);
+  }
+
+  public void testEmpty()
+    throws Exception
+  {
+    assertNull(BufferDissolveOp.bufferDissolve(new ArrayList(), 1));
+    List geoms = new ArrayList();
+    geoms.add(reader.read("POINT EMPTY"));
+    assertTrue(BufferDissolveOp.bufferDissolve(geoms, 1).isEmpty());
+  }
+
+  public void testMixed()
+    throws Exception
+  {
+    List geoms = new ArrayList();
+    geoms.add(reader.read("POINT (0 0)"));
+    geoms.add(reader.read("POINT (0 0)"));
+    geoms.add(reader.read("MULTIPOINT ((3 0), (20 20))"));
+    geoms.add(reader.read("LINESTRING (5 5, 10 5)"));
+    geoms.add(reader.read("POLYGON ((0 10, 5 10, 5 15, 0 15, 0 10))"));
+    geoms.add(reader.read("GEOMETRYCOLLECTION (POINT (30 30), LINESTRING (30 0, 40 0))"));
+    checkDissolve(geoms, 1);
+    checkDissolve(geoms, 3);
+  }
+
+  public void testOverlappingPolygons()
+    throws Exception
+  {
+    List geoms = new ArrayList();
+    geoms.add(reader.read("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0))"));
+    geoms.add(reader.read("POLYGON ((5 5, 15 5, 15 15, 5 15, 5 5))"));
+    geoms.add(reader.read("POLYGON ((30 0, 40 0, 40 10, 30 10, 30 0))"));
+    checkDissolve(geoms, 2);
+    checkDissolve(geoms, -2);
+  }
+
+  public void testPoints()
+  {
+    Random rnd = new Random(13);
+    List pts = new ArrayList();
+    for (int i = 0; i < 500; i++) {
+      pts.add(geomFact.createPoint(
+          new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100)));
+    }
+    checkDissolve(pts, 1);
+    checkDissolve(pts, 5);
+  }
+
+  private void checkDissolve(List geoms, double distance)
+  {
+    List bufs = new ArrayList();
+    for (Iterator i = geoms.iterator(); i.hasNext(); ) {
+      bufs.add(((Geometry) i.next()).buffer(distance));
+    }
+    Geometry expected = CascadedPolygonUnion.union(bufs);
+
+    for (int parallelism = 1; parallelism <= 2; parallelism++) {
+      BufferDissolveOp op = new BufferDissolveOp(geoms);
+      op.setParallelism(parallelism);
+      Geometry actual = op.getResultGeometry(distance);
+      assertTrue(actual.isValid());
+      assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+      double tolerance = 1e-9 * expected.getArea();
+      assertEquals(expected.getArea(), actual.getArea(), tolerance);
+      assertTrue(expected.symDifference(actual).getArea() <= tolerance);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package test.jts.junit.operation.buffer;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.buffer.*;
+
+/**
+ * Tests {@link MultiBufferOp}.
+ *
+ * @version 1.7
+ */
+public class MultiBufferOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public MultiBufferOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(MultiBufferOpTest.class);
+  }
+
+  public void testLines()
+  {
+    Geometry lines = createLines(100);
+    double[] distances = new double[] { 5, 10, 15, 20, 30 };
+    Geometry[] buffers = MultiBufferOp.buffers(lines, distances);
+    for (int i = 0; i < distances.length; i++) {
+      checkBuffer(lines, distances[i], buffers[i]);
+    }
+  }
+
+  public void testPoints()
+    throws Exception
+  {
+    Geometry points = reader.read("MULTIPOINT ((0 0), (10 0), (5 5), (5 20), (30 30))");
+    double[] distances = new double[] { 2, 4, 8, 16 };
+    Geometry[] buffers = MultiBufferOp.buffers(points, distances);
+    for (int i = 0; i < distances.length; i++) {
+      checkBuffer(points, distances[i], buffers[i]);
+    }
+  }
+
+  public void testRings()
+  {
+    Geometry lines = createLines(50);
+    double[] distances = new double[] { 5, 10, 20 };
+    Geometry[] rings = MultiBufferOp.rings(lines, distances);
+    Geometry[] buffers = MultiBufferOp.buffers(lines, distances);
+    assertTrue(rings[0].equalsExact(buffers[0]));
+    double ringArea = 0.0;
+    for (int i = 0; i < rings.length; i++) {
+      assertTrue(rings[i].isValid());
+      ringArea += rings[i].getArea();
+      // the rings do not overlap
+      if (i > 0)
+        assertEquals(0.0, rings[i].intersection(rings[i - 1]).getArea(), 1e-6);
+    }
+    assertEquals(buffers[buffers.length - 1].getArea(), ringArea, 1e-6 * ringArea);
+  }
+
+  /**
+   * Buffers with negative distances or square end caps
+   * are computed directly.
+   */
+  public void testDirect()
+    throws Exception
+  {
+    Geometry poly = reader.read("MULTIPOLYGON (((0 0, 100 0, 100 100, 0 100, 0 0)), ((200 0, 250 0, 250 50, 200 50, 200 0)))");
+    double[] distances = new double[] { -20, -10, 0, 10 };
+    Geometry[] buffers = MultiBufferOp.buffers(poly, distances);
+    for (int i = 0; i < distances.length; i++) {
+      assertTrue(buffers[i].equalsExact(poly.buffer(distances[i])));
+    }
+
+    BufferParameters params = new BufferParameters();
+    params.setEndCapStyle(BufferParameters.CAP_SQUARE);
+    Geometry lines = createLines(20);
+    buffers = MultiBufferOp.buffers(lines, new double[] { 5, 10 }, params);
+    assertTrue(buffers[1].equalsExact(BufferOp.bufferOp(lines, 10, params)));
+  }
+
+  public void testDistancesNotIncreasing()
+  {
+    Geometry lines = createLines(10);
+    try {
+      MultiBufferOp.buffers(lines, new double[] { 10, 5 });
+      fail();
+    }
+    catch (IllegalArgumentException ex) {
+    }
+  }
+
+  private void checkBuffer(Geometry geom, double distance, Geometry buffer)
+  {
+    assertTrue(buffer.isValid());
+    // the results differ only in the approximation of the arcs
+    Geometry expected = geom.buffer(distance);
+    double area = expected.getArea();
+    assertEquals(area, buffer.getArea(), 0.005 * area);
+    assertEquals(0.0, buffer.symDifference(expected).getArea(), 0.005 * area);
+  }
+
+  private Geometry createLines(int nLines)
+  {
+    Random random = new Random(1);
+    LineString[] lines = new LineString[nLines];
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[4];
+      pts[0] = new Coordinate(200 * random.nextDouble(), 200 * random.nextDouble());
+      for (int j = 1; j < pts.length; j++) {
+        pts[j] = new Coordinate(pts[j - 1].x + 20 * random.nextDouble() - 10,
+            pts[j - 1].y + 20 * random.nextDouble() - 10);
+      }
+      lines[i] = geomFact.createLineString(pts);
+    }
+    return geomFact.createMultiLineString(lines);
+  }
+}
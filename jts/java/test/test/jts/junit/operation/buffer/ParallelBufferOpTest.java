@@ -0,0 +1,130 @@
+package test.jts.junit.operation.buffer;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.buffer.*;
+
+/**
+ * Tests that {@link ParallelBufferOp} computes
+ * the same result as {@link BufferOp}.
+ *
+ * @version 1.7
+ */
+public class ParallelBufferOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public ParallelBufferOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(ParallelBufferOpTest.class);
+  }
+
+  public void testDisjointPolygons()
+    throws Exception
+  {
+    Geometry geom = reader.read("MULTIPOLYGON (((0 0, 10 0, 10 10, 0 10, 0 0)), ((20 0, 30 0, 30 10, 20 10, 20 0)), ((100 100, 110 100, 110 110, 100 110, 100 100)))");
+    checkBuffer(geom, 2, 1000);
+    // the buffers of the first two polygons overlap
+    checkBuffer(geom, 6, 1000);
+    checkBuffer(geom, -2, 1000);
+    checkBuffer(geom, -6, 1000);
+  }
+
+  public void testIslands()
+  {
+    Geometry islands = createIslands(100);
+    checkBuffer(islands, 0.5, 1000);
+    checkBuffer(islands, 2, 1000);
+    checkBuffer(islands, -0.5, 1000);
+    checkBuffer(islands, 0, 1000);
+  }
+
+  public void testLines()
+  {
+    Geometry lines = createLines(60);
+    // small clusters, so that the lines are split into many clusters
+    checkBuffer(lines, 1, 50);
+    checkBuffer(lines, 5, 50);
+    checkBuffer(lines, -1, 50);
+  }
+
+  public void testBufferOpParallelism()
+  {
+    Geometry islands = createIslands(50);
+    BufferOp op = new BufferOp(islands);
+    op.setParallelism(2);
+    Geometry actual = op.getResultGeometry(2);
+    checkEqual(islands.buffer(2), actual);
+  }
+
+  private void checkBuffer(Geometry geom, double distance, int maxClusterVertices)
+  {
+    Geometry expected = BufferOp.bufferOp(geom, distance);
+    Geometry serial = null;
+    for (int parallelism = 1; parallelism <= 4; parallelism *= 2) {
+      ParallelBufferOp op = new ParallelBufferOp(geom);
+      op.setParallelism(parallelism);
+      op.setMaxClusterVertices(maxClusterVertices);
+      Geometry actual = op.getResultGeometry(distance);
+      checkEqual(expected, actual);
+      // the result does not depend on the number of threads
+      if (serial == null)
+        serial = actual;
+      else
+        assertTrue(serial.equalsExact(actual));
+    }
+  }
+
+  private void checkEqual(Geometry expected, Geometry actual)
+  {
+    assertTrue(actual.isValid());
+    assertTrue(actual instanceof Polygonal);
+    if (expected.isEmpty()) {
+      assertTrue(actual.isEmpty());
+      return;
+    }
+    assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+    double tolerance = 1e-9 * expected.getArea();
+    assertEquals(expected.getArea(), actual.getArea(), tolerance);
+    assertTrue(expected.symDifference(actual).getArea() <= tolerance);
+  }
+
+  private Geometry createIslands(int n)
+  {
+    Random rnd = new Random(7);
+    Polygon[] islands = new Polygon[n];
+    for (int i = 0; i < n; i++) {
+      // one island in each 10 x 10 cell of a grid
+      Coordinate pt = new Coordinate(10 * (i % 20) + 4 + rnd.nextDouble() * 2,
+          10 * (i / 20) + 4 + rnd.nextDouble() * 2);
+      islands[i] = (Polygon) geomFact.createPoint(pt).buffer(1 + rnd.nextDouble() * 3, 3);
+    }
+    return geomFact.createMultiPolygon(islands);
+  }
+
+  private Geometry createLines(int n)
+  {
+    Random rnd = new Random(11);
+    LineString[] lines = new LineString[n];
+    for (int i = 0; i < n; i++) {
+      Coordinate[] pts = new Coordinate[5];
+      double x = rnd.nextDouble() * 200;
+      double y = rnd.nextDouble() * 200;
+      for (int j = 0; j < pts.length; j++) {
+        pts[j] = new Coordinate(x, y);
+        x += (rnd.nextDouble() - 0.5) * 20;
+        y += (rnd.nextDouble() - 0.5) * 20;
+      }
+      lines[i] = geomFact.createLineString(pts);
+    }
+    return geomFact.createMultiLineString(lines);
+  }
+}
@@ -0,0 +1,121 @@
+package test.jts.junit.operation.buffer;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.buffer.*;
+import com.vividsolutions.jts.operation.union.*;
+
+/**
+ * Tests buffers of points and round end caps,
+ * which are created from precomputed arc templates
+ * and, for disjoint point buffers, without noding.
+ *
+ * @version 1.7
+ */
+public class PointBufferTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public PointBufferTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(PointBufferTest.class);
+  }
+
+  public void testCircleVertices()
+    throws Exception
+  {
+    Geometry buffer = reader.read("POINT (10 20)").buffer(5, 4);
+    Coordinate[] pts = buffer.getCoordinates();
+    assertEquals(17, pts.length);
+    for (int i = 0; i < pts.length; i++) {
+      assertEquals(5, pts[i].distance(new Coordinate(10, 20)), 1e-12);
+    }
+    // the circle starts at angle 0 and is clockwise
+    assertTrue(new Coordinate(15, 20).equals2D(pts[0]));
+    assertEquals(-5 * Math.sin(Math.PI / 8), pts[1].y - 20, 1e-12);
+  }
+
+  public void testRoundCap()
+    throws Exception
+  {
+    Geometry line = reader.read("LINESTRING (0 0, 3 4)");
+    Geometry buffer = line.buffer(1, 8);
+    assertTrue(buffer.isValid());
+    Coordinate[] pts = buffer.getCoordinates();
+    for (int i = 0; i < pts.length; i++) {
+      assertEquals(1, line.distance(geomFact.createPoint(pts[i])), 1e-12);
+    }
+    // the end caps are made of half circles of 16 segments
+    assertEquals(2 * 17 + 1, pts.length);
+  }
+
+  public void testCapStyles()
+    throws Exception
+  {
+    Geometry pts = reader.read("MULTIPOINT ((0 0), (10 0), (11 0))");
+    assertTrue(BufferOp.bufferOp(pts, 1, 8, BufferParameters.CAP_FLAT).isEmpty());
+    Geometry squares = BufferOp.bufferOp(pts, 1, 8, BufferParameters.CAP_SQUARE);
+    assertEquals(2, squares.getNumGeometries());
+    assertEquals(4 + 6, squares.getArea(), 1e-12);
+  }
+
+  public void testDuplicatePoints()
+    throws Exception
+  {
+    Geometry buffer = reader.read("MULTIPOINT ((0 0), (10 0), (0 0))").buffer(1);
+    assertTrue(buffer.isValid());
+    assertEquals(2, buffer.getNumGeometries());
+  }
+
+  public void testRandomPoints()
+  {
+    Random rnd = new Random(17);
+    Coordinate[] pts = new Coordinate[300];
+    for (int i = 0; i < pts.length; i++) {
+      pts[i] = new Coordinate(rnd.nextInt(1000) / 10.0, rnd.nextInt(1000) / 10.0);
+    }
+    Geometry multiPoint = geomFact.createMultiPoint(pts);
+    checkUnion(multiPoint, 0.5);
+    checkUnion(multiPoint, 2);
+  }
+
+  /**
+   * Points sharing an X ordinate, which are binned by both ordinates.
+   */
+  public void testColumnPoints()
+  {
+    Coordinate[] pts = new Coordinate[5000];
+    for (int i = 0; i < pts.length; i++) {
+      pts[i] = new Coordinate(0, 3 * i);
+    }
+    Geometry multiPoint = geomFact.createMultiPoint(pts);
+    assertEquals(pts.length, multiPoint.buffer(1).getNumGeometries());
+    assertEquals(pts.length, BufferOp.bufferOp(multiPoint, 1, 8,
+        BufferParameters.CAP_SQUARE).getNumGeometries());
+    // points 3 apart overlap for a distance of 2
+    assertEquals(1, multiPoint.buffer(2).getNumGeometries());
+  }
+
+  private void checkUnion(Geometry multiPoint, double distance)
+  {
+    List bufs = new ArrayList();
+    for (int i = 0; i < multiPoint.getNumGeometries(); i++) {
+      bufs.add(multiPoint.getGeometryN(i).buffer(distance));
+    }
+    Geometry expected = CascadedPolygonUnion.union(bufs);
+    Geometry actual = multiPoint.buffer(distance);
+    assertTrue(actual.isValid());
+    assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+    double tolerance = 1e-9 * expected.getArea();
+    assertEquals(expected.getArea(), actual.getArea(), tolerance);
+    assertTrue(expected.symDifference(actual).getArea() <= tolerance);
+  }
+}
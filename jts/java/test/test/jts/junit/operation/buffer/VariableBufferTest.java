@@ -0,0 +1,107 @@
+package test.jts.junit.operation.buffer;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.buffer.*;
+
+/**
+ * Tests {@link VariableBuffer}.
+ *
+ * @version 1.7
+ */
+public class VariableBufferTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public VariableBufferTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(VariableBufferTest.class);
+  }
+
+  public void testConstantDistance()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 10 0, 10 10, 20 20, 30 0)");
+    Geometry actual = VariableBuffer.buffer(line, 2, 2);
+    Geometry expected = line.buffer(2);
+    assertTrue(actual.isValid());
+    // the results differ only in the joins
+    assertEquals(expected.getArea(), actual.getArea(), 0.01 * expected.getArea());
+    assertEquals(0.0, actual.symDifference(expected).getArea(), 0.01 * expected.getArea());
+  }
+
+  public void testTaper()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 100 0)");
+    Geometry buffer = VariableBuffer.buffer(line, 10, 0);
+    assertTrue(buffer.isValid());
+    assertTrue(buffer instanceof Polygon);
+    // a circle at the start, tapering to a point at the end
+    assertEquals(-10, buffer.getEnvelopeInternal().getMinX(), 1e-9);
+    assertEquals(100, buffer.getEnvelopeInternal().getMaxX(), 1e-9);
+    assertTrue(buffer.covers(reader.read("POINT (50 4)")));
+    assertTrue(! buffer.covers(reader.read("POINT (50 6)")));
+  }
+
+  public void testVertexDistances()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 20 0, 20 20, 0 20, 0 5)");
+    double[] distance = new double[] { 1, 5, 1, 3, 2 };
+    Geometry buffer = VariableBuffer.buffer(line, distance);
+    assertTrue(buffer.isValid());
+    for (int i = 0; i < distance.length; i++) {
+      Geometry pt = geomFact.createPoint(line.getCoordinateN(i));
+      // the buffer contains the circle at each vertex
+      assertTrue(buffer.covers(pt.buffer(distance[i] * 0.95)));
+    }
+    // the buffer does not extend far beyond the largest circle
+    assertTrue(line.buffer(5.1).covers(buffer));
+  }
+
+  public void testZeroDistances()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 10 0, 20 0, 30 0)");
+    Geometry buffer = VariableBuffer.buffer(line, new double[] { 0, 0, 2, 0 });
+    assertTrue(buffer.isValid());
+    assertEquals(10, buffer.getEnvelopeInternal().getMinX(), 1e-9);
+    assertEquals(30, buffer.getEnvelopeInternal().getMaxX(), 1e-9);
+    assertTrue(VariableBuffer.buffer(line, 0, 0).isEmpty());
+  }
+
+  public void testInterpolate()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 10 0, 10 30)");
+    double[] distance = VariableBuffer.interpolate(line, 1, 5);
+    assertEquals(1, distance[0], 1e-12);
+    assertEquals(2, distance[1], 1e-12);
+    assertEquals(5, distance[2], 1e-12);
+  }
+
+  public void testInvalidDistances()
+    throws Exception
+  {
+    LineString line = (LineString) reader.read("LINESTRING (0 0, 10 0)");
+    try {
+      VariableBuffer.buffer(line, new double[] { 1 });
+      fail();
+    }
+    catch (IllegalArgumentException ex) {
+    }
+    try {
+      VariableBuffer.buffer(line, new double[] { 1, -1 });
+      fail();
+    }
+    catch (IllegalArgumentException ex) {
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package test.jts.junit.operation.overlay;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.overlay.*;
+
+/**
+ * Tests that {@link InteractingOverlayOp} computes
+ * the same result as {@link OverlayOp}.
+ *
+ * @version 1.7
+ */
+public class InteractingOverlayOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public InteractingOverlayOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(InteractingOverlayOpTest.class);
+  }
+
+  public void testInsideOutsideInteracting()
+    throws Exception
+  {
+    Geometry a = reader.read("MULTIPOLYGON (((1 1, 1 2, 2 2, 2 1, 1 1)), ((8 8, 8 12, 12 12, 12 8, 8 8)), ((20 20, 20 21, 21 21, 21 20, 20 20)))");
+    Geometry b = reader.read("MULTIPOLYGON (((0 0, 0 10, 10 10, 10 0, 0 0)), ((30 30, 30 31, 31 31, 31 30, 30 30)))");
+    checkOverlay(a, b);
+    Geometry expected = reader.read("MULTIPOLYGON (((1 1, 1 2, 2 2, 2 1, 1 1)), ((8 8, 8 10, 10 10, 10 8, 8 8)))");
+    assertTrue(expected.equalsTopo(
+        InteractingOverlayOp.overlayOp(a, b, OverlayOp.INTERSECTION)));
+  }
+
+  public void testPolygonInHole()
+    throws Exception
+  {
+    Geometry a = reader.read("MULTIPOLYGON (((0 0, 0 10, 10 10, 10 0, 0 0), (2 2, 8 2, 8 8, 2 8, 2 2)), ((20 0, 20 10, 30 10, 30 0, 20 0)))");
+    Geometry b = reader.read("MULTIPOLYGON (((4 4, 4 6, 6 6, 6 4, 4 4)), ((25 5, 25 15, 35 15, 35 5, 25 5)))");
+    checkOverlay(a, b);
+  }
+
+  public void testTouching()
+    throws Exception
+  {
+    Geometry a = reader.read("MULTIPOLYGON (((0 0, 0 10, 10 10, 10 0, 0 0)), ((20 0, 20 10, 30 10, 30 0, 20 0)))");
+    Geometry b = reader.read("MULTIPOLYGON (((10 0, 10 10, 15 10, 15 0, 10 0)), ((40 0, 40 10, 50 10, 50 0, 40 0)))");
+    checkOverlay(a, b);
+  }
+
+  public void testDiscs()
+  {
+    // small discs, many of which lie inside or outside the large ones
+    Geometry a = RandomDiscs.create(300, 100, 0.5, 1.5, 1);
+    Geometry b = RandomDiscs.create(30, 100, 3, 10, 2);
+    checkOverlay(a, b);
+    checkOverlay(b, a);
+    // b with holes
+    Geometry box = geomFact.toGeometry(new Envelope(0, 100, 0, 100));
+    checkOverlay(a, box.difference(b));
+  }
+
+  private void checkOverlay(Geometry a, Geometry b)
+  {
+    checkOverlay(a, b, OverlayOp.INTERSECTION);
+    checkOverlay(a, b, OverlayOp.UNION);
+    checkOverlay(a, b, OverlayOp.DIFFERENCE);
+    checkOverlay(a, b, OverlayOp.SYMDIFFERENCE);
+  }
+
+  private void checkOverlay(Geometry a, Geometry b, int opCode)
+  {
+    Geometry expected = OverlayOp.overlayOp(a, b, opCode);
+    Geometry actual = InteractingOverlayOp.overlayOp(a, b, opCode);
+    assertTrue(actual.isValid());
+    assertEquals(expected.getArea(), actual.getArea(), 1e-9 * Math.max(1.0, expected.getArea()));
+    assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+    assertTrue(expected.equalsTopo(actual));
+  }
+}
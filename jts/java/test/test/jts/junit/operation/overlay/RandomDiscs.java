@@ -0,0 +1,41 @@
+package test.jts.junit.operation.overlay;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
+
+/**
+ * Creates polygonal test geometries which are the union
+ * of randomly placed discs of random sizes.
+ *
+ * @version 1.7
+ */
+public class RandomDiscs
+{
+  private static GeometryFactory geomFact = new GeometryFactory();
+
+  /**
+   * Creates the union of random discs
+   * whose centres lie in a square with its lower-left corner at the origin.
+   *
+   * @param n the number of discs
+   * @param size the side length of the square
+   * @param minRadius the minimum radius of a disc
+   * @param maxRadius the maximum radius of a disc
+   * @param seed the seed of the random generator
+   * @return the union of the discs
+   */
+  public static Geometry create(int n, double size,
+      double minRadius, double maxRadius, long seed)
+  {
+    Random rnd = new Random(seed);
+    List discs = new ArrayList();
+    for (int i = 0; i < n; i++) {
+      Coordinate pt = new Coordinate(rnd.nextDouble() * size, rnd.nextDouble() * size);
+      discs.add(geomFact.createPoint(pt).buffer(
+          minRadius + rnd.nextDouble() * (maxRadius - minRadius)));
+    }
+    return CascadedPolygonUnion.union(discs);
+  }
+}
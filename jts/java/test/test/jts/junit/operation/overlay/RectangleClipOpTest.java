@@ -0,0 +1,172 @@
+package test.jts.junit.operation.overlay;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.geom.util.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.overlay.*;
+
+/**
+ * Tests that {@link RectangleClipOp} computes
+ * the same result as intersection with the rectangle.
+ *
+ * @version 1.7
+ */
+public class RectangleClipOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public RectangleClipOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(RectangleClipOpTest.class);
+  }
+
+  public void testPoints()
+    throws Exception
+  {
+    Geometry geom = reader.read("MULTIPOINT ((0 0), (5 5), (10 5), (15 5))");
+    Geometry result = RectangleClipOp.clip(geom, new Envelope(0, 10, 0, 10));
+    assertTrue(reader.read("MULTIPOINT ((0 0), (5 5), (10 5))").equalsExact(result));
+  }
+
+  public void testLines()
+    throws Exception
+  {
+    Envelope rect = new Envelope(0, 10, 0, 10);
+    checkClip(reader.read("LINESTRING (-5 5, 5 5, 5 15, 8 15, 8 5, 15 5)"), rect);
+    checkClip(reader.read("LINESTRING (-5 -5, 15 15)"), rect);
+    // along the boundary
+    checkClip(reader.read("LINESTRING (-5 10, 15 10)"), rect);
+    checkClip(reader.read("LINESTRING (-5 20, 15 20)"), rect);
+  }
+
+  public void testInteriorVerticesKept()
+    throws Exception
+  {
+    Envelope rect = new Envelope(0, 1, 0, 1);
+    Geometry line = reader.read("LINESTRING (-1 0.1, 0.1 0.1, 0.3 0.7, 0.7 0.3, 0.9 0.9, 2 0.9)");
+    assertTrue(reader.read("LINESTRING (0 0.1, 0.1 0.1, 0.3 0.7, 0.7 0.3, 0.9 0.9, 1 0.9)")
+        .equalsExact(RectangleClipOp.clip(line, rect)));
+
+    // the Z of the unclipped vertices is kept
+    Geometry lineZ = reader.read("LINESTRING (-1 0.1 1, 0.1 0.1 2, 0.3 0.7 3, 2 0.7 4)");
+    Coordinate[] pts = RectangleClipOp.clip(lineZ, rect).getCoordinates();
+    assertEquals(2.0, pts[1].z, 0.0);
+    assertEquals(3.0, pts[2].z, 0.0);
+
+    Geometry poly = reader.read("POLYGON ((-1 -1, -1 0.5, 0.3 0.7, 0.7 0.3, 0.5 -1, -1 -1))");
+    Geometry clipped = RectangleClipOp.clip(poly, rect);
+    assertTrue(containsVertex(clipped, new Coordinate(0.3, 0.7)));
+    assertTrue(containsVertex(clipped, new Coordinate(0.7, 0.3)));
+  }
+
+  public void testPolygonCrossing()
+    throws Exception
+  {
+    Envelope rect = new Envelope(0, 10, 0, 10);
+    // a U shape, which clips to two polygons
+    checkClip(reader.read("POLYGON ((-5 2, 15 2, 15 8, -5 8, -5 6, 12 6, 12 4, -5 4, -5 2))"), rect);
+    // with a hole crossing the boundary, and a hole inside
+    checkClip(reader.read("POLYGON ((-5 -5, -5 15, 15 15, 15 -5, -5 -5), (8 2, 12 2, 12 4, 8 4, 8 2), (2 2, 4 2, 4 4, 2 4, 2 2))"), rect);
+  }
+
+  public void testPolygonContainingRectangle()
+    throws Exception
+  {
+    Envelope rect = new Envelope(0, 10, 0, 10);
+    checkClip(reader.read("POLYGON ((-5 -5, -5 15, 15 15, 15 -5, -5 -5))"), rect);
+    checkClip(reader.read("POLYGON ((-5 -5, -5 15, 15 15, 15 -5, -5 -5), (-2 -2, -2 12, 12 12, 12 -2, -2 -2))"), rect);
+    // sharing a side with the rectangle
+    checkClip(reader.read("POLYGON ((0 -5, 0 15, 15 15, 15 -5, 0 -5))"), rect);
+    checkClip(reader.read("POLYGON ((-5 -5, -5 0, 15 0, 15 -5, -5 -5))"), rect);
+  }
+
+  public void testPolygonBoundaryOnRectangle()
+    throws Exception
+  {
+    Envelope rect = new Envelope(0, 10, 0, 10);
+    checkClip(reader.read("POLYGON ((-5 0, -5 10, 5 10, 5 5, 15 5, 15 0, -5 0))"), rect);
+    // a hole touching the rectangle side
+    checkClip(reader.read("POLYGON ((-5 -5, -5 15, 15 15, 15 -5, -5 -5), (0 2, 4 2, 4 4, 0 4, 0 2))"), rect);
+  }
+
+  public void testDiscs()
+  {
+    Geometry discs = RandomDiscs.create(100, 100, 1, 7, 2);
+    Geometry box = geomFact.toGeometry(new Envelope(0, 100, 0, 100));
+    Geometry holes = box.difference(discs);
+    Random rnd = new Random(3);
+    for (int i = 0; i < 50; i++) {
+      double x = rnd.nextDouble() * 100;
+      double y = rnd.nextDouble() * 100;
+      Envelope rect = new Envelope(x, x + rnd.nextDouble() * 30, y, y + rnd.nextDouble() * 30);
+      checkClip(discs, rect);
+      checkClip(holes, rect);
+      checkClip(discs.getBoundary(), rect);
+    }
+  }
+
+  public void testGrid()
+  {
+    Geometry discs = RandomDiscs.create(100, 100, 1, 7, 4);
+    Envelope extent = new Envelope(10, 90, 20, 80);
+    int nx = 7;
+    int ny = 5;
+    Geometry[][] tiles = RectangleClipOp.clip(discs, extent, nx, ny);
+    double area = 0.0;
+    for (int iy = 0; iy < ny; iy++) {
+      for (int ix = 0; ix < nx; ix++) {
+        Envelope tileEnv = new Envelope(
+            10 + 80.0 * ix / nx, 10 + 80.0 * (ix + 1) / nx,
+            20 + 60.0 * iy / ny, 20 + 60.0 * (iy + 1) / ny);
+        Geometry expected = RectangleClipOp.clip(discs, tileEnv);
+        Geometry actual = tiles[iy][ix];
+        assertEquals(expected.getArea(), actual.getArea(), 1e-9);
+        assertTrue(actual.isValid());
+        area += actual.getArea();
+      }
+    }
+    assertEquals(RectangleClipOp.clip(discs, extent).getArea(), area, 1e-9);
+  }
+
+  private void checkClip(Geometry geom, Envelope rect)
+  {
+    Geometry actual = RectangleClipOp.clip(geom, rect);
+    assertTrue(actual.isValid());
+    Geometry expected = geom.intersection(geomFact.toGeometry(rect));
+    if (geom.getDimension() == 2) {
+      expected = geomFact.buildGeometry(PolygonExtracter.getPolygons(expected));
+      double tolerance = 1e-9 * Math.max(1.0, expected.getArea());
+      assertEquals(expected.getArea(), actual.getArea(), tolerance);
+      assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+      assertTrue(expected.symDifference(actual).getArea() <= tolerance);
+    }
+    else {
+      expected = geomFact.buildGeometry(LinearComponentExtracter.getLines(expected));
+      assertEquals(expected.getLength(), actual.getLength(), 1e-9);
+      if (expected.isEmpty()) {
+        assertTrue(actual.isEmpty());
+        return;
+      }
+      // the computed intersection points may differ by round-off
+      assertTrue(expected.buffer(1e-9).covers(actual));
+      assertTrue(actual.buffer(1e-9).covers(expected));
+    }
+  }
+
+  private static boolean containsVertex(Geometry geom, Coordinate pt)
+  {
+    Coordinate[] pts = geom.getCoordinates();
+    for (int i = 0; i < pts.length; i++) {
+      if (pts[i].equals2D(pt)) return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,53 @@
+package test.jts.junit.operation.overlay;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.overlay.*;
+import com.vividsolutions.jts.operation.overlay.snap.*;
+
+/**
+ * Tests that {@link SnapIfNeededOverlayOp} detects noding failures
+ * and reports the strategy used.
+ *
+ * @version 1.7
+ */
+public class SnapIfNeededOverlayOpTest extends TestCase
+{
+  private WKTReader reader = new WKTReader();
+
+  public SnapIfNeededOverlayOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(SnapIfNeededOverlayOpTest.class);
+  }
+
+  public void testOverlay()
+    throws Exception
+  {
+    Geometry a = reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+    Geometry b = reader.read("POLYGON ((5 5, 5 15, 15 15, 15 5, 5 5))");
+    SnapIfNeededOverlayOp op = new SnapIfNeededOverlayOp(a, b);
+    Geometry result = op.getResultGeometry(OverlayOp.INTERSECTION);
+    assertEquals(SnapIfNeededOverlayOp.OVERLAY, op.getStrategy());
+    assertTrue(reader.read("POLYGON ((5 5, 5 10, 10 10, 10 5, 5 5))").equalsTopo(result));
+  }
+
+  public void testInvalidNoding()
+    throws Exception
+  {
+    // almost coincident edges, which the overlay noding fails to node correctly
+    Geometry a = reader.read("MULTIPOLYGON (((53.55068676719696 115.64702836120247, 62.240425508507194 133.6605910462399, 66.02915603940767 131.83290825797627, 63.519788826329105 134.4084125057847, 77.84465432155928 148.36542610266721, 118.71615924444548 106.4167093127978, 152.3082389336942 90.2118973396887, 146.41256172314644 77.99033876761409, 147.629722305972 76.74109862651639, 144.19607068754024 73.39562062943733, 143.61850019238398 72.19833465465129, 143.1829004675758 72.4084678676394, 133.3048568107418 62.78408502963384, 106.85135390049555 89.93479806982164, 53.55068676719696 115.64702836120247)), ((-32.001745975573705 39.78120380749422, -14.379401167559152 49.239161487006356, 11.580330183554286 0.8702268296095639, 48.671056499132845 88.27922522033369, 67.08207709142283 80.46677869249912, 28.019844452250055 -11.588324268950785, 15.390676255855016 -6.229321994699732, 32.91038723000151 -38.872562553066416, 15.288042421986958 -48.33052023257855, -32.001745975573705 39.78120380749422)))");
+    Geometry b = reader.read("POLYGON ((53.55068676719696 115.64702836120247, 62.240425508507194 133.6605910462399, 152.3082389336942 90.2118973396887, 143.61850019238398 72.19833465465129, 53.55068676719696 115.64702836120247))");
+    assertTrue(! new OverlayOp(a, b).isNodingValid());
+
+    SnapIfNeededOverlayOp op = new SnapIfNeededOverlayOp(a, b);
+    Geometry result = op.getResultGeometry(OverlayOp.INTERSECTION);
+    assertEquals(SnapIfNeededOverlayOp.SNAP_INVALID_NODING, op.getStrategy());
+    assertTrue(result.isValid());
+    assertEquals(b.getArea(), result.getArea(), 1e-6 * b.getArea());
+  }
+}
@@ -0,0 +1,86 @@
+package test.jts.junit.operation.overlay;
+
+import junit.framework.TestCase;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.overlay.*;
+
+/**
+ * Tests that {@link TiledOverlayOp} computes
+ * the same result as {@link OverlayOp}.
+ *
+ * @version 1.7
+ */
+public class TiledOverlayOpTest extends TestCase
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+  private WKTReader reader = new WKTReader(geomFact);
+
+  public TiledOverlayOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(TiledOverlayOpTest.class);
+  }
+
+  public void testBoxes()
+    throws Exception
+  {
+    Geometry a = reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+    Geometry b = reader.read("POLYGON ((5 5, 5 15, 15 15, 15 5, 5 5))");
+    checkOverlay(a, b, 3, 3, 1);
+  }
+
+  public void testDisjoint()
+    throws Exception
+  {
+    Geometry a = reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+    Geometry b = reader.read("POLYGON ((20 20, 20 30, 30 30, 30 20, 20 20))");
+    checkOverlay(a, b, 4, 4, 1);
+    assertTrue(TiledOverlayOp.overlayOp(a, b, OverlayOp.INTERSECTION, 1).isEmpty());
+  }
+
+  public void testDiscs()
+  {
+    Geometry a = RandomDiscs.create(200, 100, 1, 5, 1);
+    Geometry b = RandomDiscs.create(200, 100, 1, 5, 2);
+    checkOverlay(a, b, 5, 4, 1);
+    checkOverlay(a, b, 5, 4, 4);
+  }
+
+  public void testNonPolygonal()
+    throws Exception
+  {
+    Geometry a = reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))");
+    Geometry b = reader.read("LINESTRING (-5 5, 15 5)");
+    Geometry result = TiledOverlayOp.overlayOp(a, b, OverlayOp.INTERSECTION, 1);
+    assertTrue(reader.read("LINESTRING (0 5, 10 5)").equalsTopo(result));
+  }
+
+  private void checkOverlay(Geometry a, Geometry b, int nTilesX, int nTilesY, int parallelism)
+  {
+    checkOverlay(a, b, OverlayOp.INTERSECTION, nTilesX, nTilesY, parallelism);
+    checkOverlay(a, b, OverlayOp.UNION, nTilesX, nTilesY, parallelism);
+    checkOverlay(a, b, OverlayOp.DIFFERENCE, nTilesX, nTilesY, parallelism);
+    checkOverlay(a, b, OverlayOp.SYMDIFFERENCE, nTilesX, nTilesY, parallelism);
+  }
+
+  private void checkOverlay(Geometry a, Geometry b, int opCode,
+      int nTilesX, int nTilesY, int parallelism)
+  {
+    Geometry expected = OverlayOp.overlayOp(a, b, opCode);
+    TiledOverlayOp op = new TiledOverlayOp(a, b);
+    op.setTileCount(nTilesX, nTilesY);
+    op.setParallelism(parallelism);
+    Geometry actual = op.getResultGeometry(opCode);
+
+    assertTrue(actual.isValid());
+    // the tile clipping adds vertices, so compare allowing for round-off
+    double tolerance = 1e-9 * Math.max(1.0, expected.getArea());
+    assertEquals(expected.getArea(), actual.getArea(), tolerance);
+    assertEquals(expected.getNumGeometries(), actual.getNumGeometries());
+    assertTrue(expected.symDifference(actual).getArea() <= tolerance);
+  }
+}
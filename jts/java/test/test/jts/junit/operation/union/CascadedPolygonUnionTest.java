@@ -66,6 +66,32 @@ public class CascadedPolygonUnionTest extends TestCase
   }
 
   
+  public void testParallel()
+  throws Exception
+  {
+  	Collection geoms = createDiscs(20, 0.7);
+  	Geometry serialUnion = CascadedPolygonUnion.union(geoms);
+  	
+  	CascadedPolygonUnion op = new CascadedPolygonUnion(geoms);
+  	op.setParallelism(4);
+  	op.setSequentialCutoff(4);
+  	Geometry parallelUnion = op.union();
+  	
+  	// the same unions are computed, so the result is identical
+  	assertTrue(serialUnion.equalsExact(parallelUnion));
+  	
+  	// the default cutoff splits the input into parallel tasks as well
+  	Geometry defaultCutoffUnion = CascadedPolygonUnion.union(geoms, 4);
+  	assertTrue(serialUnion.equalsExact(defaultCutoffUnion));
+  	
+  	// a cutoff larger than the input is the same as the serial algorithm
+  	CascadedPolygonUnion cutoffOp = new CascadedPolygonUnion(geoms);
+  	cutoffOp.setParallelism(4);
+  	cutoffOp.setSequentialCutoff(geoms.size() + 1);
+  	Geometry cutoffUnion = cutoffOp.union();
+  	assertTrue(serialUnion.equalsExact(cutoffUnion));
+  }
+
   // TODO: add some synthetic tests
   
   private static CascadedPolygonUnionTester tester = new CascadedPolygonUnionTester();
@@ -0,0 +1,88 @@
+package test.jts.junit.operation.union;
+
+import java.util.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.union.*;
+
+import junit.framework.TestCase;
+
+public class DissolveOpTest extends TestCase
+{
+	GeometryFactory geomFact = new GeometryFactory();
+	WKTReader reader = new WKTReader(geomFact);
+
+  public DissolveOpTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(DissolveOpTest.class);
+  }
+
+  public void testSimple()
+  throws Exception
+  {
+    DissolveOp op = new DissolveOp();
+    op.add("A", reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))"));
+    op.add("B", reader.read("POLYGON ((20 0, 20 10, 30 10, 30 0, 20 0))"));
+    op.add("A", reader.read("POLYGON ((5 0, 5 10, 15 10, 15 0, 5 0))"));
+    Map result = op.getResult();
+
+    assertEquals(2, result.size());
+    // keys are in the order they were added
+    Iterator keys = result.keySet().iterator();
+    assertEquals("A", keys.next());
+    assertEquals("B", keys.next());
+    assertTrue(reader.read("POLYGON ((0 0, 0 10, 15 10, 15 0, 0 0))")
+        .equalsTopo((Geometry) result.get("A")));
+    assertTrue(reader.read("POLYGON ((20 0, 20 10, 30 10, 30 0, 20 0))")
+        .equalsTopo((Geometry) result.get("B")));
+  }
+
+  public void testEmpty()
+  {
+    assertEquals(0, new DissolveOp().getResult().size());
+  }
+
+  public void testSizeMismatch()
+  {
+    List keys = new ArrayList();
+    keys.add("A");
+    try {
+      DissolveOp.dissolve(keys, new ArrayList(), 1);
+      fail();
+    }
+    catch (IllegalArgumentException ex) {
+    }
+  }
+
+  public void testParallel()
+  {
+    List keys = new ArrayList();
+    List geoms = new ArrayList();
+    Random rnd = new Random(1);
+    for (int i = 0; i < 500; i++) {
+      // groups of very different sizes
+      Integer key = new Integer((int) Math.sqrt(rnd.nextInt(100)));
+      Coordinate pt = new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100);
+      keys.add(key);
+      geoms.add(geomFact.createPoint(pt).buffer(5.0));
+    }
+    Map serial = DissolveOp.dissolve(keys, geoms, 1);
+    Map parallel = DissolveOp.dissolve(keys, geoms, 4);
+    assertEquals(new ArrayList(serial.keySet()), new ArrayList(parallel.keySet()));
+    for (Iterator i = serial.keySet().iterator(); i.hasNext(); ) {
+      Object key = i.next();
+      Geometry expected = (Geometry) serial.get(key);
+      assertTrue(expected.equalsExact((Geometry) parallel.get(key)));
+
+      // check against a union of the group
+      List group = new ArrayList();
+      for (int j = 0; j < keys.size(); j++) {
+        if (keys.get(j).equals(key)) group.add(geoms.get(j));
+      }
+      assertTrue(expected.equalsExact(UnaryUnionOp.union(group)));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package test.jts.junit.operation.union;
+
+import java.util.*;
+import test.jts.junit.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.io.*;
+import com.vividsolutions.jts.operation.union.*;
+
+import junit.framework.TestCase;
+
+public class StreamingUnionTest extends TestCase
+{
+	GeometryFactory geomFact = new GeometryFactory();
+	WKTReader reader = new WKTReader(geomFact);
+
+  public StreamingUnionTest(String name) {
+    super(name);
+  }
+
+  public static void main(String[] args) {
+    junit.textui.TestRunner.run(StreamingUnionTest.class);
+  }
+
+  public void testEmpty()
+  {
+    assertNull(new StreamingUnion().getResult());
+  }
+
+  public void testBoxes()
+  throws Exception
+  {
+    StreamingUnion union = new StreamingUnion(2);
+    union.add(reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))"));
+    union.add(reader.read("POLYGON ((5 0, 5 10, 15 10, 15 0, 5 0))"));
+    union.add(reader.read("POLYGON ((30 0, 30 10, 40 10, 40 0, 30 0))"));
+    Geometry expected = reader.read(
+        "MULTIPOLYGON (((0 0, 0 10, 15 10, 15 0, 0 0)), ((30 0, 30 10, 40 10, 40 0, 30 0)))");
+    assertTrue(expected.equalsTopo(union.getResult()));
+
+    // more geometries can be added after getting the result
+    union.add(reader.read("POLYGON ((10 0, 10 10, 35 10, 35 0, 10 0))"));
+    assertTrue(reader.read("POLYGON ((0 0, 0 10, 40 10, 40 0, 0 0))")
+        .equalsTopo(union.getResult()));
+  }
+
+  public void testDiscs()
+  {
+    List geoms = new ArrayList();
+    Random rnd = new Random(1);
+    for (int i = 0; i < 300; i++) {
+      Coordinate pt = new Coordinate(rnd.nextDouble() * 100, rnd.nextDouble() * 100);
+      geoms.add(geomFact.createPoint(pt).buffer(3.0));
+    }
+    Geometry expected = UnaryUnionOp.union(geoms);
+    // batch sizes which do and do not divide the input size
+    checkUnion(geoms, 10, expected);
+    checkUnion(geoms, 7, expected);
+    checkUnion(geoms, 1000, expected);
+  }
+
+  public void testResultBetweenBatches()
+  {
+    List geoms = new ArrayList();
+    Random rnd = new Random(1);
+    for (int i = 0; i < 100; i++) {
+      Coordinate pt = new Coordinate(rnd.nextDouble() * 50, rnd.nextDouble() * 50);
+      geoms.add(geomFact.createPoint(pt).buffer(3.0));
+    }
+    StreamingUnion union = new StreamingUnion(5);
+    for (int i = 0; i < geoms.size(); i++) {
+      union.add((Geometry) geoms.get(i));
+      // get intermediate results after some full batches and some partial ones
+      if (i % 13 == 12) {
+        Geometry expected = UnaryUnionOp.union(geoms.subList(0, i + 1));
+        checkResult(expected, union.getResult());
+      }
+    }
+    checkResult(UnaryUnionOp.union(geoms), union.getResult());
+  }
+
+  public void testMixed()
+  throws Exception
+  {
+    List geoms = new ArrayList();
+    geoms.add(reader.read("POLYGON ((0 0, 0 10, 10 10, 10 0, 0 0))"));
+    geoms.add(reader.read("LINESTRING (5 5, 20 5)"));
+    geoms.add(reader.read("POINT (5 5)"));
+    geoms.add(reader.read("POINT (30 30)"));
+    geoms.add(reader.read("POLYGON ((5 0, 5 10, 15 10, 15 0, 5 0))"));
+    Geometry expected = UnaryUnionOp.union(geoms);
+    for (int batchSize = 1; batchSize <= 3; batchSize++) {
+      StreamingUnion union = new StreamingUnion(batchSize);
+      for (Iterator i = geoms.iterator(); i.hasNext(); ) {
+        union.add((Geometry) i.next());
+      }
+      assertTrue(GeometryUtils.isEqual(expected, union.getResult()));
+    }
+  }
+
+  private void checkUnion(List geoms, int batchSize, Geometry expected)
+  {
+    StreamingUnion union = new StreamingUnion(batchSize);
+    for (Iterator i = geoms.iterator(); i.hasNext(); ) {
+      union.add((Geometry) i.next());
+    }
+    checkResult(expected, union.getResult());
+  }
+
+  private void checkResult(Geometry expected, Geometry result)
+  {
+    // the union order differs, so compare the results allowing for round-off
+    assertEquals(expected.getArea(), result.getArea(), 1e-6 * expected.getArea() + 1e-10);
+    assertEquals(expected.getLength(), result.getLength(), 1e-6 * expected.getLength());
+    assertTrue(expected.symDifference(result).getArea() <= 1e-6 * expected.getArea() + 1e-10);
+    assertEquals(expected.getNumGeometries(), result.getNumGeometries());
+  }
+}
@@ -0,0 +1,143 @@
+package test.jts.perf.index;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.quadtree.Quadtree;
+import com.vividsolutions.jts.index.rtree.RStarTree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the performance of spatial indexes 
+ * under a mixed workload of inserts, removes and queries,
+ * simulating a layer of moving points.
+ * Each round moves a proportion of the points 
+ * (by removing and reinserting them)
+ * and then runs a set of queries.
+ * Since an {@link STRtree} cannot be modified after it is built,
+ * it is rebuilt from scratch in each round.
+ * 
+ * @version 1.7
+ */
+public class DynamicIndexPerfTest 
+{
+  static final int NUM_ITEMS = 100000;
+  static final int NUM_ROUNDS = 20;
+  static final double MOVE_FRACTION = 0.1;
+  static final int NUM_QUERIES = 10000;
+  static final double EXTENT = 100000.0;
+  static final double QUERY_SIZE = 1000.0;
+
+  public static void main(String[] args) {
+    DynamicIndexPerfTest test = new DynamicIndexPerfTest();
+    // warm up
+    test.run(10000, 2);
+    System.out.println("---------------------------------------------------------");
+    test.run(NUM_ITEMS, NUM_ROUNDS);
+  }
+
+  private int hitCount = 0;
+  private ItemVisitor counter = new ItemVisitor() {
+    public void visitItem(Object item) { hitCount++; }
+  };
+  
+  public DynamicIndexPerfTest() {
+  }
+
+  public void run(int nItems, int nRounds)
+  {
+    System.out.println("# items: " + nItems + "   # rounds: " + nRounds);
+    runDynamic(new RStarTree(), "RStarTree", nItems, nRounds);
+    runDynamic(new Quadtree(), "Quadtree", nItems, nRounds);
+    runSTRtree(nItems, nRounds);
+  }
+  
+  private void runDynamic(SpatialIndex index, String name, int nItems, int nRounds)
+  {
+    Random rnd = new Random(1);
+    Envelope[] items = new Envelope[nItems];
+    for (int i = 0; i < nItems; i++) {
+      items[i] = randomPoint(rnd);
+      index.insert(items[i], items[i]);
+    }
+    hitCount = 0;
+    Stopwatch updateSW = new Stopwatch();
+    updateSW.stop();
+    Stopwatch querySW = new Stopwatch();
+    querySW.stop();
+    for (int round = 0; round < nRounds; round++) {
+      updateSW.start();
+      int nMoves = (int) (nItems * MOVE_FRACTION);
+      for (int j = 0; j < nMoves; j++) {
+        int i = rnd.nextInt(nItems);
+        index.remove(items[i], items[i]);
+        items[i] = randomPoint(rnd);
+        index.insert(items[i], items[i]);
+      }
+      updateSW.stop();
+      querySW.start();
+      runQueries(index, rnd);
+      querySW.stop();
+    }
+    report(name, updateSW, querySW);
+  }
+  
+  private void runSTRtree(int nItems, int nRounds)
+  {
+    Random rnd = new Random(1);
+    Envelope[] items = new Envelope[nItems];
+    for (int i = 0; i < nItems; i++) {
+      items[i] = randomPoint(rnd);
+    }
+    hitCount = 0;
+    Stopwatch updateSW = new Stopwatch();
+    updateSW.stop();
+    Stopwatch querySW = new Stopwatch();
+    querySW.stop();
+    for (int round = 0; round < nRounds; round++) {
+      updateSW.start();
+      int nMoves = (int) (nItems * MOVE_FRACTION);
+      for (int j = 0; j < nMoves; j++) {
+        int i = rnd.nextInt(nItems);
+        items[i] = randomPoint(rnd);
+      }
+      STRtree index = new STRtree();
+      for (int i = 0; i < nItems; i++) {
+        index.insert(items[i], items[i]);
+      }
+      index.build();
+      updateSW.stop();
+      querySW.start();
+      runQueries(index, rnd);
+      querySW.stop();
+    }
+    report("STRtree (rebuilt)", updateSW, querySW);
+  }
+  
+  private void runQueries(SpatialIndex index, Random rnd)
+  {
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      index.query(new Envelope(x, x + QUERY_SIZE, y, y + QUERY_SIZE), counter);
+    }
+  }
+  
+  private void report(String name, Stopwatch updateSW, Stopwatch querySW)
+  {
+    System.out.println(name 
+        + "   updates: " + updateSW.getTimeString()
+        + "   queries: " + querySW.getTimeString()
+        + "   (hits = " + hitCount + ")");
+  }
+  
+  private static Envelope randomPoint(Random rnd)
+  {
+    double x = rnd.nextDouble() * EXTENT;
+    double y = rnd.nextDouble() * EXTENT;
+    return new Envelope(x, x, y, y);
+  }
+}
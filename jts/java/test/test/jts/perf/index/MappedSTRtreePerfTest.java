@@ -0,0 +1,88 @@
+package test.jts.perf.index;
+
+import java.io.File;
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.ItemIdMapper;
+import com.vividsolutions.jts.index.strtree.MappedSTRtree;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.index.strtree.STRtreeFileWriter;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time to build a {@link PackedSTRtree}
+ * with the time to load the same tree from a file as a {@link MappedSTRtree},
+ * and the query times of the two trees.
+ *
+ * @version 1.7
+ */
+public class MappedSTRtreePerfTest
+{
+  static final int NUM_ITEMS = 2000000;
+  static final int NUM_QUERIES = 200000;
+  static final double EXTENT = 100000.0;
+  static final double ITEM_SIZE = 10.0;
+  static final double QUERY_SIZE = 500.0;
+
+  public static void main(String[] args) throws Exception {
+    MappedSTRtreePerfTest test = new MappedSTRtreePerfTest();
+    test.run();
+  }
+
+  public MappedSTRtreePerfTest() {
+  }
+
+  public void run() throws Exception
+  {
+    ItemIdMapper idMapper = new ItemIdMapper() {
+      public long getId(Object item) { return ((Integer) item).longValue(); }
+      public Object getItem(long id) { return new Integer((int) id); }
+    };
+
+    Stopwatch sw = new Stopwatch();
+    PackedSTRtree tree = new PackedSTRtree();
+    Random rnd = new Random(1);
+    for (int i = 0; i < NUM_ITEMS; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      tree.insert(new Envelope(x, x + ITEM_SIZE, y, y + ITEM_SIZE), new Integer(i));
+    }
+    tree.build();
+    System.out.println("Build " + NUM_ITEMS + " items: " + sw.getTimeString());
+
+    File file = File.createTempFile("strtree", ".bin");
+    file.deleteOnExit();
+    sw.reset();
+    new STRtreeFileWriter(idMapper).write(tree, file);
+    System.out.println("Write (" + file.length() / 1024 / 1024 + " MB): " + sw.getTimeString());
+
+    sw.reset();
+    MappedSTRtree mapped = new MappedSTRtree(file, idMapper);
+    System.out.println("Load: " + sw.getTimeString());
+
+    sw.reset();
+    long count = runQueries(mapped);
+    System.out.println("Mapped tree queries: " + sw.getTimeString() + "   hits: " + count);
+
+    sw.reset();
+    count = runQueries(tree);
+    System.out.println("Packed tree queries: " + sw.getTimeString() + "   hits: " + count);
+  }
+
+  private long runQueries(Object tree)
+  {
+    Random rnd = new Random(2);
+    long count = 0;
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      Envelope env = new Envelope(x, x + QUERY_SIZE, y, y + QUERY_SIZE);
+      if (tree instanceof MappedSTRtree)
+        count += ((MappedSTRtree) tree).queryIds(env).length;
+      else
+        count += ((PackedSTRtree) tree).query(env).size();
+    }
+    return count;
+  }
+}
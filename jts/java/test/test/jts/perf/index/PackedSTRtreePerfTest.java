@@ -0,0 +1,82 @@
+package test.jts.perf.index;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.SpatialIndex;
+import com.vividsolutions.jts.index.strtree.PackedSTRtree;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the heap footprint and query time 
+ * of a {@link PackedSTRtree} and an {@link STRtree}.
+ * 
+ * @version 1.7
+ */
+public class PackedSTRtreePerfTest 
+{
+  static final int NUM_ITEMS = 1000000;
+  static final int NUM_QUERIES = 100000;
+  static final double EXTENT = 100000.0;
+  static final double ITEM_SIZE = 10.0;
+  static final double QUERY_SIZE = 500.0;
+
+  public static void main(String[] args) {
+    PackedSTRtreePerfTest test = new PackedSTRtreePerfTest();
+    test.run(NUM_ITEMS);
+  }
+
+  private int hitCount = 0;
+  
+  public PackedSTRtreePerfTest() {
+  }
+
+  public void run(int nItems)
+  {
+    System.out.println("# items: " + nItems);
+    // warm up
+    run(new STRtree(), 10000);
+    run(new PackedSTRtree(), 10000);
+    
+    run(new STRtree(), nItems);
+    run(new PackedSTRtree(), nItems);
+  }
+  
+  private void run(SpatialIndex index, int nItems)
+  {
+    long memBefore = usedMemory();
+    Random rnd = new Random(1);
+    for (int i = 0; i < nItems; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      index.insert(new Envelope(x, x + ITEM_SIZE, y, y + ITEM_SIZE), new Integer(i));
+    }
+    // build
+    index.query(new Envelope());
+    long memUsed = usedMemory() - memBefore;
+    
+    ItemVisitor counter = new ItemVisitor() {
+      public void visitItem(Object item) { hitCount++; }
+    };
+    hitCount = 0;
+    Stopwatch sw = new Stopwatch();
+    for (int i = 0; i < NUM_QUERIES; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      index.query(new Envelope(x, x + QUERY_SIZE, y, y + QUERY_SIZE), counter);
+    }
+    System.out.println(index.getClass().getName() 
+        + "   heap: " + (memUsed / 1024 / 1024) + " MB"
+        + "   queries: " + sw.getTimeString()
+        + "   (hits = " + hitCount + ")");
+  }
+  
+  private static long usedMemory()
+  {
+    Runtime rt = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) System.gc();
+    return rt.totalMemory() - rt.freeMemory();
+  }
+}
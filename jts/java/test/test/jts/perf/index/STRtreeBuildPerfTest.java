@@ -0,0 +1,82 @@
+package test.jts.perf.index;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time taken by the serial and parallel 
+ * builds of an {@link STRtree}.
+ * <p>
+ * The larger item counts require a large heap (e.g. -Xmx16g).
+ * 
+ * @version 1.7
+ */
+public class STRtreeBuildPerfTest 
+{
+  static final int NODE_CAPACITY = 10;
+  static final double EXTENT = 100000.0;
+  static final double ITEM_SIZE = 10.0;
+
+  public static void main(String[] args) {
+    STRtreeBuildPerfTest test = new STRtreeBuildPerfTest();
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    if (args.length > 0) {
+      for (int i = 0; i < args.length; i++) {
+        test.run(Integer.parseInt(args[i]), parallelism);
+      }
+      return;
+    }
+    // warm up
+    test.run(100000, parallelism);
+    
+    test.run(1000000, parallelism);
+    test.run(10000000, parallelism);
+    test.run(50000000, parallelism);
+  }
+
+  public STRtreeBuildPerfTest() {
+  }
+
+  public void run(int nItems, int parallelism)
+  {
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# items: " + nItems + "   parallelism: " + parallelism);
+    Envelope[] envs = createEnvelopes(nItems);
+    
+    long serialTime = runBuild(envs, 1);
+    long parallelTime = runBuild(envs, parallelism);
+    System.out.println("Speedup: " + (double) serialTime / parallelTime);
+  }
+  
+  private long runBuild(Envelope[] envs, int parallelism)
+  {
+    STRtree tree = new STRtree(NODE_CAPACITY);
+    tree.setBuildParallelism(parallelism);
+    for (int i = 0; i < envs.length; i++) {
+      tree.insert(envs[i], envs[i]);
+    }
+    System.gc();
+    Stopwatch sw = new Stopwatch();
+    tree.build();
+    long time = sw.getTime();
+    System.out.println((parallelism > 1 ? "Parallel" : "Serial  ") 
+        + " build finished in " + sw.getTimeString()
+        + "   (depth = " + tree.depth() + ")");
+    return time;
+  }
+  
+  Envelope[] createEnvelopes(int nItems)
+  {
+    Random rnd = new Random(1);
+    Envelope[] envs = new Envelope[nItems];
+    for (int i = 0; i < nItems; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      envs[i] = new Envelope(x, x + ITEM_SIZE, y, y + ITEM_SIZE);
+    }
+    return envs;
+  }
+}
@@ -0,0 +1,102 @@
+package test.jts.perf.index;
+
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Measures the query throughput of a single shared {@link STRtree}
+ * queried by increasing numbers of threads.
+ * On a multi-core machine the throughput should scale 
+ * close to linearly with the number of threads, 
+ * since the query path does no locking.
+ * 
+ * @version 1.7
+ */
+public class STRtreeConcurrentQueryPerfTest 
+{
+  static final int NUM_ITEMS = 1000000;
+  static final int NUM_QUERIES_PER_THREAD = 200000;
+  static final double EXTENT = 100000.0;
+  static final double ITEM_SIZE = 10.0;
+  static final double QUERY_SIZE = 500.0;
+
+  public static void main(String[] args) throws Exception {
+    STRtreeConcurrentQueryPerfTest test = new STRtreeConcurrentQueryPerfTest();
+    test.run();
+  }
+
+  private STRtree tree;
+  
+  public STRtreeConcurrentQueryPerfTest() {
+  }
+
+  public void run() throws Exception
+  {
+    tree = createTree(NUM_ITEMS);
+    System.out.println("# items: " + NUM_ITEMS 
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+    // warm up
+    runQueries(1);
+    
+    int[] threadCounts = new int[] { 1, 2, 4, 8, 16 };
+    for (int i = 0; i < threadCounts.length; i++) {
+      runQueries(threadCounts[i]);
+    }
+  }
+  
+  private void runQueries(int nThreads) throws Exception
+  {
+    Thread[] threads = new Thread[nThreads];
+    for (int i = 0; i < nThreads; i++) {
+      threads[i] = new QueryThread(i);
+    }
+    Stopwatch sw = new Stopwatch();
+    for (int i = 0; i < nThreads; i++) threads[i].start();
+    for (int i = 0; i < nThreads; i++) threads[i].join();
+    long time = sw.getTime();
+    long nQueries = (long) nThreads * NUM_QUERIES_PER_THREAD;
+    System.out.println("Threads: " + nThreads
+        + "   time: " + sw.getTimeString()
+        + "   queries/s: " + (nQueries * 1000 / Math.max(time, 1)));
+  }
+  
+  private class QueryThread extends Thread
+  {
+    private Random rnd;
+    private int hitCount = 0;
+    
+    QueryThread(int seed)
+    {
+      rnd = new Random(seed);
+    }
+    
+    public void run()
+    {
+      ItemVisitor counter = new ItemVisitor() {
+        public void visitItem(Object item) { hitCount++; }
+      };
+      for (int i = 0; i < NUM_QUERIES_PER_THREAD; i++) {
+        double x = rnd.nextDouble() * EXTENT;
+        double y = rnd.nextDouble() * EXTENT;
+        tree.query(new Envelope(x, x + QUERY_SIZE, y, y + QUERY_SIZE), counter);
+      }
+    }
+  }
+  
+  private static STRtree createTree(int nItems)
+  {
+    Random rnd = new Random(1);
+    STRtree tree = new STRtree();
+    for (int i = 0; i < nItems; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      tree.insert(new Envelope(x, x + ITEM_SIZE, y, y + ITEM_SIZE), new Integer(i));
+    }
+    tree.build();
+    return tree;
+  }
+}
@@ -0,0 +1,98 @@
+package test.jts.perf.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.ItemVisitor;
+import com.vividsolutions.jts.index.strtree.ItemPairVisitor;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time to find all intersecting pairs of items from two {@link STRtree}s
+ * by querying one tree with each item of the other,
+ * and by a serial and parallel tree join.
+ *
+ * @version 1.7
+ */
+public class STRtreeJoinPerfTest
+{
+  static final int NUM_ITEMS = 1000000;
+  static final double EXTENT = 100000.0;
+  static final double ITEM_SIZE = 50.0;
+
+  public static void main(String[] args) {
+    STRtreeJoinPerfTest test = new STRtreeJoinPerfTest();
+    test.run();
+  }
+
+  private long pairCount;
+
+  public STRtreeJoinPerfTest() {
+  }
+
+  public void run()
+  {
+    System.out.println("# items per tree: " + NUM_ITEMS
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+    List envs1 = createEnvelopes(NUM_ITEMS, 1);
+    List envs2 = createEnvelopes(NUM_ITEMS, 2);
+    STRtree tree1 = createTree(envs1);
+    STRtree tree2 = createTree(envs2);
+    tree1.build();
+    tree2.build();
+
+    Stopwatch sw = new Stopwatch();
+    pairCount = 0;
+    ItemVisitor counter = new ItemVisitor() {
+      public void visitItem(Object item) { pairCount++; }
+    };
+    for (int i = 0; i < envs2.size(); i++) {
+      tree1.query((Envelope) envs2.get(i), counter);
+    }
+    System.out.println("Nested queries:   pairs = " + pairCount + "   time: " + sw.getTimeString());
+
+    int[] parallelism = new int[] { 1, 2, 4, 8 };
+    for (int i = 0; i < parallelism.length; i++) {
+      runJoin(tree1, tree2, parallelism[i]);
+    }
+  }
+
+  private void runJoin(STRtree tree1, STRtree tree2, int parallelism)
+  {
+    final long[] count = new long[1];
+    Stopwatch sw = new Stopwatch();
+    tree1.join(tree2, new ItemPairVisitor() {
+      public void visitPair(Object item1, Object item2) {
+        synchronized (count) {
+          count[0]++;
+        }
+      }
+    }, parallelism);
+    System.out.println("Join (parallelism " + parallelism + "):   pairs = " + count[0]
+        + "   time: " + sw.getTimeString());
+  }
+
+  private List createEnvelopes(int size, int seed)
+  {
+    List envs = new ArrayList();
+    Random rnd = new Random(seed);
+    for (int i = 0; i < size; i++) {
+      double x = rnd.nextDouble() * EXTENT;
+      double y = rnd.nextDouble() * EXTENT;
+      envs.add(new Envelope(x, x + ITEM_SIZE, y, y + ITEM_SIZE));
+    }
+    return envs;
+  }
+
+  private STRtree createTree(List envs)
+  {
+    STRtree tree = new STRtree();
+    for (int i = 0; i < envs.size(); i++) {
+      tree.insert((Envelope) envs.get(i), envs.get(i));
+    }
+    return tree;
+  }
+}
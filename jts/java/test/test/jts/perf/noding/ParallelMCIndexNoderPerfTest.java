@@ -0,0 +1,83 @@
+package test.jts.perf.noding;
+
+import java.util.*;
+
+import com.vividsolutions.jts.algorithm.*;
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.noding.*;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time of {@link MCIndexNoder}
+ * and {@link ParallelMCIndexNoder} on random lines,
+ * and checks that the nodings are identical.
+ *
+ * @version 1.7
+ */
+public class ParallelMCIndexNoderPerfTest
+{
+  public static void main(String[] args) {
+    ParallelMCIndexNoderPerfTest test = new ParallelMCIndexNoderPerfTest();
+    test.test(1000, 100);
+    test.test(5000, 100);
+  }
+
+  public ParallelMCIndexNoderPerfTest() {
+  }
+
+  public void test(int nLines, int nPts)
+  {
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# lines: " + nLines + "   # pts/line: " + nPts
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+
+    Stopwatch sw = new Stopwatch();
+    MCIndexNoder noder = new MCIndexNoder();
+    noder.setSegmentIntersector(new IntersectionAdder(new RobustLineIntersector()));
+    noder.computeNodes(createSegStrings(nLines, nPts));
+    List serial = new ArrayList(noder.getNodedSubstrings());
+    System.out.println("MCIndexNoder:   " + sw.getTimeString()
+        + "   # substrings: " + serial.size());
+
+    int[] parallelism = new int[] { 1, 2, 4, 8 };
+    for (int i = 0; i < parallelism.length; i++) {
+      List segStrings = createSegStrings(nLines, nPts);
+      sw.reset();
+      ParallelMCIndexNoder parallelNoder = new ParallelMCIndexNoder(new PrecisionModel());
+      parallelNoder.setParallelism(parallelism[i]);
+      parallelNoder.computeNodes(segStrings);
+      List result = new ArrayList(parallelNoder.getNodedSubstrings());
+      System.out.println("Parallelism " + parallelism[i] + ":   " + sw.getTimeString()
+          + (isEqual(serial, result) ? "" : "   RESULT DIFFERS"));
+    }
+  }
+
+  private static boolean isEqual(List segStrings0, List segStrings1)
+  {
+    if (segStrings0.size() != segStrings1.size()) return false;
+    for (int i = 0; i < segStrings0.size(); i++) {
+      if (! Arrays.equals(((SegmentString) segStrings0.get(i)).getCoordinates(),
+          ((SegmentString) segStrings1.get(i)).getCoordinates()))
+        return false;
+    }
+    return true;
+  }
+
+  private static List createSegStrings(int nLines, int nPts)
+  {
+    Random rnd = new Random(1);
+    List segStrings = new ArrayList();
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[nPts];
+      double x = rnd.nextDouble() * 1000;
+      double y = rnd.nextDouble() * 1000;
+      for (int j = 0; j < nPts; j++) {
+        x += rnd.nextDouble() * 2 - 1;
+        y += rnd.nextDouble() * 2 - 1;
+        pts[j] = new Coordinate(x, y);
+      }
+      segStrings.add(new NodedSegmentString(pts, null));
+    }
+    return segStrings;
+  }
+}
@@ -0,0 +1,67 @@
+package test.jts.perf.operation.buffer;
+
+import java.util.*;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.buffer.*;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time of computing the buffers of a network of lines
+ * at a series of distances by {@link BufferOp} and by {@link MultiBufferOp}.
+ *
+ * @version 1.7
+ */
+public class MultiBufferPerfTest
+{
+  public static void main(String[] args) {
+    MultiBufferPerfTest test = new MultiBufferPerfTest();
+    test.test(500, new double[] { 5, 10, 15, 20, 25, 30, 35, 40, 45, 50 });
+    test.test(2000, new double[] { 1, 2, 3, 4, 5 });
+  }
+
+  private GeometryFactory geomFact = new GeometryFactory();
+
+  public MultiBufferPerfTest() {
+  }
+
+  public void test(int nLines, double[] distances)
+  {
+    Geometry lines = createLines(nLines);
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# lines: " + nLines + "   # distances: " + distances.length
+        + "   max distance: " + distances[distances.length - 1]);
+
+    Stopwatch sw = new Stopwatch();
+    Geometry[] buffers = new Geometry[distances.length];
+    for (int i = 0; i < distances.length; i++) {
+      buffers[i] = BufferOp.bufferOp(lines, distances[i]);
+    }
+    System.out.println("BufferOp:        " + sw.getTimeString());
+
+    sw.reset();
+    Geometry[] multiBuffers = MultiBufferOp.buffers(lines, distances);
+    System.out.println("MultiBufferOp:   " + sw.getTimeString());
+    for (int i = 0; i < distances.length; i++) {
+      double areaDiff = multiBuffers[i].getArea() - buffers[i].getArea();
+      if (Math.abs(areaDiff) > 1e-3 * buffers[i].getArea())
+        System.out.println("Distance " + distances[i] + ": RESULT DIFFERS");
+    }
+  }
+
+  private Geometry createLines(int nLines)
+  {
+    Random random = new Random(1);
+    LineString[] lines = new LineString[nLines];
+    for (int i = 0; i < nLines; i++) {
+      Coordinate[] pts = new Coordinate[5];
+      pts[0] = new Coordinate(1000 * random.nextDouble(), 1000 * random.nextDouble());
+      for (int j = 1; j < pts.length; j++) {
+        pts[j] = new Coordinate(pts[j - 1].x + 20 * random.nextDouble() - 10,
+            pts[j - 1].y + 20 * random.nextDouble() - 10);
+      }
+      lines[i] = geomFact.createLineString(pts);
+    }
+    return geomFact.createMultiLineString(lines);
+  }
+}
@@ -0,0 +1,59 @@
+package test.jts.perf.operation.buffer;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.buffer.*;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time of {@link BufferOp} and {@link ParallelBufferOp}
+ * on a grid of small polygons (an "archipelago"),
+ * for distances at which the buffers are disjoint and at which they merge.
+ *
+ * @version 1.7
+ */
+public class ParallelBufferPerfTest
+{
+  public static void main(String[] args) {
+    ParallelBufferPerfTest test = new ParallelBufferPerfTest();
+    test.test(100, 1.0);
+    test.test(100, 4.0);
+  }
+
+  private GeometryFactory geomFact = new GeometryFactory();
+
+  public ParallelBufferPerfTest() {
+  }
+
+  public void test(int nSide, double distance)
+  {
+    Geometry islands = createIslands(nSide);
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# islands: " + islands.getNumGeometries()
+        + "   distance: " + distance
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+
+    Stopwatch sw = new Stopwatch();
+    Geometry buffer = BufferOp.bufferOp(islands, distance);
+    System.out.println("BufferOp:   " + sw.getTimeString());
+
+    int[] parallelism = new int[] { 1, 2, 4, 8 };
+    for (int i = 0; i < parallelism.length; i++) {
+      sw.reset();
+      Geometry parallelBuffer = ParallelBufferOp.bufferOp(islands, distance,
+          new BufferParameters(), parallelism[i]);
+      System.out.println("Parallelism " + parallelism[i] + ":   " + sw.getTimeString()
+          + (Math.abs(parallelBuffer.getArea() - buffer.getArea()) <= 1e-6 * buffer.getArea()
+              ? "" : "   RESULT DIFFERS"));
+    }
+  }
+
+  private Geometry createIslands(int nSide)
+  {
+    Polygon[] islands = new Polygon[nSide * nSide];
+    for (int i = 0; i < islands.length; i++) {
+      Coordinate centre = new Coordinate(10 * (i % nSide) + 5, 10 * (i / nSide) + 5);
+      islands[i] = (Polygon) geomFact.createPoint(centre).buffer(3.0);
+    }
+    return geomFact.createMultiPolygon(islands);
+  }
+}
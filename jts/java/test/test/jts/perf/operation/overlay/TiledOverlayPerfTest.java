@@ -0,0 +1,50 @@
+package test.jts.perf.operation.overlay;
+
+import com.vividsolutions.jts.geom.*;
+import com.vividsolutions.jts.operation.overlay.*;
+import com.vividsolutions.jts.util.Stopwatch;
+
+import test.jts.junit.operation.overlay.RandomDiscs;
+
+/**
+ * Compares the time of {@link OverlayOp} and {@link TiledOverlayOp}
+ * for the intersection of two large multipolygons,
+ * and reports the difference in area of the results.
+ *
+ * @version 1.7
+ */
+public class TiledOverlayPerfTest
+{
+  private GeometryFactory geomFact = new GeometryFactory();
+
+  public static void main(String[] args) {
+    TiledOverlayPerfTest test = new TiledOverlayPerfTest();
+    test.test(2000);
+    test.test(10000);
+  }
+
+  public TiledOverlayPerfTest() {
+  }
+
+  public void test(int nDiscs)
+  {
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# discs: " + nDiscs
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+    Geometry a = RandomDiscs.create(nDiscs, Math.sqrt(nDiscs) * 10, 2, 8, 1);
+    Geometry b = RandomDiscs.create(nDiscs, Math.sqrt(nDiscs) * 10, 2, 8, 2);
+    System.out.println("# pts: " + a.getNumPoints() + " / " + b.getNumPoints());
+
+    Stopwatch sw = new Stopwatch();
+    Geometry expected = OverlayOp.overlayOp(a, b, OverlayOp.INTERSECTION);
+    System.out.println("OverlayOp:   " + sw.getTimeString());
+
+    int[] parallelism = new int[] { 1, 2, 4, 8 };
+    for (int i = 0; i < parallelism.length; i++) {
+      sw.reset();
+      Geometry result = TiledOverlayOp.overlayOp(a, b, OverlayOp.INTERSECTION, parallelism[i]);
+      System.out.println("Tiled, parallelism " + parallelism[i] + ":   " + sw.getTimeString()
+          + "   area difference: " + Math.abs(result.getArea() - expected.getArea()));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package test.jts.perf.operation.union;
+
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.operation.union.CascadedPolygonUnion;
+import com.vividsolutions.jts.util.Stopwatch;
+
+/**
+ * Compares the time of serial and parallel {@link CascadedPolygonUnion}
+ * on the synthetic grid of overlapping circles
+ * used by {@link PolygonUnionPerfTest},
+ * and checks that the results are identical.
+ *
+ * @version 1.7
+ */
+public class ParallelPolygonUnionPerfTest
+{
+  public static void main(String[] args) {
+    ParallelPolygonUnionPerfTest test = new ParallelPolygonUnionPerfTest();
+    test.test(10000, 100, 10.0);
+    test.test(40000, 100, 10.0);
+  }
+
+  public ParallelPolygonUnionPerfTest() {
+  }
+
+  public void test(int nItems, int nPts, double size)
+  {
+    System.out.println("---------------------------------------------------------");
+    System.out.println("# items: " + nItems + "   # pts/item: " + nPts
+        + "   # processors: " + Runtime.getRuntime().availableProcessors());
+    List polys = new PolygonUnionPerfTest().createPolys(nItems, size, nPts);
+
+    Stopwatch sw = new Stopwatch();
+    Geometry serialUnion = CascadedPolygonUnion.union(polys);
+    System.out.println("Serial:   " + sw.getTimeString());
+
+    int[] parallelism = new int[] { 2, 4, 8 };
+    for (int i = 0; i < parallelism.length; i++) {
+      sw.reset();
+      Geometry union = CascadedPolygonUnion.union(polys, parallelism[i]);
+      System.out.println("Parallelism " + parallelism[i] + ":   " + sw.getTimeString()
+          + (union.equalsExact(serialUnion) ? "" : "   RESULT DIFFERS"));
+    }
+  }
+}